@@ -0,0 +1,70 @@
+package com.inventory.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds the {@code id_generators} rows used by the pooled table generators on
+ * {@code Order}, {@code OrderItem} and {@code StockReservation}.
+ * <p>
+ * Databases created while those tables used AUTO_INCREMENT already hold ids the
+ * generator knows nothing about, so each row is moved past the current maximum
+ * before the first order is written. The pooled optimizer can hand out up to
+ * one allocation below the stored value, hence the extra headroom.
+ * <p>
+ * A generator fetches its next block on a second connection while the
+ * inserting transaction still holds its own. Blocks are large so that this
+ * happens once every {@value #ALLOCATION_SIZE} ids rather than every few
+ * orders, and only a handful of the pool's connections can be waiting on a
+ * fetch at any time.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    // Also the allocationSize of the entities' @TableGenerator
+    public static final int ALLOCATION_SIZE = 500;
+
+    // generator row -> table whose ids it hands out
+    private static final Map<String, String> GENERATORS = Map.of(
+            "orders", "orders",
+            "order_items", "order_items",
+            "stock_reservations", "stock_reservations");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory is injected so Hibernate has created/updated the schema first
+    public IdGeneratorConfig(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initGenerators() {
+        GENERATORS.forEach(this::seed);
+    }
+
+    private void seed(String generator, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long required = maxId + ALLOCATION_SIZE + 1;
+
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class, generator);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)",
+                    generator, required);
+            logger.info("Seeded id generator '{}' at {}", generator, required);
+        } else if (current.get(0) < required) {
+            jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                    required, generator, required);
+            logger.info("Advanced id generator '{}' from {} to {}", generator, current.get(0), required);
+        }
+    }
+}
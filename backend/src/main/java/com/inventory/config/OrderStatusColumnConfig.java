@@ -0,0 +1,57 @@
+package com.inventory.config;
+
+import com.inventory.model.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Widens the MySQL {@code orders.status} column to every {@link OrderStatus}.
+ * <p>
+ * Hibernate maps the enum to a MySQL ENUM column, and {@code ddl-auto=update}
+ * never alters an existing column, so databases created before a status was
+ * added would reject orders in it.
+ */
+@Configuration
+public class OrderStatusColumnConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusColumnConfig.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory is injected so Hibernate has created/updated the schema first
+    public OrderStatusColumnConfig(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void widenStatusColumn() throws Exception {
+        String database = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"MySQL".equals(database)) {
+            return;
+        }
+        List<String> types = jdbcTemplate.queryForList("SELECT COLUMN_TYPE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'orders' AND COLUMN_NAME = 'status'", String.class);
+        if (types.isEmpty() || !types.get(0).regionMatches(true, 0, "enum(", 0, 5)) {
+            return;
+        }
+        String values = Arrays.stream(OrderStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(","));
+        if (types.get(0).equalsIgnoreCase("enum(" + values + ")")) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE orders MODIFY status ENUM(" + values + ") NOT NULL");
+        logger.info("Widened orders.status from {} to ENUM({})", types.get(0), values);
+    }
+}
@@ -2,15 +2,23 @@ package com.inventory.controller;
 
 import com.inventory.entity.UserActivityLog;
 import com.inventory.repository.mongo.UserActivityLogRepository;
+import com.inventory.service.ActivityIngestionPipeline;
+import com.inventory.service.ActivityJournal;
 import com.inventory.service.HybridInventoryService;
+import com.inventory.service.ProductTrends;
+import com.inventory.service.ViewCounter;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,12 +31,21 @@ public class ActivityLogController {
     private final HybridInventoryService hybridService;
     private final UserActivityLogRepository activityRepository;
     private final MongoTemplate mongoTemplate;
+    private final ViewCounter viewCounter;
+    private final ActivityIngestionPipeline activityPipeline;
+    private final ActivityJournal activityJournal;
+    private final ProductTrends productTrends;
 
     public ActivityLogController(HybridInventoryService hybridService, UserActivityLogRepository activityRepository,
-            MongoTemplate mongoTemplate) {
+            MongoTemplate mongoTemplate, ViewCounter viewCounter, ActivityIngestionPipeline activityPipeline,
+            ActivityJournal activityJournal, ProductTrends productTrends) {
         this.hybridService = hybridService;
         this.activityRepository = activityRepository;
         this.mongoTemplate = mongoTemplate;
+        this.viewCounter = viewCounter;
+        this.activityPipeline = activityPipeline;
+        this.activityJournal = activityJournal;
+        this.productTrends = productTrends;
     }
 
     @PostMapping
@@ -37,6 +54,30 @@ public class ActivityLogController {
         return ResponseEntity.accepted().build();
     }
 
+    // Events a client collected, logged in one request; unknown products are logged but not counted
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Integer>> logActivities(@RequestBody List<UserActivityLog> activities) {
+        return ResponseEntity.accepted().body(hybridService.logProductViews(activities));
+    }
+
+    // Activity ingestion: queue depth, write throughput, and events dropped or refused on overflow
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<Map<String, Object>> getIngestionStats() {
+        return ResponseEntity.ok(activityPipeline.getStats());
+    }
+
+    // Events spilled to the local journal while Mongo was unavailable and not yet replayed
+    @GetMapping("/journal")
+    public ResponseEntity<Map<String, Object>> getJournalBacklog() {
+        return ResponseEntity.ok(activityJournal.getStats());
+    }
+
+    // Write-behind view counts: views not yet in the analytics and how far behind they are
+    @GetMapping("/views/stats")
+    public ResponseEntity<Map<String, Object>> getViewCounterStats() {
+        return ResponseEntity.ok(viewCounter.getStats());
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<UserActivityLog>> getUserActivity(@PathVariable String userId) {
         return ResponseEntity.ok(activityRepository.findByUserId(userId));
@@ -63,11 +104,32 @@ public class ActivityLogController {
         return ResponseEntity.ok(recent);
     }
 
+    // From the in-memory trends once seeded; ?window=1h|24h|7d ranks by decayed views instead of all-time ones
     @GetMapping("/analytics/top-viewed")
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    public ResponseEntity<List<Map<String, Object>>> getTopViewedProducts() {
+    public ResponseEntity<List<Map<String, Object>>> getTopViewedProducts(
+            @RequestParam(required = false) String window) {
+        ProductTrends.Window ranking = ProductTrends.Window.of(window, ProductTrends.Window.ALL);
+        if (productTrends.isReady()) {
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (ProductTrends.Ranked ranked : productTrends.top(ranking, 10)) {
+                Map<String, Object> product = new LinkedHashMap<>();
+                product.put("productId", ranked.productId());
+                product.put("productName", productTrends.productName(ranked.productId()));
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("_id", product);
+                row.put("viewCount", Math.round(ranked.views()));
+                top.add(row);
+            }
+            return ResponseEntity.ok(top);
+        }
+
+        Criteria views = Criteria.where("action").is("PRODUCT_VIEW");
+        if (ranking != ProductTrends.Window.ALL) {
+            views = views.and("timestamp").gte(LocalDateTime.now().minus(ranking.decay()));
+        }
         Aggregation aggregation = newAggregation(
-                match(org.springframework.data.mongodb.core.query.Criteria.where("action").is("PRODUCT_VIEW")),
+                match(views),
                 group("productId", "productName").count().as("viewCount"),
                 sort(Sort.Direction.DESC, "viewCount"),
                 limit(10));
@@ -76,4 +138,10 @@ public class ActivityLogController {
         // Cast or assume safe since we are returning JSON
         return ResponseEntity.ok((List<Map<String, Object>>) (List<?>) results.getMappedResults());
     }
+
+    // Views counted by the top-viewed and trending summaries, per window
+    @GetMapping("/trends/stats")
+    public ResponseEntity<Map<String, Object>> getTrendStats() {
+        return ResponseEntity.ok(productTrends.getStats());
+    }
 }
@@ -3,6 +3,12 @@ package com.inventory.controller;
 import com.inventory.entity.InventoryAnalytics;
 import com.inventory.exception.AnalyticsException;
 import com.inventory.repository.mongo.InventoryAnalyticsRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.HybridInventoryService;
+import com.inventory.service.ProductTrends;
+import com.inventory.service.SerializedResponseCache;
+import com.inventory.service.UniqueViewers;
+import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -11,7 +17,10 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/analytics")
@@ -19,15 +28,27 @@ public class AnalyticsController {
 
     private final InventoryAnalyticsRepository analyticsRepository;
     private final MongoTemplate mongoTemplate;
+    private final HybridInventoryService hybridService;
+    private final SerializedResponseCache responseCache;
+    private final CatalogVersion catalogVersion;
+    private final ProductTrends productTrends;
+    private final UniqueViewers uniqueViewers;
 
-    public AnalyticsController(InventoryAnalyticsRepository analyticsRepository, MongoTemplate mongoTemplate) {
+    public AnalyticsController(InventoryAnalyticsRepository analyticsRepository, MongoTemplate mongoTemplate,
+            HybridInventoryService hybridService, SerializedResponseCache responseCache,
+            CatalogVersion catalogVersion, ProductTrends productTrends, UniqueViewers uniqueViewers) {
         this.analyticsRepository = analyticsRepository;
         this.mongoTemplate = mongoTemplate;
+        this.hybridService = hybridService;
+        this.responseCache = responseCache;
+        this.catalogVersion = catalogVersion;
+        this.productTrends = productTrends;
+        this.uniqueViewers = uniqueViewers;
     }
 
     @GetMapping("/product/{productId}")
     public ResponseEntity<InventoryAnalytics> getProductAnalytics(@PathVariable Long productId) {
-        return analyticsRepository.findByProductId(productId)
+        return hybridService.getProductAnalytics(productId)
                 .map(ResponseEntity::ok)
                 .orElseThrow(() -> new AnalyticsException("Analytics not found for product: " + productId));
     }
@@ -42,12 +63,52 @@ public class AnalyticsController {
         return ResponseEntity.ok(analyticsRepository.findByCategory(category));
     }
 
+    // Estimated distinct viewers across the category, merged from its products' viewer sketches
+    @GetMapping("/category/{category}/unique-viewers")
+    public ResponseEntity<Map<String, Object>> getCategoryUniqueViewers(@PathVariable String category) {
+        return ResponseEntity.ok(uniqueViewers.category(category));
+    }
+
+    @GetMapping("/unique-viewers/stats")
+    public ResponseEntity<Map<String, Object>> getUniqueViewerStats() {
+        return ResponseEntity.ok(uniqueViewers.getStats());
+    }
+
+    // Pre-serialized until the analytics change, with an ETag for conditional requests. Ranked by the in-memory
+    // trends once seeded: decayed views over ?window=1h|24h|7d (24h by default), or all-time views
     @GetMapping("/trending")
-    public ResponseEntity<List<InventoryAnalytics>> getTrendingProducts() {
-        Query query = new Query();
-        query.with(Sort.by(Sort.Direction.DESC, "totalViewCount"));
-        query.limit(10);
-        return ResponseEntity.ok(mongoTemplate.find(query, InventoryAnalytics.class));
+    public ResponseEntity<byte[]> getTrendingProducts(@RequestParam(required = false) String window,
+            HttpServletRequest request) {
+        ProductTrends.Window ranking = ProductTrends.Window.of(window, ProductTrends.Window.DAY);
+        boolean fromTrends = productTrends.isReady();
+        String key = "analytics/trending/" + (fromTrends ? ranking.label() : "views");
+        return responseCache.respond(key, catalogVersion::analytics, request, () -> {
+            if (fromTrends) {
+                return trending(ranking);
+            }
+            Query query = new Query();
+            query.with(Sort.by(Sort.Direction.DESC, "totalViewCount"));
+            query.limit(10);
+            return mongoTemplate.find(query, InventoryAnalytics.class);
+        });
+    }
+
+    // The analytics of the ten trending products, in trend order
+    private List<InventoryAnalytics> trending(ProductTrends.Window window) {
+        List<Long> productIds = productTrends.trending(window, 10);
+        Map<Long, InventoryAnalytics> byProduct = new HashMap<>();
+        for (InventoryAnalytics analytics : mongoTemplate.find(
+                Query.query(Criteria.where("productId").in(productIds)), InventoryAnalytics.class)) {
+            byProduct.put(analytics.getProductId(), analytics);
+        }
+        List<InventoryAnalytics> trending = new ArrayList<>(byProduct.size());
+        for (Long productId : productIds) {
+            InventoryAnalytics analytics = byProduct.get(productId);
+            if (analytics != null) {
+                trending.add(analytics);
+            }
+        }
+        return trending;
     }
 
     @GetMapping("/low-stock")
@@ -1,18 +1,47 @@
 package com.inventory.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.dto.InventoryDelta;
+import com.inventory.dto.InventoryDeltaResult;
+import com.inventory.dto.ProductPage;
+import com.inventory.dto.ProductView;
 import com.inventory.model.Product;
+import com.inventory.service.BulkInventoryService;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductImportService;
+import com.inventory.service.ProductPager;
+import com.inventory.service.ProductSearchIndex;
+import com.inventory.service.ProductStats;
 import com.inventory.service.ProductService;
+import com.inventory.service.ProductSuggester;
+import com.inventory.service.SerializedResponseCache;
+import com.inventory.service.StockAdjustmentExecutor;
+import com.inventory.service.StripedStockService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -24,6 +53,42 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private StockAdjustmentExecutor stockAdjustmentExecutor;
+
+    @Autowired
+    private BulkInventoryService bulkInventoryService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductPager productPager;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSuggester productSuggester;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductStats productStats;
+
+    @Autowired
+    private SerializedResponseCache responseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Create Product
     @PostMapping
     public ResponseEntity<Map<String, Object>> createProduct(@Valid @RequestBody Product product) {
@@ -38,11 +103,35 @@ public class ProductController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
-    // Get All Products
+    // Get All Products; one keyset page at a time when cursor or limit is given,
+    // and only the list columns with view=summary
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllProducts() {
+    public ResponseEntity<Map<String, Object>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String view) {
+        ProductView productView = ProductView.of(view);
+        if (cursor != null || limit != null) {
+            logger.info("GET /api/v1/products - Fetching a page of products");
+            ProductPage<?> page = productPager.page(cursor, limit, sort, includeTotal, productView);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("count", page.getSize());
+            response.put("data", page.getContent());
+            response.put("hasNext", page.isHasNext());
+            response.put("nextCursor", page.getNextCursor());
+            if (page.getTotalElements() != null) {
+                response.put("total", page.getTotalElements());
+            }
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+
         logger.info("GET /api/v1/products - Fetching all products");
-        List<Product> products = productService.getAllProducts();
+        List<?> products = productView == ProductView.SUMMARY ? productService.getAllProductSummaries()
+                : productService.getAllProducts();
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
@@ -80,9 +169,12 @@ public class ProductController {
 
     // Get Products by Category
     @GetMapping("/category/{category}")
-    public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable String category,
+            @RequestParam(required = false) String view) {
         logger.info("GET /api/v1/products/category/{} - Fetching products by category", category);
-        List<Product> products = productService.getProductsByCategory(category);
+        List<?> products = ProductView.of(view) == ProductView.SUMMARY
+                ? productService.getProductSummariesByCategory(category)
+                : productService.getProductsByCategory(category);
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
@@ -92,16 +184,82 @@ public class ProductController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    // Search Products
+    // Search Products: ranked over name, description, SKU and category, one page at a time
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String keyword) {
+    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String view) {
         logger.info("GET /api/v1/products/search?keyword={} - Searching products", keyword);
-        List<Product> products = productService.searchProducts(keyword);
+        ProductPage<?> results = ProductView.of(view) == ProductView.SUMMARY
+                ? productService.searchProductSummaries(keyword, page, size)
+                : productService.searchProducts(keyword, page, size);
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
-        response.put("count", products.size());
-        response.put("data", products);
+        response.put("count", results.getSize());
+        response.put("data", results.getContent());
+        response.put("page", page);
+        response.put("hasNext", results.isHasNext());
+        response.put("total", results.getTotalElements());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productSearchIndex.getStats());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Storefront autocomplete trie: size and memory footprint
+    @GetMapping("/suggest/stats")
+    public ResponseEntity<Map<String, Object>> getSuggestStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productSuggester.getStats());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Storefront facet bitmaps: size, memory and products waiting for a refresh
+    @GetMapping("/facets/stats")
+    public ResponseEntity<Map<String, Object>> getFacetStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productFacetIndex.getStats());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Dashboard aggregates; revalidated with If-None-Match, so an unchanged catalog costs a 304
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getProductStats(WebRequest request) {
+        ProductStats.Snapshot snapshot = productStats.snapshot();
+        if (snapshot.etag() != null && request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", snapshot.data());
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        if (snapshot.etag() != null) {
+            builder.eTag(snapshot.etag());
+        }
+        return builder.body(response);
+    }
+
+    // Dashboard aggregates: freshness and how often reconciliation found drift
+    @GetMapping("/stats/reconciliation")
+    public ResponseEntity<Map<String, Object>> getProductStatsReconciliation() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productStats.getStats());
 
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -151,6 +309,147 @@ public class ProductController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // Bulk Inventory Update: a JSON array of {id|sku, delta}
+    @PatchMapping(value = "/inventory:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> batchUpdateInventory(@RequestBody List<InventoryDelta> deltas) {
+        logger.info("PATCH /api/v1/products/inventory:batch - Applying {} stock delta(s)", deltas.size());
+        return batchResponse(bulkInventoryService.applyDeltas(deltas.iterator()));
+    }
+
+    // Bulk Inventory Update: one {id|sku, delta} object per line, applied as it streams in.
+    // A line that is not valid JSON is reported INVALID like any other bad line, and the stream goes on.
+    @PatchMapping(value = "/inventory:batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Map<String, Object>> batchUpdateInventoryStream(HttpServletRequest request)
+            throws IOException {
+        logger.info("PATCH /api/v1/products/inventory:batch - Applying streamed stock deltas");
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            Iterator<InventoryDelta> deltas = new Iterator<>() {
+                private int number;
+                private String next = advance();
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public InventoryDelta next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    String line = next;
+                    int lineNumber = number;
+                    next = advance();
+                    try {
+                        return objectMapper.readValue(line, InventoryDelta.class);
+                    } catch (JsonProcessingException e) {
+                        return InventoryDelta.malformed("Malformed JSON at line " + lineNumber + ": "
+                                + e.getOriginalMessage());
+                    }
+                }
+
+                // Blank lines are skipped but still counted, so messages name the right line
+                private String advance() {
+                    try {
+                        String line;
+                        do {
+                            line = lines.readLine();
+                            number++;
+                        } while (line != null && line.isBlank());
+                        return line;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return batchResponse(bulkInventoryService.applyDeltas(deltas));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> batchResponse(List<InventoryDeltaResult> results) {
+        Map<InventoryDeltaResult.Outcome, Long> summary = results.stream()
+                .collect(Collectors.groupingBy(InventoryDeltaResult::getOutcome, Collectors.counting()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Inventory batch processed");
+        response.put("count", results.size());
+        response.put("summary", summary);
+        response.put("data", results);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Import Products: CSV with a header row, upserted by SKU as the body streams in
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importProductsCsv(HttpServletRequest request,
+            @RequestHeader(value = "Import-Id", required = false) String importId) throws IOException {
+        logger.info("POST /api/v1/products/import - Importing products from CSV");
+        Map<String, Object> report = productImportService.importCsv(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), importId);
+        return importResponse(report);
+    }
+
+    // Import Products: one product object per line
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Map<String, Object>> importProductsNdjson(HttpServletRequest request,
+            @RequestHeader(value = "Import-Id", required = false) String importId) throws IOException {
+        logger.info("POST /api/v1/products/import - Importing products from NDJSON");
+        Map<String, Object> report = productImportService.importNdjson(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), importId);
+        return importResponse(report);
+    }
+
+    // Import Progress: poll a running import started with an Import-Id header
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<Map<String, Object>> getImport(@PathVariable String importId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productImportService.getImport(importId));
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> importResponse(Map<String, Object> report) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "COMPLETED".equals(report.get("status")) ? "success" : "error");
+        response.put("message", "Product import " + report.get("status").toString().toLowerCase());
+        response.put("data", report);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Version conflicts and retries of stock adjustments, per SKU
+    @GetMapping("/inventory/contention")
+    public ResponseEntity<Map<String, Object>> getInventoryContention() {
+        List<Map<String, Object>> contention = stockAdjustmentExecutor.getContention();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("count", contention.size());
+        response.put("data", contention);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", productCache.getStats());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Pre-serialized catalog responses: entries, bytes, hits and 304s
+    @GetMapping("/response-cache/stats")
+    public ResponseEntity<Map<String, Object>> getResponseCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", responseCache.getStats());
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     // Health Check
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
@@ -171,4 +470,33 @@ public class ProductController {
         response.put("data", orders);
         return ResponseEntity.ok(response);
     }
+
+    // Stripe a hot product's stock over sub-buckets
+    @PutMapping("/{id}/stripes")
+    public ResponseEntity<Map<String, Object>> stripeProduct(@PathVariable Long id,
+            @RequestParam(required = false) Integer buckets) {
+        logger.info("PUT /api/v1/products/{}/stripes - Striping stock over {} bucket(s)", id, buckets);
+        Product product = stripedStockService.stripe(id, buckets);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Product stock striped successfully");
+        response.put("data", product);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Stop striping a product's stock
+    @DeleteMapping("/{id}/stripes")
+    public ResponseEntity<Map<String, Object>> unstripeProduct(@PathVariable Long id) {
+        logger.info("DELETE /api/v1/products/{}/stripes - Removing stock stripes", id);
+        Product product = stripedStockService.unstripe(id);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Product stock stripes removed successfully");
+        response.put("data", product);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,31 @@
+package com.inventory.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted storefront listing: the matching products plus, per
+ * facet ({@code category}, {@code stock}, {@code priceBand},
+ * {@code minRating}), how many products each of its values would match
+ * under the filters picked in the other facets.
+ */
+public class FacetedProductPage<T> extends ProductPage<T> {
+    private Map<String, Map<String, Integer>> facets;
+
+    public FacetedProductPage() {
+    }
+
+    public FacetedProductPage(List<T> content, boolean hasNext, Long totalElements,
+            Map<String, Map<String, Integer>> facets) {
+        super(content, hasNext, null, totalElements);
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
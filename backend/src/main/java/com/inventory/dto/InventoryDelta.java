@@ -0,0 +1,59 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One line of a bulk inventory adjustment: a stock delta for the product
+ * identified by {@code id} or, failing that, {@code sku}.
+ */
+public class InventoryDelta {
+    private Long id;
+    private String sku;
+    private Integer delta;
+    // Why a streamed line could not be parsed; such a line is reported INVALID and skipped
+    @JsonIgnore
+    private String malformed;
+
+    public InventoryDelta() {
+    }
+
+    public InventoryDelta(Long id, String sku, Integer delta) {
+        this.id = id;
+        this.sku = sku;
+        this.delta = delta;
+    }
+
+    public static InventoryDelta malformed(String message) {
+        InventoryDelta line = new InventoryDelta();
+        line.malformed = message;
+        return line;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public String getMalformed() {
+        return malformed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryDeltaResult {
+
+    public enum Outcome {
+        UPDATED, NOT_FOUND, INSUFFICIENT_STOCK, INVALID
+    }
+
+    // Position of the line in the request, from 0
+    private int index;
+    private Long id;
+    private String sku;
+    private Integer delta;
+    private Outcome outcome;
+    // Stock on hand once the line's chunk was applied
+    private Integer quantity;
+    private String message;
+
+    public InventoryDeltaResult() {
+    }
+
+    public InventoryDeltaResult(int index, InventoryDelta line, Outcome outcome, String message) {
+        this.index = index;
+        if (line != null) {
+            this.id = line.getId();
+            this.sku = line.getSku();
+            this.delta = line.getDelta();
+        }
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,34 @@
+package com.inventory.dto;
+
+/**
+ * One storefront autocomplete entry.
+ */
+public class ProductSuggestion {
+    private final Long id;
+    private final String name;
+    private final String sku;
+    private final long views;
+
+    public ProductSuggestion(Long id, String name, String sku, long views) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+        this.views = views;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public long getViews() {
+        return views;
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventory.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only list view of a product: the columns a catalog or admin list
+ * shows, without the TEXT columns ({@code description}, {@code image_url})
+ * that make up most of a full row. Built by JPQL constructor expressions, so
+ * listing never creates managed entities.
+ */
+public class ProductSummary {
+    private final Long id;
+    private final String name;
+    private final String sku;
+    private final BigDecimal price;
+    private final Integer quantity;
+    private final String status;
+    private final String category;
+
+    public ProductSummary(Long id, String name, String sku, BigDecimal price, Integer quantity, String status,
+            String category) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+        this.price = price;
+        this.quantity = quantity;
+        this.status = status;
+        this.category = category;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+}
@@ -0,0 +1,24 @@
+package com.inventory.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Shape of the products in a listing, chosen with {@code ?view=}: full
+ * entities (the default) or {@link ProductSummary} rows.
+ */
+public enum ProductView {
+    FULL, SUMMARY;
+
+    public static ProductView of(String view) {
+        if (view == null || view.isBlank()) {
+            return FULL;
+        }
+        for (ProductView candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(view)) {
+                return candidate;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "view must be full or summary");
+    }
+}
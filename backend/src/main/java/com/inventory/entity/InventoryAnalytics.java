@@ -1,6 +1,9 @@
 package com.inventory.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -24,6 +27,11 @@ public class InventoryAnalytics {
     private Integer currentStock;
     private List<PriceHistory> priceHistory;
     private LocalDateTime lastUpdated;
+    // HyperLogLog sketch of the viewers' user ids, merged in by UniqueViewers
+    private byte[] viewerSketch;
+    // Estimated from viewerSketch when the analytics of one product are read; 1.6% standard error
+    @Transient
+    private Long uniqueViewers;
 
     public InventoryAnalytics() {
     }
@@ -132,6 +140,24 @@ public class InventoryAnalytics {
         this.lastUpdated = lastUpdated;
     }
 
+    @JsonIgnore
+    public byte[] getViewerSketch() {
+        return viewerSketch;
+    }
+
+    public void setViewerSketch(byte[] viewerSketch) {
+        this.viewerSketch = viewerSketch;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getUniqueViewers() {
+        return uniqueViewers;
+    }
+
+    public void setUniqueViewers(Long uniqueViewers) {
+        this.uniqueViewers = uniqueViewers;
+    }
+
     public static class PriceHistory {
         private Double price;
         private LocalDateTime timestamp;
@@ -0,0 +1,28 @@
+package com.inventory.exception;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+    private final int requested;
+    private final int available;
+
+    public InsufficientStockException(Long productId, String productName, int requested, int available) {
+        super("Insufficient stock for product: " + productName + " (requested " + requested + ", available "
+                + available + ")");
+        this.productId = productId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+}
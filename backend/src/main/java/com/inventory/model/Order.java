@@ -1,5 +1,6 @@
 package com.inventory.model;
 
+import com.inventory.config.IdGeneratorConfig;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -7,11 +8,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status", columnList = "status"))
 public class Order {
 
+    // Table-backed pooled ids (seeded by IdGeneratorConfig): IDENTITY would disable JDBC insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id_gen")
+    @TableGenerator(name = "order_id_gen", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders",
+            allocationSize = IdGeneratorConfig.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "order_date", nullable = false)
@@ -33,6 +38,29 @@ public class Order {
     @Column(name = "shipping_address", columnDefinition = "TEXT")
     private String shippingAddress;
 
+    // Client-supplied Idempotency-Key of the checkout that created this order
+    @Column(name = "idempotency_key", unique = true, length = 100)
+    private String idempotencyKey;
+
+    // Hash of the customer and items of that checkout; a reused key must come with the same request
+    @Column(name = "request_fingerprint", length = 64)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String requestFingerprint;
+
+    // Why an order ended up CANCELLED (e.g. insufficient stock) or FAILED; null otherwise
+    @Column(name = "status_reason")
+    private String statusReason;
+
+    // Accepted-but-unprocessed checkout request (JSON); cleared once the order leaves PENDING
+    @Column(name = "checkout_request", columnDefinition = "TEXT")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String checkoutRequest;
+
+    // Async checkout attempts that failed for reasons other than the cart itself
+    @Column(name = "checkout_attempts")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Integer checkoutAttempts;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     @com.fasterxml.jackson.annotation.JsonManagedReference
     private List<OrderItem> items = new ArrayList<>();
@@ -114,6 +142,46 @@ public class Order {
         this.shippingAddress = shippingAddress;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
+
+    public String getStatusReason() {
+        return statusReason;
+    }
+
+    public void setStatusReason(String statusReason) {
+        this.statusReason = statusReason;
+    }
+
+    public String getCheckoutRequest() {
+        return checkoutRequest;
+    }
+
+    public void setCheckoutRequest(String checkoutRequest) {
+        this.checkoutRequest = checkoutRequest;
+    }
+
+    public Integer getCheckoutAttempts() {
+        return checkoutAttempts;
+    }
+
+    public void setCheckoutAttempts(Integer checkoutAttempts) {
+        this.checkoutAttempts = checkoutAttempts;
+    }
+
     public List<OrderItem> getItems() {
         return items;
     }
@@ -1,5 +1,6 @@
 package com.inventory.model;
 
+import com.inventory.config.IdGeneratorConfig;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
@@ -7,8 +8,12 @@ import java.math.BigDecimal;
 @Table(name = "order_items")
 public class OrderItem {
 
+    // Table-backed pooled ids (seeded by IdGeneratorConfig): IDENTITY would disable JDBC insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id_gen")
+    @TableGenerator(name = "order_item_id_gen", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_items",
+            allocationSize = IdGeneratorConfig.ALLOCATION_SIZE)
     private Long id;
 
     @com.fasterxml.jackson.annotation.JsonBackReference
@@ -3,5 +3,6 @@ package com.inventory.model;
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
-    CANCELLED
+    CANCELLED,
+    FAILED
 }
@@ -7,7 +7,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// (sort key, id) pairs for keyset pagination of the catalog
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id") })
 
 public class Product {
 
@@ -33,6 +37,31 @@ public class Product {
     @Column(nullable = false)
     private Integer quantity;
 
+    // Units held by active cart reservations; only ever changed by guarded bulk updates
+    @Column(name = "reserved_quantity", nullable = false, insertable = false, updatable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private int reservedQuantity;
+
+    // Number of stock sub-buckets for a hot SKU (see StripedStockService); null when not striped
+    @Column(name = "stock_stripes", insertable = false, updatable = false)
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private Integer stockStripes;
+
+    // Units spread across the sub-buckets of a striped product; the quantity column holds the rest
+    @org.hibernate.annotations.Formula("(CASE WHEN stock_stripes > 0 THEN (SELECT COALESCE(SUM(b.quantity), 0) "
+            + "FROM stock_buckets b WHERE b.product_id = id) ELSE 0 END)")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private int stripedQuantity;
+
+    // Optimistic lock: read-modify-write saves fail if anyone changed the row since it was read.
+    // Bulk stock updates bump it too, so a checkout between the read and the save is caught.
+    @Version
+    @Column(name = "version", nullable = false)
+    @org.hibernate.annotations.ColumnDefault("0")
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @NotBlank(message = "SKU is required")
     @Column(nullable = false, unique = true, length = 50)
     private String sku;
@@ -100,12 +129,61 @@ public class Product {
         this.price = price;
     }
 
+    /**
+     * Total stock on hand; for a striped product this is the {@code quantity}
+     * column plus everything in its sub-buckets.
+     */
     public Integer getQuantity() {
-        return quantity;
+        return quantity == null ? null : quantity + stripedQuantity;
     }
 
+    /**
+     * Sets the total stock on hand. Writers of a striped product consolidate
+     * its buckets first (see StripedStockService), so the column takes it all.
+     */
     public void setQuantity(Integer quantity) {
-        this.quantity = quantity;
+        this.quantity = quantity == null ? null : quantity - stripedQuantity;
+    }
+
+    public int getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    public void setReservedQuantity(int reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
+    /**
+     * Stock that can still be sold or reserved: on hand minus active holds.
+     */
+    public int getAvailableQuantity() {
+        return quantity == null ? 0 : Math.max(0, getQuantity() - reservedQuantity);
+    }
+
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    public int getStripedQuantity() {
+        return stripedQuantity;
+    }
+
+    public Integer getStockStripes() {
+        return stockStripes;
+    }
+
+    public void setStockStripes(Integer stockStripes) {
+        this.stockStripes = stockStripes;
+    }
+
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    public boolean isStriped() {
+        return stockStripes != null && stockStripes > 0;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
     public String getSku() {
@@ -174,7 +252,7 @@ public class Product {
                 ", name='" + name + '\'' +
                 ", description='" + description + '\'' +
                 ", price=" + price +
-                ", quantity=" + quantity +
+                ", quantity=" + getQuantity() +
                 ", sku='" + sku + '\'' +
                 ", category='" + category + '\'' +
                 ", createdAt=" + createdAt +
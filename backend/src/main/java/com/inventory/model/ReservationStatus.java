@@ -0,0 +1,8 @@
+package com.inventory.model;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
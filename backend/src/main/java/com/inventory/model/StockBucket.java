@@ -0,0 +1,68 @@
+package com.inventory.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One sub-bucket of a striped product's stock. Checkouts for a hot SKU
+ * decrement a bucket row instead of the {@code products} row, spreading the
+ * row locks; see {@code StripedStockService}.
+ */
+@Entity
+@Table(name = "stock_buckets", uniqueConstraints = @UniqueConstraint(name = "uk_stock_buckets_product_bucket",
+        columnNames = { "product_id", "bucket" }))
+public class StockBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public StockBucket() {
+    }
+
+    public StockBucket(Long productId, Integer bucket, Integer quantity) {
+        this.productId = productId;
+        this.bucket = bucket;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(Integer bucket) {
+        this.bucket = bucket;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
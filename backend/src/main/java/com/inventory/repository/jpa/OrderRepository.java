@@ -1,10 +1,28 @@
 package com.inventory.repository.jpa;
 
 import com.inventory.model.Order;
+import com.inventory.model.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     java.util.List<Order> findByCustomerEmailIgnoreCase(String customerEmail);
+
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.checkoutRequest IS NOT NULL ORDER BY o.id")
+    List<Long> findIdsAwaitingProcessing(@Param("status") OrderStatus status, Pageable pageable);
 }
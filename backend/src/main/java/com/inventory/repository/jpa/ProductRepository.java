@@ -1,20 +1,153 @@
 package com.inventory.repository.jpa;
 
+import com.inventory.dto.ProductSummary;
 import com.inventory.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // List columns only; the TEXT columns are never read and no entities are created.
+    // The quantity column is only the unbucketed part of a striped product's stock, so the buckets are added.
+    String SELECT_SUMMARY = "SELECT new com.inventory.dto.ProductSummary(p.id, p.name, p.sku, p.price, " +
+            "p.quantity + p.stripedQuantity, p.status, p.category) FROM Product p";
+
     Optional<Product> findBySku(String sku);
 
     List<Product> findByCategory(String category);
 
     List<Product> findByNameContainingIgnoreCase(String name);
 
+    @Query(SELECT_SUMMARY)
+    List<ProductSummary> findAllSummaries();
+
+    @Query(value = SELECT_SUMMARY, countQuery = "SELECT COUNT(p) FROM Product p")
+    org.springframework.data.domain.Page<ProductSummary> findAllSummaries(
+            org.springframework.data.domain.Pageable pageable);
+
+    @Query(SELECT_SUMMARY + " WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") java.util.Collection<Long> ids);
+
+    @Query(SELECT_SUMMARY + " WHERE p.category = :category")
+    List<ProductSummary> findSummariesByCategory(@Param("category") String category);
+
+    /**
+     * Summary counterpart of {@link #findByNameContainingIgnoreCase}, with
+     * {@code %} and {@code _} in the keyword matched literally as there.
+     */
+    @Query(SELECT_SUMMARY + " WHERE UPPER(p.name) LIKE UPPER(CONCAT('%', :#{escape(#name)}, '%')) " +
+            "ESCAPE :#{escapeCharacter()}")
+    List<ProductSummary> findSummariesByNameContaining(@Param("name") String name);
+
     org.springframework.data.domain.Page<Product> findByQuantityGreaterThan(Integer quantity,
             org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Guarded stock decrement: only applies when at least {@code quantity} units
+     * are on hand and not held by cart reservations. Status is assigned before quantity so both MySQL (left-to-right
+     * assignment) and standard SQL see the pre-update quantity.
+     *
+     * @return 1 if the stock was decremented, 0 if the product is missing or short
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+            "p.status = CASE WHEN p.quantity = :quantity THEN 'OUT_OF_STOCK' ELSE p.status END, " +
+            "p.quantity = p.quantity - :quantity, " +
+            "p.version = p.version + 1, " +
+            "p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :id AND p.quantity - p.reservedQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Puts back stock taken by {@link #decrementStock}; the product is in stock
+     * again afterwards.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.status = 'IN_STOCK', p.quantity = p.quantity + :quantity, " +
+            "p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Holds {@code quantity} units for a cart reservation if that many are
+     * available; on-hand stock is untouched until the hold is consumed.
+     *
+     * @return 1 if the hold was taken, 0 if the product is missing or short
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity + :quantity " +
+            "WHERE p.id = :id AND p.quantity - p.reservedQuantity >= :quantity")
+    int holdStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Gives back a hold taken by {@link #holdStock} without selling it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity - :quantity " +
+            "WHERE p.id = :id AND p.reservedQuantity >= :quantity")
+    int releaseHold(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Turns a hold into a sale: on-hand stock and the hold shrink together.
+     * Fails only if on-hand stock was cut below the held amount meanwhile.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+            "p.status = CASE WHEN p.quantity = :quantity THEN 'OUT_OF_STOCK' ELSE p.status END, " +
+            "p.quantity = p.quantity - :quantity, " +
+            "p.reservedQuantity = p.reservedQuantity - :quantity, " +
+            "p.version = p.version + 1, " +
+            "p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :id AND p.reservedQuantity >= :quantity AND p.quantity >= :quantity")
+    int consumeHold(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Sellable stock (on hand minus held) for the availability cache.
+     */
+    @Query("SELECT p.quantity - p.reservedQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findAvailableQuantity(@Param("id") Long id);
+
+    /**
+     * Row-locks the products in ascending id order, for a transaction that
+     * goes on to update several of them in some other order.
+     */
+    @Query(value = "SELECT id FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockInIdOrder(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM Product p WHERE p.stockStripes > 0")
+    List<Product> findStriped();
+
+    /**
+     * Guarded decrement of a striped product's unbucketed stock. Leaves status
+     * alone: the buckets may still hold stock.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity, p.version = p.version + 1, " +
+            "p.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE p.id = :id AND p.quantity - p.reservedQuantity >= :quantity")
+    int takeFromBank(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Moves {@code quantity} units (negative to take them out) between a
+     * striped product's buckets and its unbucketed stock, and sets the status
+     * from the new total. {@code bucketed} is what the buckets hold afterwards.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+            "p.status = CASE WHEN p.quantity + :quantity + :bucketed > 0 THEN 'IN_STOCK' ELSE 'OUT_OF_STOCK' END, " +
+            "p.quantity = p.quantity + :quantity, " +
+            "p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.quantity + :quantity >= 0 " +
+            "AND (:quantity >= 0 OR p.quantity + :quantity >= p.reservedQuantity)")
+    int shiftBank(@Param("id") Long id, @Param("quantity") int quantity, @Param("bucketed") int bucketed);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockStripes = :stripes WHERE p.id = :id")
+    int updateStockStripes(@Param("id") Long id, @Param("stripes") Integer stripes);
 }
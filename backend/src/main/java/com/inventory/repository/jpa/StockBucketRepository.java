@@ -0,0 +1,57 @@
+package com.inventory.repository.jpa;
+
+import com.inventory.model.StockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockBucketRepository extends JpaRepository<StockBucket, Long> {
+
+    List<StockBucket> findByProductIdOrderByBucket(Long productId);
+
+    // Always locked in bucket order, before the products row, so lockers cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StockBucket b WHERE b.productId = :productId ORDER BY b.bucket")
+    List<StockBucket> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    // Unlocked read, so checkouts only try (and lock) buckets that looked able to serve them
+    @Query("SELECT b.bucket FROM StockBucket b WHERE b.productId = :productId AND b.quantity >= :quantity")
+    List<Integer> findBucketsHolding(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Guarded decrement of one bucket.
+     *
+     * @return 1 if the bucket held at least {@code quantity} units, otherwise 0
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBucket b SET b.quantity = b.quantity - :quantity " +
+            "WHERE b.productId = :productId AND b.bucket = :bucket AND b.quantity >= :quantity")
+    int take(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockBucket b SET b.quantity = b.quantity + :quantity " +
+            "WHERE b.productId = :productId AND b.bucket = :bucket")
+    int giveBack(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("quantity") int quantity);
+
+    // Caller holds the bucket locks (findByProductIdForUpdate)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockBucket b SET b.quantity = :quantity WHERE b.productId = :productId AND b.bucket = :bucket")
+    int setQuantity(@Param("productId") Long productId, @Param("bucket") int bucket,
+            @Param("quantity") int quantity);
+
+    // Writes every bucket row, so later reads in the same transaction see this transaction's values
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StockBucket b SET b.quantity = 0 WHERE b.productId = :productId")
+    int empty(@Param("productId") Long productId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM StockBucket b WHERE b.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
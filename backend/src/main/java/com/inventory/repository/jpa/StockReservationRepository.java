@@ -0,0 +1,40 @@
+package com.inventory.repository.jpa;
+
+import com.inventory.model.ReservationStatus;
+import com.inventory.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationIdOrderByProductId(String reservationId);
+
+    // Lines are locked in ascending id order, the same order the sweeper locks them in
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.reservationId = :reservationId ORDER BY r.id")
+    List<StockReservation> findByReservationIdForUpdate(@Param("reservationId") String reservationId);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = :status AND r.expiresAt < :now ORDER BY r.id")
+    List<Long> findExpiredIds(@Param("status") ReservationStatus status, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id IN :ids AND r.status = :status ORDER BY r.id")
+    List<StockReservation> findByIdInAndStatusForUpdate(@Param("ids") Collection<Long> ids,
+            @Param("status") ReservationStatus status);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :status WHERE r.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+}
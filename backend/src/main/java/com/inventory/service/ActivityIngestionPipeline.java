@@ -0,0 +1,357 @@
+package com.inventory.service;
+
+import com.inventory.entity.UserActivityLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous ingestion of activity events ({@code inventory.activity.*}).
+ * <p>
+ * Request threads put events on a bounded lock-free {@link RingBuffer} and
+ * return; a single writer thread drains it into {@code insertMany} batches of
+ * up to {@code batch-size} events, or fewer once the first event of a batch
+ * has waited {@code max-wait-ms}. When the ring is full the configured
+ * {@link OverflowPolicy} decides between making the caller wait, dropping
+ * the oldest queued event and refusing the new one with a 429. Producers
+ * claim ring slots from a counter before they offer, so a batch from
+ * {@link #submitAll} is queued whole or not at all. Each batch
+ * is counted by {@link ProductTrends} and {@link UniqueViewers} as the
+ * writer takes it.
+ * <p>
+ * A batch Mongo refuses goes to the local {@link ActivityJournal}, and so
+ * does every batch after it until the journal has been replayed, so a slow
+ * or unavailable Mongo neither fills the ring nor loses events. Only a batch
+ * the journal cannot take either is counted as failed and dropped. Events
+ * still queued at shutdown, or being queued as it began, are written before
+ * the writer stops. With the pipeline disabled every event is inserted on
+ * the caller's thread.
+ */
+@Service
+public class ActivityIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityIngestionPipeline.class);
+
+    // How long an idle writer or a blocked producer sleeps between looks at the ring
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    /** What {@link #submit} does when the ring is full. */
+    public enum OverflowPolicy {
+        // Wait for room, up to max-block-ms, then answer 503
+        BLOCK,
+        // Make room by discarding the oldest queued event
+        DROP_OLDEST,
+        // Refuse the event with 429 Too Many Requests
+        REJECT;
+
+        public static OverflowPolicy of(String policy) {
+            for (OverflowPolicy candidate : values()) {
+                if (candidate.name().equalsIgnoreCase(policy.trim().replace('-', '_'))) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unknown activity overflow policy '" + policy
+                    + "'; expected block, drop-oldest or reject");
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivityJournal journal;
+    private final ProductTrends productTrends;
+    private final UniqueViewers uniqueViewers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long maxBlockNanos;
+    private final RingBuffer<UserActivityLog> ring;
+    // Ring slots taken by queued events plus those claimed by producers about to offer
+    private final AtomicInteger claimed = new AtomicInteger();
+    // Producers between their look at running and their last offer; the writer waits for them before it stops
+    private final AtomicInteger publishing = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    // Events written per second over the last RATE_WINDOW_SECONDS; only the writer thread updates them
+    private final long[] writtenPerSecond = new long[RATE_WINDOW_SECONDS];
+    private final long[] secondOf = new long[RATE_WINDOW_SECONDS];
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ActivityIngestionPipeline(MongoTemplate mongoTemplate, ActivityJournal journal, ProductTrends productTrends,
+            UniqueViewers uniqueViewers,
+            @Value("${inventory.activity.enabled:true}") boolean enabled,
+            @Value("${inventory.activity.capacity:8192}") int capacity,
+            @Value("${inventory.activity.batch-size:500}") int batchSize,
+            @Value("${inventory.activity.max-wait-ms:50}") long maxWaitMs,
+            @Value("${inventory.activity.overflow:block}") String overflowPolicy,
+            @Value("${inventory.activity.max-block-ms:100}") long maxBlockMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.journal = journal;
+        this.productTrends = productTrends;
+        this.uniqueViewers = uniqueViewers;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.overflowPolicy = OverflowPolicy.of(overflowPolicy);
+        this.maxBlockNanos = TimeUnit.MILLISECONDS.toNanos(maxBlockMs);
+        this.ring = new RingBuffer<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "activity-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Activity ingestion started (ring of {}, batches of {}, overflow {})", ring.capacity(),
+                batchSize, overflowPolicy.name().toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // The writer keeps going until the ring is empty, so accepted events are not lost
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queues one event for the writer.
+     *
+     * @throws ResponseStatusException 429 when the ring is full under
+     *         {@link OverflowPolicy#REJECT}, 503 when {@link OverflowPolicy#BLOCK}
+     *         waited {@code max-block-ms} in vain
+     */
+    public void submit(UserActivityLog event) {
+        publishing.incrementAndGet();
+        try {
+            if (running) {
+                claim(1);
+                publish(event);
+                accepted.increment();
+                return;
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+        productTrends.record(List.of(event));
+        uniqueViewers.record(List.of(event));
+        mongoTemplate.insert(event);
+        written.increment();
+    }
+
+    /**
+     * Queues a batch of events, all or none: room for the whole batch is
+     * claimed before any of it is queued, under the same overflow policy as
+     * {@link #submit}. A batch larger than the ring is refused with a 413.
+     */
+    public void submitAll(List<UserActivityLog> events) {
+        if (events.size() > ring.capacity()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + ring.capacity() + " activity events per batch");
+        }
+        publishing.incrementAndGet();
+        try {
+            if (running) {
+                claim(events.size());
+                events.forEach(this::publish);
+                accepted.add(events.size());
+                return;
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+        productTrends.record(events);
+        uniqueViewers.record(events);
+        mongoTemplate.insert(events, UserActivityLog.class);
+        written.add(events.size());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("overflowPolicy", overflowPolicy.name().toLowerCase(Locale.ROOT));
+        stats.put("capacity", ring.capacity());
+        stats.put("queueDepth", ring.size());
+        stats.put("accepted", accepted.sum());
+        stats.put("written", written.sum());
+        stats.put("writtenPerSecond", writtenPerSecond());
+        stats.put("batches", batches.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("journaled", journaled.sum());
+        stats.put("failed", failed.sum());
+        stats.put("blockedMs", TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+        return stats;
+    }
+
+    private boolean tryClaim(int slots) {
+        while (true) {
+            int current = claimed.get();
+            if (current + slots > ring.capacity()) {
+                return false;
+            }
+            if (claimed.compareAndSet(current, current + slots)) {
+                return true;
+            }
+        }
+    }
+
+    // Claims ring slots for the events, applying the overflow policy when there are not enough free
+    private void claim(int slots) {
+        if (tryClaim(slots)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case REJECT -> {
+                rejected.add(slots);
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Activity ingestion is busy, please retry");
+            }
+            case DROP_OLDEST -> {
+                do {
+                    if (ring.poll() != null) {
+                        claimed.decrementAndGet();
+                        dropped.increment();
+                    } else {
+                        // Every slot is claimed by a producer that has not offered yet
+                        Thread.onSpinWait();
+                    }
+                } while (!tryClaim(slots));
+            }
+            case BLOCK -> {
+                long start = System.nanoTime();
+                try {
+                    while (!tryClaim(slots)) {
+                        if (System.nanoTime() - start >= maxBlockNanos) {
+                            rejected.add(slots);
+                            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                    "Activity ingestion is busy, please retry");
+                        }
+                        LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+                    }
+                } finally {
+                    blockedNanos.add(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    // The slot was claimed, so the offer only waits out a consumer that has not finished freeing it
+    private void publish(UserActivityLog event) {
+        while (!ring.offer(event)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void drain() {
+        List<UserActivityLog> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+        // A producer that saw running before stop() cleared it is still counted in publishing, or has
+        // already offered; checked in this order, neither leaves an event behind in the ring
+        while (running || publishing.get() > 0 || !ring.isEmpty()) {
+            UserActivityLog event = ring.poll();
+            if (event != null) {
+                claimed.decrementAndGet();
+                if (batch.isEmpty()) {
+                    batchStart = System.nanoTime();
+                }
+                batch.add(event);
+                if (batch.size() >= batchSize) {
+                    write(batch);
+                }
+                continue;
+            }
+            if (!batch.isEmpty() && System.nanoTime() - batchStart >= maxWaitNanos) {
+                write(batch);
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<UserActivityLog> batch) {
+        productTrends.record(batch);
+        uniqueViewers.record(batch);
+        try {
+            // Behind a backlog the journal keeps taking events, so they reach Mongo in order
+            if (!journal.hasBacklog()) {
+                try {
+                    mongoTemplate.insert(batch, UserActivityLog.class);
+                    written.add(batch.size());
+                    batches.increment();
+                    countWritten(batch.size());
+                    return;
+                } catch (RuntimeException e) {
+                    logger.warn("Writing {} activity event(s) failed, journaling them: {}", batch.size(),
+                            e.getMessage());
+                }
+            }
+            if (journal.append(batch)) {
+                journaled.add(batch.size());
+            } else {
+                failed.add(batch.size());
+                logger.warn("{} activity event(s) could not be written or journaled; they are dropped",
+                        batch.size());
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void countWritten(int events) {
+        long second = System.currentTimeMillis() / 1000;
+        int bucket = (int) (second % RATE_WINDOW_SECONDS);
+        if (secondOf[bucket] != second) {
+            secondOf[bucket] = second;
+            writtenPerSecond[bucket] = 0;
+        }
+        writtenPerSecond[bucket] += events;
+    }
+
+    // Average over the last full window; read racily from another thread, which is fine for a gauge
+    private double writtenPerSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        long events = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            if (now - secondOf[i] < RATE_WINDOW_SECONDS) {
+                events += writtenPerSecond[i];
+            }
+        }
+        return (double) events / RATE_WINDOW_SECONDS;
+    }
+}
@@ -0,0 +1,414 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.entity.UserActivityLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Local append-only journal for activity events Mongo could not take
+ * ({@code inventory.activity.journal.*}). The {@link ActivityIngestionPipeline}
+ * appends a batch here when {@code insertMany} fails, and keeps appending
+ * while there is a backlog so events stay roughly in order; the scheduled
+ * {@link #replay} writes the backlog to Mongo once it answers again.
+ * <p>
+ * The journal is a directory of numbered segment files written through a
+ * {@link FileChannel} and forced to disk after every batch. Each record is a
+ * JSON event framed by its length and CRC-32C, so a record torn by a crash is
+ * recognized and cut off when the journal is reopened. A segment is rotated
+ * at {@code segment-bytes}, sealed before it is replayed and deleted once
+ * all its events are in Mongo. Once the journal holds {@code max-bytes},
+ * further batches are refused and counted, as the disk is not allowed to
+ * fill up behind an outage.
+ * <p>
+ * Replay is at least once: the events of a batch Mongo took only partly, or
+ * of a segment half replayed when the process died, are written again.
+ */
+@Component
+public class ActivityJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Record frame: payload length, CRC-32C of the payload
+    private static final int HEADER_BYTES = 8;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final int replayBatchSize;
+
+    // Segments by number, oldest first; the last one is active while activeChannel is open
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private FileChannel activeChannel;
+    private long nextSegment = 1;
+    private long backlogBytes;
+    private long backlogEvents;
+    // How far replay got into the oldest segment
+    private long replayOffset;
+    private final Object replayLock = new Object();
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder corrupt = new LongAdder();
+    private volatile LocalDateTime lastReplayAt;
+    private volatile String lastReplayError;
+
+    public ActivityJournal(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+            @Value("${inventory.activity.journal.enabled:true}") boolean enabled,
+            @Value("${inventory.activity.journal.dir:data/activity-journal}") String directory,
+            @Value("${inventory.activity.journal.segment-bytes:16777216}") long segmentBytes,
+            @Value("${inventory.activity.journal.max-bytes:536870912}") long maxBytes,
+            @Value("${inventory.activity.journal.replay-batch-size:500}") int replayBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.replayBatchSize = Math.max(1, replayBatchSize);
+    }
+
+    /**
+     * Picks up the segments a previous run left behind, cutting a torn
+     * record off the end of each.
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long number = Long.parseLong(name, SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length(), 10);
+                    segments.put(number, recover(number, file));
+                }
+            }
+        }
+        for (Segment segment : segments.values()) {
+            backlogBytes += segment.bytes;
+            backlogEvents += segment.events;
+        }
+        if (!segments.isEmpty()) {
+            nextSegment = segments.lastKey() + 1;
+            logger.info("Activity journal holds {} event(s) in {} segment(s) to replay", backlogEvents,
+                    segments.size());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    /**
+     * Appends a batch of events and forces it to disk.
+     *
+     * @return false when the journal is disabled, full or cannot be written;
+     *         the events are then lost
+     */
+    public boolean append(List<UserActivityLog> events) {
+        if (!enabled || events.isEmpty()) {
+            return false;
+        }
+        ByteBuffer records;
+        try {
+            records = encode(events);
+        } catch (IOException e) {
+            logger.warn("Activity events could not be serialized for the journal: {}", e.getMessage());
+            return false;
+        }
+        synchronized (this) {
+            if (backlogBytes + records.remaining() > maxBytes) {
+                refused.add(events.size());
+                return false;
+            }
+            try {
+                if (activeChannel == null || segments.lastEntry().getValue().bytes >= segmentBytes) {
+                    rotate();
+                }
+                Segment active = segments.lastEntry().getValue();
+                int bytes = records.remaining();
+                while (records.hasRemaining()) {
+                    activeChannel.write(records);
+                }
+                activeChannel.force(false);
+                active.bytes += bytes;
+                active.events += events.size();
+                backlogBytes += bytes;
+                backlogEvents += events.size();
+            } catch (IOException e) {
+                logger.warn("Appending {} activity event(s) to the journal failed: {}", events.size(),
+                        e.getMessage());
+                closeQuietly();
+                return false;
+            }
+        }
+        appended.add(events.size());
+        return true;
+    }
+
+    /** Whether events are waiting in the journal; new events should queue up behind them. */
+    public synchronized boolean hasBacklog() {
+        return backlogEvents > 0;
+    }
+
+    /**
+     * Writes the journal to Mongo, oldest segment first, in batches of
+     * {@code replay-batch-size}. Stops at the first failed batch and goes on
+     * from there next time.
+     */
+    @Scheduled(fixedDelayString = "${inventory.activity.journal.replay-interval-ms:5000}")
+    public void replay() {
+        if (!enabled || !hasBacklog()) {
+            return;
+        }
+        synchronized (replayLock) {
+            Segment segment;
+            while ((segment = oldestSealed()) != null) {
+                try {
+                    if (!replay(segment)) {
+                        return;
+                    }
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    lastReplayError = e.getMessage();
+                    logger.warn("Replaying journal segment {} failed: {}", segment.path, e.getMessage());
+                    return;
+                }
+                synchronized (this) {
+                    segments.remove(segment.number);
+                    // Events past a corrupt record are unreadable and leave the backlog with the segment
+                    backlogBytes -= segment.bytes - replayOffset;
+                    backlogEvents -= segment.events - segment.replayedEvents;
+                    replayOffset = 0;
+                }
+            }
+            lastReplayAt = LocalDateTime.now();
+            lastReplayError = null;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("segments", segments.size());
+        stats.put("backlogEvents", backlogEvents);
+        stats.put("backlogBytes", backlogBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("oldestSegment", segments.isEmpty() ? null : segments.firstEntry().getValue().path.getFileName()
+                .toString());
+        stats.put("appended", appended.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("refused", refused.sum());
+        stats.put("corruptRecords", corrupt.sum());
+        stats.put("lastReplayAt", lastReplayAt);
+        stats.put("lastReplayError", lastReplayError);
+        return stats;
+    }
+
+    // Writes the segment from replayOffset on; false when Mongo refused a batch
+    private boolean replay(Segment segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel, replayOffset);
+            List<UserActivityLog> batch = new ArrayList<>(replayBatchSize);
+            while (true) {
+                long start = reader.position;
+                byte[] payload = reader.next();
+                if (payload != null) {
+                    try {
+                        batch.add(objectMapper.readValue(payload, UserActivityLog.class));
+                    } catch (IOException e) {
+                        corrupt.increment();
+                    }
+                } else if (reader.position < channel.size()) {
+                    corrupt.increment();
+                    logger.warn("Skipping the rest of journal segment {} after a corrupt record at byte {}",
+                            segment.path, start);
+                }
+                if (batch.size() >= replayBatchSize || (payload == null && !batch.isEmpty())) {
+                    try {
+                        mongoTemplate.insert(batch, UserActivityLog.class);
+                    } catch (RuntimeException e) {
+                        lastReplayError = e.getMessage();
+                        logger.warn("Replaying the activity journal failed, will retry: {}", e.getMessage());
+                        return false;
+                    }
+                    replayed.add(batch.size());
+                    synchronized (this) {
+                        long bytes = (payload == null ? start : reader.position) - replayOffset;
+                        backlogBytes -= bytes;
+                        backlogEvents -= batch.size();
+                        segment.replayedEvents += batch.size();
+                        replayOffset += bytes;
+                    }
+                    batch.clear();
+                }
+                if (payload == null) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    // The oldest segment, sealing it first when it is the one being appended to
+    private synchronized Segment oldestSealed() {
+        if (segments.isEmpty()) {
+            return null;
+        }
+        if (segments.size() == 1 && activeChannel != null) {
+            closeQuietly();
+        }
+        return segments.firstEntry().getValue();
+    }
+
+    private void rotate() throws IOException {
+        closeQuietly();
+        long number = nextSegment++;
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.put(number, new Segment(number, path));
+    }
+
+    private void closeQuietly() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            logger.warn("Closing the active journal segment failed: {}", e.getMessage());
+        }
+        activeChannel = null;
+    }
+
+    private ByteBuffer encode(List<UserActivityLog> events) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        int size = 0;
+        for (UserActivityLog event : events) {
+            byte[] payload = objectMapper.writeValueAsBytes(event);
+            payloads.add(payload);
+            size += HEADER_BYTES + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32C crc = new CRC32C();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        return buffer.flip();
+    }
+
+    // Counts a segment's intact records and truncates whatever follows the last one
+    private Segment recover(long number, Path path) throws IOException {
+        Segment segment = new Segment(number, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            RecordReader reader = new RecordReader(channel, 0);
+            while (reader.next() != null) {
+                segment.events++;
+            }
+            segment.bytes = reader.position;
+            if (channel.size() > reader.position) {
+                logger.warn("Truncating {} torn byte(s) at the end of journal segment {}",
+                        channel.size() - reader.position, path);
+                channel.truncate(reader.position);
+                channel.force(true);
+            }
+        }
+        return segment;
+    }
+
+    private static final class Segment {
+        final long number;
+        final Path path;
+        long bytes;
+        long events;
+        long replayedEvents;
+
+        Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+    // Reads framed records; position stays at the start of a missing, torn or corrupt record
+    private final class RecordReader {
+        private final FileChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        long position;
+
+        RecordReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        byte[] next() throws IOException {
+            header.clear();
+            if (!readFully(header, position)) {
+                return null;
+            }
+            int length = header.getInt(0);
+            // A torn or garbled length would point past the end of the file
+            if (length < 0 || length > channel.size() - position - HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            if (!readFully(payload, position + HEADER_BYTES)) {
+                return null;
+            }
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                return null;
+            }
+            position += HEADER_BYTES + length;
+            return payload.array();
+        }
+
+        private boolean readFully(ByteBuffer buffer, long at) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, at + buffer.position()) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.inventory.service;
+
+import com.inventory.dto.InventoryDelta;
+import com.inventory.dto.InventoryDeltaResult;
+import com.inventory.dto.InventoryDeltaResult.Outcome;
+import com.inventory.entity.InventoryAnalytics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies stock deltas in bulk, e.g. after a warehouse cycle count.
+ * <p>
+ * Lines are taken in chunks of {@code inventory.batch.chunk-size}. Each chunk
+ * is one transaction: one lookup resolving ids and SKUs, one JDBC batch of
+ * guarded updates that also recompute {@code status} (split where a striped
+ * product's buckets are folded back into its row), and one read of the
+ * resulting stock. The matching {@code InventoryAnalytics.currentStock} values
+ * then go to Mongo in one unordered bulk write. A chunk's lines succeed or fail
+ * one by one; a line that would cut stock below what cart reservations hold is
+ * rejected without touching the others.
+ */
+@Service
+public class BulkInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkInventoryService.class);
+
+    // Status is assigned before quantity so MySQL's left-to-right SET still sees the old quantity
+    private static final String APPLY_DELTA_SQL = "UPDATE products SET "
+            + "status = CASE WHEN quantity + ? > 0 THEN 'IN_STOCK' ELSE 'OUT_OF_STOCK' END, "
+            + "quantity = quantity + ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND quantity + ? >= reserved_quantity";
+
+    private record Line(InventoryDelta delta, InventoryDeltaResult result) {
+    }
+
+    private record Stock(Long id, String sku, String name, String category, BigDecimal price, int quantity) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final StripedStockService stripedStockService;
+    private final ProductCache productCache;
+    private final ProductFacetIndex facetIndex;
+    private final ProductStats productStats;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BulkInventoryService(JdbcTemplate jdbcTemplate, MongoTemplate mongoTemplate,
+            StripedStockService stripedStockService, ProductCache productCache, ProductFacetIndex facetIndex,
+            ProductStats productStats, CatalogVersion catalogVersion, PlatformTransactionManager transactionManager,
+            @Value("${inventory.batch.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.mongoTemplate = mongoTemplate;
+        this.stripedStockService = stripedStockService;
+        this.productCache = productCache;
+        this.facetIndex = facetIndex;
+        this.productStats = productStats;
+        this.catalogVersion = catalogVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Applies the deltas chunk by chunk as they are read, so a streamed request
+     * is never held in memory whole. Chunks already applied stay applied if a
+     * later one fails.
+     *
+     * @return one result per line, in request order
+     */
+    public List<InventoryDeltaResult> applyDeltas(Iterator<InventoryDelta> deltas) {
+        List<InventoryDeltaResult> results = new ArrayList<>();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (deltas.hasNext()) {
+            InventoryDelta delta = deltas.next();
+            InventoryDeltaResult result = new InventoryDeltaResult(index++, delta, null, null);
+            results.add(result);
+            chunk.add(new Line(delta, result));
+            if (chunk.size() == chunkSize) {
+                applyChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk);
+        }
+        logger.info("Applied bulk inventory adjustment of {} line(s)", results.size());
+        return results;
+    }
+
+    private void applyChunk(List<Line> chunk) {
+        Map<Long, Stock> stock = transactionTemplate.execute(status -> {
+            Set<Long> striped = new HashSet<>();
+            List<Line> valid = resolve(chunk, striped);
+            if (valid.isEmpty()) {
+                return Map.<Long, Stock>of();
+            }
+            // One pass in ascending product ids, like the checkout, so batches and checkouts cannot deadlock
+            // each other. The sort is stable, so lines for the same product keep their request order.
+            valid.sort(Comparator.comparing(line -> line.result().getId()));
+            int[] counts = new int[valid.size()];
+            int from = 0;
+            for (int i = 0; i <= valid.size(); i++) {
+                Long id = i < valid.size() ? valid.get(i).result().getId() : null;
+                boolean nextStriped = id != null && striped.contains(id)
+                        && (i == 0 || !id.equals(valid.get(i - 1).result().getId()));
+                if (id == null || nextStriped) {
+                    applyRun(valid.subList(from, i), counts, from);
+                    from = i;
+                }
+                if (nextStriped) {
+                    // Buckets, then row, in the product's turn; its lines then see its whole stock
+                    stripedStockService.consolidate(id);
+                }
+            }
+            boolean anyApplied = false;
+            for (int i = 0; i < counts.length; i++) {
+                // 0 means the guard refused the line; drivers that cannot tell report SUCCESS_NO_INFO (-2)
+                boolean applied = counts[i] != 0;
+                valid.get(i).result().setOutcome(applied ? Outcome.UPDATED : Outcome.INSUFFICIENT_STOCK);
+                if (applied) {
+                    productCache.invalidate(valid.get(i).result().getId());
+                    facetIndex.changed(valid.get(i).result().getId());
+                    productStats.changed(valid.get(i).result().getId());
+                    anyApplied = true;
+                } else {
+                    valid.get(i).result().setMessage("Delta would leave less stock than is reserved");
+                }
+            }
+            if (anyApplied) {
+                // One version bump per chunk; each bump registers its own commit callback
+                catalogVersion.productsChanged();
+            }
+            return loadStock(valid);
+        });
+
+        for (Line line : chunk) {
+            Stock current = stock.get(line.result().getId());
+            if (current != null && line.result().getOutcome() != Outcome.INVALID) {
+                line.result().setQuantity(current.quantity());
+            }
+        }
+        syncAnalytics(chunk, stock);
+    }
+
+    // One JDBC batch of guarded updates for a run of lines; their update counts go to counts[offset...]
+    private void applyRun(List<Line> run, int[] counts, int offset) {
+        if (run.isEmpty()) {
+            return;
+        }
+        int[] runCounts = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, run, run.size(),
+                (PreparedStatement ps, Line line) -> {
+                    int delta = line.delta().getDelta();
+                    ps.setInt(1, delta);
+                    ps.setInt(2, delta);
+                    ps.setLong(3, line.result().getId());
+                    ps.setInt(4, delta);
+                })[0];
+        System.arraycopy(runCounts, 0, counts, offset, runCounts.length);
+    }
+
+    /**
+     * Fills in the product id of every line that names an existing product
+     * and marks the rest; the ids of striped products go into {@code striped}.
+     *
+     * @return the lines that can be applied
+     */
+    private List<Line> resolve(List<Line> chunk, Set<Long> striped) {
+        Set<Long> ids = new TreeSet<>();
+        Set<String> skus = new TreeSet<>();
+        for (Line line : chunk) {
+            InventoryDelta delta = line.delta();
+            if (delta != null && delta.getMalformed() != null) {
+                reject(line, Outcome.INVALID, delta.getMalformed());
+            } else if (delta == null || delta.getDelta() == null) {
+                reject(line, Outcome.INVALID, "delta is required");
+            } else if (delta.getId() != null) {
+                ids.add(delta.getId());
+            } else if (delta.getSku() != null && !delta.getSku().isBlank()) {
+                skus.add(delta.getSku());
+            } else {
+                reject(line, Outcome.INVALID, "id or sku is required");
+            }
+        }
+
+        Map<Long, String> skuById = new HashMap<>();
+        Map<String, Long> idBySku = new HashMap<>();
+        String select = "SELECT id, sku, stock_stripes FROM products WHERE ";
+        if (!ids.isEmpty()) {
+            namedJdbcTemplate.query(select + "id IN (:ids)", Map.of("ids", ids), rs -> {
+                skuById.put(rs.getLong("id"), rs.getString("sku"));
+                if (rs.getInt("stock_stripes") > 0) {
+                    striped.add(rs.getLong("id"));
+                }
+            });
+        }
+        if (!skus.isEmpty()) {
+            namedJdbcTemplate.query(select + "sku IN (:skus)", Map.of("skus", skus), rs -> {
+                idBySku.put(rs.getString("sku"), rs.getLong("id"));
+                if (rs.getInt("stock_stripes") > 0) {
+                    striped.add(rs.getLong("id"));
+                }
+            });
+        }
+
+        List<Line> valid = new ArrayList<>();
+        for (Line line : chunk) {
+            if (line.result().getOutcome() != null) {
+                continue;
+            }
+            InventoryDelta delta = line.delta();
+            Long id = delta.getId() != null ? (skuById.containsKey(delta.getId()) ? delta.getId() : null)
+                    : idBySku.get(delta.getSku());
+            if (id == null) {
+                reject(line, Outcome.NOT_FOUND, "Product not found");
+            } else if (delta.getId() != null && delta.getSku() != null && !delta.getSku().equals(skuById.get(id))) {
+                reject(line, Outcome.INVALID, "id and sku refer to different products");
+            } else {
+                line.result().setId(id);
+                line.result().setSku(delta.getId() != null ? skuById.get(id) : delta.getSku());
+                valid.add(line);
+            }
+        }
+        return valid;
+    }
+
+    private Map<Long, Stock> loadStock(List<Line> lines) {
+        Set<Long> ids = new TreeSet<>();
+        lines.forEach(line -> ids.add(line.result().getId()));
+        Map<Long, Stock> stock = new HashMap<>();
+        namedJdbcTemplate.query(
+                "SELECT id, sku, name, category, price, quantity FROM products WHERE id IN (:ids)",
+                Map.of("ids", ids),
+                rs -> {
+                    stock.put(rs.getLong("id"), new Stock(rs.getLong("id"), rs.getString("sku"),
+                            rs.getString("name"), rs.getString("category"), rs.getBigDecimal("price"),
+                            rs.getInt("quantity")));
+                });
+        return stock;
+    }
+
+    // MySQL is the source of truth; a failed sync is logged and repaired by the daily analytics sync
+    private void syncAnalytics(List<Line> chunk, Map<Long, Stock> stock) {
+        Set<Long> updated = new TreeSet<>();
+        for (Line line : chunk) {
+            if (line.result().getOutcome() == Outcome.UPDATED) {
+                updated.add(line.result().getId());
+            }
+        }
+        if (updated.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class);
+            for (Long id : updated) {
+                Stock current = stock.get(id);
+                Update update = new Update()
+                        .set("currentStock", current.quantity())
+                        .set("lastUpdated", now)
+                        .setOnInsert("sku", current.sku())
+                        .setOnInsert("productName", current.name())
+                        .setOnInsert("category", current.category())
+                        .setOnInsert("totalViewCount", 0)
+                        .setOnInsert("totalPurchases", 0)
+                        .setOnInsert("averageRating", 0.0)
+                        .setOnInsert("priceHistory", List.of(
+                                new InventoryAnalytics.PriceHistory(current.price().doubleValue(), now)));
+                bulk.upsert(Query.query(Criteria.where("productId").is(id)), update);
+            }
+            bulk.execute();
+            catalogVersion.analyticsChanged();
+        } catch (RuntimeException e) {
+            logger.warn("Syncing stock of {} product(s) to analytics failed: {}", updated.size(), e.getMessage());
+        }
+    }
+
+    private static void reject(Line line, Outcome outcome, String message) {
+        line.result().setOutcome(outcome);
+        line.result().setMessage(message);
+    }
+}
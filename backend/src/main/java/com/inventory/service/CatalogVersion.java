@@ -0,0 +1,58 @@
+package com.inventory.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version numbers of the catalog, one for product rows (catalog
+ * fields, stock and holds) and one for the Mongo analytics, so that a view
+ * being counted does not throw away every cached product listing. Anything
+ * derived from one side is current for as long as its version has not moved.
+ * <p>
+ * Product writes bump the version once their transaction commits: a reader
+ * that sees the old version may already have read the new rows, which only
+ * costs a re-render, whereas bumping before the commit would let a reader
+ * cache the old rows under the new version. Analytics writes are visible as
+ * soon as Mongo acknowledges them and bump right away.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong products = new AtomicLong();
+    private final AtomicLong analytics = new AtomicLong();
+
+    public long products() {
+        return products.get();
+    }
+
+    public long analytics() {
+        return analytics.get();
+    }
+
+    /**
+     * Call after changing product rows; inside a transaction, takes effect
+     * once it commits.
+     */
+    public void productsChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    products.incrementAndGet();
+                }
+            });
+        } else {
+            products.incrementAndGet();
+        }
+    }
+
+    /**
+     * Call after writing analytics documents.
+     */
+    public void analyticsChanged() {
+        analytics.incrementAndGet();
+    }
+}
@@ -0,0 +1,77 @@
+package com.inventory.service;
+
+/**
+ * Count-Min sketch of 4-bit counters estimating how often each key was seen
+ * recently, the admission filter of {@link ProductCache}'s TinyLFU policy.
+ * <p>
+ * Each key maps to one counter in each of four rows. Its estimate is the
+ * smallest of the four, so it can only over-count through collisions. Once
+ * ten times the cache size has been recorded, every counter is halved, so old
+ * popularity fades.
+ * <p>
+ * Not thread-safe; the cache only touches it under its eviction lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    // Clears the bit each nibble receives from its neighbour when the table is shifted right
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int capacity = Math.max(16, maximumSize);
+        int length = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int hash = hash(key, row);
+            frequency = Math.min(frequency, (int) ((table[hash & tableMask] >>> offset(hash)) & 0xF));
+        }
+        return frequency;
+    }
+
+    void increment(long key) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int hash = hash(key, row);
+            int index = hash & tableMask;
+            int offset = offset(hash);
+            if (((table[index] >>> offset) & 0xF) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int hash(long key, int row) {
+        long hash = (key + SEEDS[row]) * SEEDS[row];
+        hash ^= hash >>> 32;
+        return (int) hash;
+    }
+
+    // Which of the 16 nibbles in the selected word holds this row's counter
+    private static int offset(int hash) {
+        return ((hash >>> 24) & 0xF) << 2;
+    }
+}
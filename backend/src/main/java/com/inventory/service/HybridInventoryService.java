@@ -9,13 +9,17 @@ import com.inventory.model.Product;
 import com.inventory.repository.mongo.InventoryAnalyticsRepository;
 import com.inventory.repository.jpa.ProductRepository;
 import com.inventory.repository.mongo.ProductReviewRepository;
-import com.inventory.repository.mongo.UserActivityLogRepository;
 
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,63 +32,114 @@ public class HybridInventoryService {
     private final ProductRepository productRepository;
     private final InventoryAnalyticsRepository analyticsRepository;
     private final ProductReviewRepository reviewRepository;
-    private final UserActivityLogRepository activityLogRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ActivityIngestionPipeline activityPipeline;
+    private final StripedStockService stripedStockService;
+    private final StockAdjustmentExecutor stockAdjustmentExecutor;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggester productSuggester;
+    private final ProductFacetIndex facetIndex;
+    private final ProductStats productStats;
+    private final CatalogVersion catalogVersion;
+    private final ViewCounter viewCounter;
+    private final SingleFlight<Long, Optional<InventoryAnalytics>> analyticsLoads = new SingleFlight<>();
 
     public HybridInventoryService(ProductRepository productRepository, InventoryAnalyticsRepository analyticsRepository,
-            ProductReviewRepository reviewRepository, UserActivityLogRepository activityLogRepository) {
+            ProductReviewRepository reviewRepository, MongoTemplate mongoTemplate,
+            ActivityIngestionPipeline activityPipeline,
+            StripedStockService stripedStockService, StockAdjustmentExecutor stockAdjustmentExecutor,
+            ProductCache productCache, ProductSearchIndex searchIndex, ProductSuggester productSuggester,
+            ProductFacetIndex facetIndex, ProductStats productStats, CatalogVersion catalogVersion,
+            ViewCounter viewCounter) {
         this.productRepository = productRepository;
         this.analyticsRepository = analyticsRepository;
         this.reviewRepository = reviewRepository;
-        this.activityLogRepository = activityLogRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.activityPipeline = activityPipeline;
+        this.stripedStockService = stripedStockService;
+        this.stockAdjustmentExecutor = stockAdjustmentExecutor;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.productSuggester = productSuggester;
+        this.facetIndex = facetIndex;
+        this.productStats = productStats;
+        this.catalogVersion = catalogVersion;
+        this.viewCounter = viewCounter;
     }
 
     @Transactional
     public Product createProductWithAnalytics(Product product) {
         log.info("Creating product with analytics: {}", product.getName());
         Product savedProduct = productRepository.save(product);
-
-        InventoryAnalytics analytics = new InventoryAnalytics();
-        analytics.setProductId(savedProduct.getId());
-        analytics.setSku(savedProduct.getSku());
-        analytics.setProductName(savedProduct.getName());
-        analytics.setCategory(savedProduct.getCategory()); // Assuming category exists
-        analytics.setTotalViewCount(0);
-        analytics.setTotalPurchases(0);
-        analytics.setAverageRating(0.0);
-        analytics.setCurrentStock(savedProduct.getQuantity());
-        analytics.setPriceHistory(new ArrayList<>());
-        analytics.setLastUpdated(LocalDateTime.now());
-
-        // Add initial price to history
-        InventoryAnalytics.PriceHistory ph = new InventoryAnalytics.PriceHistory(savedProduct.getPrice().doubleValue(),
-                LocalDateTime.now());
-        analytics.getPriceHistory().add(ph);
-
-        analyticsRepository.save(analytics);
+        searchIndex.index(savedProduct);
+        productSuggester.index(savedProduct);
+        facetIndex.changed(savedProduct.getId());
+        productStats.changed(savedProduct.getId());
+        catalogVersion.productsChanged();
+
+        // An upsert, in case a view of the new product was already flushed into its analytics
+        upsertAnalytics(savedProduct, new Update());
+        catalogVersion.analyticsChanged();
         return savedProduct;
     }
 
+    /**
+     * Concurrent requests for the same product's analytics share one Mongo
+     * query. The document returned may be shared and must not be modified.
+     * Its {@code uniqueViewers} is estimated from the stored viewer sketch.
+     */
+    public Optional<InventoryAnalytics> getProductAnalytics(Long productId) {
+        return analyticsLoads.load(productId, () -> analyticsRepository.findByProductId(productId).map(analytics -> {
+            analytics.setUniqueViewers(UniqueViewers.estimate(analytics.getViewerSketch()));
+            return analytics;
+        }));
+    }
+
     public void logProductView(Long productId, String userId, Map<String, Object> metadata) {
         // Log activity
+        Optional<Product> productOpt = productCache.findById(productId);
+        activityPipeline.submit(productView(productId, productOpt, userId, LocalDateTime.now(), metadata));
+
+        // Counted in memory and added to the analytics by the next flush
+        if (productOpt.isEmpty()) {
+            throw new ProductNotFoundException("Product not found: " + productId);
+        }
+        viewCounter.record(productId);
+    }
+
+    /**
+     * Logs a batch of product views collected by a client. Every event is
+     * queued, in order, keeping its own timestamp when it has one; only views
+     * of products that exist are counted.
+     *
+     * @return how many events were queued and how many named an unknown product
+     */
+    public Map<String, Integer> logProductViews(List<UserActivityLog> events) {
+        List<UserActivityLog> activities = new ArrayList<>(events.size());
+        List<Long> viewed = new ArrayList<>(events.size());
+        for (UserActivityLog event : events) {
+            Long productId = event.getProductId();
+            Optional<Product> productOpt = productId == null ? Optional.empty() : productCache.findById(productId);
+            LocalDateTime timestamp = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+            activities.add(productView(productId, productOpt, event.getUserId(), timestamp, event.getMetadata()));
+            productOpt.ifPresent(p -> viewed.add(p.getId()));
+        }
+        activityPipeline.submitAll(activities);
+        viewed.forEach(viewCounter::record);
+        return Map.of("accepted", activities.size(), "unknownProducts", activities.size() - viewed.size());
+    }
+
+    private static UserActivityLog productView(Long productId, Optional<Product> product, String userId,
+            LocalDateTime timestamp, Map<String, Object> metadata) {
         UserActivityLog activity = new UserActivityLog();
         activity.setUserId(userId);
         activity.setAction("PRODUCT_VIEW");
         activity.setProductId(productId);
-        activity.setTimestamp(LocalDateTime.now());
+        activity.setTimestamp(timestamp);
         activity.setMetadata(metadata);
-
-        Optional<Product> productOpt = productRepository.findById(productId);
-        productOpt.ifPresent(p -> activity.setProductName(p.getName()));
-
-        activityLogRepository.save(activity);
-
-        // Update analytics
-        InventoryAnalytics analytics = analyticsRepository.findByProductId(productId)
-                .orElseGet(() -> createAnalyticsForExistingProduct(productId));
-
-        analytics.setTotalViewCount(analytics.getTotalViewCount() + 1);
-        analytics.setLastUpdated(LocalDateTime.now());
-        analyticsRepository.save(analytics);
+        product.ifPresent(p -> activity.setProductName(p.getName()));
+        return activity;
     }
 
     @Transactional
@@ -106,79 +161,84 @@ public class HybridInventoryService {
         return savedReview;
     }
 
-    @Transactional
     public void updateProductStock(Long productId, int quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        // Versioned save in its own transaction, retried if a checkout or another admin got in between
+        Product updated = stockAdjustmentExecutor.execute(productId, () -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+            if (product.isStriped()) {
+                // Fold the buckets back into the row first, or setQuantity would count them twice
+                stripedStockService.consolidate(productId);
+                product = productRepository.findById(productId).orElseThrow();
+            }
 
-        product.setQuantity(quantity);
-        productRepository.save(product);
+            product.setQuantity(quantity);
+            productCache.invalidate(productId);
+            facetIndex.changed(productId);
+            productStats.changed(productId);
+            catalogVersion.productsChanged();
+            return productRepository.saveAndFlush(product);
+        });
 
         // Sync to MongoDB
-        InventoryAnalytics analytics = analyticsRepository.findByProductId(productId)
-                .orElseGet(() -> createAnalyticsForExistingProduct(productId));
-
-        analytics.setCurrentStock(quantity);
-        analytics.setLastUpdated(LocalDateTime.now());
-        analyticsRepository.save(analytics);
+        upsertAnalytics(updated, new Update().set("currentStock", quantity));
+        catalogVersion.analyticsChanged();
     }
 
     public void syncAnalyticsFromMySQL() {
         log.info("Starting daily analytics sync...");
         List<Product> products = productRepository.findAll();
         for (Product product : products) {
-            InventoryAnalytics analytics = analyticsRepository.findByProductId(product.getId())
-                    .orElseGet(() -> {
-                        InventoryAnalytics newAnalytics = new InventoryAnalytics();
-                        newAnalytics.setProductId(product.getId());
-                        newAnalytics.setTotalViewCount(0);
-                        newAnalytics.setTotalPurchases(0);
-                        newAnalytics.setAverageRating(0.0);
-                        newAnalytics.setPriceHistory(new ArrayList<>());
-                        return newAnalytics;
-                    });
-
-            analytics.setSku(product.getSku());
-            analytics.setProductName(product.getName());
-            analytics.setCategory(product.getCategory()); // Check if category is string in Product
-            analytics.setCurrentStock(product.getQuantity());
-            analytics.setLastUpdated(LocalDateTime.now());
+            Update update = new Update()
+                    .set("sku", product.getSku())
+                    .set("productName", product.getName())
+                    .set("category", product.getCategory())
+                    .set("currentStock", product.getQuantity());
 
             // Track price changes
-            if (analytics.getPriceHistory().isEmpty() ||
-                    !analytics.getPriceHistory().get(analytics.getPriceHistory().size() - 1).getPrice()
-                            .equals(product.getPrice().doubleValue())) {
-                analytics.getPriceHistory()
-                        .add(new InventoryAnalytics.PriceHistory(product.getPrice().doubleValue(),
-                                LocalDateTime.now()));
+            List<InventoryAnalytics.PriceHistory> history = analyticsRepository.findByProductId(product.getId())
+                    .map(InventoryAnalytics::getPriceHistory)
+                    .orElse(List.of());
+            if (history == null || history.isEmpty()
+                    || !history.get(history.size() - 1).getPrice().equals(product.getPrice().doubleValue())) {
+                update.push("priceHistory",
+                        new InventoryAnalytics.PriceHistory(product.getPrice().doubleValue(), LocalDateTime.now()));
             }
 
-            analyticsRepository.save(analytics);
+            upsertAnalytics(product, update);
+            catalogVersion.analyticsChanged();
         }
         log.info("Analytics sync completed.");
     }
 
-    private InventoryAnalytics createAnalyticsForExistingProduct(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
-
-        InventoryAnalytics analytics = new InventoryAnalytics();
-        analytics.setProductId(productId);
-        analytics.setSku(product.getSku());
-        analytics.setProductName(product.getName());
-        // analytics.setCategory(product.getCategory());
-        // Note: I need to verify Product model has category field. If not, I'll need to
-        // adjust.
-        analytics.setCategory(product.getCategory());
-        analytics.setTotalViewCount(0);
-        analytics.setTotalPurchases(0);
-        analytics.setAverageRating(0.0);
-        analytics.setCurrentStock(product.getQuantity());
-        analytics.setPriceHistory(new ArrayList<>());
-        analytics.setLastUpdated(LocalDateTime.now());
-        analytics.getPriceHistory()
-                .add(new InventoryAnalytics.PriceHistory(product.getPrice().doubleValue(), LocalDateTime.now()));
-        return analytics;
+    /**
+     * Writes just the fields in {@code update} (plus {@code lastUpdated}) to
+     * the product's analytics, so the view counter's {@code $inc} and the
+     * viewer sketch written meanwhile are never overwritten by a stale copy.
+     * A product without analytics yet gets its document, with the other
+     * fields at their initial values.
+     */
+    private void upsertAnalytics(Product product, Update update) {
+        LocalDateTime now = LocalDateTime.now();
+        update.set("lastUpdated", now);
+        Map<String, Object> initial = new LinkedHashMap<>();
+        initial.put("sku", product.getSku());
+        initial.put("productName", product.getName());
+        initial.put("category", product.getCategory());
+        initial.put("totalViewCount", 0);
+        initial.put("totalPurchases", 0);
+        initial.put("averageRating", 0.0);
+        initial.put("currentStock", product.getQuantity());
+        initial.put("priceHistory",
+                List.of(new InventoryAnalytics.PriceHistory(product.getPrice().doubleValue(), now)));
+        // A field may not be both set and set on insert
+        initial.forEach((field, value) -> {
+            if (!update.modifies(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+        mongoTemplate.upsert(Query.query(Criteria.where("productId").is(product.getId())), update,
+                InventoryAnalytics.class);
     }
 
     private void updateProductRating(Long productId) {
@@ -191,10 +251,11 @@ public class HybridInventoryService {
                 .average()
                 .orElse(0.0);
 
-        InventoryAnalytics analytics = analyticsRepository.findByProductId(productId)
-                .orElseGet(() -> createAnalyticsForExistingProduct(productId));
-
-        analytics.setAverageRating(Math.round(avg * 10.0) / 10.0);
-        analyticsRepository.save(analytics);
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        double rating = Math.round(avg * 10.0) / 10.0;
+        upsertAnalytics(product, new Update().set("averageRating", rating));
+        catalogVersion.analyticsChanged();
+        facetIndex.ratingChanged(productId, rating);
     }
 }
@@ -0,0 +1,232 @@
+package com.inventory.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch (Flajolet et al.) over 64-bit hashes
+ * with {@code 2^precision} registers, each keeping the longest run of
+ * leading zeros seen among the hashes routed to it. The relative standard
+ * error of {@link #estimate} is {@code 1.04 / sqrt(2^precision)}; small
+ * counts are estimated by linear counting over the empty registers.
+ * <p>
+ * A sketch starts sparse, as a list of (register, rank) entries, and turns
+ * into a dense byte per register once that list would be larger, so the
+ * many products with few viewers stay small. Two sketches of the same
+ * precision {@link #merge} into the sketch of the union of their inputs,
+ * whatever order or how often they are merged, which is what lets sketches
+ * from different time spans or nodes be combined; sketches of different
+ * precisions are first {@link #fold folded} to the lower one. Not
+ * thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 16;
+
+    // Serialized form: format byte, precision byte, then the registers or the sparse entries
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+    // A sparse entry is the register index above the low 6 bits holding the rank
+    private static final int RANK_BITS = 6;
+    private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+    private final int precision;
+    private final int registerCount;
+    private byte[] registers;
+    private int[] sparse = new int[8];
+    private int sparseSize;
+
+    HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be " + MIN_PRECISION + " to " + MAX_PRECISION + ": "
+                    + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    /** 64-bit hash of a string (FNV-1a over its UTF-8 bytes, finished with the MurmurHash3 mixer). */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    static double standardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the remaining bits, plus one; a sentinel bit caps it when they are all zero
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        set(index, rank);
+    }
+
+    void add(String value) {
+        add(hash(value));
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " and "
+                    + precision);
+        }
+        if (other.registers != null) {
+            for (int i = 0; i < registerCount; i++) {
+                if (other.registers[i] != 0) {
+                    set(i, other.registers[i]);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> RANK_BITS, other.sparse[i] & RANK_MASK);
+            }
+        }
+    }
+
+    /**
+     * This sketch at a lower precision, the same as if it had been built at
+     * that precision from the same hashes: the low bits dropped from each
+     * register index lead the bits whose zeros are counted. A sketch already
+     * at the precision is returned as is.
+     */
+    HyperLogLog fold(int lower) {
+        if (lower == precision) {
+            return this;
+        }
+        if (lower > precision) {
+            throw new IllegalArgumentException("Cannot fold a sketch of precision " + precision + " to " + lower);
+        }
+        HyperLogLog folded = new HyperLogLog(lower);
+        int shift = precision - lower;
+        byte[] dense = registers != null ? registers : toDense();
+        for (int i = 0; i < registerCount; i++) {
+            if (dense[i] == 0) {
+                continue;
+            }
+            int dropped = i & ((1 << shift) - 1);
+            int rank = dropped != 0 ? Integer.numberOfLeadingZeros(dropped << (32 - shift)) + 1 : shift + dense[i];
+            folded.set(i >>> shift, rank);
+        }
+        return folded;
+    }
+
+    long estimate() {
+        byte[] dense = registers != null ? registers : toDense();
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : dense) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = registerCount >= 128 ? 0.7213 / (1 + 1.079 / registerCount)
+                : registerCount == 64 ? 0.709 : registerCount == 32 ? 0.697 : 0.673;
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    boolean isEmpty() {
+        return registers == null && sparseSize == 0;
+    }
+
+    int precision() {
+        return precision;
+    }
+
+    byte[] toBytes() {
+        if (registers != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + registerCount);
+            return buffer.put(DENSE).put((byte) precision).put(registers).array();
+        }
+        compact();
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 4 * sparseSize);
+        buffer.put(SPARSE).put((byte) precision);
+        for (int i = 0; i < sparseSize; i++) {
+            buffer.putInt(sparse[i]);
+        }
+        return buffer.array();
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (format == DENSE && buffer.remaining() == sketch.registerCount) {
+            sketch.registers = new byte[sketch.registerCount];
+            buffer.get(sketch.registers);
+        } else if (format == SPARSE && buffer.remaining() % 4 == 0) {
+            while (buffer.hasRemaining()) {
+                int entry = buffer.getInt();
+                sketch.set(entry >>> RANK_BITS, entry & RANK_MASK);
+            }
+        } else {
+            throw new IllegalArgumentException("Not a serialized HyperLogLog sketch");
+        }
+        return sketch;
+    }
+
+    private void set(int index, int rank) {
+        if (registers != null) {
+            if (registers[index] < rank) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            compact();
+            // Four bytes an entry: past a quarter of the registers the dense form is smaller
+            if (sparseSize >= registerCount / 4) {
+                registers = toDense();
+                sparse = null;
+                sparseSize = 0;
+                set(index, rank);
+                return;
+            }
+            if (sparseSize == sparse.length) {
+                sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, registerCount / 4));
+            }
+        }
+        sparse[sparseSize++] = index << RANK_BITS | rank;
+    }
+
+    // Sorts the sparse entries and keeps the highest rank of each register
+    private void compact() {
+        Arrays.sort(sparse, 0, sparseSize);
+        int kept = 0;
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> RANK_BITS;
+            if (kept > 0 && sparse[kept - 1] >>> RANK_BITS == index) {
+                // Sorted by index then rank, so the later entry has the higher rank
+                sparse[kept - 1] = sparse[i];
+            } else {
+                sparse[kept++] = sparse[i];
+            }
+        }
+        sparseSize = kept;
+    }
+
+    private byte[] toDense() {
+        byte[] dense = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> RANK_BITS;
+            dense[index] = (byte) Math.max(dense[index], sparse[i] & RANK_MASK);
+        }
+        return dense;
+    }
+}
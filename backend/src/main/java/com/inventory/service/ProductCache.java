@@ -0,0 +1,326 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-through cache of products by id, with a SKU index onto the same
+ * entries, for the read-only lookup paths (product pages, admin lookups,
+ * view logging). Write paths keep reading the database.
+ * <p>
+ * Eviction is W-TinyLFU: new entries land in a small LRU window, and the
+ * window's overflow only displaces the main region's LRU victim if a
+ * {@link FrequencySketch} says it has been asked for more often. One-off
+ * scans through the catalog therefore cannot flush the hot products. Reads
+ * are lock-free; their accesses are queued in a lossy buffer and replayed
+ * into the policy by whichever thread next gets the eviction lock. Concurrent
+ * misses on the same key are coalesced into one query by a {@link SingleFlight}.
+ * <p>
+ * Every code path that changes a product row invalidates it here, right away
+ * and again after its transaction completes, so a reader cannot re-cache the
+ * old row in between. Entries also expire after
+ * {@code inventory.product-cache.ttl-ms}, which bounds how stale a row
+ * changed by another node can be. Cached products are shared and must not
+ * be modified.
+ */
+@Component
+public class ProductCache {
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    // The stamp keeps a caller that arrives after a write from joining a load that started before it
+    private record Load<K>(K key, long stamp) {
+    }
+
+    private static final class Node {
+        final Long id;
+        final Product product;
+        final long loadedAt;
+        Segment segment;
+
+        Node(Product product, long loadedAt) {
+            this.id = product.getId();
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final int maximumSize;
+    private final long ttlNanos;
+
+    private final Map<Long, Node> data = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsBySku = new ConcurrentHashMap<>();
+    // Bumped by every invalidation; a load that overlapped one is not cached, as it may have read the old row
+    private final AtomicLong invalidations = new AtomicLong();
+    // Concurrent misses on one key (a hot product expiring, a cold start) share a single query
+    private final SingleFlight<Load<Long>, Optional<Product>> loadsById = new SingleFlight<>();
+    private final SingleFlight<Load<String>, Optional<Product>> loadsBySku = new SingleFlight<>();
+
+    // Policy state, guarded by evictionLock. Each map is kept in LRU order, oldest first.
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Queue<Node> readBuffer = new ArrayBlockingQueue<>(256);
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<Long, Node> window = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Node> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, Node> protectedRegion = new LinkedHashMap<>();
+    private final int maxWindow;
+    private final int maxProtected;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductCache(ProductRepository productRepository,
+            @Value("${inventory.product-cache.enabled:true}") boolean enabled,
+            @Value("${inventory.product-cache.maximum-size:10000}") int maximumSize,
+            @Value("${inventory.product-cache.ttl-ms:60000}") long ttlMs) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.maximumSize = Math.max(2, maximumSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.sketch = new FrequencySketch(this.maximumSize);
+        // 1% window, and 80% of the main region protected, as in the W-TinyLFU paper
+        this.maxWindow = Math.max(1, this.maximumSize / 100);
+        this.maxProtected = (int) ((this.maximumSize - maxWindow) * 0.8);
+    }
+
+    public Optional<Product> findById(Long id) {
+        if (!enabled) {
+            return productRepository.findById(id);
+        }
+        Node node = lookup(id);
+        if (node != null) {
+            return Optional.of(node.product);
+        }
+        misses.increment();
+        long stamp = invalidations.get();
+        return loadsById.load(new Load<>(id, stamp), () -> {
+            Optional<Product> product = productRepository.findById(id);
+            product.ifPresent(loaded -> add(loaded, stamp));
+            return product;
+        });
+    }
+
+    public Optional<Product> findBySku(String sku) {
+        if (!enabled) {
+            return productRepository.findBySku(sku);
+        }
+        Long id = idsBySku.get(sku);
+        Node node = id != null ? lookup(id) : null;
+        // The index can trail a SKU change by one invalidation; trust only an entry that still has this SKU
+        if (node != null && sku.equals(node.product.getSku())) {
+            return Optional.of(node.product);
+        }
+        misses.increment();
+        long stamp = invalidations.get();
+        return loadsBySku.load(new Load<>(sku, stamp), () -> {
+            Optional<Product> product = productRepository.findBySku(sku);
+            product.ifPresent(loaded -> add(loaded, stamp));
+            return product;
+        });
+    }
+
+    /**
+     * Drops a product now and, if a transaction is running, again once it
+     * has completed.
+     */
+    public void invalidate(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        remove(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", data.size());
+        stats.put("maximumSize", maximumSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("loads", loadsById.getLoads() + loadsBySku.getLoads());
+        stats.put("coalescedLoads", loadsById.getCoalesced() + loadsBySku.getCoalesced());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private Node lookup(Long id) {
+        Node node = data.get(id);
+        if (node == null) {
+            return null;
+        }
+        if (System.nanoTime() - node.loadedAt > ttlNanos) {
+            if (data.remove(id, node)) {
+                idsBySku.remove(node.product.getSku(), id);
+            }
+            return null;
+        }
+        hits.increment();
+        // Lossy: under heavy contention some accesses go unrecorded, which only blurs the frequencies
+        readBuffer.offer(node);
+        if (evictionLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node;
+    }
+
+    private void add(Product product, long stamp) {
+        Node node = new Node(product, System.nanoTime());
+        evictionLock.lock();
+        try {
+            if (invalidations.get() != stamp) {
+                return;
+            }
+            drainReads();
+            Node previous = data.put(node.id, node);
+            if (previous != null) {
+                unlink(previous);
+                if (!previous.product.getSku().equals(product.getSku())) {
+                    idsBySku.remove(previous.product.getSku(), node.id);
+                }
+            }
+            idsBySku.put(product.getSku(), node.id);
+            sketch.increment(node.id);
+            link(node, Segment.WINDOW);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Under evictionLock, so an add that passed its stamp check cannot put a stale entry after this
+    private void remove(Long id) {
+        evictionLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            Node node = data.remove(id);
+            if (node == null) {
+                return;
+            }
+            idsBySku.remove(node.product.getSku(), id);
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Replays buffered hits: a probation hit earns promotion to the protected region
+    private void drainReads() {
+        Node node;
+        while ((node = readBuffer.poll()) != null) {
+            if (node.segment == null || data.get(node.id) != node) {
+                continue;
+            }
+            sketch.increment(node.id);
+            if (node.segment == Segment.PROBATION) {
+                unlink(node);
+                link(node, Segment.PROTECTED);
+                if (protectedRegion.size() > maxProtected) {
+                    Node demoted = first(protectedRegion);
+                    unlink(demoted);
+                    link(demoted, Segment.PROBATION);
+                }
+            } else {
+                // Move to the most recently used end of its segment
+                Segment segment = node.segment;
+                unlink(node);
+                link(node, segment);
+            }
+        }
+    }
+
+    private void evict() {
+        // Window overflow moves to probation as a candidate for admission to the main region
+        Node candidate = null;
+        while (window.size() > maxWindow) {
+            candidate = first(window);
+            unlink(candidate);
+            link(candidate, Segment.PROBATION);
+        }
+        while (data.size() > maximumSize) {
+            Node victim = !probation.isEmpty() ? first(probation) : first(protectedRegion);
+            if (victim == null) {
+                victim = first(window);
+            }
+            // TinyLFU admission: the newcomer only displaces the victim if it is asked for more often
+            if (candidate != null && candidate != victim && victim.segment == Segment.PROBATION
+                    && sketch.frequency(candidate.id) <= sketch.frequency(victim.id)) {
+                victim = candidate;
+            }
+            if (victim == candidate) {
+                candidate = null;
+            }
+            unlink(victim);
+            if (data.remove(victim.id, victim)) {
+                idsBySku.remove(victim.product.getSku(), victim.id);
+            }
+            evictions.increment();
+        }
+    }
+
+    private void link(Node node, Segment segment) {
+        node.segment = segment;
+        region(segment).put(node.id, node);
+    }
+
+    private void unlink(Node node) {
+        if (node.segment != null) {
+            region(node.segment).remove(node.id, node);
+            node.segment = null;
+        }
+    }
+
+    private LinkedHashMap<Long, Node> region(Segment segment) {
+        return switch (segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedRegion;
+        };
+    }
+
+    private static Node first(LinkedHashMap<Long, Node> region) {
+        Iterator<Node> iterator = region.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
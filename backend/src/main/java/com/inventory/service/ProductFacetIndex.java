@@ -0,0 +1,540 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory facet index for storefront filtering: one compressed bitmap
+ * ({@link RoaringBitmap}) of product ordinals per category, price band,
+ * whole-star rating and for "sellable stock above zero". A filtered listing
+ * is the intersection of the unions picked in each facet, and the count
+ * next to every facet value is the size of its intersection with the other
+ * facets' filters, so neither touches the database.
+ * <p>
+ * Ordinals are handed out in id order when the index is built and to new
+ * products as they arrive, so results come back in catalog (id) order.
+ * Ratings are {@code InventoryAnalytics.averageRating}, read from Mongo on
+ * build and pushed by {@link #ratingChanged} when a review is added.
+ * <p>
+ * Product and stock write paths call {@link #changed} with the ids they
+ * touched; once the transaction commits those products are marked dirty and
+ * re-read in one query by the scheduled {@link #refresh}, which keeps
+ * checkouts free of index work and bounds how far a facet count can lag.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    static final int MAX_RATING = 5;
+    private static final int REBUILD_CHUNK = 5_000;
+    private static final int REFRESH_CHUNK = 500;
+    private static final String SELECT_ROWS = "SELECT p.id, p.category, p.price, p.quantity - p.reserved_quantity "
+            + "+ (CASE WHEN p.stock_stripes > 0 THEN (SELECT COALESCE(SUM(b.quantity), 0) FROM stock_buckets b "
+            + "WHERE b.product_id = p.id) ELSE 0 END) AS available FROM products p ";
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong("id"),
+            rs.getString("category"), rs.getBigDecimal("price"), rs.getInt("available"));
+
+    /**
+     * Values picked in each facet: any of them within a facet, every facet
+     * at once. Empty sets, {@code inStock=false} and {@code minRating=0}
+     * leave that facet unfiltered.
+     */
+    public record FacetFilter(Set<String> categories, boolean inStock, Set<String> priceBands, int minRating) {
+    }
+
+    /** One page of matching product ids, how many match in total, and per facet value counts. */
+    public record FacetHits(List<Long> ids, int total, Map<String, Map<String, Integer>> facets) {
+    }
+
+    // The facet columns of one product row; available is sellable stock
+    private record Row(long id, String category, BigDecimal price, int available) {
+    }
+
+    private static final class Facets {
+        final BigDecimal[] bounds;
+        final RoaringBitmap live = new RoaringBitmap();
+        final RoaringBitmap inStock = new RoaringBitmap();
+        final Map<String, RoaringBitmap> categories = new TreeMap<>();
+        final RoaringBitmap[] bands;
+        // By whole stars of the average rating, 0 to MAX_RATING
+        final RoaringBitmap[] ratings = new RoaringBitmap[MAX_RATING + 1];
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        // Ratings of products not indexed yet, applied when they arrive
+        final Map<Long, Integer> earlyRatings = new HashMap<>();
+        long[] ids = new long[1024];
+        String[] categoryOf = new String[1024];
+        byte[] bandOf = new byte[1024];
+        byte[] ratingOf = new byte[1024];
+        int next;
+
+        Facets(BigDecimal[] bounds) {
+            this.bounds = bounds;
+            this.bands = new RoaringBitmap[bounds.length + 1];
+            Arrays.setAll(bands, i -> new RoaringBitmap());
+            Arrays.setAll(ratings, i -> new RoaringBitmap());
+        }
+
+        void put(Row row) {
+            Integer existing = ordinals.get(row.id());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                clear(ordinal);
+            } else {
+                ordinal = next++;
+                if (ordinal == ids.length) {
+                    int capacity = ids.length * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    categoryOf = Arrays.copyOf(categoryOf, capacity);
+                    bandOf = Arrays.copyOf(bandOf, capacity);
+                    ratingOf = Arrays.copyOf(ratingOf, capacity);
+                }
+                ids[ordinal] = row.id();
+                ordinals.put(row.id(), ordinal);
+                live.add(ordinal);
+                Integer stars = earlyRatings.remove(row.id());
+                ratingOf[ordinal] = (byte) (stars != null ? stars : 0);
+                ratings[ratingOf[ordinal]].add(ordinal);
+            }
+            if (row.category() != null) {
+                categoryOf[ordinal] = row.category();
+                categories.computeIfAbsent(row.category(), c -> new RoaringBitmap()).add(ordinal);
+            }
+            bandOf[ordinal] = (byte) band(row.price());
+            bands[bandOf[ordinal]].add(ordinal);
+            if (row.available() > 0) {
+                inStock.add(ordinal);
+            }
+        }
+
+        void remove(long id) {
+            Integer ordinal = ordinals.remove(id);
+            earlyRatings.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            clear(ordinal);
+            live.remove(ordinal);
+            ratings[ratingOf[ordinal]].remove(ordinal);
+        }
+
+        void rate(long id, double averageRating) {
+            int stars = (int) Math.max(0, Math.min(MAX_RATING, Math.floor(averageRating)));
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                earlyRatings.put(id, stars);
+                return;
+            }
+            ratings[ratingOf[ordinal]].remove(ordinal);
+            ratingOf[ordinal] = (byte) stars;
+            ratings[stars].add(ordinal);
+        }
+
+        // Drops the ordinal from the facets a row update can move it between
+        private void clear(int ordinal) {
+            String category = categoryOf[ordinal];
+            if (category != null) {
+                RoaringBitmap members = categories.get(category);
+                members.remove(ordinal);
+                if (members.isEmpty()) {
+                    categories.remove(category);
+                }
+                categoryOf[ordinal] = null;
+            }
+            bands[bandOf[ordinal]].remove(ordinal);
+            inStock.remove(ordinal);
+        }
+
+        private int band(BigDecimal price) {
+            int band = 0;
+            while (band < bounds.length && price != null && price.compareTo(bounds[band]) >= 0) {
+                band++;
+            }
+            return band;
+        }
+
+        long estimateBytes() {
+            long bytes = live.estimateBytes() + inStock.estimateBytes();
+            for (RoaringBitmap bitmap : categories.values()) {
+                bytes += bitmap.estimateBytes() + 64;
+            }
+            for (RoaringBitmap bitmap : bands) {
+                bytes += bitmap.estimateBytes();
+            }
+            for (RoaringBitmap bitmap : ratings) {
+                bytes += bitmap.estimateBytes();
+            }
+            // Per-ordinal arrays (category strings are shared with the map keys) and the id map
+            return bytes + (8L + 4 + 1 + 1) * ids.length + 48L * ordinals.size();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final BigDecimal[] bounds;
+    private final List<String> bandLabels;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private Facets facets;
+    // Rating changes made while a rebuild is reading, replayed onto the new index; null when not rebuilding
+    private List<Consumer<Facets>> pending;
+    private volatile boolean ready;
+    private volatile long lastRebuildMs = -1;
+
+    public ProductFacetIndex(JdbcTemplate jdbcTemplate, MongoTemplate mongoTemplate,
+            @Value("${inventory.facets.enabled:true}") boolean enabled,
+            @Value("${inventory.facets.price-bands:10,25,50,100,250}") List<BigDecimal> priceBands) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.bounds = priceBands.stream().sorted().distinct().toArray(BigDecimal[]::new);
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i <= bounds.length; i++) {
+            String low = i == 0 ? "0" : bounds[i - 1].stripTrailingZeros().toPlainString();
+            labels.add(i == bounds.length ? low + "+" : low + "-" + bounds[i].stripTrailingZeros().toPlainString());
+        }
+        this.bandLabels = List.copyOf(labels);
+        this.facets = new Facets(bounds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread rebuild = new Thread(this::rebuild, "product-facet-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Reads every product's facet columns and rating and swaps in a fresh
+     * index. Products changed meanwhile stay dirty and are re-read by the
+     * next refresh.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            // Read before changes start queueing, so a rating replayed later is never older than this one
+            Map<Long, Double> ratings = loadRatings();
+            lock.writeLock().lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Facets built = new Facets(bounds);
+            try {
+                long lastId = 0;
+                while (true) {
+                    List<Row> rows = jdbcTemplate.query(SELECT_ROWS + "WHERE p.id > ? ORDER BY p.id LIMIT ?",
+                            ROW_MAPPER, lastId, REBUILD_CHUNK);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    rows.forEach(built::put);
+                    lastId = rows.get(rows.size() - 1).id();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Product facet rebuild failed; filtering keeps using the previous index", e);
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return;
+            }
+            ratings.forEach((id, rating) -> {
+                if (built.ordinals.containsKey(id)) {
+                    built.rate(id, rating);
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                pending.forEach(change -> change.accept(built));
+                pending = null;
+                facets = built;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Product facet index built: {} products, {} categories in {} ms", built.ordinals.size(),
+                    built.categories.size(), lastRebuildMs);
+        }
+    }
+
+    /**
+     * Marks products whose row, stock or holds changed (or that were created
+     * or deleted) for the next refresh; inside a transaction, once it commits.
+     */
+    public void changed(Collection<Long> productIds) {
+        if (!enabled || productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirty.addAll(ids);
+                }
+            });
+        } else {
+            dirty.addAll(ids);
+        }
+    }
+
+    public void changed(Long productId) {
+        if (productId != null) {
+            changed(List.of(productId));
+        }
+    }
+
+    /**
+     * Moves a product to the rating facet of its new average.
+     */
+    public void ratingChanged(Long productId, double averageRating) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Consumer<Facets> change = index -> index.rate(productId, averageRating);
+            if (pending != null) {
+                pending.add(change);
+            }
+            change.accept(facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the dirty products and moves them between facets; a product
+     * whose row is gone is dropped. Deferred while a rebuild is running.
+     */
+    @Scheduled(fixedDelayString = "${inventory.facets.refresh-interval-ms:500}")
+    public void refresh() {
+        if (!ready || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        // A product marked again from here on is re-read next time; the read below is newer than its commit anyway
+        dirty.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_CHUNK));
+            List<Row> rows;
+            try {
+                rows = jdbcTemplate.query(SELECT_ROWS + "WHERE p.id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", ROW_MAPPER,
+                        chunk.toArray());
+            } catch (RuntimeException e) {
+                logger.warn("Product facet refresh failed; {} product(s) stay dirty: {}", ids.size() - from,
+                        e.getMessage());
+                dirty.addAll(ids.subList(from, ids.size()));
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                if (pending != null) {
+                    // The rebuild may have read these rows before they changed; look again once it is done
+                    dirty.addAll(ids.subList(from, ids.size()));
+                    return;
+                }
+                Set<Long> gone = new HashSet<>(chunk);
+                for (Row row : rows) {
+                    facets.put(row);
+                    gone.remove(row.id());
+                }
+                gone.forEach(facets::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the ids of {@code limit} matching products after {@code offset}
+     *         in id order, with the facet counts, or empty while the index
+     *         is not built (or filtering is disabled)
+     */
+    public Optional<FacetHits> filter(FacetFilter filter, int offset, int limit) {
+        if (filter.minRating() < 0 || filter.minRating() > MAX_RATING) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minRating must be 0-" + MAX_RATING);
+        }
+        List<Integer> bands = new ArrayList<>();
+        for (String label : filter.priceBands()) {
+            int band = bandLabels.indexOf(label);
+            if (band < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown price band '" + label + "'; expected one of " + bandLabels);
+            }
+            bands.add(band);
+        }
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            Facets index = facets;
+            RoaringBitmap category = null;
+            if (!filter.categories().isEmpty()) {
+                category = new RoaringBitmap();
+                for (String value : filter.categories()) {
+                    RoaringBitmap members = index.categories.get(value);
+                    if (members != null) {
+                        category = RoaringBitmap.or(category, members);
+                    }
+                }
+            }
+            RoaringBitmap stock = filter.inStock() ? index.inStock : null;
+            RoaringBitmap price = null;
+            for (int band : bands) {
+                price = price == null ? index.bands[band] : RoaringBitmap.or(price, index.bands[band]);
+            }
+            RoaringBitmap rating = filter.minRating() > 0 ? atLeast(index, filter.minRating()) : null;
+
+            RoaringBitmap matches = intersect(index.live, category, stock, price, rating);
+            int[] ordinals = matches.page(offset, limit);
+            List<Long> ids = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) {
+                ids.add(index.ids[ordinal]);
+            }
+
+            // Each facet is counted under the other facets' filters, so picking a value never hides its siblings.
+            // A set counted against several facet values is expanded to bitmaps first, so each count is probes
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            RoaringBitmap others = intersect(index.live, stock, price, rating).toDense();
+            Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+            index.categories.forEach((value, members) -> categoryCounts.put(value,
+                    RoaringBitmap.andCardinality(members, others)));
+            counts.put("category", categoryCounts);
+
+            RoaringBitmap unstocked = intersect(index.live, category, price, rating);
+            int inStock = RoaringBitmap.andCardinality(index.inStock, unstocked);
+            counts.put("stock", Map.of("inStock", inStock, "outOfStock", unstocked.cardinality() - inStock));
+
+            RoaringBitmap unpriced = intersect(index.live, category, stock, rating).toDense();
+            Map<String, Integer> bandCounts = new LinkedHashMap<>();
+            for (int band = 0; band < index.bands.length; band++) {
+                bandCounts.put(bandLabels.get(band), RoaringBitmap.andCardinality(index.bands[band], unpriced));
+            }
+            counts.put("priceBand", bandCounts);
+
+            RoaringBitmap unrated = intersect(index.live, category, stock, price).toDense();
+            Map<String, Integer> ratingCounts = new LinkedHashMap<>();
+            int atLeast = 0;
+            for (int stars = MAX_RATING; stars >= 1; stars--) {
+                atLeast += RoaringBitmap.andCardinality(index.ratings[stars], unrated);
+                ratingCounts.put(String.valueOf(stars), atLeast);
+            }
+            counts.put("minRating", ratingCounts);
+
+            return Optional.of(new FacetHits(ids, matches.cardinality(), counts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> getPriceBands() {
+        return bandLabels;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("rebuilding", pending != null);
+            stats.put("products", facets.ordinals.size());
+            stats.put("categories", facets.categories.size());
+            stats.put("dirty", dirty.size());
+            stats.put("estimatedBytes", facets.estimateBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+
+    private static RoaringBitmap atLeast(Facets index, int minRating) {
+        RoaringBitmap rated = index.ratings[minRating];
+        for (int stars = minRating + 1; stars <= MAX_RATING; stars++) {
+            rated = RoaringBitmap.or(rated, index.ratings[stars]);
+        }
+        return rated;
+    }
+
+    // Intersection of the given sets, null ones meaning no filter; every set is a subset of live
+    private static RoaringBitmap intersect(RoaringBitmap live, RoaringBitmap... sets) {
+        RoaringBitmap result = live;
+        for (RoaringBitmap set : sets) {
+            if (set != null) {
+                result = result == live ? set : RoaringBitmap.and(result, set);
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, Double> loadRatings() {
+        Map<Long, Double> ratings = new HashMap<>();
+        Query query = new Query();
+        query.fields().include("productId").include("averageRating");
+        try {
+            for (InventoryAnalytics analytics : mongoTemplate.find(query, InventoryAnalytics.class)) {
+                if (analytics.getProductId() != null && analytics.getAverageRating() != null) {
+                    ratings.put(analytics.getProductId(), analytics.getAverageRating());
+                }
+            }
+        } catch (RuntimeException e) {
+            // The other facets still work; ratings arrive as reviews are added
+            logger.warn("Could not read ratings for the facet index; every product starts unrated", e);
+        }
+        return ratings;
+    }
+}
@@ -0,0 +1,581 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming catalog import: CSV or NDJSON rows are parsed one at a time,
+ * validated against the {@link Product} constraints and upserted by SKU in
+ * chunks of {@code inventory.import.chunk-size}.
+ * <p>
+ * Each chunk is one transaction: one lookup of the SKUs already present, one
+ * JDBC batch of UPDATEs for those, one JDBC batch of INSERTs for the rest and
+ * one read of the new ids. The chunk's {@code InventoryAnalytics} documents
+ * are then upserted with one Mongo bulk write. Bad rows are reported with
+ * their row number and never stop the import.
+ * <p>
+ * Progress of running and recent imports can be polled by id.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String UPDATE_SQL = "UPDATE products SET name = ?, description = ?, price = ?, "
+            + "category = ?, image_url = ?, status = ?, quantity = ?, version = version + 1, updated_at = ? "
+            + "WHERE id = ? AND ? >= reserved_quantity";
+
+    private static final String INSERT_SQL = "INSERT INTO products (name, description, price, quantity, sku, "
+            + "category, status, image_url, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // CSV header names (lower-cased, without '_') -> Product property
+    private static final Map<String, String> CSV_COLUMNS = Map.of(
+            "name", "name",
+            "description", "description",
+            "price", "price",
+            "quantity", "quantity",
+            "sku", "sku",
+            "category", "category",
+            "imageurl", "imageUrl");
+
+    /** One parsed input row; {@code error} is set instead of {@code product} if it could not be parsed. */
+    private record Row(long number, Product product, String error) {
+    }
+
+    private static final class ImportProgress {
+        final String importId;
+        final String format;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startedNanos = System.nanoTime();
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<Map<String, Object>> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "RUNNING";
+        volatile String failure;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedNanos;
+
+        ImportProgress(String importId, String format) {
+            this.importId = importId;
+            this.format = format;
+        }
+
+        Map<String, Object> snapshot() {
+            long end = finishedAt != null ? finishedNanos : System.nanoTime();
+            double minutes = Math.max(1, end - startedNanos) / 60_000_000_000.0;
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("importId", importId);
+            snapshot.put("format", format);
+            snapshot.put("status", status);
+            snapshot.put("rows", rows.get());
+            snapshot.put("created", created.get());
+            snapshot.put("updated", updated.get());
+            snapshot.put("failed", failed.get());
+            snapshot.put("rowsPerMinute", Math.round(rows.get() / minutes));
+            snapshot.put("startedAt", startedAt);
+            snapshot.put("finishedAt", finishedAt);
+            if (failure != null) {
+                snapshot.put("failure", failure);
+            }
+            synchronized (errors) {
+                snapshot.put("errors", new ArrayList<>(errors));
+            }
+            return snapshot;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final StripedStockService stripedStockService;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggester productSuggester;
+    private final ProductFacetIndex facetIndex;
+    private final ProductStats productStats;
+    private final CatalogVersion catalogVersion;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int historySize;
+
+    // Running and recently finished imports, oldest first
+    private final Map<String, ImportProgress> imports = new LinkedHashMap<>();
+
+    public ProductImportService(JdbcTemplate jdbcTemplate, MongoTemplate mongoTemplate,
+            StripedStockService stripedStockService, ProductCache productCache, ProductSearchIndex searchIndex,
+            ProductSuggester productSuggester, ProductFacetIndex facetIndex, ProductStats productStats,
+            CatalogVersion catalogVersion, Validator validator, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.import.chunk-size:1000}") int chunkSize,
+            @Value("${inventory.import.max-errors:1000}") int maxErrors,
+            @Value("${inventory.import.history-size:20}") int historySize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.mongoTemplate = mongoTemplate;
+        this.stripedStockService = stripedStockService;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.productSuggester = productSuggester;
+        this.facetIndex = facetIndex;
+        this.productStats = productStats;
+        this.catalogVersion = catalogVersion;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = maxErrors;
+        this.historySize = Math.max(1, historySize);
+    }
+
+    /**
+     * Imports CSV with a header row. Recognised columns are name, description,
+     * price, quantity, sku, category and imageUrl (or image_url); others are
+     * ignored.
+     *
+     * @param importId id to poll progress under, or null for a generated one
+     * @return the final progress report
+     */
+    public Map<String, Object> importCsv(Reader input, String importId) {
+        CsvRecordReader csv = new CsvRecordReader(new BufferedReader(input));
+        return run(() -> {
+            List<String> header = readCsv(csv);
+            if (header == null) {
+                throw new IllegalArgumentException("CSV input is empty");
+            }
+            List<String> properties = header.stream()
+                    .map(name -> CSV_COLUMNS.get(name.trim().replace("_", "").toLowerCase(Locale.ROOT)))
+                    .toList();
+            if (!properties.contains("sku")) {
+                throw new IllegalArgumentException("CSV header has no sku column");
+            }
+
+            return new Iterator<>() {
+                private long number;
+                private List<String> next = readCsv(csv);
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Row next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    List<String> fields = next;
+                    next = readCsv(csv);
+                    return fromCsv(++number, properties, fields);
+                }
+            };
+        }, importId, "CSV");
+    }
+
+    /**
+     * Imports newline-delimited JSON, one product object per line. Blank lines
+     * are skipped but still counted, so row numbers match line numbers.
+     *
+     * @param importId id to poll progress under, or null for a generated one
+     * @return the final progress report
+     */
+    public Map<String, Object> importNdjson(Reader input, String importId) {
+        BufferedReader lines = new BufferedReader(input);
+        return run(() -> new Iterator<>() {
+            private long number;
+            private Row next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Row next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Row row = next;
+                next = advance();
+                return row;
+            }
+
+            private Row advance() {
+                try {
+                    String line;
+                    do {
+                        line = lines.readLine();
+                        number++;
+                    } while (line != null && line.isBlank());
+                    if (line == null) {
+                        return null;
+                    }
+                    try {
+                        return new Row(number, objectMapper.readValue(line, Product.class), null);
+                    } catch (JsonProcessingException e) {
+                        return new Row(number, null, "Malformed JSON: " + e.getOriginalMessage());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }, importId, "NDJSON");
+    }
+
+    /**
+     * Progress of a running or recently finished import.
+     */
+    public Map<String, Object> getImport(String importId) {
+        ImportProgress progress;
+        synchronized (imports) {
+            progress = imports.get(importId);
+        }
+        if (progress == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found: " + importId);
+        }
+        return progress.snapshot();
+    }
+
+    // The rows are opened inside the guarded block, so a malformed header or first record fails the import
+    private Map<String, Object> run(Supplier<Iterator<Row>> source, String importId, String format) {
+        ImportProgress progress = register(importId, format);
+        logger.info("Starting {} product import {}", format, progress.importId);
+        try {
+            Iterator<Row> rows = source.get();
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, progress);
+            }
+            progress.status = "COMPLETED";
+        } catch (RuntimeException e) {
+            // Chunks already imported stay imported; the report says how far it got
+            progress.status = "FAILED";
+            progress.failure = e.getMessage();
+            logger.error("Product import {} failed after {} row(s)", progress.importId, progress.rows.get(), e);
+        } finally {
+            progress.finishedNanos = System.nanoTime();
+            progress.finishedAt = LocalDateTime.now();
+        }
+        Map<String, Object> report = progress.snapshot();
+        logger.info("Product import {} {}: {} row(s), {} created, {} updated, {} failed, {} rows/min",
+                progress.importId, progress.status, report.get("rows"), report.get("created"),
+                report.get("updated"), report.get("failed"), report.get("rowsPerMinute"));
+        return report;
+    }
+
+    private ImportProgress register(String importId, String format) {
+        String id = importId != null ? importId : UUID.randomUUID().toString();
+        if (id.isBlank() || id.length() > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import id must be 1 to 100 characters");
+        }
+        ImportProgress progress = new ImportProgress(id, format);
+        synchronized (imports) {
+            ImportProgress existing = imports.get(id);
+            if (existing != null && "RUNNING".equals(existing.status)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Import " + id + " is already running");
+            }
+            imports.remove(id);
+            imports.put(id, progress);
+            Iterator<ImportProgress> oldest = imports.values().iterator();
+            while (imports.size() > historySize && oldest.hasNext()) {
+                if (!"RUNNING".equals(oldest.next().status)) {
+                    oldest.remove();
+                }
+            }
+        }
+        return progress;
+    }
+
+    private void importChunk(List<Row> chunk, ImportProgress progress) {
+        // Valid products by SKU; a later row for the same SKU replaces an earlier one
+        Map<String, Row> valid = new LinkedHashMap<>();
+        for (Row row : chunk) {
+            String error = row.error() != null ? row.error() : validate(row.product());
+            if (error != null) {
+                fail(progress, row, error);
+                continue;
+            }
+            Row replaced = valid.remove(row.product().getSku());
+            if (replaced != null) {
+                fail(progress, replaced, "Superseded by row " + row.number() + " with the same SKU");
+            }
+            valid.put(row.product().getSku(), row);
+        }
+        progress.rows.addAndGet(chunk.size());
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> ids;
+        try {
+            ids = transactionTemplate.execute(status -> upsert(valid, progress));
+        } catch (DuplicateKeyException e) {
+            // Another writer inserted one of these SKUs since the lookup; the retry sees it and updates instead
+            logger.debug("SKU inserted concurrently during import {}; retrying chunk", progress.importId);
+            ids = transactionTemplate.execute(status -> upsert(valid, progress));
+        }
+        // Committed: index the written rows under their ids
+        for (Map.Entry<String, Long> written : ids.entrySet()) {
+            Product product = valid.get(written.getKey()).product();
+            product.setId(written.getValue());
+            searchIndex.index(product);
+            productSuggester.index(product);
+        }
+        facetIndex.changed(ids.values());
+        productStats.changed(ids.values());
+        catalogVersion.productsChanged();
+        syncAnalytics(valid, ids, progress);
+    }
+
+    /**
+     * Writes one chunk and counts the outcome.
+     *
+     * @return product id by SKU for every row written
+     */
+    private Map<String, Long> upsert(Map<String, Row> valid, ImportProgress progress) {
+        Map<String, Long> existing = new HashMap<>();
+        Set<Long> striped = new TreeSet<>();
+        namedJdbcTemplate.query("SELECT id, sku, stock_stripes FROM products WHERE sku IN (:skus)",
+                Map.of("skus", valid.keySet()), rs -> {
+                    existing.put(rs.getString("sku"), rs.getLong("id"));
+                    if (rs.getInt("stock_stripes") > 0) {
+                        striped.add(rs.getLong("id"));
+                    }
+                });
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Row> updates = new ArrayList<>();
+        List<Row> inserts = new ArrayList<>();
+        valid.values().forEach(row -> (existing.containsKey(row.product().getSku()) ? updates : inserts).add(row));
+        // Ascending ids in one pass, like every other multi-row stock writer, striped buckets included
+        updates.sort((a, b) -> Long.compare(existing.get(a.product().getSku()), existing.get(b.product().getSku())));
+
+        Map<String, Long> written = new HashMap<>();
+        List<String> rejected = new ArrayList<>();
+        if (!updates.isEmpty()) {
+            int[] counts = new int[updates.size()];
+            int from = 0;
+            for (int i = 0; i <= updates.size(); i++) {
+                Long id = i < updates.size() ? existing.get(updates.get(i).product().getSku()) : null;
+                if (id == null || striped.contains(id)) {
+                    update(updates.subList(from, i), existing, now, counts, from);
+                    from = i;
+                }
+                if (id != null && striped.contains(id)) {
+                    // Its quantity is about to be overwritten: fold its buckets into the row in its turn
+                    stripedStockService.consolidate(id);
+                }
+            }
+            for (int i = 0; i < counts.length; i++) {
+                String sku = updates.get(i).product().getSku();
+                if (counts[i] == 0) {
+                    rejected.add(sku);
+                } else {
+                    written.put(sku, existing.get(sku));
+                    productCache.invalidate(existing.get(sku));
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (PreparedStatement ps, Row row) -> {
+                Product product = row.product();
+                ps.setString(1, product.getName());
+                ps.setString(2, product.getDescription());
+                ps.setBigDecimal(3, product.getPrice());
+                ps.setInt(4, product.getQuantity());
+                ps.setString(5, product.getSku());
+                ps.setString(6, product.getCategory());
+                ps.setString(7, status(product));
+                ps.setString(8, product.getImageUrl());
+                ps.setTimestamp(9, now);
+                ps.setTimestamp(10, now);
+            });
+            Set<String> insertedSkus = inserts.stream().map(row -> row.product().getSku()).collect(Collectors.toSet());
+            namedJdbcTemplate.query("SELECT id, sku FROM products WHERE sku IN (:skus)",
+                    Map.of("skus", insertedSkus), rs -> {
+                        written.put(rs.getString("sku"), rs.getLong("id"));
+                    });
+        }
+
+        // Counted only once the chunk's transaction has the rows, so a retried chunk is not counted twice
+        for (String sku : rejected) {
+            fail(progress, valid.get(sku), "Quantity is below the stock held by cart reservations");
+        }
+        progress.updated.addAndGet(updates.size() - rejected.size());
+        progress.created.addAndGet(inserts.size());
+        return written;
+    }
+
+    // One JDBC batch of UPDATEs for a run of rows; their update counts go to counts[offset...]
+    private void update(List<Row> run, Map<String, Long> existing, Timestamp now, int[] counts, int offset) {
+        if (run.isEmpty()) {
+            return;
+        }
+        int[] runCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, run, run.size(), (PreparedStatement ps, Row row) -> {
+            Product product = row.product();
+            ps.setString(1, product.getName());
+            ps.setString(2, product.getDescription());
+            ps.setBigDecimal(3, product.getPrice());
+            ps.setString(4, product.getCategory());
+            ps.setString(5, product.getImageUrl());
+            ps.setString(6, status(product));
+            ps.setInt(7, product.getQuantity());
+            ps.setTimestamp(8, now);
+            ps.setLong(9, existing.get(product.getSku()));
+            ps.setInt(10, product.getQuantity());
+        })[0];
+        System.arraycopy(runCounts, 0, counts, offset, runCounts.length);
+    }
+
+    // MySQL is the source of truth; a failed sync is logged and repaired by the daily analytics sync
+    private void syncAnalytics(Map<String, Row> valid, Map<String, Long> ids, ImportProgress progress) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class);
+            ids.forEach((sku, id) -> {
+                Product product = valid.get(sku).product();
+                Update update = new Update()
+                        .set("sku", sku)
+                        .set("productName", product.getName())
+                        .set("category", product.getCategory())
+                        .set("currentStock", product.getQuantity())
+                        .set("lastUpdated", now)
+                        .setOnInsert("totalViewCount", 0)
+                        .setOnInsert("totalPurchases", 0)
+                        .setOnInsert("averageRating", 0.0)
+                        .setOnInsert("priceHistory", List.of(
+                                new InventoryAnalytics.PriceHistory(product.getPrice().doubleValue(), now)));
+                bulk.upsert(Query.query(Criteria.where("productId").is(id)), update);
+            });
+            bulk.execute();
+            catalogVersion.analyticsChanged();
+        } catch (RuntimeException e) {
+            logger.warn("Syncing {} imported product(s) to analytics failed during import {}: {}", ids.size(),
+                    progress.importId, e.getMessage());
+        }
+    }
+
+    private String validate(Product product) {
+        if (product == null) {
+            return "Empty row";
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void fail(ImportProgress progress, Row row, String message) {
+        progress.failed.incrementAndGet();
+        if (progress.errors.size() < maxErrors) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("row", row.number());
+            if (row.product() != null && row.product().getSku() != null) {
+                error.put("sku", row.product().getSku());
+            }
+            error.put("message", message);
+            progress.errors.add(error);
+        }
+    }
+
+    private static String status(Product product) {
+        return product.getQuantity() > 0 ? "IN_STOCK" : "OUT_OF_STOCK";
+    }
+
+    private static Row fromCsv(long number, List<String> properties, List<String> fields) {
+        Product product = new Product();
+        for (int i = 0; i < properties.size() && i < fields.size(); i++) {
+            String property = properties.get(i);
+            String value = fields.get(i).trim();
+            if (property == null || value.isEmpty()) {
+                continue;
+            }
+            try {
+                switch (property) {
+                    case "name" -> product.setName(value);
+                    case "description" -> product.setDescription(value);
+                    case "price" -> product.setPrice(new BigDecimal(value));
+                    case "quantity" -> product.setQuantity(Integer.valueOf(value));
+                    case "sku" -> product.setSku(value);
+                    case "category" -> product.setCategory(value);
+                    case "imageUrl" -> product.setImageUrl(value);
+                    default -> {
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return new Row(number, product, property + ": not a number: " + value);
+            }
+        }
+        return new Row(number, product, null);
+    }
+
+    private static List<String> readCsv(CsvRecordReader csv) {
+        try {
+            return csv.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProductPage;
+import com.inventory.dto.ProductSummary;
+import com.inventory.dto.ProductView;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over the product table for the storefront catalog
+ * and the admin list. Each page continues from the {@code (sort key, id)} of
+ * the last row of the previous one, so it is an index range read of
+ * {@code limit + 1} rows however deep the client is, instead of an OFFSET
+ * that reads and discards every earlier row. Every sort key has a
+ * {@code (key, id)} index on {@code products}.
+ * <p>
+ * The position travels as an opaque cursor that also pins the sort, so a
+ * cursor cannot be replayed against a different ordering. Counting the
+ * whole table is optional, since on a large catalog the count costs more
+ * than the page.
+ * <p>
+ * The {@link ProductView#SUMMARY} view selects only the list columns and
+ * builds {@link ProductSummary} rows from them, so the TEXT columns are never
+ * read and no entities enter the persistence context.
+ */
+@Service
+public class ProductPager {
+
+    private static final String CURSOR_VERSION = "1";
+
+    enum SortKey {
+        ID("id", Product::getId, Long::valueOf),
+        NAME("name", Product::getName, value -> value),
+        PRICE("price", Product::getPrice, BigDecimal::new),
+        CREATED_AT("createdAt", Product::getCreatedAt, LocalDateTime::parse);
+
+        final String property;
+        final Function<Product, Object> extractor;
+        final Function<String, Object> parser;
+
+        SortKey(String property, Function<Product, Object> extractor, Function<String, Object> parser) {
+            this.property = property;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        static SortKey of(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equalsIgnoreCase(property)) {
+                    return key;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported sort '" + property + "'; use one of id, name, price, createdAt");
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public ProductPager(ProductRepository productRepository, EntityManager entityManager,
+            @Value("${inventory.paging.default-limit:50}") int defaultLimit,
+            @Value("${inventory.paging.max-limit:200}") int maxLimit) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @param cursor       {@code nextCursor} of the previous page, or null for the first page
+     * @param limit        page size, capped at {@code inventory.paging.max-limit}
+     * @param sort         {@code property[,asc|desc]}; ignored when a cursor is given, which carries its own
+     * @param includeTotal whether to also count all products
+     * @param view         whether the page holds {@code Product} entities or {@link ProductSummary} rows
+     */
+    @Transactional(readOnly = true)
+    public ProductPage<?> page(String cursor, Integer limit, String sort, boolean includeTotal, ProductView view) {
+        int size = limit == null ? defaultLimit : limit;
+        if (size < 1 || size > maxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be 1-" + maxLimit);
+        }
+
+        SortKey key;
+        Sort.Direction direction;
+        String[] after = null;
+        if (cursor != null) {
+            after = decode(cursor);
+            key = SortKey.of(after[1]);
+            direction = Sort.Direction.fromString(after[2]);
+        } else {
+            String[] parts = (sort == null || sort.isBlank() ? "id" : sort).split(",");
+            key = SortKey.of(parts[0].trim());
+            direction = parts.length > 1 ? parseDirection(parts[1].trim()) : Sort.Direction.ASC;
+        }
+        boolean summary = view == ProductView.SUMMARY;
+
+        // Property names come from SortKey, never from the request, so building the JPQL is safe
+        String column = "p." + key.property;
+        String beyond = direction.isAscending() ? ">" : "<";
+        // A summary row carries its sort key last, for the cursor; its quantity includes any stock buckets
+        StringBuilder jpql = new StringBuilder(summary
+                ? "SELECT p.id, p.name, p.sku, p.price, p.quantity + p.stripedQuantity, p.status, p.category, "
+                        + column + " FROM Product p"
+                : "SELECT p FROM Product p");
+        if (after != null) {
+            // Written with a leading range on the sort key, which the (key, id) index can seek to;
+            // the equivalent "key > k OR (key = k AND id > i)" makes MySQL and H2 scan instead
+            jpql.append(key == SortKey.ID ? " WHERE p.id " + beyond + " :id"
+                    : " WHERE " + column + " " + beyond + "= :key AND (" + column + " " + beyond + " :key OR p.id "
+                            + beyond + " :id)");
+        }
+        // id breaks ties between equal sort keys, so every row has exactly one position
+        String order = " " + direction.name();
+        jpql.append(" ORDER BY ").append(key == SortKey.ID ? "p.id" + order : column + order + ", p.id" + order);
+
+        TypedQuery<?> query = summary
+                ? entityManager.createQuery(jpql.toString(), Object[].class)
+                : entityManager.createQuery(jpql.toString(), Product.class);
+        query.setMaxResults(size + 1);
+        if (after != null) {
+            if (key != SortKey.ID) {
+                query.setParameter("key", key.parser.apply(after[3]));
+            }
+            query.setParameter("id", Long.valueOf(after[4]));
+        }
+        List<?> rows = query.getResultList();
+
+        // One row past the page tells whether there is a next page without counting
+        boolean hasNext = rows.size() > size;
+        List<?> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Object last = content.get(size - 1);
+            nextCursor = last instanceof Product product
+                    ? encode(key, direction, key.extractor.apply(product), product.getId())
+                    : encode(key, direction, ((Object[]) last)[7], (Long) ((Object[]) last)[0]);
+        }
+        Long total = includeTotal ? productRepository.count() : null;
+        if (summary) {
+            return new ProductPage<>(content.stream().map(row -> toSummary((Object[]) row)).toList(), hasNext,
+                    nextCursor, total);
+        }
+        return new ProductPage<>(content, hasNext, nextCursor, total);
+    }
+
+    static String encode(SortKey key, Sort.Direction direction, Object keyValue, Long id) {
+        String token = String.join("|", CURSOR_VERSION, key.property, direction.name(), String.valueOf(keyValue),
+                String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ProductSummary toSummary(Object[] row) {
+        return new ProductSummary((Long) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                ((Number) row[4]).intValue(), (String) row[5], (String) row[6]);
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The sort value sits between fixed fields and may itself contain '|'
+            int first = token.indexOf('|');
+            int second = token.indexOf('|', first + 1);
+            int third = token.indexOf('|', second + 1);
+            int last = token.lastIndexOf('|');
+            if (first < 0 || second < 0 || third < 0 || last <= third
+                    || !CURSOR_VERSION.equals(token.substring(0, first))) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            String[] parts = {
+                    token.substring(0, first), token.substring(first + 1, second), token.substring(second + 1, third),
+                    token.substring(third + 1, last), token.substring(last + 1) };
+            // Parse eagerly so a damaged cursor is a 400, not an error from the query
+            SortKey.of(parts[1]).parser.apply(parts[3]);
+            Sort.Direction.fromString(parts[2]);
+            Long.valueOf(parts[4]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static Sort.Direction parseDirection(String direction) {
+        return Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Sort direction must be asc or desc"));
+    }
+}
@@ -0,0 +1,481 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process full-text index over product name, description, SKU and
+ * category, ranked with BM25. Replaces {@code LIKE '%keyword%'}, which no
+ * index can serve and which only looked at the name.
+ * <p>
+ * Each term maps to a posting list of parallel {@code int} arrays (document
+ * ordinal, weighted term frequency). Name and SKU hits count three times,
+ * category twice, description once. Every query term must match; a term of
+ * at least {@value #MIN_PREFIX} characters also matches the terms it is a
+ * prefix of, at a lower weight than an exact match.
+ * <p>
+ * The index is built from the database when the application is ready, with
+ * documents analysed in parallel, and is kept current by the product write
+ * paths, which call {@link #index} and {@link #remove}; inside a transaction
+ * the change is applied once it commits. An update appends a new document and
+ * tombstones the old one; tombstones are dropped by compacting the postings
+ * once they outnumber live documents. Until the first build completes
+ * {@link #search} returns empty and callers fall back to SQL.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 3;
+    private static final int SKU_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MIN_PREFIX = 3;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final float PREFIX_BOOST = 0.5f;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int REBUILD_CHUNK = 5_000;
+
+    /** One page of ranked product ids and the number of products matching in total. */
+    public record SearchHits(List<Long> ids, int total) {
+    }
+
+    // Weighted term frequencies of one product; length is their sum
+    private record Document(Map<String, Integer> terms, int length) {
+    }
+
+    // A change made while a rebuild is reading the table, replayed onto the new index; null document removes
+    private record Change(long id, Document document) {
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private static final class Index {
+        // Sorted, so prefix expansion is a range of the term dictionary
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final BitSet deleted = new BitSet();
+        long[] ids = new long[1024];
+        int[] lengths = new int[1024];
+        int docs;
+        int deletedDocs;
+        long totalLength;
+        long postings;
+
+        void put(long id, Document document) {
+            remove(id);
+            if (docs == ids.length) {
+                ids = Arrays.copyOf(ids, docs * 2);
+                lengths = Arrays.copyOf(lengths, docs * 2);
+            }
+            // Ordinals only grow, so every posting list stays sorted
+            int ordinal = docs++;
+            ids[ordinal] = id;
+            lengths[ordinal] = document.length();
+            totalLength += document.length();
+            ordinals.put(id, ordinal);
+            document.terms().forEach(
+                    (term, freq) -> terms.computeIfAbsent(term, t -> new Postings()).add(ordinal, freq));
+            postings += document.terms().size();
+        }
+
+        void remove(long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                deleted.set(ordinal);
+                deletedDocs++;
+            }
+        }
+
+        boolean needsCompaction() {
+            return deletedDocs > Math.max(1024, ordinals.size());
+        }
+
+        // Rewrites the postings without tombstoned documents; the ordinal mapping is monotonic, so order is kept
+        Index compact() {
+            int[] remap = new int[docs];
+            Index compacted = new Index();
+            compacted.ids = new long[Math.max(1024, ordinals.size())];
+            compacted.lengths = new int[compacted.ids.length];
+            for (int ordinal = 0; ordinal < docs; ordinal++) {
+                if (deleted.get(ordinal)) {
+                    remap[ordinal] = -1;
+                    continue;
+                }
+                int target = compacted.docs++;
+                remap[ordinal] = target;
+                compacted.ids[target] = ids[ordinal];
+                compacted.lengths[target] = lengths[ordinal];
+                compacted.totalLength += lengths[ordinal];
+                compacted.ordinals.put(ids[ordinal], target);
+            }
+            terms.forEach((term, list) -> {
+                Postings kept = new Postings();
+                for (int i = 0; i < list.size; i++) {
+                    if (remap[list.docs[i]] >= 0) {
+                        kept.add(remap[list.docs[i]], list.freqs[i]);
+                    }
+                }
+                if (kept.size > 0) {
+                    compacted.terms.put(term, kept);
+                    compacted.postings += kept.size;
+                }
+            });
+            return compacted;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // Guards index, pending and ready; searches share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rebuilds run one at a time
+    private final Object rebuildLock = new Object();
+    private Index index = new Index();
+    private List<Change> pending;
+    private volatile boolean ready;
+    private volatile long lastRebuildMs = -1;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder unavailable = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public ProductSearchIndex(JdbcTemplate jdbcTemplate,
+            @Value("${inventory.search.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread rebuild = new Thread(this::rebuild, "product-search-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Reads every product and swaps in a freshly built index. Changes made
+     * while the table is being read are replayed onto the new index.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index built = new Index();
+        try {
+            long lastId = 0;
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(
+                        "SELECT id, name, description, sku, category FROM products WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, rowNum) -> new Object[] { rs.getLong("id"), rs.getString("name"),
+                                rs.getString("description"), rs.getString("sku"), rs.getString("category") },
+                        lastId, REBUILD_CHUNK);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                // Tokenizing dominates the build and is independent per product
+                List<Document> documents = rows.parallelStream()
+                        .map(row -> analyse((String) row[1], (String) row[2], (String) row[3], (String) row[4]))
+                        .toList();
+                for (int i = 0; i < rows.size(); i++) {
+                    built.put((Long) rows.get(i)[0], documents.get(i));
+                }
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            logger.error("Product search index rebuild failed; searches keep using the previous index", e);
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pending) {
+                if (change.document() == null) {
+                    built.remove(change.id());
+                } else {
+                    built.put(change.id(), change.document());
+                }
+            }
+            pending = null;
+            index = built;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Product search index built: {} products, {} terms in {} ms", built.ordinals.size(),
+                built.terms.size(), lastRebuildMs);
+    }
+
+    /**
+     * Adds or replaces a product. Its id must be set.
+     */
+    public void index(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        apply(new Change(product.getId(),
+                analyse(product.getName(), product.getDescription(), product.getSku(), product.getCategory())));
+    }
+
+    public void remove(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        apply(new Change(id, null));
+    }
+
+    /**
+     * @return ranked ids for {@code limit} results after {@code offset}, or
+     *         empty if the index is not built yet or the query has no terms
+     */
+    public Optional<SearchHits> search(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (!ready || tokens.isEmpty()) {
+            unavailable.increment();
+            return Optional.empty();
+        }
+        searches.increment();
+        if (tokens.size() > MAX_QUERY_TERMS) {
+            tokens = tokens.subList(0, MAX_QUERY_TERMS);
+        }
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            int n = current.docs;
+            float averageLength = n == 0 ? 1 : (float) current.totalLength / n;
+            float[] scores = new float[n];
+            // Number of query terms each document has matched so far; a document that missed one drops out
+            byte[] matched = new byte[n];
+            for (int q = 0; q < tokens.size(); q++) {
+                String token = tokens.get(q);
+                for (Map.Entry<String, Postings> term : expansions(current, token).entrySet()) {
+                    float boost = term.getKey().equals(token) ? 1f : PREFIX_BOOST;
+                    Postings postings = term.getValue();
+                    // Document frequency still counts tombstones until the next compaction, as in Lucene
+                    float idf = (float) Math.log(1 + (n - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        if (matched[doc] < q || current.deleted.get(doc)) {
+                            continue;
+                        }
+                        float tf = postings.freqs[i];
+                        float norm = K1 * (1 - B + B * current.lengths[doc] / averageLength);
+                        scores[doc] += boost * idf * tf * (K1 + 1) / (tf + norm);
+                        matched[doc] = (byte) (q + 1);
+                    }
+                }
+            }
+
+            // Keep only the best offset + limit; the head of the heap is the weakest kept result
+            int wanted = offset + limit;
+            PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> scores[a] != scores[b]
+                    ? Float.compare(scores[a], scores[b])
+                    : Long.compare(current.ids[b], current.ids[a]));
+            int total = 0;
+            for (int doc = 0; doc < n; doc++) {
+                if (matched[doc] != tokens.size()) {
+                    continue;
+                }
+                total++;
+                best.offer(doc);
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+            Long[] ranked = new Long[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = current.ids[best.poll()];
+            }
+            List<Long> page = offset >= ranked.length ? List.of()
+                    : Arrays.asList(ranked).subList(offset, ranked.length);
+            return Optional.of(new SearchHits(page, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("rebuilding", pending != null);
+            stats.put("products", index.ordinals.size());
+            stats.put("deletedDocuments", index.deletedDocs);
+            stats.put("terms", index.terms.size());
+            stats.put("postings", index.postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("lastRebuildMs", lastRebuildMs);
+        stats.put("searches", searches.sum());
+        stats.put("sqlFallbacks", unavailable.sum());
+        stats.put("compactions", compactions.sum());
+        return stats;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Document analyse(String name, String description, String sku, String category) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        length += addTerms(terms, tokenize(name), NAME_WEIGHT);
+        length += addTerms(terms, tokenize(description), DESCRIPTION_WEIGHT);
+        List<String> skuTerms = tokenize(sku);
+        // The whole SKU is a term too, so "lap-001" finds exactly that product
+        String wholeSku = sku == null ? null : sku.toLowerCase(Locale.ROOT);
+        if (wholeSku != null && !skuTerms.contains(wholeSku)) {
+            skuTerms.add(wholeSku);
+        }
+        length += addTerms(terms, skuTerms, SKU_WEIGHT);
+        length += addTerms(terms, tokenize(category), CATEGORY_WEIGHT);
+        return new Document(terms, length);
+    }
+
+    private static int addTerms(Map<String, Integer> terms, List<String> tokens, int weight) {
+        tokens.forEach(token -> terms.merge(token, weight, Integer::sum));
+        return tokens.size() * weight;
+    }
+
+    private static SortedMap<String, Postings> expansions(Index index, String token) {
+        if (token.length() < MIN_PREFIX) {
+            Postings exact = index.terms.get(token);
+            return exact == null ? new TreeMap<>() : new TreeMap<>(Map.of(token, exact));
+        }
+        SortedMap<String, Postings> range = index.terms.subMap(token, token + Character.MAX_VALUE);
+        if (range.size() <= MAX_EXPANSIONS) {
+            return range;
+        }
+        // Too broad a prefix: the first expansions in dictionary order, which start with the exact term
+        TreeMap<String, Postings> limited = new TreeMap<>();
+        for (Map.Entry<String, Postings> term : range.entrySet()) {
+            limited.put(term.getKey(), term.getValue());
+            if (limited.size() == MAX_EXPANSIONS) {
+                break;
+            }
+        }
+        return limited;
+    }
+
+    private void apply(Change change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(change);
+                }
+            });
+        } else {
+            write(change);
+        }
+    }
+
+    private void write(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            }
+            if (change.document() == null) {
+                index.remove(change.id());
+            } else {
+                index.put(change.id(), change.document());
+            }
+            if (index.needsCompaction()) {
+                index = index.compact();
+                compactions.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
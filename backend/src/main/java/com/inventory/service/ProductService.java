@@ -1,15 +1,27 @@
 package com.inventory.service;
 
+import com.inventory.dto.ProductPage;
+import com.inventory.dto.ProductSummary;
 import com.inventory.model.Product;
 import com.inventory.repository.jpa.ProductRepository;
 import com.inventory.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -20,44 +32,130 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private StockAdjustmentExecutor stockAdjustmentExecutor;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggester productSuggester;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private ProductStats productStats;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${inventory.paging.max-limit:200}")
+    private int maxSearchSize;
+
     // Create
     public Product createProduct(Product product) {
         logger.info("Creating product: {}", product.getName());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        searchIndex.index(saved);
+        productSuggester.index(saved);
+        facetIndex.changed(saved.getId());
+        productStats.changed(saved.getId());
+        catalogVersion.productsChanged();
+        return saved;
     }
 
     // Read
+    // Served from the product cache; the entity returned may be shared and must not be modified
+    @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         logger.info("Fetching product with ID: {}", id);
-        return productRepository.findById(id)
+        return productCache.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
     }
 
+    @Transactional(readOnly = true)
     public Product getProductBySku(String sku) {
         logger.info("Fetching product with SKU: {}", sku);
-        return productRepository.findBySku(sku)
+        return productCache.findBySku(sku)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with SKU: " + sku));
     }
 
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         logger.info("Fetching all products");
         return productRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Product> getProductsByCategory(String category) {
         logger.info("Fetching products by category: {}", category);
         return productRepository.findByCategory(category);
     }
 
-    public List<Product> searchProducts(String keyword) {
+    /**
+     * Ranked full-text search over name, description, SKU and category. While
+     * the search index is still being built, falls back to a name-only
+     * {@code LIKE} in table order.
+     */
+    @Transactional(readOnly = true)
+    public ProductPage<Product> searchProducts(String keyword, int page, int size) {
         logger.info("Searching products with keyword: {}", keyword);
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+        return search(keyword, page, size, productRepository::findAllById, Product::getId,
+                productRepository::findByNameContainingIgnoreCase);
+    }
+
+    // Summary listings: list columns only, for callers that do not show description or image
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getAllProductSummaries() {
+        logger.info("Fetching all product summaries");
+        return productRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductSummariesByCategory(String category) {
+        logger.info("Fetching product summaries by category: {}", category);
+        return productRepository.findSummariesByCategory(category);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPage<ProductSummary> searchProductSummaries(String keyword, int page, int size) {
+        logger.info("Searching product summaries with keyword: {}", keyword);
+        return search(keyword, page, size, productRepository::findSummariesByIdIn, ProductSummary::getId,
+                productRepository::findSummariesByNameContaining);
+    }
+
+    private <T> ProductPage<T> search(String keyword, int page, int size, Function<Collection<Long>, List<T>> load,
+            Function<T, Long> id, Function<String, List<T>> fallback) {
+        if (page < 0 || size < 1 || size > maxSearchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be 0 or more and size 1-" + maxSearchSize);
+        }
+        int offset = page * size;
+        Optional<ProductSearchIndex.SearchHits> hits = searchIndex.search(keyword, offset, size);
+        if (hits.isEmpty()) {
+            List<T> all = fallback.apply(keyword);
+            List<T> content = offset >= all.size() ? List.of()
+                    : all.subList(offset, Math.min(all.size(), offset + size));
+            return new ProductPage<>(content, offset + size < all.size(), null, (long) all.size());
+        }
+        // One query for the page, put back in rank order; a row deleted since it was indexed is skipped
+        Map<Long, T> rows = load.apply(hits.get().ids()).stream()
+                .collect(Collectors.toMap(id, Function.identity()));
+        List<T> content = hits.get().ids().stream().map(rows::get).filter(Objects::nonNull).toList();
+        return new ProductPage<>(content, offset + size < hits.get().total(), null, (long) hits.get().total());
     }
 
     // Update
     public Product updateProduct(Long id, Product productDetails) {
         logger.info("Updating product with ID: {}", id);
-        Product product = getProductById(id);
+        Product product = getProductForStockUpdate(id);
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -73,31 +171,72 @@ public class ProductService {
             product.setStatus("IN_STOCK");
         }
 
-        return productRepository.save(product);
+        productCache.invalidate(id);
+        Product saved = productRepository.save(product);
+        searchIndex.index(saved);
+        productSuggester.index(saved);
+        facetIndex.changed(id);
+        productStats.changed(id);
+        catalogVersion.productsChanged();
+        return saved;
     }
 
     // Delete
     public void deleteProduct(Long id) {
         logger.info("Deleting product with ID: {}", id);
-        Product product = getProductById(id);
+        Product product = findProduct(id);
+        if (product.isStriped()) {
+            stripedStockService.removeBuckets(id);
+            product = findProduct(id);
+        }
+        productCache.invalidate(id);
+        searchIndex.remove(id);
+        productSuggester.remove(id);
+        facetIndex.changed(id);
+        productStats.changed(id);
+        catalogVersion.productsChanged();
         productRepository.delete(product);
         logger.info("Product deleted successfully");
     }
 
     // Inventory Management
+    // Each attempt runs in its own transaction and is retried on a version conflict
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Product updateInventory(Long id, Integer quantity) {
         logger.info("Updating inventory for product ID: {} with quantity: {}", id, quantity);
-        Product product = getProductById(id);
-        int newQuantity = product.getQuantity() + quantity;
-        product.setQuantity(newQuantity);
+        return stockAdjustmentExecutor.execute(id, () -> {
+            Product product = getProductForStockUpdate(id);
+            int newQuantity = product.getQuantity() + quantity;
+            product.setQuantity(newQuantity);
+
+            if (newQuantity <= 0) {
+                product.setStatus("OUT_OF_STOCK");
+            } else {
+                product.setStatus("IN_STOCK");
+            }
+
+            productCache.invalidate(id);
+            facetIndex.changed(id);
+            productStats.changed(id);
+            catalogVersion.productsChanged();
+            return productRepository.saveAndFlush(product);
+        });
+    }
 
-        if (newQuantity <= 0) {
-            product.setStatus("OUT_OF_STOCK");
-        } else {
-            product.setStatus("IN_STOCK");
+    // A striped product's buckets are folded back into its row before its quantity is rewritten
+    private Product getProductForStockUpdate(Long id) {
+        Product product = findProduct(id);
+        if (!product.isStriped()) {
+            return product;
         }
+        stripedStockService.consolidate(id);
+        return findProduct(id);
+    }
 
-        return productRepository.save(product);
+    // Write paths read the managed entity, never the shared cached copy
+    private Product findProduct(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with ID: " + id));
     }
 
     public boolean isInStock(Long id) {
@@ -0,0 +1,427 @@
+package com.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog aggregates for the admin dashboard: product counts by status and
+ * category, total units, inventory value and how many products run low,
+ * kept in memory so the dashboard does not download the catalog to count it.
+ * <p>
+ * Every product's contribution is remembered, so a change is applied by
+ * taking out the old contribution and adding the new one. Product and stock
+ * write paths call {@link #changed} with the ids they touched; the scheduled
+ * {@link #refresh} re-reads those rows after commit, as the facet index does.
+ * {@link #reconcile} periodically compares the totals with a SQL aggregate
+ * and rebuilds them if anything (a write path without a hook, a manual SQL
+ * fix) made them drift.
+ * <p>
+ * {@link #snapshot} carries an ETag that changes exactly when the totals do,
+ * so a polling dashboard mostly gets 304s.
+ */
+@Component
+public class ProductStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductStats.class);
+
+    static final String NO_CATEGORY = "Uncategorized";
+    static final String NO_STATUS = "UNKNOWN";
+    private static final int REBUILD_CHUNK = 5_000;
+    private static final int REFRESH_CHUNK = 500;
+    // Units as the catalog shows them: the quantity column plus any striped sub-buckets
+    private static final String UNITS = "p.quantity + (CASE WHEN p.stock_stripes > 0 THEN (SELECT "
+            + "COALESCE(SUM(b.quantity), 0) FROM stock_buckets b WHERE b.product_id = p.id) ELSE 0 END)";
+    private static final String SELECT_ROWS = "SELECT p.id, p.status, p.category, p.price, " + UNITS
+            + " AS units FROM products p ";
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong("id"),
+            Objects.requireNonNullElse(rs.getString("status"), NO_STATUS),
+            Objects.requireNonNullElse(rs.getString("category"), NO_CATEGORY),
+            Objects.requireNonNullElse(rs.getBigDecimal("price"), BigDecimal.ZERO), rs.getInt("units"));
+
+    /** The dashboard payload and its ETag; the ETag is null when the payload came straight from SQL. */
+    public record Snapshot(Map<String, Object> data, String etag) {
+    }
+
+    // What one product contributes to the totals
+    private record Row(long id, String status, String category, BigDecimal price, int units) {
+        BigDecimal value() {
+            return price.multiply(BigDecimal.valueOf(units));
+        }
+    }
+
+    private static final class Totals {
+        long products;
+        long units;
+        BigDecimal value = BigDecimal.ZERO;
+        long lowStock;
+
+        void add(Row row, int sign, int lowStockThreshold) {
+            products += sign;
+            units += (long) sign * row.units();
+            value = sign > 0 ? value.add(row.value()) : value.subtract(row.value());
+            if (row.units() < lowStockThreshold) {
+                lowStock += sign;
+            }
+        }
+
+        boolean sameAs(Totals other) {
+            return products == other.products && units == other.units && value.compareTo(other.value) == 0
+                    && lowStock == other.lowStock;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("products", products);
+            map.put("units", units);
+            map.put("value", value);
+            map.put("lowStock", lowStock);
+            return map;
+        }
+    }
+
+    private static final class Aggregates {
+        final int lowStockThreshold;
+        final Map<Long, Row> rows = new HashMap<>();
+        final Totals total = new Totals();
+        final Map<String, Totals> byStatus = new TreeMap<>();
+        final Map<String, Totals> byCategory = new TreeMap<>();
+
+        Aggregates(int lowStockThreshold) {
+            this.lowStockThreshold = lowStockThreshold;
+        }
+
+        // @return whether the totals moved
+        boolean put(Row row) {
+            Row previous = rows.put(row.id(), row);
+            if (row.equals(previous)) {
+                return false;
+            }
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(row, 1);
+            return true;
+        }
+
+        boolean remove(long id) {
+            Row previous = rows.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            apply(previous, -1);
+            return true;
+        }
+
+        private void apply(Row row, int sign) {
+            total.add(row, sign, lowStockThreshold);
+            apply(byStatus, row.status(), row, sign);
+            apply(byCategory, row.category(), row, sign);
+        }
+
+        private void apply(Map<String, Totals> groups, String key, Row row, int sign) {
+            Totals totals = groups.computeIfAbsent(key, k -> new Totals());
+            totals.add(row, sign, lowStockThreshold);
+            if (totals.products == 0) {
+                groups.remove(key);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int lowStockThreshold;
+    // Restarting resets the version, so ETags from before a restart never match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private Aggregates aggregates;
+    private long version;
+    private volatile Snapshot snapshot;
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    private volatile long lastRebuildMs = -1;
+    private volatile LocalDateTime lastReconciledAt;
+    private volatile long drifts;
+
+    public ProductStats(JdbcTemplate jdbcTemplate, @Value("${inventory.stats.enabled:true}") boolean enabled,
+            @Value("${inventory.stats.low-stock-threshold:5}") int lowStockThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.lowStockThreshold = lowStockThreshold;
+        this.aggregates = new Aggregates(lowStockThreshold);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread rebuild = new Thread(this::rebuild, "product-stats-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Reads every product and swaps in fresh totals. Products changed
+     * meanwhile stay dirty and are re-read by the next refresh.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            rebuilding = true;
+            try {
+                Aggregates built = new Aggregates(lowStockThreshold);
+                long lastId = 0;
+                while (true) {
+                    List<Row> rows = jdbcTemplate.query(SELECT_ROWS + "WHERE p.id > ? ORDER BY p.id LIMIT ?",
+                            ROW_MAPPER, lastId, REBUILD_CHUNK);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    rows.forEach(built::put);
+                    lastId = rows.get(rows.size() - 1).id();
+                }
+                synchronized (lock) {
+                    aggregates = built;
+                    version++;
+                    snapshot = null;
+                    ready = true;
+                }
+                lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+                logger.info("Product stats built: {} products in {} ms", built.rows.size(), lastRebuildMs);
+            } catch (RuntimeException e) {
+                logger.error("Product stats rebuild failed; the dashboard keeps the previous totals", e);
+            } finally {
+                rebuilding = false;
+            }
+        }
+    }
+
+    /**
+     * Marks products whose row or stock changed (or that were created or
+     * deleted) for the next refresh; inside a transaction, once it commits.
+     */
+    public void changed(Collection<Long> productIds) {
+        if (!enabled || productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirty.addAll(ids);
+                }
+            });
+        } else {
+            dirty.addAll(ids);
+        }
+    }
+
+    public void changed(Long productId) {
+        if (productId != null) {
+            changed(List.of(productId));
+        }
+    }
+
+    /**
+     * Re-reads the dirty products and moves their contribution; a product
+     * whose row is gone is taken out. Deferred while a rebuild is running.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stats.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!ready || rebuilding || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_CHUNK));
+            List<Row> rows;
+            try {
+                rows = jdbcTemplate.query(SELECT_ROWS + "WHERE p.id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", ROW_MAPPER,
+                        chunk.toArray());
+            } catch (RuntimeException e) {
+                logger.warn("Product stats refresh failed; {} product(s) stay dirty: {}", ids.size() - from,
+                        e.getMessage());
+                dirty.addAll(ids.subList(from, ids.size()));
+                return;
+            }
+            synchronized (lock) {
+                if (rebuilding) {
+                    // The rebuild may have read these rows before they changed; look again once it is done
+                    dirty.addAll(ids.subList(from, ids.size()));
+                    return;
+                }
+                boolean moved = false;
+                Set<Long> gone = new HashSet<>(chunk);
+                for (Row row : rows) {
+                    moved |= aggregates.put(row);
+                    gone.remove(row.id());
+                }
+                for (Long id : gone) {
+                    moved |= aggregates.remove(id);
+                }
+                if (moved) {
+                    version++;
+                    snapshot = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the totals with the same aggregate computed by SQL and
+     * rebuilds them on any difference. Pending changes are applied first so
+     * only real drift (or a write racing the comparison) triggers a rebuild.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${inventory.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!ready || rebuilding) {
+            return;
+        }
+        refresh();
+        Aggregates expected;
+        try {
+            expected = aggregate();
+        } catch (RuntimeException e) {
+            logger.warn("Product stats reconciliation skipped: {}", e.getMessage());
+            return;
+        }
+        long inMemory;
+        synchronized (lock) {
+            inMemory = sameTotals(expected, aggregates) ? -1 : aggregates.total.products;
+        }
+        lastReconciledAt = LocalDateTime.now();
+        if (inMemory >= 0) {
+            drifts++;
+            logger.warn("Product stats drifted from the database ({} products in memory, {} in SQL); rebuilding",
+                    inMemory, expected.total.products);
+            rebuild();
+        }
+    }
+
+    /**
+     * @return the dashboard aggregates with an ETag for the current version;
+     *         computed by SQL (without an ETag) until the totals are built
+     *         or when they are disabled
+     */
+    public Snapshot snapshot() {
+        if (!ready) {
+            return new Snapshot(toMap(aggregate()), null);
+        }
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(toMap(aggregates), "\"" + epoch + "-" + version + "\"");
+            }
+            return snapshot;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("rebuilding", rebuilding);
+        synchronized (lock) {
+            stats.put("products", aggregates.rows.size());
+            stats.put("version", version);
+        }
+        stats.put("dirty", dirty.size());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        stats.put("lastReconciledAt", lastReconciledAt);
+        stats.put("drifts", drifts);
+        return stats;
+    }
+
+    // One GROUP BY over (status, category), folded into the same shape as the in-memory totals
+    private Aggregates aggregate() {
+        Aggregates result = new Aggregates(lowStockThreshold);
+        jdbcTemplate.query("SELECT status, category, COUNT(*) AS products, COALESCE(SUM(units), 0) AS units, "
+                + "COALESCE(SUM(price * units), 0) AS stock_value, "
+                + "COALESCE(SUM(CASE WHEN units < ? THEN 1 ELSE 0 END), 0) AS low_stock "
+                + "FROM (SELECT p.status, p.category, p.price, " + UNITS + " AS units FROM products p) t "
+                + "GROUP BY status, category", rs -> {
+                    String status = Objects.requireNonNullElse(rs.getString("status"), NO_STATUS);
+                    String category = Objects.requireNonNullElse(rs.getString("category"), NO_CATEGORY);
+                    long products = rs.getLong("products");
+                    long units = rs.getLong("units");
+                    BigDecimal value = rs.getBigDecimal("stock_value");
+                    long lowStock = rs.getLong("low_stock");
+                    for (Totals totals : List.of(result.total,
+                            result.byStatus.computeIfAbsent(status, s -> new Totals()),
+                            result.byCategory.computeIfAbsent(category, c -> new Totals()))) {
+                        totals.products += products;
+                        totals.units += units;
+                        totals.value = totals.value.add(value);
+                        totals.lowStock += lowStock;
+                    }
+                }, lowStockThreshold);
+        return result;
+    }
+
+    private static boolean sameTotals(Aggregates expected, Aggregates actual) {
+        return expected.total.sameAs(actual.total) && sameTotals(expected.byStatus, actual.byStatus)
+                && sameTotals(expected.byCategory, actual.byCategory);
+    }
+
+    private static boolean sameTotals(Map<String, Totals> expected, Map<String, Totals> actual) {
+        if (!expected.keySet().equals(actual.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Totals> entry : expected.entrySet()) {
+            if (!entry.getValue().sameAs(actual.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Object> toMap(Aggregates source) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("totalProducts", source.total.products);
+        data.put("totalUnits", source.total.units);
+        data.put("inventoryValue", source.total.value);
+        data.put("lowStock", source.total.lowStock);
+        data.put("lowStockThreshold", lowStockThreshold);
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        source.byStatus.forEach((status, totals) -> byStatus.put(status, totals.products));
+        data.put("byStatus", byStatus);
+        Map<String, Object> byCategory = new LinkedHashMap<>();
+        source.byCategory.forEach((category, totals) -> byCategory.put(category, totals.toMap()));
+        data.put("byCategory", byCategory);
+        return data;
+    }
+}
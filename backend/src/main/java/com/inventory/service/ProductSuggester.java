@@ -0,0 +1,648 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProductSuggestion;
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Storefront autocomplete: a compressed (radix) trie over product names, the
+ * word starts inside them and SKUs, whose nodes each keep the
+ * {@value #MAX_SUGGESTIONS} most viewed products below them. A suggestion is
+ * a walk down the typed prefix plus a copy of that node's list, so its cost
+ * does not depend on the catalog size.
+ * <p>
+ * Ranking is by {@code InventoryAnalytics.totalViewCount}, read from Mongo
+ * when the trie is built and then advanced by {@link #recordView}. As counts
+ * only grow, a product whose count rises just moves up, or into, the lists
+ * on its own paths. Removing a product from a list cannot be done that way,
+ * so it marks the list stale and it is recomputed from the subtree on its
+ * next read.
+ * <p>
+ * Built when the application is ready and kept current by the product write
+ * paths, like {@link ProductSearchIndex}.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggester.class);
+
+    static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_NAME_WORDS = 8;
+    private static final int REBUILD_CHUNK = 5_000;
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        // Products whose key ends exactly here
+        int[] ends = NO_ORDINALS;
+        int endCount;
+        // Best products in this subtree, most viewed first; recomputed on read when stale
+        int[] top = NO_ORDINALS;
+        int topCount;
+        boolean stale;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Entry {
+        final long id;
+        String name;
+        String sku;
+        long views;
+
+        Entry(long id) {
+            this.id = id;
+        }
+
+        // Derived on demand rather than stored; they are only needed on writes
+        List<String> keys() {
+            return ProductSuggester.keys(name, sku);
+        }
+    }
+
+    private static final class Trie {
+        final Node root = new Node("");
+        final List<Entry> entries = new ArrayList<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        int nodes = 1;
+
+        void put(long id, String name, String sku, long views) {
+            Integer existing = ordinals.get(id);
+            Entry entry;
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                entry = entries.get(ordinal);
+                for (String key : entry.keys()) {
+                    removeKey(key, ordinal);
+                }
+                entry.views = Math.max(entry.views, views);
+            } else {
+                ordinal = entries.size();
+                entry = new Entry(id);
+                entry.views = views;
+                entries.add(entry);
+                ordinals.put(id, ordinal);
+            }
+            entry.name = name;
+            entry.sku = sku;
+            for (String key : entry.keys()) {
+                insert(key, ordinal);
+            }
+        }
+
+        void remove(long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            for (String key : entries.get(ordinal).keys()) {
+                removeKey(key, ordinal);
+            }
+            // The slot stays, so other ordinals keep their meaning
+            entries.set(ordinal, null);
+        }
+
+        void view(long id, long delta) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                return;
+            }
+            Entry entry = entries.get(ordinal);
+            entry.views += delta;
+            for (String key : entry.keys()) {
+                for (Node node : path(key)) {
+                    offer(node, ordinal);
+                }
+            }
+        }
+
+        List<ProductSuggestion> suggest(String prefix, int limit) {
+            Node node = find(prefix);
+            if (node == null) {
+                return List.of();
+            }
+            if (node.stale) {
+                recompute(node);
+            }
+            int[] top = isLeaf(node) ? rank(node) : node.top;
+            int count = isLeaf(node) ? top.length : node.topCount;
+            List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(limit, count));
+            for (int i = 0; i < count && i < limit; i++) {
+                Entry entry = entries.get(top[i]);
+                suggestions.add(new ProductSuggestion(entry.id, entry.name, entry.sku, entry.views));
+            }
+            return suggestions;
+        }
+
+        private void insert(String key, int ordinal) {
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                int slot = childSlot(node, key.charAt(position));
+                if (slot < 0) {
+                    boolean wasLeaf = isLeaf(node);
+                    Node leaf = new Node(key.substring(position));
+                    addChild(node, -slot - 1, leaf);
+                    nodes++;
+                    if (wasLeaf) {
+                        // A leaf keeps no list of its own; start one now, while its subtree is just its ends
+                        recompute(node);
+                    }
+                    node = leaf;
+                    position = key.length();
+                } else {
+                    Node child = node.children[slot];
+                    int common = commonPrefix(child.label, key, position);
+                    if (common < child.label.length()) {
+                        // Split the edge: the shared part becomes a node holding the old child
+                        Node middle = new Node(child.label.substring(0, common));
+                        child.label = child.label.substring(common);
+                        middle.children = new Node[] { child };
+                        if (isLeaf(child)) {
+                            recompute(middle);
+                        } else {
+                            middle.top = Arrays.copyOf(child.top, child.top.length);
+                            middle.topCount = child.topCount;
+                            middle.stale = child.stale;
+                        }
+                        node.children[slot] = middle;
+                        nodes++;
+                        child = middle;
+                    }
+                    node = child;
+                    position += common;
+                }
+            }
+            if (indexOf(node.ends, node.endCount, ordinal) < 0) {
+                if (node.endCount == node.ends.length) {
+                    node.ends = Arrays.copyOf(node.ends, Math.max(1, node.endCount * 2));
+                }
+                node.ends[node.endCount++] = ordinal;
+            }
+            for (Node onPath : path(key)) {
+                offer(onPath, ordinal);
+            }
+        }
+
+        private void removeKey(String key, int ordinal) {
+            List<Node> path = path(key);
+            if (path.isEmpty()) {
+                return;
+            }
+            Node end = path.get(path.size() - 1);
+            int at = indexOf(end.ends, end.endCount, ordinal);
+            if (at >= 0) {
+                end.ends[at] = end.ends[--end.endCount];
+            }
+            for (Node node : path) {
+                if (indexOf(node.top, node.topCount, ordinal) >= 0) {
+                    node.stale = true;
+                }
+            }
+        }
+
+        // Root to the node the whole key ends at; empty if the key is not in the trie
+        private List<Node> path(String key) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int position = 0;
+            while (position < key.length()) {
+                int slot = childSlot(node, key.charAt(position));
+                if (slot < 0 || !key.startsWith(node.children[slot].label, position)) {
+                    return List.of();
+                }
+                node = node.children[slot];
+                position += node.label.length();
+                path.add(node);
+            }
+            return path;
+        }
+
+        // The highest node whose path starts with the prefix
+        private Node find(String prefix) {
+            Node node = root;
+            int position = 0;
+            while (position < prefix.length()) {
+                int slot = childSlot(node, prefix.charAt(position));
+                if (slot < 0) {
+                    return null;
+                }
+                Node child = node.children[slot];
+                int common = commonPrefix(child.label, prefix, position);
+                if (position + common < prefix.length() && common < child.label.length()) {
+                    return null;
+                }
+                node = child;
+                position += common;
+            }
+            return node;
+        }
+
+        private void offer(Node node, int ordinal) {
+            if (node.stale || isLeaf(node)) {
+                return;
+            }
+            int at = indexOf(node.top, node.topCount, ordinal);
+            if (at < 0) {
+                if (node.topCount < MAX_SUGGESTIONS) {
+                    if (node.topCount == node.top.length) {
+                        node.top = Arrays.copyOf(node.top, Math.min(MAX_SUGGESTIONS, Math.max(2, node.topCount * 2)));
+                    }
+                    at = node.topCount++;
+                } else if (better(ordinal, node.top[MAX_SUGGESTIONS - 1])) {
+                    at = MAX_SUGGESTIONS - 1;
+                } else {
+                    return;
+                }
+                node.top[at] = ordinal;
+            }
+            while (at > 0 && better(node.top[at], node.top[at - 1])) {
+                int swap = node.top[at - 1];
+                node.top[at - 1] = node.top[at];
+                node.top[at] = swap;
+                at--;
+            }
+        }
+
+        private void recompute(Node node) {
+            node.top = rank(node);
+            node.topCount = node.top.length;
+            node.stale = false;
+        }
+
+        // The best products of a subtree, best first
+        private int[] rank(Node node) {
+            BitSet seen = new BitSet();
+            PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> better(a, b) ? 1 : -1);
+            List<Node> stack = new ArrayList<>(List.of(node));
+            while (!stack.isEmpty()) {
+                Node current = stack.remove(stack.size() - 1);
+                for (int i = 0; i < current.endCount; i++) {
+                    int ordinal = current.ends[i];
+                    if (!seen.get(ordinal)) {
+                        seen.set(ordinal);
+                        best.offer(ordinal);
+                        if (best.size() > MAX_SUGGESTIONS) {
+                            best.poll();
+                        }
+                    }
+                }
+                stack.addAll(Arrays.asList(current.children));
+            }
+            int[] ranked = new int[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = best.poll();
+            }
+            return ranked;
+        }
+
+        // Leaves hold few products and rank them on read instead of keeping a list
+        private boolean isLeaf(Node node) {
+            return node != root && node.children.length == 0;
+        }
+
+        // More views first, then the shorter name, then the older product
+        private boolean better(int a, int b) {
+            Entry x = entries.get(a);
+            Entry y = entries.get(b);
+            if (x.views != y.views) {
+                return x.views > y.views;
+            }
+            if (x.name.length() != y.name.length()) {
+                return x.name.length() < y.name.length();
+            }
+            return x.id < y.id;
+        }
+
+        long estimateBytes() {
+            // Compressed oops: 12-byte headers, 4-byte references, 8-byte alignment
+            long bytes = 0;
+            List<Node> stack = new ArrayList<>(List.of(root));
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                bytes += 40 + string(node.label) + array(node.children.length) + array(node.ends.length)
+                        + array(node.top.length);
+                stack.addAll(Arrays.asList(node.children));
+            }
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    bytes += 32 + string(entry.name) + string(entry.sku);
+                }
+            }
+            return bytes + 48L * ordinals.size();
+        }
+
+        private static int childSlot(Node node, char first) {
+            int low = 0;
+            int high = node.children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char c = node.children[middle].label.charAt(0);
+                if (c < first) {
+                    low = middle + 1;
+                } else if (c > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        private static void addChild(Node node, int slot, Node child) {
+            Node[] children = new Node[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, slot);
+            children[slot] = child;
+            System.arraycopy(node.children, slot, children, slot + 1, node.children.length - slot);
+            node.children = children;
+        }
+
+        private static int commonPrefix(String label, String key, int position) {
+            int length = Math.min(label.length(), key.length() - position);
+            int i = 0;
+            while (i < length && label.charAt(i) == key.charAt(position + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        private static int indexOf(int[] values, int count, int value) {
+            for (int i = 0; i < count; i++) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    // Guards trie and pending; suggestions may recompute a stale list, so reads take it too
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Object rebuildLock = new Object();
+    private Trie trie = new Trie();
+    private List<Consumer<Trie>> pending;
+    private volatile boolean ready;
+    private volatile long lastRebuildMs = -1;
+
+    public ProductSuggester(JdbcTemplate jdbcTemplate, MongoTemplate mongoTemplate,
+            @Value("${inventory.suggest.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread rebuild = new Thread(this::rebuild, "product-suggest-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * Reads every product and its view count and swaps in a fresh trie.
+     * Changes made meanwhile are replayed onto it.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            // Read before changes start queueing, so a view is never both in the counts and replayed
+            Map<Long, Long> views = loadViews();
+            lock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            Trie built = new Trie();
+            try {
+                long lastId = 0;
+                while (true) {
+                    List<Object[]> rows = jdbcTemplate.query(
+                            "SELECT id, name, sku FROM products WHERE id > ? ORDER BY id LIMIT ?",
+                            (rs, rowNum) -> new Object[] { rs.getLong("id"), rs.getString("name"),
+                                    rs.getString("sku") },
+                            lastId, REBUILD_CHUNK);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    for (Object[] row : rows) {
+                        long id = (Long) row[0];
+                        built.put(id, (String) row[1], (String) row[2], views.getOrDefault(id, 0L));
+                    }
+                    lastId = (Long) rows.get(rows.size() - 1)[0];
+                }
+            } catch (RuntimeException e) {
+                logger.error("Product suggest rebuild failed; suggestions keep using the previous trie", e);
+                lock.lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                pending.forEach(change -> change.accept(built));
+                pending = null;
+                trie = built;
+                ready = true;
+            } finally {
+                lock.unlock();
+            }
+            lastRebuildMs = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Product suggest trie built: {} products, {} nodes in {} ms", built.ordinals.size(),
+                    built.nodes, lastRebuildMs);
+        }
+    }
+
+    /**
+     * @param query typed text; case, punctuation and extra spaces are ignored
+     * @param limit 1 to {@value #MAX_SUGGESTIONS}
+     */
+    public List<ProductSuggestion> suggest(String query, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be 1-" + MAX_SUGGESTIONS);
+        }
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            return trie.suggest(prefix, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a product's names. Its id must be set.
+     */
+    public void index(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        long id = product.getId();
+        String name = product.getName();
+        String sku = product.getSku();
+        afterCommit(trie -> trie.put(id, name, sku, 0));
+    }
+
+    public void remove(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        afterCommit(trie -> trie.remove(id));
+    }
+
+    /**
+     * Counts views of a product towards its rank; mirrors the increments of
+     * {@code InventoryAnalytics.totalViewCount}.
+     */
+    public void recordView(Long productId, long views) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        apply(trie -> trie.view(productId, views));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("rebuilding", pending != null);
+            stats.put("products", trie.ordinals.size());
+            stats.put("keys", trie.entries.stream().filter(entry -> entry != null)
+                    .mapToInt(entry -> entry.keys().size()).sum());
+            stats.put("nodes", trie.nodes);
+            stats.put("estimatedBytes", trie.estimateBytes());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+
+    /**
+     * Lower case, with every run of other characters than letters and digits
+     * turned into one space.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    // The whole name, the name from each later word on, and the SKU
+    private static List<String> keys(String name, String sku) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> words = ProductSearchIndex.tokenize(name);
+        for (int i = 0; i < words.size() && i < MAX_NAME_WORDS; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        String normalizedSku = normalize(sku);
+        if (!normalizedSku.isEmpty()) {
+            keys.add(normalizedSku);
+        }
+        return List.copyOf(keys);
+    }
+
+    private Map<Long, Long> loadViews() {
+        Map<Long, Long> views = new HashMap<>();
+        Query query = new Query();
+        query.fields().include("productId").include("totalViewCount");
+        try {
+            for (InventoryAnalytics analytics : mongoTemplate.find(query, InventoryAnalytics.class)) {
+                if (analytics.getProductId() != null && analytics.getTotalViewCount() != null) {
+                    views.put(analytics.getProductId(), analytics.getTotalViewCount().longValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Names are still worth suggesting; ranks catch up as views are recorded
+            logger.warn("Could not read view counts for suggestions; ranking without them", e);
+        }
+        return views;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : 24 + ((16 + value.length() + 7) & ~7);
+    }
+
+    private static long array(int length) {
+        return length == 0 ? 0 : (16 + 4L * length + 7) & ~7;
+    }
+
+    private void afterCommit(Consumer<Trie> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Trie> change) {
+        lock.lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            }
+            change.accept(trie);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
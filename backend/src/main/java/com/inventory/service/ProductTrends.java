@@ -0,0 +1,333 @@
+package com.inventory.service;
+
+import com.inventory.entity.UserActivityLog;
+import com.inventory.model.Product;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+
+/**
+ * Most viewed products, all time and over the last hour, day and week, kept
+ * in memory from the activity stream ({@code inventory.trends.*}). Each
+ * {@link Window} is a {@link SpaceSaving} summary of {@code capacity}
+ * counters fed by the {@link ActivityIngestionPipeline} writer, so the
+ * top-viewed and trending endpoints no longer group or sort the activity
+ * log and the analytics on every call.
+ * <p>
+ * The timed windows score views with exponential decay, a view
+ * {@code window} old counting 1/e of a fresh one, rather than cutting off
+ * hard at the window edge; that keeps one counter per product instead of
+ * one per product and time slot. The decay is applied forward (weights grow
+ * with time and the summary is rescaled now and then), so ranking never
+ * needs a pass over the counters. Every {@code refresh-interval-ms} each
+ * window's largest counters are copied out, and {@link #top} only slices
+ * and rescales that list.
+ * <p>
+ * On startup the windows are seeded from the activity log with one
+ * aggregation of all-time counts and one of hourly counts for the last
+ * week; until then callers should fall back to querying Mongo
+ * ({@link #isReady}). Counts are estimates: Space-Saving may overcount a
+ * product by at most the reported {@code error}, and only products heavier
+ * than {@code 1/capacity} of the views are guaranteed to be listed.
+ */
+@Component
+public class ProductTrends {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTrends.class);
+
+    // Rescale a decayed summary before its weights grow past e^this
+    private static final double MAX_EXPONENT = 40;
+
+    public enum Window {
+        HOUR("1h", Duration.ofHours(1)),
+        DAY("24h", Duration.ofDays(1)),
+        WEEK("7d", Duration.ofDays(7)),
+        ALL("all", null);
+
+        private final String label;
+        private final Duration decay;
+
+        Window(String label, Duration decay) {
+            this.label = label;
+            this.decay = decay;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        /** The window's decay time constant; null for all time. */
+        public Duration decay() {
+            return decay;
+        }
+
+        public static Window of(String window, Window fallback) {
+            if (window == null || window.isBlank()) {
+                return fallback;
+            }
+            for (Window candidate : values()) {
+                if (candidate.label.equalsIgnoreCase(window.trim())) {
+                    return candidate;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "window must be 1h, 24h, 7d or all");
+        }
+    }
+
+    /** A product's estimated (decayed) views and the most they may be overestimated by. */
+    public record Ranked(long productId, double views, double error) {
+    }
+
+    // A window's summary; its weights are relative to landmark (epoch millis)
+    private static final class Summary {
+        final SpaceSaving counters;
+        final double decayMillis;
+        long landmark;
+        volatile Snapshot snapshot = new Snapshot(List.of(), 0);
+
+        Summary(int capacity, Duration decay, long now) {
+            this.counters = new SpaceSaving(capacity);
+            this.decayMillis = decay == null ? 0 : decay.toMillis();
+            this.landmark = now;
+        }
+
+        void add(long productId, double views, long at) {
+            if (decayMillis == 0) {
+                counters.add(productId, views);
+                return;
+            }
+            if ((at - landmark) / decayMillis > MAX_EXPONENT) {
+                counters.scale(Math.exp((landmark - at) / decayMillis));
+                landmark = at;
+            }
+            counters.add(productId, views * Math.exp((at - landmark) / decayMillis));
+        }
+
+        // What the weights of a snapshot taken at landmark are divided by now
+        double factor(long landmark, long now) {
+            return decayMillis == 0 ? 1 : Math.exp((now - landmark) / decayMillis);
+        }
+    }
+
+    private record Snapshot(List<SpaceSaving.Counter> top, long landmark) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final boolean enabled;
+    private final int topSize;
+
+    private final Object lock = new Object();
+    private final Map<Window, Summary> summaries = new EnumMap<>(Window.class);
+    // Views logged from here on are counted live; the startup aggregation counts those before
+    private final long startedAt = System.currentTimeMillis();
+    private boolean dirty;
+    private long recorded;
+    private volatile boolean ready;
+    private volatile long lastRefreshMs = -1;
+
+    public ProductTrends(MongoTemplate mongoTemplate, ProductCache productCache,
+            @Value("${inventory.trends.enabled:true}") boolean enabled,
+            @Value("${inventory.trends.capacity:1024}") int capacity,
+            @Value("${inventory.trends.top-size:100}") int topSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.enabled = enabled;
+        this.topSize = Math.min(topSize, capacity);
+        for (Window window : Window.values()) {
+            summaries.put(window, new Summary(capacity, window.decay, startedAt));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread seed = new Thread(this::seed, "product-trends-seed");
+        seed.setDaemon(true);
+        seed.start();
+    }
+
+    /**
+     * Adds the views logged before startup: all-time counts per product and,
+     * for the timed windows, hourly counts of the last week.
+     */
+    public void seed() {
+        long start = System.nanoTime();
+        try {
+            Date before = new Date(startedAt);
+            Criteria views = Criteria.where("action").is("PRODUCT_VIEW").and("productId").ne(null);
+            List<Document> allTime = mongoTemplate.aggregate(newAggregation(
+                    match(views.and("timestamp").not().gte(before)),
+                    group("productId").count().as("views")), "user_activity_log", Document.class)
+                    .getMappedResults();
+
+            Criteria lastWeek = Criteria.where("action").is("PRODUCT_VIEW").and("productId").ne(null)
+                    .and("timestamp").gte(new Date(startedAt - Window.WEEK.decay.toMillis())).lt(before);
+            List<Document> hourly = mongoTemplate.aggregate(newAggregation(
+                    match(lastWeek),
+                    project("productId").and(DateOperators.dateOf("timestamp").toString("%Y-%m-%dT%H")).as("hour"),
+                    group("productId", "hour").count().as("views")), "user_activity_log", Document.class)
+                    .getMappedResults();
+
+            synchronized (lock) {
+                for (Document row : allTime) {
+                    summaries.get(Window.ALL).add(((Number) row.get("_id")).longValue(),
+                            ((Number) row.get("views")).doubleValue(), startedAt);
+                }
+                for (Document row : hourly) {
+                    Document key = (Document) row.get("_id");
+                    // Each hour's views are placed in the middle of the hour
+                    long at = LocalDateTime.parse(key.getString("hour") + ":30").toInstant(ZoneOffset.UTC)
+                            .toEpochMilli();
+                    long productId = ((Number) key.get("productId")).longValue();
+                    double count = ((Number) row.get("views")).doubleValue();
+                    for (Window window : List.of(Window.HOUR, Window.DAY, Window.WEEK)) {
+                        summaries.get(window).add(productId, count, Math.min(at, startedAt));
+                    }
+                }
+                dirty = true;
+            }
+            refresh();
+            ready = true;
+            logger.info("Product trends seeded from {} product(s) and {} hourly count(s) in {} ms", allTime.size(),
+                    hourly.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Seeding product trends failed; top-viewed and trending keep querying Mongo", e);
+        }
+    }
+
+    /** Counts the product views among the events, at the time each was logged. */
+    public void record(List<UserActivityLog> events) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        synchronized (lock) {
+            for (UserActivityLog event : events) {
+                if (event.getProductId() == null || !"PRODUCT_VIEW".equals(event.getAction())) {
+                    continue;
+                }
+                long at = event.getTimestamp() == null ? now
+                        : Math.min(now, event.getTimestamp().atZone(zone).toInstant().toEpochMilli());
+                for (Summary summary : summaries.values()) {
+                    summary.add(event.getProductId(), 1, at);
+                }
+                recorded++;
+                dirty = true;
+            }
+        }
+    }
+
+    /** Copies each window's largest counters out for {@link #top}. */
+    @Scheduled(fixedDelayString = "${inventory.trends.refresh-interval-ms:1000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        synchronized (lock) {
+            if (!dirty) {
+                return;
+            }
+            for (Summary summary : summaries.values()) {
+                summary.snapshot = new Snapshot(summary.counters.top(topSize), summary.landmark);
+            }
+            dirty = false;
+        }
+        lastRefreshMs = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * The {@code limit} most viewed products of the window as of the last
+     * refresh, most viewed first; O(limit).
+     */
+    public List<Ranked> top(Window window, int limit) {
+        Summary summary = summaries.get(window);
+        Snapshot snapshot = summary.snapshot;
+        double factor = summary.factor(snapshot.landmark(), System.currentTimeMillis());
+        List<SpaceSaving.Counter> top = snapshot.top();
+        List<Ranked> ranked = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && i < limit; i++) {
+            SpaceSaving.Counter counter = top.get(i);
+            ranked.add(new Ranked(counter.item(), counter.count() / factor, counter.error() / factor));
+        }
+        return ranked;
+    }
+
+    /**
+     * Trending product ids: the window's most viewed, then, while it has
+     * seen fewer than {@code limit} products, the most viewed of all time.
+     */
+    public List<Long> trending(Window window, int limit) {
+        Set<Long> ids = new LinkedHashSet<>();
+        top(window, limit).forEach(ranked -> ids.add(ranked.productId()));
+        if (ids.size() < limit && window != Window.ALL) {
+            for (Ranked ranked : top(Window.ALL, limit)) {
+                if (ids.size() == limit) {
+                    break;
+                }
+                ids.add(ranked.productId());
+            }
+        }
+        return List.copyOf(ids);
+    }
+
+    /** Current product name, or null for a product that no longer exists. */
+    public String productName(long productId) {
+        return productCache.findById(productId).map(Product::getName).orElse(null);
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        synchronized (lock) {
+            stats.put("recorded", recorded);
+            Map<String, Object> windows = new LinkedHashMap<>();
+            for (Window window : Window.values()) {
+                SpaceSaving counters = summaries.get(window).counters;
+                double factor = summaries.get(window).factor(summaries.get(window).landmark,
+                        System.currentTimeMillis());
+                windows.put(window.label(), Map.of(
+                        "products", counters.size(),
+                        "capacity", counters.capacity(),
+                        "views", Math.round(counters.total() / factor)));
+            }
+            stats.put("windows", windows);
+        }
+        stats.put("lastRefreshMs", lastRefreshMs);
+        return stats;
+    }
+}
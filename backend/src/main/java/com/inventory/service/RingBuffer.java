@@ -0,0 +1,112 @@
+package com.inventory.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and consumers over a
+ * power-of-two ring of slots (D. Vyukov's bounded MPMC queue). Each slot
+ * carries a sequence number telling whether it is free for the producer at
+ * a given position or filled for the consumer at it, so producers and
+ * consumers only contend on one CAS of their own counter.
+ * <p>
+ * {@link #offer} fails instead of waiting when the ring is full; overflow
+ * handling (waiting, dropping the oldest entry through {@link #poll}) is up
+ * to the caller.
+ */
+final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two, and to at least two: with
+     *        a single slot the sequence a consumer leaves behind is the one
+     *        the next producer waits for, so the ring would never be full
+     */
+    RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be 1 to 2^30: " + capacity);
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return false when the ring is full
+     */
+    boolean offer(E item) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long gap = sequences.get(slot) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(slot, item);
+                    // Publishes the item: a consumer reads the sequence before the slot
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                // The consumer one lap behind has not freed this slot yet
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return the oldest item, or null when the ring is empty
+     */
+    E poll() {
+        long position = head.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long gap = sequences.get(slot) - (position + 1);
+            if (gap == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E item = items.get(slot);
+                    items.set(slot, null);
+                    // Frees the slot for the producer one lap ahead
+                    sequences.set(slot, position + mask + 1);
+                    return item;
+                }
+                position = head.get();
+            } else if (gap < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return entries in the ring; approximate while producers or consumers are active
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity(), size));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
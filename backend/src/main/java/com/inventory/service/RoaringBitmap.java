@@ -0,0 +1,509 @@
+package com.inventory.service;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints in the style of Roaring bitmaps.
+ * Values are split by their upper 16 bits into chunks of 65536; a chunk
+ * holding at most {@value #ARRAY_MAX} values is a sorted {@code char[]}, a
+ * fuller one a plain 8 KB bitmap. Intersections and unions work chunk by
+ * chunk, picking a merge, a probe or a word-wise loop depending on the two
+ * representations, so sparse sets stay small and dense ones stay fast.
+ * <p>
+ * Not thread-safe. The results of {@link #and} and {@link #or} may share
+ * chunks with their inputs and must only be read.
+ */
+final class RoaringBitmap {
+
+    // Above this an array chunk is larger than the 8 KB bitmap
+    static final int ARRAY_MAX = 4096;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Container[] NO_CONTAINERS = new Container[0];
+
+    private char[] keys = NO_KEYS;
+    private Container[] containers = NO_CONTAINERS;
+    private int size;
+
+    void add(int value) {
+        char high = high(value);
+        int slot = slot(high);
+        if (slot >= 0) {
+            containers[slot] = containers[slot].add(low(value));
+            return;
+        }
+        slot = -slot - 1;
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, slot, keys, slot + 1, size - slot);
+        System.arraycopy(containers, slot, containers, slot + 1, size - slot);
+        keys[slot] = high;
+        containers[slot] = new ArrayContainer(new char[] { low(value) }, 1);
+        size++;
+    }
+
+    void remove(int value) {
+        int slot = slot(high(value));
+        if (slot < 0) {
+            return;
+        }
+        Container container = containers[slot].remove(low(value));
+        if (container.cardinality() > 0) {
+            containers[slot] = container;
+            return;
+        }
+        System.arraycopy(keys, slot + 1, keys, slot, size - slot - 1);
+        System.arraycopy(containers, slot + 1, containers, slot, size - slot - 1);
+        containers[--size] = null;
+    }
+
+    boolean contains(int value) {
+        int slot = slot(high(value));
+        return slot >= 0 && containers[slot].contains(low(value));
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * A copy with every chunk in bitmap form, for a set about to be
+     * intersected with many others: each of them then costs one probe per
+     * value instead of a merge.
+     */
+    RoaringBitmap toDense() {
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            dense.append(keys[i], containers[i] instanceof ArrayContainer array ? array.toBitmap() : containers[i]);
+        }
+        return dense;
+    }
+
+    static RoaringBitmap and(RoaringBitmap x, RoaringBitmap y) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < x.size && j < y.size) {
+            if (x.keys[i] < y.keys[j]) {
+                i++;
+            } else if (x.keys[i] > y.keys[j]) {
+                j++;
+            } else {
+                Container container = and(x.containers[i], y.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(x.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static RoaringBitmap or(RoaringBitmap x, RoaringBitmap y) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < x.size || j < y.size) {
+            if (j == y.size || (i < x.size && x.keys[i] < y.keys[j])) {
+                result.append(x.keys[i], x.containers[i++]);
+            } else if (i == x.size || x.keys[i] > y.keys[j]) {
+                result.append(y.keys[j], y.containers[j++]);
+            } else {
+                result.append(x.keys[i], or(x.containers[i++], y.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Size of the intersection, without building it.
+     */
+    static int andCardinality(RoaringBitmap x, RoaringBitmap y) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < x.size && j < y.size) {
+            if (x.keys[i] < y.keys[j]) {
+                i++;
+            } else if (x.keys[i] > y.keys[j]) {
+                j++;
+            } else {
+                cardinality += andCardinality(x.containers[i++], y.containers[j++]);
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Up to {@code limit} values in ascending order, skipping the first
+     * {@code offset}; whole chunks are skipped by their counts.
+     */
+    int[] page(int offset, int limit) {
+        int[] values = new int[Math.max(0, Math.min(limit, cardinality() - offset))];
+        int filled = 0;
+        int skip = offset;
+        for (int i = 0; i < size && filled < values.length; i++) {
+            Container container = containers[i];
+            if (skip >= container.cardinality()) {
+                skip -= container.cardinality();
+                continue;
+            }
+            filled = container.copyTo(values, filled, skip, keys[i] << 16);
+            skip = 0;
+        }
+        return values;
+    }
+
+    long estimateBytes() {
+        // Compressed oops: 12-byte headers, 4-byte references, 8-byte alignment
+        long bytes = 24 + ((16 + 2L * keys.length + 7) & ~7) + ((16 + 4L * containers.length + 7) & ~7);
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].bytes();
+        }
+        return bytes;
+    }
+
+    private void append(char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        keys[size] = key;
+        containers[size++] = container;
+    }
+
+    private int slot(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private static char high(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private static Container and(Container x, Container y) {
+        if (x instanceof ArrayContainer a) {
+            return y instanceof ArrayContainer b ? a.and(b) : a.and((BitmapContainer) y);
+        }
+        return y instanceof ArrayContainer b ? b.and((BitmapContainer) x)
+                : ((BitmapContainer) x).and((BitmapContainer) y);
+    }
+
+    private static Container or(Container x, Container y) {
+        if (x instanceof ArrayContainer a) {
+            return y instanceof ArrayContainer b ? a.or(b) : ((BitmapContainer) y).or(a);
+        }
+        return y instanceof ArrayContainer b ? ((BitmapContainer) x).or(b)
+                : ((BitmapContainer) x).or((BitmapContainer) y);
+    }
+
+    private static int andCardinality(Container x, Container y) {
+        if (x instanceof ArrayContainer a) {
+            return y instanceof ArrayContainer b ? a.andCardinality(b) : a.andCardinality((BitmapContainer) y);
+        }
+        return y instanceof ArrayContainer b ? b.andCardinality((BitmapContainer) x)
+                : ((BitmapContainer) x).andCardinality((BitmapContainer) y);
+    }
+
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer {
+
+        // Both return the container to keep, which may have changed representation
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        // Copies values after the first skip ones into out from position, returns the new position
+        abstract int copyTo(int[] out, int position, int skip, int base);
+
+        abstract long bytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                BitmapContainer bitmap = toBitmap();
+                bitmap.add(value);
+                return bitmap;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int copyTo(int[] out, int position, int skip, int base) {
+            for (int i = skip; i < cardinality && position < out.length; i++) {
+                out[position++] = base | values[i];
+            }
+            return position;
+        }
+
+        @Override
+        long bytes() {
+            return 16 + ((16 + 2L * values.length + 7) & ~7);
+        }
+
+        Container and(ArrayContainer other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < other.cardinality) {
+                if (values[i] < other.values[j]) {
+                    i++;
+                } else if (values[i] > other.values[j]) {
+                    j++;
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        Container and(BitmapContainer other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        int andCardinality(ArrayContainer other) {
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            // Branch-free steps: on mixed data the compare-and-jump version mispredicts about half the time
+            while (i < cardinality && j < other.cardinality) {
+                char x = values[i];
+                char y = other.values[j];
+                count += x == y ? 1 : 0;
+                i += x <= y ? 1 : 0;
+                j += x >= y ? 1 : 0;
+            }
+            return count;
+        }
+
+        int andCardinality(BitmapContainer other) {
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        Container or(ArrayContainer other) {
+            if (cardinality + other.cardinality > ARRAY_MAX) {
+                return toBitmap().or(other);
+            }
+            char[] result = new char[cardinality + other.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < other.cardinality) {
+                if (j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > other.values[j]) {
+                    result[count++] = other.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer(new long[BitmapContainer.WORDS], 0);
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        static final int WORDS = 65536 / 64;
+
+        final long[] words;
+        int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            // Half the threshold, so a set hovering around it does not flip on every change
+            return cardinality <= ARRAY_MAX / 2 ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int copyTo(int[] out, int position, int skip, int base) {
+            for (int w = 0; w < WORDS && position < out.length; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (skip >= bits) {
+                    skip -= bits;
+                    continue;
+                }
+                while (word != 0 && position < out.length) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        out[position++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                    }
+                    word &= word - 1;
+                }
+            }
+            return position;
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 16 + 8L * WORDS;
+        }
+
+        Container and(BitmapContainer other) {
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                result[w] = words[w] & other.words[w];
+                count += Long.bitCount(result[w]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? bitmap.toArray() : bitmap;
+        }
+
+        int andCardinality(BitmapContainer other) {
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                count += Long.bitCount(words[w] & other.words[w]);
+            }
+            return count;
+        }
+
+        Container or(ArrayContainer other) {
+            BitmapContainer result = new BitmapContainer(words.clone(), cardinality);
+            for (int i = 0; i < other.cardinality; i++) {
+                result.add(other.values[i]);
+            }
+            return result;
+        }
+
+        Container or(BitmapContainer other) {
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                result[w] = words[w] | other.words[w];
+                count += Long.bitCount(result[w]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Hot read-only JSON responses kept as the bytes that go on the wire, plain
+ * and gzipped, so a repeated request costs a map lookup instead of a query
+ * and a serialization. Each entry is tagged with the {@link CatalogVersion}
+ * it was rendered at and is rendered again once that version moves.
+ * <p>
+ * The ETag is a digest of the JSON, so a re-render that comes out the same
+ * (a write elsewhere in the catalog) keeps it, and clients holding it keep
+ * getting 304s. The gzipped representation carries the same tag with a
+ * {@code -gzip} suffix, as the two are different bytes; either one satisfies
+ * {@code If-None-Match}. Concurrent renders of one key at one version are
+ * coalesced by a {@link SingleFlight}.
+ */
+@Component
+public class SerializedResponseCache {
+
+    // Smaller bodies fit in a packet either way and are sent as they are
+    static final int MIN_GZIP_BYTES = 1024;
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private record Render(String key, long version) {
+    }
+
+    private record Entry(long version, String etag, byte[] json, byte[] gzip) {
+        long bytes() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maximumSize;
+
+    // Guarded by itself; in access order, least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final SingleFlight<Render, Entry> renders = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder gzipped = new LongAdder();
+
+    public SerializedResponseCache(ObjectMapper objectMapper,
+            @Value("${inventory.response-cache.enabled:true}") boolean enabled,
+            @Value("${inventory.response-cache.maximum-size:256}") int maximumSize) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maximumSize = Math.max(1, maximumSize);
+    }
+
+    /**
+     * Answers {@code request} with the JSON of {@code body}, from the entry
+     * for {@code key} when it was rendered at the current {@code version}.
+     * {@code key} must identify everything the body depends on besides the
+     * version.
+     *
+     * @return 304 when {@code If-None-Match} names the current content,
+     *         otherwise 200 with the (gzipped, if the client accepts it) bytes
+     */
+    public ResponseEntity<byte[]> respond(String key, LongSupplier version, HttpServletRequest request,
+            Supplier<?> body) {
+        Entry entry = enabled ? lookup(key, version.getAsLong(), body) : render(0, body);
+
+        boolean gzip = entry.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? entry.etag().substring(0, entry.etag().length() - 1) + GZIP_SUFFIX + "\""
+                : entry.etag());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        // Cacheable, but to be revalidated every time: the ETag makes that a 304
+        headers.setCacheControl(CacheControl.noCache());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            notModified.increment();
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            gzipped.increment();
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        byte[] bytes = gzip ? entry.gzip() : entry.json();
+        headers.setContentLength(bytes.length);
+        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", entries.values().stream().mapToLong(Entry::bytes).sum());
+        }
+        stats.put("maximumSize", maximumSize);
+        stats.put("hits", hits.sum());
+        stats.put("renders", renders.getLoads());
+        stats.put("coalescedRenders", renders.getCoalesced());
+        stats.put("notModified", notModified.sum());
+        stats.put("gzipped", gzipped.sum());
+        return stats;
+    }
+
+    private Entry lookup(String key, long version, Supplier<?> body) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry;
+        }
+        Entry rendered = renders.load(new Render(key, version), () -> render(version, body));
+        synchronized (entries) {
+            Entry existing = entries.get(key);
+            // A slower render of an older version must not replace a newer one
+            if (existing == null || existing.version() <= rendered.version()) {
+                entries.put(key, rendered);
+                if (entries.size() > maximumSize) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+        return rendered;
+    }
+
+    private Entry render(long version, Supplier<?> body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        return new Entry(version, etag, json, json.length >= MIN_GZIP_BYTES ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size() < json.length ? out.toByteArray() : null;
+    }
+
+    // gzip or * listed without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                refused |= parameter.matches("q=0(\\.0{0,3})?");
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    // Weak comparison, as If-None-Match calls for; the -gzip variant names the same content
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.endsWith(GZIP_SUFFIX + "\"")) {
+                tag = tag.substring(0, tag.length() - GZIP_SUFFIX.length() - 1) + "\"";
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
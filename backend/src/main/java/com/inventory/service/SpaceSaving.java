@@ -0,0 +1,189 @@
+package com.inventory.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) of the heaviest
+ * {@code long} items in a stream, in a fixed number of counters. An item
+ * without a counter takes over the smallest one and inherits its count as
+ * overestimation error, so every estimate lies between {@code count - error}
+ * and {@code count}, and any item heavier than {@code total / capacity} is
+ * guaranteed a counter.
+ * <p>
+ * The counters form a min-heap on count, making an update O(log capacity).
+ * Weights may be any positive number, which lets the owner apply forward
+ * decay: weigh each item by {@code exp(t / tau)} and divide by the same
+ * factor on read. {@link #scale} multiplies every count in place when those
+ * factors grow large. Not thread-safe.
+ */
+final class SpaceSaving {
+
+    /** An item's estimated count and how much of it may be overestimation. */
+    record Counter(long item, double count, double error) {
+    }
+
+    private final int capacity;
+    private final long[] items;
+    private final double[] counts;
+    private final double[] errors;
+    // Item -> heap slot
+    private final Map<Long, Integer> slots;
+    private int size;
+    private double total;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.items = new long[capacity];
+        this.counts = new double[capacity];
+        this.errors = new double[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    void add(long item, double weight) {
+        total += weight;
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot] += weight;
+            siftDown(slot);
+            return;
+        }
+        if (size < capacity) {
+            items[size] = item;
+            counts[size] = weight;
+            errors[size] = 0;
+            slots.put(item, size);
+            siftUp(size++);
+            return;
+        }
+        // Evict the smallest counter; the newcomer may have been seen up to that often before
+        slots.remove(items[0]);
+        items[0] = item;
+        errors[0] = counts[0];
+        counts[0] += weight;
+        slots.put(item, 0);
+        siftDown(0);
+    }
+
+    /** Multiplies every count, error and the total by {@code factor}. Order is preserved. */
+    void scale(double factor) {
+        for (int i = 0; i < size; i++) {
+            counts[i] *= factor;
+            errors[i] *= factor;
+        }
+        total *= factor;
+    }
+
+    /**
+     * @return the {@code k} largest counters, largest first; O(capacity log k)
+     */
+    List<Counter> top(int k) {
+        // A small min-heap of the k largest seen so far, as indexes into the counters
+        int limit = Math.min(k, size);
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (heapSize < limit) {
+                heap[heapSize] = i;
+                int child = heapSize++;
+                while (child > 0 && counts[heap[(child - 1) / 2]] > counts[heap[child]]) {
+                    swap(heap, child, (child - 1) / 2);
+                    child = (child - 1) / 2;
+                }
+            } else if (limit > 0 && counts[i] > counts[heap[0]]) {
+                heap[0] = i;
+                int parent = 0;
+                while (true) {
+                    int smallest = parent;
+                    int left = 2 * parent + 1;
+                    int right = left + 1;
+                    if (left < limit && counts[heap[left]] < counts[heap[smallest]]) {
+                        smallest = left;
+                    }
+                    if (right < limit && counts[heap[right]] < counts[heap[smallest]]) {
+                        smallest = right;
+                    }
+                    if (smallest == parent) {
+                        break;
+                    }
+                    swap(heap, parent, smallest);
+                    parent = smallest;
+                }
+            }
+        }
+        List<Counter> top = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            top.add(new Counter(items[heap[i]], counts[heap[i]], errors[heap[i]]));
+        }
+        top.sort((a, b) -> Double.compare(b.count(), a.count()));
+        return top;
+    }
+
+    /** Sum of all weights added, scaled like the counts. */
+    double total() {
+        return total;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (counts[parent] <= counts[slot]) {
+                return;
+            }
+            exchange(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int smallest = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == slot) {
+                return;
+            }
+            exchange(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void exchange(int a, int b) {
+        long item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+        double count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        double error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        slots.put(items[a], a);
+        slots.put(items[b], b);
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int slot = heap[a];
+        heap[a] = heap[b];
+        heap[b] = slot;
+    }
+}
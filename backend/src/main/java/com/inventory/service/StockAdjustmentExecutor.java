@@ -0,0 +1,142 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs read-modify-write stock adjustments, each attempt in its own
+ * transaction. {@link Product} is versioned, so an adjustment that raced
+ * another writer (an admin or a checkout) fails its version check at commit;
+ * it is then re-run from a fresh read after a jittered exponential backoff.
+ * <p>
+ * Attempts, conflicts and retries are counted per SKU so contention shows up
+ * at {@code GET /api/v1/products/inventory/contention}.
+ */
+@Component
+public class StockAdjustmentExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockAdjustmentExecutor.class);
+
+    private static final class Counters {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public StockAdjustmentExecutor(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            @Value("${inventory.stock-adjustment.max-attempts:5}") int maxAttempts,
+            @Value("${inventory.stock-adjustment.backoff-ms:10}") long backoffMs,
+            @Value("${inventory.stock-adjustment.max-backoff-ms:200}") long maxBackoffMs) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Runs {@code adjustment} for product {@code productId} until it commits
+     * without a version conflict. Must be called outside any transaction, or
+     * a retry would reuse the failed one.
+     *
+     * @throws ResponseStatusException 409 once {@code max-attempts} attempts have conflicted
+     */
+    public Product execute(Long productId, Supplier<Product> adjustment) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stock adjustments run in their own transactions");
+        }
+        for (int attempt = 1;; attempt++) {
+            try {
+                Product product = transactionTemplate.execute(status -> adjustment.get());
+                counters(product.getSku()).attempts.increment();
+                return product;
+            } catch (OptimisticLockingFailureException e) {
+                Counters stats = counters(skuOf(productId));
+                stats.attempts.increment();
+                stats.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    stats.exhausted.increment();
+                    logger.warn("Stock adjustment of product {} still conflicting after {} attempt(s)", productId,
+                            attempt);
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Product " + productId + " is being updated concurrently; please retry");
+                }
+                stats.retries.increment();
+                logger.debug("Version conflict adjusting product {}; retry {} of {}", productId, attempt,
+                        maxAttempts - 1);
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Per-SKU contention figures, most conflicted first.
+     */
+    public List<Map<String, Object>> getContention() {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Counters> e) -> e.getValue().conflicts.sum())
+                        .reversed())
+                .map(e -> {
+                    Counters stats = e.getValue();
+                    long attempts = stats.attempts.sum();
+                    long conflicts = stats.conflicts.sum();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("sku", e.getKey());
+                    row.put("attempts", attempts);
+                    row.put("conflicts", conflicts);
+                    row.put("retries", stats.retries.sum());
+                    row.put("exhausted", stats.exhausted.sum());
+                    row.put("conflictRate", attempts == 0 ? 0.0 : (double) conflicts / attempts);
+                    return row;
+                })
+                .toList();
+    }
+
+    private Counters counters(String sku) {
+        return counters.computeIfAbsent(sku, key -> new Counters());
+    }
+
+    // Only paid on a conflict; the happy path takes the SKU from the adjusted product
+    private String skuOf(Long productId) {
+        return productRepository.findById(productId).map(Product::getSku).orElse(String.valueOf(productId));
+    }
+
+    // Full jitter: a random pause up to the exponential ceiling, so the losers do not collide again in step
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        long pause = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while retrying");
+        }
+    }
+}
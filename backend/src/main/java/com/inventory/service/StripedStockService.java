@@ -0,0 +1,306 @@
+package com.inventory.service;
+
+import com.inventory.exception.ProductNotFoundException;
+import com.inventory.model.Product;
+import com.inventory.model.StockBucket;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped stock for hot SKUs. A striped product's stock is split between K
+ * {@code stock_buckets} rows and the product's own {@code quantity} column
+ * (the "bank"). Checkouts decrement a random bucket, so concurrent orders for
+ * the same SKU mostly lock different rows. {@link Product#getQuantity()} adds
+ * the buckets back in, so readers see the usual total.
+ * <p>
+ * The bank keeps units held by cart reservations and whatever an admin adds.
+ * The rebalancer spreads sellable bank stock over the buckets and evens them
+ * out. Before anything rewrites a striped product's quantity it calls
+ * {@link #consolidate}, which moves all bucket stock back into the bank.
+ * <p>
+ * Lock order is always buckets first, then the product row, on every path
+ * that touches both.
+ */
+@Service
+public class StripedStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedStockService.class);
+
+    private final ProductRepository productRepository;
+    private final StockBucketRepository bucketRepository;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultBuckets;
+
+    // Striped product id -> bucket count; refreshed by the rebalancer so other nodes' changes show up
+    private final Map<Long, Integer> stripes = new ConcurrentHashMap<>();
+
+    public StripedStockService(ProductRepository productRepository, StockBucketRepository bucketRepository,
+            ProductCache productCache, PlatformTransactionManager transactionManager,
+            @Value("${inventory.striped-stock.default-buckets:8}") int defaultBuckets) {
+        this.productRepository = productRepository;
+        this.bucketRepository = bucketRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultBuckets = defaultBuckets;
+    }
+
+    @PostConstruct
+    public void refresh() {
+        Set<Long> seen = new HashSet<>();
+        for (Product product : productRepository.findStriped()) {
+            stripes.put(product.getId(), product.getStockStripes());
+            seen.add(product.getId());
+        }
+        stripes.keySet().retainAll(seen);
+    }
+
+    public boolean isStriped(Long productId) {
+        return stripes.containsKey(productId);
+    }
+
+    /**
+     * Takes {@code quantity} units of a striped product for checkout from a
+     * random bucket that can cover them, falling back to the other candidates.
+     * A line no single bucket can cover is gathered from several buckets in
+     * bucket order, topped up from the product row if need be.
+     *
+     * @return whether the stock was taken; nothing is taken when it was not
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean take(Long productId, int quantity) {
+        List<Integer> candidates = bucketRepository.findBucketsHolding(productId, quantity);
+        if (!candidates.isEmpty()) {
+            int start = ThreadLocalRandom.current().nextInt(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                int bucket = candidates.get((start + i) % candidates.size());
+                if (bucketRepository.take(productId, bucket, quantity) == 1) {
+                    return true;
+                }
+            }
+        }
+        return gather(productId, quantity);
+    }
+
+    // Ascending bucket order, then the product row: the same lock order as consolidation
+    private boolean gather(Long productId, int quantity) {
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (StockBucket bucket : bucketRepository.findByProductIdOrderByBucket(productId)) {
+            int part = Math.min(bucket.getQuantity(), remaining);
+            if (part > 0 && bucketRepository.take(productId, bucket.getBucket(), part) == 1) {
+                taken.put(bucket.getBucket(), part);
+                remaining -= part;
+                if (remaining == 0) {
+                    return true;
+                }
+            }
+        }
+        if (productRepository.takeFromBank(productId, remaining) == 1) {
+            return true;
+        }
+        taken.forEach((bucket, part) -> bucketRepository.giveBack(productId, bucket, part));
+        return false;
+    }
+
+    /**
+     * Moves just enough bucket stock into the product row for it to hold
+     * {@code sellable} units beyond the current holds, as far as the buckets
+     * allow. Cart holds live in the row, so call this before the guarded row
+     * update that needs them: it locks only the buckets it takes from, in
+     * bucket order, and then the row, the same order as {@link #take}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void fillBank(Long productId, int sellable) {
+        int missing = sellable - productRepository.findAvailableQuantity(productId).orElse(sellable);
+        if (missing <= 0) {
+            return;
+        }
+        int moved = 0;
+        int left = 0;
+        for (StockBucket bucket : bucketRepository.findByProductIdOrderByBucket(productId)) {
+            int part = Math.min(bucket.getQuantity(), missing - moved);
+            if (part > 0 && bucketRepository.take(productId, bucket.getBucket(), part) == 1) {
+                moved += part;
+                left += bucket.getQuantity() - part;
+            } else {
+                left += bucket.getQuantity();
+            }
+        }
+        if (moved > 0) {
+            productRepository.shiftBank(productId, moved, left);
+            productCache.invalidate(productId);
+            logger.debug("Moved {} unit(s) from the buckets of product {} into its row", moved, productId);
+        }
+    }
+
+    /**
+     * Moves all bucket stock back into the product row, after which the
+     * product's quantity column holds its whole stock until the next
+     * rebalance. The buckets stay locked until the caller commits.
+     */
+    @Transactional
+    public void consolidate(Long productId) {
+        List<StockBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+        if (buckets.isEmpty()) {
+            return;
+        }
+        int bucketed = buckets.stream().mapToInt(StockBucket::getQuantity).sum();
+        bucketRepository.empty(productId);
+        productRepository.shiftBank(productId, bucketed, 0);
+        productCache.invalidate(productId);
+        logger.debug("Consolidated {} unit(s) from the buckets of product {}", bucketed, productId);
+    }
+
+    /**
+     * Turns on striping for a product, or changes its bucket count.
+     */
+    @Transactional
+    public Product stripe(Long productId, Integer buckets) {
+        int count = buckets != null ? buckets : defaultBuckets;
+        if (count < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A striped product needs at least 2 buckets");
+        }
+        productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+
+        consolidate(productId);
+        bucketRepository.deleteByProductId(productId);
+        List<StockBucket> rows = new ArrayList<>(count);
+        for (int bucket = 0; bucket < count; bucket++) {
+            rows.add(new StockBucket(productId, bucket, 0));
+        }
+        bucketRepository.saveAll(rows);
+        productRepository.updateStockStripes(productId, count);
+        productCache.invalidate(productId);
+        stripes.put(productId, count);
+        rebalance(productId);
+        logger.info("Product {} striped over {} bucket(s)", productId, count);
+        return productRepository.findById(productId).orElseThrow();
+    }
+
+    /**
+     * Turns striping off; the product's whole stock goes back to its own row.
+     */
+    @Transactional
+    public Product unstripe(Long productId) {
+        productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        consolidate(productId);
+        removeBuckets(productId);
+        logger.info("Product {} no longer striped", productId);
+        return productRepository.findById(productId).orElseThrow();
+    }
+
+    /**
+     * Drops a product's buckets without moving their stock, for products that
+     * are being deleted.
+     */
+    @Transactional
+    public void removeBuckets(Long productId) {
+        bucketRepository.deleteByProductId(productId);
+        productRepository.updateStockStripes(productId, null);
+        productCache.invalidate(productId);
+        stripes.remove(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.striped-stock.rebalance-interval-ms:1000}")
+    public void rebalanceAll() {
+        refresh();
+        for (Long productId : stripes.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(productId));
+            } catch (RuntimeException e) {
+                // e.g. a deadlock victim against a checkout; the next run tries again
+                logger.warn("Rebalancing product {} failed: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Spreads sellable bank stock over the buckets and evens them out, and
+     * brings the status in line with the total. Does nothing when the
+     * buckets are already reasonably even.
+     *
+     * @return whether anything was changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean rebalance(Long productId) {
+        // Cheap unlocked look first: most runs find nothing to do
+        if (!needsRebalance(bucketRepository.findByProductIdOrderByBucket(productId), productId)) {
+            return false;
+        }
+        List<StockBucket> buckets = bucketRepository.findByProductIdForUpdate(productId);
+        Product product = productRepository.findById(productId).orElse(null);
+        if (buckets.isEmpty() || product == null) {
+            return false;
+        }
+        int bucketed = buckets.stream().mapToInt(StockBucket::getQuantity).sum();
+        int spare = Math.max(0, bank(product) - product.getReservedQuantity());
+        int[] targets = targets(bucketed + spare, buckets.size());
+
+        // The bank figure may be slightly stale; the guarded shift refuses to overdraw it
+        if (productRepository.shiftBank(productId, -spare, bucketed + spare) == 0) {
+            logger.debug("Bank of product {} changed under the rebalancer; retrying next run", productId);
+            return false;
+        }
+        for (int i = 0; i < buckets.size(); i++) {
+            if (buckets.get(i).getQuantity() != targets[i]) {
+                bucketRepository.setQuantity(productId, buckets.get(i).getBucket(), targets[i]);
+            }
+        }
+        productCache.invalidate(productId);
+        logger.debug("Rebalanced product {}: {} unit(s) over {} bucket(s)", productId, bucketed + spare,
+                buckets.size());
+        return true;
+    }
+
+    private boolean needsRebalance(List<StockBucket> buckets, Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (buckets.isEmpty() || product == null) {
+            return false;
+        }
+        int bucketed = buckets.stream().mapToInt(StockBucket::getQuantity).sum();
+        int spare = bank(product) - product.getReservedQuantity();
+        boolean inStock = bucketed + bank(product) > 0;
+        if (spare > 0 || inStock != "IN_STOCK".equals(product.getStatus())) {
+            return true;
+        }
+        // Re-spread once a bucket has fallen below half its fair share
+        int fairShare = bucketed / buckets.size();
+        return buckets.stream().anyMatch(bucket -> bucket.getQuantity() < fairShare / 2);
+    }
+
+    private static int bank(Product product) {
+        return product.getQuantity() - product.getStripedQuantity();
+    }
+
+    private static int[] targets(int total, int buckets) {
+        int[] targets = new int[buckets];
+        for (int i = 0; i < buckets; i++) {
+            targets[i] = total / buckets + (i < total % buckets ? 1 : 0);
+        }
+        return targets;
+    }
+}
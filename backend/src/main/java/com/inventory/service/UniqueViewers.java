@@ -0,0 +1,222 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.entity.UserActivityLog;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Unique viewers per product and category, estimated with
+ * {@link HyperLogLog} sketches of the viewing user ids
+ * ({@code inventory.unique-viewers.*}), instead of a {@code distinct userId}
+ * over the whole activity log.
+ * <p>
+ * The {@link ActivityIngestionPipeline} writer adds each view to a small
+ * in-memory sketch of its product; every {@code flush-interval-ms} those are
+ * merged into the sketch kept as bytes on the product's
+ * {@link InventoryAnalytics}. The write only succeeds if the stored sketch is
+ * still the one that was read, so flushes from several nodes cannot undo
+ * each other; merging is idempotent, so a flush that lost such a race, or
+ * failed, simply merges the same views again next time. A category's
+ * estimate is the merge of its products' sketches.
+ * <p>
+ * With the default precision of 12 a dense sketch is 4 KB and estimates are
+ * within 1.6% (one standard error, {@code 1.04 / sqrt(2^precision)}) of the
+ * true count, 3.3% nineteen times out of twenty; counts below ten thousand
+ * are usually much closer. Views without a user id are not counted, and the
+ * stored sketches lag by up to one interval. Sketches stored under another
+ * precision setting are merged at the lower precision, which they keep.
+ */
+@Component
+public class UniqueViewers {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueViewers.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final boolean enabled;
+    private final int precision;
+
+    private final Object lock = new Object();
+    private Map<Long, HyperLogLog> pending = new HashMap<>();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile LocalDateTime lastFlushAt;
+
+    public UniqueViewers(MongoTemplate mongoTemplate, ProductCache productCache,
+            @Value("${inventory.unique-viewers.enabled:true}") boolean enabled,
+            @Value("${inventory.unique-viewers.precision:12}") int precision) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.enabled = enabled;
+        this.precision = precision;
+        // Fails fast on a precision the sketch does not support
+        new HyperLogLog(precision);
+    }
+
+    /**
+     * Estimated distinct viewers of a stored sketch, or null when there is
+     * none yet.
+     */
+    public static Long estimate(byte[] sketch) {
+        return sketch == null ? null : HyperLogLog.fromBytes(sketch).estimate();
+    }
+
+    /** Adds the viewers among the events to their products' sketches. */
+    public void record(List<UserActivityLog> events) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            for (UserActivityLog event : events) {
+                if (event.getProductId() == null || event.getUserId() == null
+                        || !"PRODUCT_VIEW".equals(event.getAction())) {
+                    continue;
+                }
+                pending.computeIfAbsent(event.getProductId(), id -> new HyperLogLog(precision))
+                        .add(event.getUserId());
+                recorded.increment();
+            }
+        }
+    }
+
+    /**
+     * Merges the viewers recorded since the last flush into the stored
+     * sketches. Whatever does not get written is merged again next time.
+     */
+    @Scheduled(fixedDelayString = "${inventory.unique-viewers.flush-interval-ms:10000}")
+    public void flush() {
+        Map<Long, HyperLogLog> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        Map<Long, HyperLogLog> retry = new HashMap<>();
+        try {
+            Query query = Query.query(Criteria.where("productId").in(batch.keySet()));
+            query.fields().include("productId").include("viewerSketch");
+            Map<Long, InventoryAnalytics> stored = new HashMap<>();
+            for (InventoryAnalytics analytics : mongoTemplate.find(query, InventoryAnalytics.class)) {
+                stored.put(analytics.getProductId(), analytics);
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class);
+            int updates = 0;
+            for (Map.Entry<Long, HyperLogLog> entry : batch.entrySet()) {
+                InventoryAnalytics analytics = stored.get(entry.getKey());
+                if (analytics == null) {
+                    // Analytics are created with the first counted view; keep the viewers until then
+                    if (productCache.findById(entry.getKey()).isPresent()) {
+                        retry.put(entry.getKey(), entry.getValue());
+                    }
+                    continue;
+                }
+                byte[] current = analytics.getViewerSketch();
+                HyperLogLog merged = current == null ? entry.getValue()
+                        : union(HyperLogLog.fromBytes(current), entry.getValue());
+                Criteria unchanged = Criteria.where("productId").is(entry.getKey());
+                unchanged = current == null ? unchanged.and("viewerSketch").exists(false)
+                        : unchanged.and("viewerSketch").is(current);
+                bulk.updateOne(Query.query(unchanged), Update.update("viewerSketch", merged.toBytes()));
+                updates++;
+            }
+            if (updates > 0) {
+                BulkWriteResult result = bulk.execute();
+                if (result.getMatchedCount() < updates) {
+                    // Another node wrote some of the sketches meanwhile: merge everything again
+                    conflicts.increment();
+                    batch.forEach(retry::putIfAbsent);
+                }
+            }
+            flushes.increment();
+            lastFlushAt = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Writing the viewer sketches of {} product(s) failed; they stay pending: {}", batch.size(),
+                    e.getMessage());
+            retry.putAll(batch);
+        }
+        if (!retry.isEmpty()) {
+            synchronized (lock) {
+                retry.forEach((productId, sketch) -> pending.merge(productId, sketch, (newer, older) -> {
+                    newer.merge(older);
+                    return newer;
+                }));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    /**
+     * Estimated distinct viewers across the category's products: the merge
+     * of their stored sketches.
+     */
+    public Map<String, Object> category(String category) {
+        Query query = Query.query(Criteria.where("category").is(category));
+        query.fields().include("viewerSketch");
+        HyperLogLog union = new HyperLogLog(precision);
+        int products = 0;
+        for (InventoryAnalytics analytics : mongoTemplate.find(query, InventoryAnalytics.class)) {
+            products++;
+            if (analytics.getViewerSketch() != null) {
+                union = union(union, HyperLogLog.fromBytes(analytics.getViewerSketch()));
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("category", category);
+        result.put("products", products);
+        result.put("uniqueViewers", union.estimate());
+        result.put("standardError", HyperLogLog.standardError(union.precision()));
+        return result;
+    }
+
+    // Sketches stored before the precision setting changed are merged at the lower of the two precisions
+    private static HyperLogLog union(HyperLogLog into, HyperLogLog other) {
+        int common = Math.min(into.precision(), other.precision());
+        HyperLogLog union = into.fold(common);
+        union.merge(other.fold(common));
+        return union;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("precision", precision);
+        stats.put("standardError", HyperLogLog.standardError(precision));
+        synchronized (lock) {
+            stats.put("pendingProducts", pending.size());
+        }
+        stats.put("recorded", recorded.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("conflicts", conflicts.sum());
+        stats.put("failedFlushes", failures.sum());
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+}
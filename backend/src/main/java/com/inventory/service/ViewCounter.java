@@ -0,0 +1,186 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind product view counts. A view only increments a per-product
+ * {@link LongAdder}; the scheduled {@link #flush} adds everything counted
+ * since the last one to {@code InventoryAnalytics.totalViewCount} with one
+ * unordered bulk of {@code $inc} upserts, so a burst of views on a hot
+ * product costs one Mongo write instead of a read and a full-document save
+ * per view, and concurrent views can no longer overwrite each other's
+ * increment.
+ * <p>
+ * Counts are taken out with {@link LongAdder#sumThenReset}, which never
+ * drops a concurrent increment, and are added back if the write fails. The
+ * adders are kept once created (one per product ever viewed), since removing
+ * one could lose an increment racing with the removal. Whatever is still
+ * pending is flushed on shutdown; a crash loses at most one interval of
+ * views. Readers of {@code totalViewCount}, and the autocomplete ranking,
+ * see counts up to that interval old ({@code lagMs} in {@link #getStats}).
+ */
+@Component
+public class ViewCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCounter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ProductSuggester productSuggester;
+    private final CatalogVersion catalogVersion;
+    private final boolean enabled;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    // When the oldest unflushed view was counted (epoch millis), 0 when nothing is pending
+    private final AtomicLong oldestPending = new AtomicLong();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long lastFlushMs = -1;
+    private volatile LocalDateTime lastFlushAt;
+
+    public ViewCounter(MongoTemplate mongoTemplate, ProductCache productCache, ProductSuggester productSuggester,
+            CatalogVersion catalogVersion, @Value("${inventory.view-counter.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.productSuggester = productSuggester;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Counts one view of the product. With write-behind disabled the
+     * increment is written straight away, still as a single {@code $inc}.
+     */
+    public void record(Long productId) {
+        recorded.increment();
+        if (!enabled) {
+            write(Map.of(productId, 1L));
+            return;
+        }
+        pending.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        oldestPending.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the views counted since the last flush. Counts that fail to
+     * write stay pending for the next one.
+     */
+    @Scheduled(fixedDelayString = "${inventory.view-counter.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            long start = System.nanoTime();
+            // Views counted from here on start a new lag clock
+            oldestPending.set(0);
+            Map<Long, Long> counts = new LinkedHashMap<>();
+            pending.forEach((productId, adder) -> {
+                long views = adder.sumThenReset();
+                if (views != 0) {
+                    counts.put(productId, views);
+                }
+            });
+            if (counts.isEmpty()) {
+                return;
+            }
+            if (!write(counts)) {
+                counts.forEach((productId, views) -> pending.get(productId).add(views));
+                oldestPending.compareAndSet(0, System.currentTimeMillis());
+                return;
+            }
+            lastFlushMs = (System.nanoTime() - start) / 1_000_000;
+            lastFlushAt = LocalDateTime.now();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+        long left = pendingViews();
+        if (left > 0) {
+            logger.warn("{} product view(s) could not be written before shutdown", left);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        long oldest = oldestPending.get();
+        stats.put("pendingViews", pendingViews());
+        stats.put("pendingProducts", pending.values().stream().filter(adder -> adder.sum() != 0).count());
+        stats.put("lagMs", oldest == 0 ? 0 : System.currentTimeMillis() - oldest);
+        stats.put("recorded", recorded.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("failedFlushes", failures.sum());
+        stats.put("lastFlushMs", lastFlushMs);
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+
+    private long pendingViews() {
+        return pending.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    // One $inc per product; a product without analytics yet gets its document, as the first view always did
+    private boolean write(Map<Long, Long> counts) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class);
+            counts.forEach((productId, views) -> {
+                Query query = Query.query(Criteria.where("productId").is(productId));
+                Update update = new Update().inc("totalViewCount", views).set("lastUpdated", now);
+                Optional<Product> product = productCache.findById(productId);
+                if (product.isEmpty()) {
+                    // Deleted since it was viewed: count it if the document is still there, create nothing
+                    bulk.updateOne(query, update);
+                    return;
+                }
+                Product current = product.get();
+                bulk.upsert(query, update
+                        .setOnInsert("sku", current.getSku())
+                        .setOnInsert("productName", current.getName())
+                        .setOnInsert("category", current.getCategory())
+                        .setOnInsert("currentStock", current.getQuantity())
+                        .setOnInsert("totalPurchases", 0)
+                        .setOnInsert("averageRating", 0.0)
+                        .setOnInsert("priceHistory", List.of(
+                                new InventoryAnalytics.PriceHistory(current.getPrice().doubleValue(), now))));
+            });
+            bulk.execute();
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Writing view counts of {} product(s) failed; they stay pending: {}", counts.size(),
+                    e.getMessage());
+            return false;
+        }
+        catalogVersion.analyticsChanged();
+        counts.forEach(productSuggester::recordView);
+        long views = counts.values().stream().mapToLong(Long::longValue).sum();
+        flushed.add(views);
+        flushes.increment();
+        return true;
+    }
+}
@@ -1,31 +1,135 @@
 package com.inventory.storefront.controller;
 
+import com.inventory.dto.ProductSuggestion;
+import com.inventory.dto.ProductView;
+import com.inventory.model.OrderStatus;
 import com.inventory.model.Product;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductPager;
+import com.inventory.service.ProductSuggester;
+import com.inventory.service.SerializedResponseCache;
+import com.inventory.storefront.dto.CartRequest;
+import com.inventory.storefront.dto.CartValidationResponse;
 import com.inventory.storefront.dto.OrderRequest;
 import com.inventory.storefront.dto.OrderResponse;
+import com.inventory.storefront.dto.ReservationResponse;
+import com.inventory.storefront.service.AsyncCheckoutService;
+import com.inventory.storefront.service.AvailableStockCache;
+import com.inventory.storefront.service.CartReservationService;
+import com.inventory.storefront.service.GroupCommitOrderPipeline;
+import com.inventory.storefront.service.OrderIdempotencyService;
 import com.inventory.storefront.service.StorefrontService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1")
 public class StorefrontController {
 
     private final StorefrontService storefrontService;
+    private final GroupCommitOrderPipeline groupCommitOrderPipeline;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final CartReservationService cartReservationService;
+    private final AvailableStockCache availableStockCache;
+    private final ProductPager productPager;
+    private final ProductSuggester productSuggester;
+    private final SerializedResponseCache responseCache;
+    private final CatalogVersion catalogVersion;
 
     @Autowired
-    public StorefrontController(StorefrontService storefrontService) {
+    public StorefrontController(StorefrontService storefrontService,
+            GroupCommitOrderPipeline groupCommitOrderPipeline, AsyncCheckoutService asyncCheckoutService,
+            OrderIdempotencyService orderIdempotencyService, CartReservationService cartReservationService,
+            AvailableStockCache availableStockCache, ProductPager productPager, ProductSuggester productSuggester,
+            SerializedResponseCache responseCache, CatalogVersion catalogVersion) {
         this.storefrontService = storefrontService;
+        this.groupCommitOrderPipeline = groupCommitOrderPipeline;
+        this.asyncCheckoutService = asyncCheckoutService;
+        this.orderIdempotencyService = orderIdempotencyService;
+        this.cartReservationService = cartReservationService;
+        this.availableStockCache = availableStockCache;
+        this.productPager = productPager;
+        this.productSuggester = productSuggester;
+        this.responseCache = responseCache;
+        this.catalogVersion = catalogVersion;
     }
 
+    /**
+     * Keyset pagination when {@code cursor} or {@code limit} is given
+     * ({@code sort=name,desc}, {@code includeTotal=false} to skip the count);
+     * otherwise the offset {@code page}/{@code size} listing. {@code view=summary}
+     * returns only the list columns, without description and image.
+     * <p>
+     * Both kinds of page are served pre-serialized until a product changes,
+     * with an ETag for conditional requests.
+     */
     @GetMapping("/storefront/products")
-    public ResponseEntity<Page<Product>> getProducts(Pageable pageable) {
-        return ResponseEntity.ok(storefrontService.getProducts(pageable));
+    public ResponseEntity<?> getProducts(Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            @RequestParam(required = false) String view,
+            HttpServletRequest request) {
+        ProductView productView = ProductView.of(view);
+        if (cursor != null || limit != null) {
+            String key = "storefront/products?cursor=" + cursor + "&limit=" + limit + "&sort=" + sort
+                    + "&includeTotal=" + includeTotal + "&view=" + productView;
+            return responseCache.respond(key, catalogVersion::products, request,
+                    () -> productPager.page(cursor, limit, sort, includeTotal, productView));
+        }
+        String key = "storefront/products?page=" + pageable.getPageNumber() + "&size=" + pageable.getPageSize()
+                + "&sort=" + pageable.getSort() + "&view=" + productView;
+        return responseCache.respond(key, catalogVersion::products, request,
+                () -> productView == ProductView.SUMMARY ? storefrontService.getProductSummaries(pageable)
+                        : storefrontService.getProducts(pageable));
+    }
+
+    /**
+     * Autocomplete for the search box: products whose name, a word of it or
+     * whose SKU starts with {@code q}, most viewed first.
+     */
+    @GetMapping("/storefront/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(@RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productSuggester.suggest(q, limit));
+    }
+
+    /**
+     * Faceted listing: {@code category} and {@code priceBand} may repeat (any
+     * of them matches), {@code inStock=true} keeps sellable products and
+     * {@code minRating} whole stars and up. Every facet's value counts come
+     * back with the page.
+     */
+    @GetMapping("/storefront/products/filter")
+    public ResponseEntity<?> filterProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) List<String> priceBand,
+            @RequestParam(defaultValue = "0") int minRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String view) {
+        ProductFacetIndex.FacetFilter filter = new ProductFacetIndex.FacetFilter(
+                category == null ? Set.of() : new LinkedHashSet<>(category), inStock,
+                priceBand == null ? Set.of() : new LinkedHashSet<>(priceBand), minRating);
+        return ResponseEntity.ok(storefrontService.filterProducts(filter, page, size, ProductView.of(view)));
     }
 
     @GetMapping("/storefront/products/{id}")
@@ -33,17 +137,74 @@ public class StorefrontController {
         return ResponseEntity.ok(storefrontService.getProduct(id));
     }
 
+    @PostMapping("/storefront/cart/validate")
+    public ResponseEntity<CartValidationResponse> validateCart(@Valid @RequestBody CartRequest request) {
+        return ResponseEntity.ok(storefrontService.validateCart(request));
+    }
+
+    @GetMapping("/storefront/products/{id}/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable Long id) {
+        int available = availableStockCache.get(id);
+        if (available < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("productId", id);
+        response.put("availableQuantity", available);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/storefront/reservations")
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody CartRequest request) {
+        ReservationResponse response = cartReservationService.reserve(request.getItems());
+        return ResponseEntity.created(URI.create("/api/v1/storefront/reservations/" + response.getReservationId()))
+                .body(response);
+    }
+
+    @GetMapping("/storefront/reservations/{reservationId}")
+    public ResponseEntity<ReservationResponse> getReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(cartReservationService.getReservation(reservationId));
+    }
+
+    @DeleteMapping("/storefront/reservations/{reservationId}")
+    public ResponseEntity<ReservationResponse> releaseReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(cartReservationService.release(reservationId));
+    }
+
     @PostMapping("/orders")
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request) {
-        OrderResponse response = storefrontService.createOrder(request);
+    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        request.setIdempotencyKey(idempotencyKey);
+        OrderResponse response = orderIdempotencyService.execute(request, () -> placeOrder(request));
+        if (response.getStatus() == OrderStatus.PENDING) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/orders/" + response.getId()))
+                    .body(response);
+        }
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    private OrderResponse placeOrder(OrderRequest request) {
+        if (asyncCheckoutService.isEnabled()) {
+            return asyncCheckoutService.accept(request);
+        }
+        return groupCommitOrderPipeline.isEnabled()
+                ? groupCommitOrderPipeline.createOrder(request)
+                : storefrontService.createOrder(request);
+    }
+
     @GetMapping("/orders/{id}")
     public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id) {
         return ResponseEntity.ok(storefrontService.getOrder(id));
     }
 
+    // Long poll: answered as soon as the order leaves PENDING, or with its current state after waitMs
+    @GetMapping(value = "/orders/{id}", params = "waitMs")
+    public CompletableFuture<ResponseEntity<OrderResponse>> awaitOrder(@PathVariable Long id,
+            @RequestParam long waitMs) {
+        return asyncCheckoutService.awaitDecision(id, waitMs).thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/storefront/my-orders")
     public ResponseEntity<java.util.List<OrderResponse>> getMyOrders(@RequestParam String email) {
         return ResponseEntity.ok(storefrontService.getOrdersByEmail(email));
@@ -0,0 +1,20 @@
+package com.inventory.storefront.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public class CartRequest {
+
+    @NotEmpty(message = "Cart items cannot be empty")
+    @Valid
+    private List<OrderItemRequest> items;
+
+    public List<OrderItemRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItemRequest> items) {
+        this.items = items;
+    }
+}
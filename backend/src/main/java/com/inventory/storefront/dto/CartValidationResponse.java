@@ -0,0 +1,34 @@
+package com.inventory.storefront.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class CartValidationResponse {
+    private boolean valid;
+    private BigDecimal totalAmount;
+    private List<CartLineResponse> lines;
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public List<CartLineResponse> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<CartLineResponse> lines) {
+        this.lines = lines;
+    }
+}
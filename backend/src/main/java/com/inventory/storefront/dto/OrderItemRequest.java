@@ -1,8 +1,11 @@
 package com.inventory.storefront.dto;
 
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
+
 public class OrderItemRequest {
 
     @NotNull(message = "Product ID is required")
@@ -12,6 +15,10 @@ public class OrderItemRequest {
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
 
+    // Optional: the unit price the client last saw, checked against the current price
+    @DecimalMin(value = "0.01", message = "Price must be positive")
+    private BigDecimal price;
+
     public Long getProductId() {
         return productId;
     }
@@ -27,4 +34,12 @@ public class OrderItemRequest {
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
     }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
 }
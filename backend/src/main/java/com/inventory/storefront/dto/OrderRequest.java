@@ -1,5 +1,6 @@
 package com.inventory.storefront.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotEmpty;
 import java.util.List;
 
@@ -12,6 +13,17 @@ public class OrderRequest {
     private String paymentMethod;
     private String shippingAddress;
 
+    // Optional cart reservation whose held stock this order consumes
+    private String reservationId;
+
+    // Taken from the Idempotency-Key header, never from the body
+    @JsonIgnore
+    private String idempotencyKey;
+
+    // Set with the key, by OrderIdempotencyService
+    @JsonIgnore
+    private String requestFingerprint;
+
     public List<OrderItemRequest> getItems() {
         return items;
     }
@@ -43,4 +55,28 @@ public class OrderRequest {
     public void setShippingAddress(String shippingAddress) {
         this.shippingAddress = shippingAddress;
     }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
 }
@@ -1,5 +1,6 @@
 package com.inventory.storefront.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.inventory.model.OrderStatus;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,10 +10,15 @@ public class OrderResponse {
     private Long id;
     private LocalDateTime orderDate;
     private OrderStatus status;
+    private String statusReason;
     private BigDecimal totalAmount;
     private String customerEmail;
     private List<OrderItemResponse> items;
 
+    // Fingerprint of the request that placed the order under an Idempotency-Key; never sent to clients
+    @JsonIgnore
+    private String requestFingerprint;
+
     public Long getId() {
         return id;
     }
@@ -37,6 +43,14 @@ public class OrderResponse {
         this.status = status;
     }
 
+    public String getStatusReason() {
+        return statusReason;
+    }
+
+    public void setStatusReason(String statusReason) {
+        this.statusReason = statusReason;
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
@@ -60,4 +74,12 @@ public class OrderResponse {
     public void setItems(List<OrderItemResponse> items) {
         this.items = items;
     }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
 }
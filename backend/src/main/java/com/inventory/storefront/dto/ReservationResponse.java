@@ -0,0 +1,45 @@
+package com.inventory.storefront.dto;
+
+import com.inventory.model.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ReservationResponse {
+    private String reservationId;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+    private List<ReservationLineResponse> lines;
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public List<ReservationLineResponse> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<ReservationLineResponse> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,313 @@
+package com.inventory.storefront.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.exception.ProductNotFoundException;
+import com.inventory.model.Order;
+import com.inventory.model.OrderStatus;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in asynchronous checkout ({@code storefront.async-checkout.enabled}).
+ * <p>
+ * Accepting an order is a single insert: the request is stored as JSON on a
+ * PENDING order and the id goes back to the client straight away. A pool of
+ * workers then locks the order, reserves stock, prices it and moves it to
+ * CONFIRMED, or to CANCELLED with a reason. Because the request lives in
+ * MySQL, orders accepted before a crash or whose hand-off to the workers was
+ * rejected are picked up again by a periodic recovery scan. An order whose
+ * processing keeps failing for other reasons (lock timeouts, lost
+ * connections) is retried by that scan up to {@code max-attempts} times and
+ * then marked FAILED, giving back the cart reservation it was placed from.
+ * <p>
+ * Clients poll {@code GET /orders/{id}} or long-poll with {@code waitMs}; the
+ * long poll is answered as soon as a worker on this node decides the order.
+ */
+@Service
+public class AsyncCheckoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCheckoutService.class);
+
+    private static final long MAX_WAIT_MS = 30_000;
+
+    private final StorefrontService storefrontService;
+    private final CartReservationService cartReservationService;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int workers;
+    private final int queueCapacity;
+    private final int maxAttempts;
+
+    // Orders handed to the pool and not yet processed, so recovery does not queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<Long, List<CompletableFuture<OrderResponse>>> waiters = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    public AsyncCheckoutService(StorefrontService storefrontService, CartReservationService cartReservationService,
+            OrderRepository orderRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+            @Value("${storefront.async-checkout.enabled:false}") boolean enabled,
+            @Value("${storefront.async-checkout.workers:4}") int workers,
+            @Value("${storefront.async-checkout.queue-capacity:10000}") int queueCapacity,
+            @Value("${storefront.async-checkout.max-attempts:5}") int maxAttempts) {
+        this.storefrontService = storefrontService;
+        this.cartReservationService = cartReservationService;
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "async-checkout-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        logger.info("Async checkout enabled with {} worker(s)", workers);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            // Queued ids are still PENDING in MySQL; recovery picks them up on the next start
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores the request on a new PENDING order and queues it for the workers.
+     */
+    public OrderResponse accept(OrderRequest request) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Order request cannot be serialized", e);
+        }
+
+        Order accepted = transactionTemplate.execute(status -> {
+            Order order = new Order();
+            order.setCustomerEmail(request.getCustomerEmail());
+            order.setPaymentMethod(request.getPaymentMethod());
+            order.setShippingAddress(request.getShippingAddress());
+            order.setIdempotencyKey(request.getIdempotencyKey());
+            order.setRequestFingerprint(request.getRequestFingerprint());
+            order.setTotalAmount(BigDecimal.ZERO);
+            order.setStatus(OrderStatus.PENDING);
+            order.setCheckoutRequest(payload);
+            return orderRepository.save(order);
+        });
+        dispatch(accepted.getId());
+        return storefrontService.mapToResponse(accepted);
+    }
+
+    /**
+     * Completes with the order once it leaves PENDING, or with its current
+     * state after {@code waitMs}.
+     */
+    public CompletableFuture<OrderResponse> awaitDecision(Long orderId, long waitMs) {
+        CompletableFuture<OrderResponse> decision = new CompletableFuture<>();
+        waiters.computeIfAbsent(orderId, id -> new CopyOnWriteArrayList<>()).add(decision);
+
+        // Registered before checking, so a decision made in between is not missed
+        OrderResponse current;
+        try {
+            current = storefrontService.getOrder(orderId);
+        } catch (RuntimeException e) {
+            // e.g. 404 for an unknown id: the cleanup below is never attached, so undo the registration here
+            removeWaiter(orderId, decision);
+            throw e;
+        }
+        if (current.getStatus() != OrderStatus.PENDING) {
+            decision.complete(current);
+        }
+        return decision
+                .completeOnTimeout(null, Math.min(waitMs, MAX_WAIT_MS), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(decided -> decided != null ? decided : storefrontService.getOrder(orderId))
+                .whenComplete((response, error) -> removeWaiter(orderId, decision));
+    }
+
+    @Scheduled(fixedDelayString = "${storefront.async-checkout.recovery-interval-ms:5000}")
+    public void recoverPendingOrders() {
+        if (!enabled) {
+            return;
+        }
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) {
+            return;
+        }
+        List<Long> pending = orderRepository.findIdsAwaitingProcessing(OrderStatus.PENDING, PageRequest.of(0, free));
+        pending.forEach(this::dispatch);
+    }
+
+    private void dispatch(Long orderId) {
+        if (executor == null || !inFlight.add(orderId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(orderId);
+                } finally {
+                    inFlight.remove(orderId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Still PENDING in MySQL; the recovery scan retries it
+            inFlight.remove(orderId);
+            logger.warn("Async checkout queue full, order {} left for recovery", orderId);
+        }
+    }
+
+    private void process(Long orderId) {
+        OrderResponse outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> decide(orderId));
+        } catch (RuntimeException e) {
+            // Infrastructure failure (lock timeout, connection loss): nothing of the attempt was written
+            outcome = recordFailure(orderId, e);
+        }
+        OrderResponse decided = outcome;
+        if (decided != null) {
+            List<CompletableFuture<OrderResponse>> waiting = waiters.remove(orderId);
+            if (waiting != null) {
+                waiting.forEach(waiter -> waiter.complete(decided));
+            }
+        }
+    }
+
+    private OrderResponse decide(Long orderId) {
+        // Row lock: another worker or node handling the same order waits here and then sees it decided
+        Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING || order.getCheckoutRequest() == null) {
+            return null;
+        }
+
+        OrderRequest request;
+        try {
+            request = objectMapper.readValue(order.getCheckoutRequest(), OrderRequest.class);
+        } catch (JsonProcessingException e) {
+            return cancel(order, "Unreadable checkout request");
+        }
+
+        // Stock decrements clear the persistence context; load the (empty) items before the order is detached
+        order.getItems().size();
+        try {
+            storefrontService.fulfil(order, request);
+        } catch (ResponseStatusException e) {
+            // Rejected carts write nothing, so the same transaction can record the cancellation
+            return cancel(order, e.getReason());
+        } catch (InsufficientStockException | ProductNotFoundException e) {
+            return cancel(order, e.getMessage());
+        }
+        order.setCheckoutRequest(null);
+        logger.debug("Order {} confirmed", orderId);
+        return storefrontService.mapToResponse(orderRepository.save(order));
+    }
+
+    /**
+     * Counts a failed attempt. The order stays PENDING for the recovery scan
+     * until it has failed {@code max-attempts} times; then it is marked FAILED
+     * and the reservation it was placed from is released.
+     *
+     * @return the FAILED order, or null while it is left for a retry
+     */
+    private OrderResponse recordFailure(Long orderId, RuntimeException failure) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Order order = orderRepository.findByIdForUpdate(orderId).orElse(null);
+                if (order == null || order.getStatus() != OrderStatus.PENDING) {
+                    return null;
+                }
+                int attempts = (order.getCheckoutAttempts() == null ? 0 : order.getCheckoutAttempts()) + 1;
+                order.setCheckoutAttempts(attempts);
+                if (attempts < maxAttempts) {
+                    logger.warn("Async checkout of order {} failed (attempt {} of {}), will retry: {}", orderId,
+                            attempts, maxAttempts, failure.getMessage());
+                    orderRepository.save(order);
+                    return null;
+                }
+                logger.error("Async checkout of order {} failed {} time(s), giving up", orderId, attempts, failure);
+                String reservationId = reservationId(order);
+                if (reservationId != null) {
+                    cartReservationService.release(reservationId);
+                }
+                order.setStatus(OrderStatus.FAILED);
+                order.setStatusReason("Checkout could not be completed, please try again");
+                order.setCheckoutRequest(null);
+                return storefrontService.mapToResponse(orderRepository.save(order));
+            });
+        } catch (RuntimeException e) {
+            // Not even the attempt could be recorded; the recovery scan tries the order again
+            logger.error("Async checkout of order {} failed and could not be recorded, will retry", orderId, e);
+            return null;
+        }
+    }
+
+    private String reservationId(Order order) {
+        try {
+            return objectMapper.readValue(order.getCheckoutRequest(), OrderRequest.class).getReservationId();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private OrderResponse cancel(Order order, String reason) {
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setStatusReason(reason);
+        order.setCheckoutRequest(null);
+        logger.info("Order {} cancelled: {}", order.getId(), reason);
+        return storefrontService.mapToResponse(orderRepository.save(order));
+    }
+
+    private void removeWaiter(Long orderId, CompletableFuture<OrderResponse> decision) {
+        waiters.computeIfPresent(orderId, (id, list) -> {
+            list.remove(decision);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
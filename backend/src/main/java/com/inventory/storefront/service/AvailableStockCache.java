@@ -0,0 +1,70 @@
+package com.inventory.storefront.service;
+
+import com.inventory.repository.jpa.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-product cache of sellable stock ({@code quantity - reserved_quantity}).
+ * <p>
+ * Entries are dropped whenever this node changes a product's stock or holds
+ * and otherwise expire after {@code storefront.reservations.availability-ttl-ms},
+ * which bounds how stale a figure written by another node can be. The cache is
+ * only used to answer availability reads and to turn away reservations that
+ * are clearly short; the guarded updates stay the authority.
+ */
+@Component
+public class AvailableStockCache {
+
+    private record Entry(int available, long loadedAt) {
+    }
+
+    private final ProductRepository productRepository;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public AvailableStockCache(ProductRepository productRepository,
+            @Value("${storefront.reservations.availability-ttl-ms:1000}") long ttlMs) {
+        this.productRepository = productRepository;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /**
+     * Sellable stock of the product, loading it on a miss; -1 if the product
+     * does not exist.
+     */
+    public int get(Long productId) {
+        Integer cached = peek(productId);
+        if (cached != null) {
+            return cached;
+        }
+        int available = productRepository.findAvailableQuantity(productId).map(q -> Math.max(0, q)).orElse(-1);
+        if (available >= 0) {
+            entries.put(productId, new Entry(available, System.nanoTime()));
+        }
+        return available;
+    }
+
+    /**
+     * Fresh cached figure, or null; never touches the database.
+     */
+    public Integer peek(Long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null || System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            return null;
+        }
+        return entry.available();
+    }
+
+    public void invalidate(Long productId) {
+        entries.remove(productId);
+    }
+
+    public void invalidateAll(Iterable<Long> productIds) {
+        productIds.forEach(entries::remove);
+    }
+}
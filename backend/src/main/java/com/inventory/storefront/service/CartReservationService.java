@@ -0,0 +1,311 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.exception.ProductNotFoundException;
+import com.inventory.model.Product;
+import com.inventory.model.ReservationStatus;
+import com.inventory.model.StockReservation;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockReservationRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.ReservationLineResponse;
+import com.inventory.storefront.dto.ReservationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited cart reservations: stock is held when the shopper commits to a
+ * cart and turned into a sale at checkout, so a cart that reserved
+ * successfully cannot fail for lack of stock.
+ * <p>
+ * A hold is a {@code stock_reservations} row plus the same amount added to
+ * {@code products.reserved_quantity} by a guarded update, so sellable stock
+ * is always {@code quantity - reserved_quantity} and plain checkouts cannot
+ * sell held units. Holds end in one of three ways:
+ * <ul>
+ * <li>confirmed by an order that names the reservation,</li>
+ * <li>released by the shopper,</li>
+ * <li>expired by the sweeper once {@code expires_at} has passed.</li>
+ * </ul>
+ * All three lock the reservation rows first and only act on ACTIVE ones, so
+ * each hold is given back or sold exactly once.
+ */
+@Service
+public class CartReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final StockReservationEngine stockReservationEngine;
+    private final AvailableStockCache availableStockCache;
+    private final StripedStockService stripedStockService;
+    private final ProductCache productCache;
+    private final ProductFacetIndex facetIndex;
+    private final ProductStats productStats;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlSeconds;
+    private final int sweepBatchSize;
+
+    public CartReservationService(StockReservationRepository reservationRepository,
+            ProductRepository productRepository, StockReservationEngine stockReservationEngine,
+            AvailableStockCache availableStockCache, StripedStockService stripedStockService,
+            ProductCache productCache, ProductFacetIndex facetIndex, ProductStats productStats,
+            CatalogVersion catalogVersion, PlatformTransactionManager transactionManager,
+            @Value("${storefront.reservations.ttl-seconds:600}") long ttlSeconds,
+            @Value("${storefront.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.stockReservationEngine = stockReservationEngine;
+        this.availableStockCache = availableStockCache;
+        this.stripedStockService = stripedStockService;
+        this.productCache = productCache;
+        this.facetIndex = facetIndex;
+        this.productStats = productStats;
+        this.catalogVersion = catalogVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlSeconds = ttlSeconds;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Holds every line of the cart or nothing. Products are held in ascending
+     * id order, like checkout, so concurrent carts cannot deadlock.
+     */
+    @Transactional
+    public ReservationResponse reserve(List<OrderItemRequest> items) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        String reservationId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        List<StockReservation> lines = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            lines.add(new StockReservation(reservationId, entry.getKey(), entry.getValue(), expiresAt));
+        }
+        // Rows first: the holds below flush them before taking any product lock
+        reservationRepository.saveAll(lines);
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int requested = entry.getValue();
+            // A fresh cached figure lets hopeless requests skip the row lock on hot products
+            Integer cached = availableStockCache.peek(productId);
+            if (cached != null && cached < requested) {
+                Product product = productRepository.findById(productId)
+                        .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+                if (product.getAvailableQuantity() < requested) {
+                    throw new InsufficientStockException(productId, product.getName(), requested,
+                            product.getAvailableQuantity());
+                }
+            }
+            if (stripedStockService.isStriped(productId)) {
+                // Holds live in the product row; top it up from the buckets before locking it
+                stripedStockService.fillBank(productId, requested);
+            }
+            if (productRepository.holdStock(productId, requested) == 0) {
+                // Propagates out of this transaction, which rolls back the holds already taken
+                throw stockReservationEngine.shortage(productId, requested);
+            }
+        }
+        availableStockCache.invalidateAll(quantities.keySet());
+        productCache.invalidateAll(quantities.keySet());
+        facetIndex.changed(quantities.keySet());
+        catalogVersion.productsChanged();
+        logger.info("Reserved {} product(s) under {} until {}", quantities.size(), reservationId, expiresAt);
+        return toResponse(reservationId, ReservationStatus.ACTIVE, expiresAt, lines);
+    }
+
+    /**
+     * Sells the held stock to an order in the caller's transaction. The order
+     * must ask for exactly what was reserved.
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = { InsufficientStockException.class, ProductNotFoundException.class,
+                    ResponseStatusException.class })
+    public void confirm(String reservationId, SortedMap<Long, Integer> quantities) {
+        List<StockReservation> lines = lockLines(reservationId);
+        for (StockReservation line : lines) {
+            if (line.getStatus() != ReservationStatus.ACTIVE) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Reservation " + reservationId + " is " + line.getStatus());
+            }
+            if (line.getExpiresAt().isBefore(LocalDateTime.now())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Reservation " + reservationId + " has expired");
+            }
+        }
+        Map<Long, Integer> reserved = lines.stream()
+                .collect(Collectors.toMap(StockReservation::getProductId, StockReservation::getQuantity));
+        if (!reserved.equals(quantities)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Order items do not match reservation " + reservationId);
+        }
+
+        List<Map.Entry<Long, Integer>> consumed = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (stripedStockService.isStriped(entry.getKey())) {
+                // An admin cut may have left the row short of its holds; buckets first, then the row
+                stripedStockService.fillBank(entry.getKey(), 0);
+            }
+            // Only fails if an admin cut on-hand stock below the held amount
+            if (productRepository.consumeHold(entry.getKey(), entry.getValue()) == 0) {
+                for (Map.Entry<Long, Integer> done : consumed) {
+                    productRepository.incrementStock(done.getKey(), done.getValue());
+                    productRepository.holdStock(done.getKey(), done.getValue());
+                }
+                throw stockReservationEngine.shortage(entry.getKey(), entry.getValue());
+            }
+            consumed.add(entry);
+        }
+        reservationRepository.updateStatus(ids(lines), ReservationStatus.CONFIRMED);
+        availableStockCache.invalidateAll(quantities.keySet());
+        productCache.invalidateAll(quantities.keySet());
+        facetIndex.changed(quantities.keySet());
+        productStats.changed(quantities.keySet());
+        catalogVersion.productsChanged();
+        logger.debug("Confirmed reservation {}", reservationId);
+    }
+
+    /**
+     * Gives the held stock back. Releasing a reservation that is no longer
+     * active is a no-op, so clients can retry safely.
+     */
+    @Transactional
+    public ReservationResponse release(String reservationId) {
+        List<StockReservation> lines = lockLines(reservationId);
+        List<StockReservation> active = lines.stream()
+                .filter(line -> line.getStatus() == ReservationStatus.ACTIVE)
+                .collect(Collectors.toList());
+        if (!active.isEmpty()) {
+            releaseHolds(active, ReservationStatus.RELEASED);
+            logger.info("Released reservation {}", reservationId);
+        }
+        return toResponse(reservationId, lines);
+    }
+
+    @Transactional(readOnly = true)
+    public ReservationResponse getReservation(String reservationId) {
+        List<StockReservation> lines = reservationRepository.findByReservationIdOrderByProductId(reservationId);
+        if (lines.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found: " + reservationId);
+        }
+        return toResponse(reservationId, lines);
+    }
+
+    @Scheduled(fixedDelayString = "${storefront.reservations.sweep-interval-ms:5000}")
+    public void sweepExpiredReservations() {
+        int expired = releaseExpired();
+        if (expired > 0) {
+            logger.info("Released {} expired reservation line(s)", expired);
+        }
+    }
+
+    /**
+     * Expires overdue holds in batches of {@code sweep-batch-size}, one short
+     * transaction per batch so the sweeper never holds many locks at once.
+     *
+     * @return the number of reservation lines expired
+     */
+    public int releaseExpired() {
+        int total = 0;
+        while (true) {
+            List<Long> ids = reservationRepository.findExpiredIds(ReservationStatus.ACTIVE, LocalDateTime.now(),
+                    PageRequest.of(0, sweepBatchSize));
+            if (ids.isEmpty()) {
+                return total;
+            }
+            Integer released = transactionTemplate.execute(status -> {
+                // Lines confirmed or released since the scan are no longer ACTIVE and drop out here
+                List<StockReservation> lines = reservationRepository.findByIdInAndStatusForUpdate(ids,
+                        ReservationStatus.ACTIVE);
+                if (!lines.isEmpty()) {
+                    releaseHolds(lines, ReservationStatus.EXPIRED);
+                }
+                return lines.size();
+            });
+            total += released;
+            if (ids.size() < sweepBatchSize) {
+                return total;
+            }
+        }
+    }
+
+    private List<StockReservation> lockLines(String reservationId) {
+        List<StockReservation> lines = reservationRepository.findByReservationIdForUpdate(reservationId);
+        if (lines.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reservation not found: " + reservationId);
+        }
+        return lines;
+    }
+
+    // Caller holds the row locks and has checked the lines are ACTIVE
+    private void releaseHolds(List<StockReservation> lines, ReservationStatus outcome) {
+        SortedMap<Long, Integer> perProduct = new TreeMap<>();
+        for (StockReservation line : lines) {
+            perProduct.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        List<Long> ids = ids(lines);
+        for (Map.Entry<Long, Integer> entry : perProduct.entrySet()) {
+            if (productRepository.releaseHold(entry.getKey(), entry.getValue()) == 0) {
+                logger.warn("Product {} holds less than {} reserved unit(s); hold not released",
+                        entry.getKey(), entry.getValue());
+            }
+        }
+        reservationRepository.updateStatus(ids, outcome);
+        // The bulk update bypasses the (by now detached) entities; keep them in step for the response
+        lines.forEach(line -> line.setStatus(outcome));
+        availableStockCache.invalidateAll(perProduct.keySet());
+        productCache.invalidateAll(perProduct.keySet());
+        facetIndex.changed(perProduct.keySet());
+        catalogVersion.productsChanged();
+    }
+
+    private static List<Long> ids(List<StockReservation> lines) {
+        return lines.stream().map(StockReservation::getId).collect(Collectors.toList());
+    }
+
+    private static ReservationResponse toResponse(String reservationId, List<StockReservation> lines) {
+        // A reservation's lines always move together, so the first line speaks for all of them
+        StockReservation first = lines.get(0);
+        return toResponse(reservationId, first.getStatus(), first.getExpiresAt(), lines);
+    }
+
+    private static ReservationResponse toResponse(String reservationId, ReservationStatus status,
+            LocalDateTime expiresAt, List<StockReservation> lines) {
+        ReservationResponse response = new ReservationResponse();
+        response.setReservationId(reservationId);
+        response.setStatus(status);
+        response.setExpiresAt(expiresAt);
+        response.setLines(lines.stream()
+                .map(line -> new ReservationLineResponse(line.getProductId(), line.getQuantity()))
+                .collect(Collectors.toList()));
+        return response;
+    }
+}
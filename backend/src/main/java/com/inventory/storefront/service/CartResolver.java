@@ -0,0 +1,78 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.storefront.dto.OrderItemRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves a whole cart against the catalog with a single multi-get, then
+ * validates every line in memory. Stock figures are a snapshot: the guarded
+ * decrement in {@link StockReservationEngine} remains the authority at checkout.
+ */
+@Service
+public class CartResolver {
+
+    private final ProductRepository productRepository;
+
+    public CartResolver(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ResolvedCart resolve(List<OrderItemRequest> items) {
+        return resolve(items, false);
+    }
+
+    /**
+     * @param stockHeld the cart's stock is already held by a reservation, so
+     *                  the shopper's own hold must not count against it
+     */
+    @Transactional(readOnly = true)
+    public ResolvedCart resolve(List<OrderItemRequest> items, boolean stockHeld) {
+        // Merge duplicate product lines, keeping the first price the client quoted
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, BigDecimal> expectedPrices = new HashMap<>();
+        for (OrderItemRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            if (item.getPrice() != null) {
+                expectedPrices.putIfAbsent(item.getProductId(), item.getPrice());
+            }
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ResolvedCart.Line> lines = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            BigDecimal expectedPrice = expectedPrices.get(entry.getKey());
+            lines.add(new ResolvedCart.Line(entry.getKey(), product, entry.getValue(), expectedPrice,
+                    check(product, entry.getValue(), expectedPrice, stockHeld)));
+        }
+        return new ResolvedCart(lines);
+    }
+
+    private ResolvedCart.Issue check(Product product, int quantity, BigDecimal expectedPrice, boolean stockHeld) {
+        if (product == null) {
+            return ResolvedCart.Issue.PRODUCT_NOT_FOUND;
+        }
+        if (!stockHeld && product.getAvailableQuantity() < quantity) {
+            return ResolvedCart.Issue.INSUFFICIENT_STOCK;
+        }
+        if (expectedPrice != null && expectedPrice.compareTo(product.getPrice()) != 0) {
+            return ResolvedCart.Issue.PRICE_CHANGED;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.exception.ProductNotFoundException;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opt-in group commit for checkout ({@code storefront.group-commit.enabled}).
+ * <p>
+ * Concurrent order requests wait in a bounded queue; a single writer thread
+ * drains them in micro-batches (up to {@code batch-size} orders or
+ * {@code max-wait-ms} after the first one arrives) and places the whole batch
+ * in one transaction, so MySQL pays one commit fsync per batch instead of one
+ * per order. Each caller gets its own result back through a future. The
+ * batch locks the product rows of all its orders in ascending id order before
+ * placing any, as a single checkout does for its own lines, so batches and
+ * single checkouts do not deadlock.
+ * <p>
+ * Rejected orders (unknown product, short stock, changed price) fail on their
+ * own without writing anything, so the rest of the batch still commits. Any
+ * other failure rolls the batch back, and its undecided orders are retried one
+ * by one through the regular {@link StorefrontService#createOrder} path.
+ * <p>
+ * A caller waits at most {@code timeout-ms} and then gets a 503; an order
+ * the writer had not started by then is skipped, one it had started may
+ * still be placed, which a retry with the same Idempotency-Key finds. On
+ * shutdown the writer drains the queue for up to the same time, and orders
+ * still queued after that fail with a 503.
+ */
+@Service
+public class GroupCommitOrderPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitOrderPipeline.class);
+
+    private final StorefrontService storefrontService;
+    private final ProductRepository productRepository;
+    private final StripedStockService stripedStockService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final long timeoutMs;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public GroupCommitOrderPipeline(StorefrontService storefrontService, ProductRepository productRepository,
+            StripedStockService stripedStockService, PlatformTransactionManager transactionManager,
+            @Value("${storefront.group-commit.enabled:false}") boolean enabled,
+            @Value("${storefront.group-commit.batch-size:32}") int batchSize,
+            @Value("${storefront.group-commit.max-wait-ms:5}") long maxWaitMs,
+            @Value("${storefront.group-commit.queue-capacity:1024}") int queueCapacity,
+            @Value("${storefront.group-commit.timeout-ms:10000}") long timeoutMs) {
+        this.storefrontService = storefrontService;
+        this.productRepository = productRepository;
+        this.stripedStockService = stripedStockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.timeoutMs = timeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "order-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Order group commit enabled (batch size {}, max wait {} ms)", batchSize,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // The writer keeps going until the queue is empty, so accepted orders are not dropped;
+        // callers give up after timeout-ms, so draining longer than that helps no one
+        running = false;
+        writer.join(timeoutMs);
+        List<PendingOrder> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            logger.warn("Order group commit stopped with {} order(s) still queued; failing them", left.size());
+            ResponseStatusException shuttingDown = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Checkout is shutting down, please retry");
+            left.forEach(pending -> pending.future.completeExceptionally(shuttingDown));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the order for the next batch and waits up to {@code timeout-ms}
+     * for its outcome.
+     *
+     * @throws ResponseStatusException 503 when the order was not decided in time
+     */
+    public OrderResponse createOrder(OrderRequest request) {
+        CompletableFuture<OrderResponse> outcome = submit(request);
+        try {
+            return outcome.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Makes the writer skip the order if it has not got to it yet
+            outcome.completeExceptionally(e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout is busy, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome.completeExceptionally(e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout was interrupted");
+        }
+    }
+
+    public CompletableFuture<OrderResponse> submit(OrderRequest request) {
+        if (!running) {
+            throw new IllegalStateException("Order group commit is not running");
+        }
+        PendingOrder pending = new PendingOrder(request);
+        if (!queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Checkout is busy, please retry");
+        }
+        return pending.future;
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected failure in order group commit", e);
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        Map<PendingOrder, OrderResponse> placed = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lockProducts(batch);
+                for (PendingOrder pending : batch) {
+                    if (pending.future.isDone()) {
+                        // The caller timed out before the writer got to it
+                        continue;
+                    }
+                    try {
+                        placed.put(pending, storefrontService.placeOrder(pending.request));
+                    } catch (ResponseStatusException | InsufficientStockException | ProductNotFoundException e) {
+                        // Rejected before anything of this order was written; report it now and keep going
+                        pending.future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} order(s) failed, retrying them individually: {}", batch.size(),
+                    e.getMessage());
+            batch.stream().filter(pending -> !pending.future.isDone()).forEach(this::placeIndividually);
+            return;
+        }
+        placed.forEach((pending, response) -> pending.future.complete(response));
+        logger.debug("Group committed {} of {} order(s)", placed.size(), batch.size());
+    }
+
+    // Striped products are left out: their stock is taken from the buckets, which are locked before the row
+    private void lockProducts(List<PendingOrder> batch) {
+        Set<Long> ids = new TreeSet<>();
+        for (PendingOrder pending : batch) {
+            if (pending.future.isDone() || pending.request.getItems() == null) {
+                continue;
+            }
+            for (OrderItemRequest item : pending.request.getItems()) {
+                if (item.getProductId() != null && !stripedStockService.isStriped(item.getProductId())) {
+                    ids.add(item.getProductId());
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            productRepository.lockInIdOrder(ids);
+        }
+    }
+
+    private void placeIndividually(PendingOrder pending) {
+        try {
+            pending.future.complete(storefrontService.createOrder(pending.request));
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingOrder {
+        private final OrderRequest request;
+        private final CompletableFuture<OrderResponse> future = new CompletableFuture<>();
+
+        private PendingOrder(OrderRequest request) {
+            this.request = request;
+        }
+    }
+}
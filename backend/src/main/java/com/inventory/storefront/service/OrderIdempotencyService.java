@@ -0,0 +1,168 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.OrderStatus;
+import com.inventory.service.SingleFlight;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes checkout retries safe: a request carrying an {@code Idempotency-Key}
+ * that was already used gets the original order back instead of placing a new
+ * one and taking stock again.
+ * <p>
+ * The key is stored in a unique column on {@code orders}, which is the source
+ * of truth across nodes. In front of it sit a bounded LRU of recent responses
+ * and a per-key in-flight future, so concurrent duplicates on the same node
+ * wait for the first request instead of racing it. Duplicates racing on
+ * different nodes are settled by the unique constraint: the loser's
+ * transaction rolls back and it answers with the winner's order.
+ * <p>
+ * A key is bound to the request it was first used with: the order keeps a
+ * fingerprint of its customer email and merged items, and reusing the key
+ * for a different request is refused with a 422 instead of answering with an
+ * order the client did not ask for.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final StorefrontService storefrontService;
+    private final Map<String, OrderResponse> recent;
+    private final SingleFlight<String, OrderResponse> inFlight = new SingleFlight<>();
+
+    public OrderIdempotencyService(StorefrontService storefrontService,
+            @Value("${storefront.idempotency.cache-size:10000}") int cacheSize) {
+        this.storefrontService = storefrontService;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code checkout} at most once per key (the request's
+     * {@code idempotencyKey}); without a key it simply runs.
+     *
+     * @throws ResponseStatusException 422 when the key was already used for a
+     *         different request
+     */
+    public OrderResponse execute(OrderRequest request, Supplier<OrderResponse> checkout) {
+        String key = request.getIdempotencyKey();
+        if (key == null) {
+            return checkout.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        String fingerprint = fingerprint(request);
+        request.setRequestFingerprint(fingerprint);
+
+        OrderResponse cached = cached(key);
+        if (cached != null) {
+            return matching(key, fingerprint, cached);
+        }
+
+        // Failed checkouts are not remembered; the client may retry with the same key
+        OrderResponse response = inFlight.load(key, () -> {
+            OrderResponse stored = storefrontService.findOrderByIdempotencyKey(key)
+                    .orElseGet(() -> runOnce(key, checkout));
+            remember(key, stored);
+            return stored;
+        });
+        // A concurrent duplicate shares the first request's response, whatever it asked for
+        return matching(key, fingerprint, response);
+    }
+
+    /**
+     * SHA-256 of the customer email and the items merged per product, so
+     * the same cart listed in another order or split differently into lines
+     * still counts as the same request.
+     */
+    static String fingerprint(OrderRequest request) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        if (request.getItems() != null) {
+            for (OrderItemRequest item : request.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity() == null ? 0 : item.getQuantity(),
+                        Integer::sum);
+            }
+        }
+        StringBuilder canonical = new StringBuilder(String.valueOf(request.getCustomerEmail()));
+        quantities.forEach((productId, quantity) -> canonical.append('|').append(productId).append(':')
+                .append(quantity));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Orders placed before keys were bound to requests have no fingerprint and match any request
+    private static OrderResponse matching(String key, String fingerprint, OrderResponse response) {
+        if (response.getRequestFingerprint() != null && !response.getRequestFingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key " + key + " was already used for a different order request");
+        }
+        return response;
+    }
+
+    private OrderResponse runOnce(String key, Supplier<OrderResponse> checkout) {
+        try {
+            return checkout.get();
+        } catch (DataIntegrityViolationException e) {
+            // Another node committed an order with this key first
+            Optional<OrderResponse> winner = storefrontService.findOrderByIdempotencyKey(key);
+            if (winner.isPresent()) {
+                logger.info("Idempotency key {} already used by order {}", key, winner.get().getId());
+                return winner.get();
+            }
+            throw e;
+        }
+    }
+
+    private OrderResponse cached(String key) {
+        OrderResponse response;
+        synchronized (recent) {
+            response = recent.get(key);
+        }
+        if (response != null && response.getStatus() == OrderStatus.PENDING) {
+            // Async checkout may have decided the order since it was cached
+            response = storefrontService.getOrder(response.getId());
+            remember(key, response);
+        }
+        return response;
+    }
+
+    private void remember(String key, OrderResponse response) {
+        synchronized (recent) {
+            recent.put(key, response);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Product;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A cart whose lines have been merged by product, matched against the current
+ * catalog and checked for stock and price. Lines are kept in ascending product
+ * id order, which is also the order {@link StockReservationEngine} takes stock in.
+ */
+public class ResolvedCart {
+
+    public enum Issue {
+        PRODUCT_NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        PRICE_CHANGED
+    }
+
+    public static class Line {
+        private final Long productId;
+        private final Product product;
+        private final int quantity;
+        private final BigDecimal expectedPrice;
+        private final Issue issue;
+
+        Line(Long productId, Product product, int quantity, BigDecimal expectedPrice, Issue issue) {
+            this.productId = productId;
+            this.product = product;
+            this.quantity = quantity;
+            this.expectedPrice = expectedPrice;
+            this.issue = issue;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getExpectedPrice() {
+            return expectedPrice;
+        }
+
+        public Issue getIssue() {
+            return issue;
+        }
+
+        public BigDecimal getLineTotal() {
+            if (product == null) {
+                return BigDecimal.ZERO;
+            }
+            return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        }
+    }
+
+    private final List<Line> lines;
+
+    ResolvedCart(List<Line> lines) {
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public boolean isValid() {
+        return lines.stream().allMatch(line -> line.getIssue() == null);
+    }
+
+    public BigDecimal getTotalAmount() {
+        return lines.stream()
+                .map(Line::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public SortedMap<Long, Integer> getQuantities() {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (Line line : lines) {
+            quantities.put(line.getProductId(), line.getQuantity());
+        }
+        return quantities;
+    }
+}
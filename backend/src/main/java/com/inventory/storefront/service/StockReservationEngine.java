@@ -0,0 +1,108 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.exception.ProductNotFoundException;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Takes stock for checkout with one guarded UPDATE per product
+ * ({@code quantity >= n}) instead of a read-check-write cycle.
+ * <p>
+ * Products are always decremented in ascending id order, so two multi-item
+ * orders touching the same rows acquire their row locks in the same order and
+ * cannot deadlock. The first short item aborts the reservation and the lines
+ * already taken are put back before the exception is thrown, so a caller that
+ * places several orders in one transaction (group commit) can carry on with
+ * the next order instead of rolling everything back.
+ * <p>
+ * Units held by cart reservations ({@link CartReservationService}) are not
+ * available to this path; a reserved cart consumes its own holds instead.
+ * Hot SKUs striped by {@link StripedStockService} are taken from their
+ * sub-buckets rather than the product row.
+ */
+@Service
+public class StockReservationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private final ProductRepository productRepository;
+    private final AvailableStockCache availableStockCache;
+    private final StripedStockService stripedStockService;
+    private final ProductCache productCache;
+    private final ProductFacetIndex facetIndex;
+    private final ProductStats productStats;
+    private final CatalogVersion catalogVersion;
+
+    public StockReservationEngine(ProductRepository productRepository, AvailableStockCache availableStockCache,
+            StripedStockService stripedStockService, ProductCache productCache, ProductFacetIndex facetIndex,
+            ProductStats productStats, CatalogVersion catalogVersion) {
+        this.productRepository = productRepository;
+        this.availableStockCache = availableStockCache;
+        this.stripedStockService = stripedStockService;
+        this.productCache = productCache;
+        this.facetIndex = facetIndex;
+        this.productStats = productStats;
+        this.catalogVersion = catalogVersion;
+    }
+
+    // Business failures must not mark a shared (group commit) transaction rollback-only
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = { InsufficientStockException.class, ProductNotFoundException.class })
+    public void reserve(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> taken = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int requested = entry.getValue();
+            if (!take(productId, requested)) {
+                release(taken);
+                throw shortage(productId, requested);
+            }
+            taken.add(entry);
+        }
+        availableStockCache.invalidateAll(quantities.keySet());
+        productCache.invalidateAll(quantities.keySet());
+        facetIndex.changed(quantities.keySet());
+        productStats.changed(quantities.keySet());
+        catalogVersion.productsChanged();
+        logger.debug("Reserved stock for {} product(s)", quantities.size());
+    }
+
+    private boolean take(Long productId, int requested) {
+        if (stripedStockService.isStriped(productId)) {
+            return stripedStockService.take(productId, requested);
+        }
+        return productRepository.decrementStock(productId, requested) == 1;
+    }
+
+    private void release(List<Map.Entry<Long, Integer>> taken) {
+        for (Map.Entry<Long, Integer> entry : taken) {
+            productRepository.incrementStock(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Only reached on the failure path, so the extra read does not cost the happy path anything.
+    InsufficientStockException shortage(Long productId, int requested) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
+        logger.info("Insufficient stock for product {}: requested {}, available {}",
+                productId, requested, product.getAvailableQuantity());
+        return new InsufficientStockException(productId, product.getName(), requested,
+                product.getAvailableQuantity());
+    }
+}
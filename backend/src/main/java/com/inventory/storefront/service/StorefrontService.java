@@ -1,12 +1,20 @@
 package com.inventory.storefront.service;
 
+import com.inventory.dto.FacetedProductPage;
+import com.inventory.dto.ProductSummary;
+import com.inventory.dto.ProductView;
+import com.inventory.exception.InsufficientStockException;
 import com.inventory.model.Order;
 import com.inventory.model.OrderItem;
+import com.inventory.model.OrderStatus;
 import com.inventory.model.Product;
 import com.inventory.repository.jpa.OrderRepository;
 import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
 import com.inventory.storefront.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -14,7 +22,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,71 +35,185 @@ public class StorefrontService {
 
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
+    private final StockReservationEngine stockReservationEngine;
+    private final CartResolver cartResolver;
+    private final CartReservationService cartReservationService;
+    private final ProductCache productCache;
+    private final ProductFacetIndex facetIndex;
+    private final int maxPageSize;
 
     @Autowired
-    public StorefrontService(ProductRepository productRepository, OrderRepository orderRepository) {
+    public StorefrontService(ProductRepository productRepository, OrderRepository orderRepository,
+            StockReservationEngine stockReservationEngine, CartResolver cartResolver,
+            CartReservationService cartReservationService, ProductCache productCache, ProductFacetIndex facetIndex,
+            @Value("${inventory.paging.max-limit:200}") int maxPageSize) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
+        this.stockReservationEngine = stockReservationEngine;
+        this.cartResolver = cartResolver;
+        this.cartReservationService = cartReservationService;
+        this.productCache = productCache;
+        this.facetIndex = facetIndex;
+        this.maxPageSize = maxPageSize;
     }
 
+    @Transactional(readOnly = true)
     public Page<Product> getProducts(Pageable pageable) {
         return productRepository.findAll(pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Page<ProductSummary> getProductSummaries(Pageable pageable) {
+        return productRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Products matching every facet filter, in id order, with the counts for
+     * each facet value. Answered from the in-memory facet index; 503 until it
+     * has been built.
+     */
+    @Transactional(readOnly = true)
+    public FacetedProductPage<?> filterProducts(ProductFacetIndex.FacetFilter filter, int page, int size,
+            ProductView view) {
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be 0 or more and size 1-" + maxPageSize);
+        }
+        int offset = page * size;
+        ProductFacetIndex.FacetHits hits = facetIndex.filter(filter, offset, size)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Product filters are still loading"));
+        List<?> content = view == ProductView.SUMMARY
+                ? inIdOrder(hits.ids(), productRepository::findSummariesByIdIn, ProductSummary::getId)
+                : inIdOrder(hits.ids(), productRepository::findAllById, Product::getId);
+        return new FacetedProductPage<>(content, offset + size < hits.total(), (long) hits.total(), hits.facets());
+    }
+
+    // One query for the page, in the index's order; a row deleted since the last refresh is skipped
+    private static <T> List<T> inIdOrder(List<Long> ids, Function<Collection<Long>, List<T>> load,
+            Function<T, Long> id) {
+        Map<Long, T> rows = load.apply(ids).stream().collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream().map(rows::get).filter(Objects::nonNull).toList();
+    }
+
     public Product getProduct(Long id) {
-        return productRepository.findById(id)
+        return productCache.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
     }
 
+    public CartValidationResponse validateCart(CartRequest request) {
+        ResolvedCart cart = cartResolver.resolve(request.getItems());
+        CartValidationResponse response = new CartValidationResponse();
+        response.setValid(cart.isValid());
+        response.setTotalAmount(cart.getTotalAmount());
+        response.setLines(cart.getLines().stream().map(this::mapLineToResponse).collect(Collectors.toList()));
+        return response;
+    }
+
     @Transactional
     public OrderResponse createOrder(OrderRequest request) {
+        return placeOrder(request);
+    }
+
+    /**
+     * Places one order in the caller's transaction. Deliberately not
+     * {@code @Transactional}: a rejected order must not mark a transaction
+     * shared with other orders (group commit) rollback-only.
+     */
+    public OrderResponse placeOrder(OrderRequest request) {
         Order order = new Order();
         order.setCustomerEmail(request.getCustomerEmail());
         order.setPaymentMethod(request.getPaymentMethod());
         order.setShippingAddress(request.getShippingAddress());
-        order.setTotalAmount(BigDecimal.ZERO);
+        order.setIdempotencyKey(request.getIdempotencyKey());
+        order.setRequestFingerprint(request.getRequestFingerprint());
+        fulfil(order, request);
 
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                            "Product not found: " + itemRequest.getProductId()));
-
-            if (product.getQuantity() < itemRequest.getQuantity()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "Insufficient stock for product: " + product.getName());
-            }
-
-            product.setQuantity(product.getQuantity() - itemRequest.getQuantity());
-            if (product.getQuantity() == 0) {
-                product.setStatus("OUT_OF_STOCK");
-            }
-            productRepository.save(product);
+        Order savedOrder = orderRepository.save(order);
+        return mapToResponse(savedOrder);
+    }
 
-            OrderItem orderItem = new OrderItem(product, itemRequest.getQuantity(), product.getPrice());
-            order.addItem(orderItem);
+    /**
+     * Resolves the cart, takes stock and prices the lines onto {@code order},
+     * then marks it CONFIRMED. Stock comes from the request's reservation when
+     * it names one, otherwise straight off the shelf. Runs in the caller's
+     * transaction; a rejected cart throws before anything is written.
+     */
+    public void fulfil(Order order, OrderRequest request) {
+        String reservationId = request.getReservationId();
+        // One multi-get for the whole cart; reject obviously bad carts before any write.
+        ResolvedCart cart = cartResolver.resolve(request.getItems(), reservationId != null);
+        cart.getLines().forEach(this::rejectInvalidLine);
+
+        if (reservationId != null) {
+            cartReservationService.confirm(reservationId, cart.getQuantities());
+        } else {
+            // Take stock with guarded updates; a line that went short since resolution aborts the order.
+            stockReservationEngine.reserve(cart.getQuantities());
+        }
 
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            order.setTotalAmount(order.getTotalAmount().add(itemTotal));
+        for (ResolvedCart.Line line : cart.getLines()) {
+            Product product = line.getProduct();
+            order.addItem(new OrderItem(product, line.getQuantity(), product.getPrice()));
         }
+        order.setTotalAmount(cart.getTotalAmount());
+        order.setStatus(OrderStatus.CONFIRMED);
+    }
 
-        Order savedOrder = orderRepository.save(order);
-        return mapToResponse(savedOrder);
+    private void rejectInvalidLine(ResolvedCart.Line line) {
+        if (line.getIssue() == null) {
+            return;
+        }
+        switch (line.getIssue()) {
+            case PRODUCT_NOT_FOUND:
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + line.getProductId());
+            case INSUFFICIENT_STOCK:
+                throw new InsufficientStockException(line.getProductId(), line.getProduct().getName(),
+                        line.getQuantity(), line.getProduct().getAvailableQuantity());
+            case PRICE_CHANGED:
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Price changed for product: " + line.getProduct().getName());
+            default:
+                throw new IllegalStateException("Unhandled cart issue: " + line.getIssue());
+        }
     }
 
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
         return mapToResponse(order);
     }
 
-    private OrderResponse mapToResponse(Order order) {
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> findOrderByIdempotencyKey(String idempotencyKey) {
+        return orderRepository.findByIdempotencyKey(idempotencyKey).map(this::mapToResponse);
+    }
+
+    public OrderResponse mapToResponse(Order order) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setOrderDate(order.getOrderDate());
         response.setStatus(order.getStatus());
+        response.setStatusReason(order.getStatusReason());
         response.setTotalAmount(order.getTotalAmount());
         response.setCustomerEmail(order.getCustomerEmail());
         response.setItems(order.getItems().stream().map(this::mapItemToResponse).collect(Collectors.toList()));
+        response.setRequestFingerprint(order.getRequestFingerprint());
+        return response;
+    }
+
+    private CartLineResponse mapLineToResponse(ResolvedCart.Line line) {
+        CartLineResponse response = new CartLineResponse();
+        response.setProductId(line.getProductId());
+        response.setQuantity(line.getQuantity());
+        response.setIssue(line.getIssue() != null ? line.getIssue().name() : null);
+        if (line.getProduct() != null) {
+            response.setProductName(line.getProduct().getName());
+            response.setUnitPrice(line.getProduct().getPrice());
+            response.setLineTotal(line.getLineTotal());
+            response.setAvailableQuantity(line.getProduct().getAvailableQuantity());
+        }
         return response;
     }
 
@@ -3,7 +3,11 @@
 const API_BASE_URL = '';
 const API_URL = `${API_BASE_URL}/api/v1/products`;
 const PLACEHOLDER_IMG = 'https://placehold.co/400x300/1e293b/ffffff?text=No+Image';
+// Products page size; pages are fetched one after another with the keyset cursor
+const PAGE_SIZE = 50;
 let products = [];
+let nextCursor = null;
+let catalogStats = null;
 let isEditMode = false;
 let currentProductId = null;
 
@@ -18,17 +22,15 @@ const formatCurrency = (amount) => {
 // Fetch Stats
 async function fetchStats() {
     try {
-        const res = await fetch(API_URL);
+        // Aggregated server-side; the browser revalidates with the ETag, so an unchanged catalog is a 304
+        const res = await fetch(`${API_URL}/stats`);
         const data = await res.json();
-        const items = data.data;
+        const stats = data.data;
+        catalogStats = stats;
 
-        document.getElementById('totalProducts').innerText = items.length;
-
-        const totalVal = items.reduce((acc, item) => acc + (item.price * item.quantity), 0);
-        document.getElementById('totalValue').innerText = formatCurrency(totalVal);
-
-        const lowStock = items.filter(item => item.quantity < 5).length;
-        document.getElementById('lowStock').innerText = lowStock;
+        document.getElementById('totalProducts').innerText = stats.totalProducts;
+        document.getElementById('totalValue').innerText = formatCurrency(stats.inventoryValue);
+        document.getElementById('lowStock').innerText = stats.lowStock;
     } catch (e) {
         console.error('Error fetching stats:', e);
     }
@@ -37,14 +39,14 @@ async function fetchStats() {
 // Render Inventory List
 async function renderInventory() {
     try {
-        const res = await fetch(API_URL);
+        const res = await fetch(`${API_URL}?limit=5&includeTotal=false`);
         const data = await res.json();
-        products = data.data;
+        const recent = data.data;
 
         const tbody = document.getElementById('productTableBody');
         tbody.innerHTML = '';
 
-        products.slice(0, 5).forEach(product => {
+        recent.forEach(product => {
             const tr = document.createElement('tr');
             tr.innerHTML = `
                 <td style="display:flex; align-items:center; gap:0.5rem;">
@@ -67,19 +69,23 @@ async function renderInventory() {
         });
 
         // Also render Grid View
-        renderGridView(products.slice(0, 5), 'dashboard-grid-view');
+        renderGridView(recent, 'dashboard-grid-view');
     } catch (e) {
         console.error('Error rendering inventory:', e);
     }
 }
 
-// Fetch All Products for Products Page
-async function fetchProducts() {
+// Fetch Products for Products Page, a page at a time; more=true appends the next page
+async function fetchProducts(more = false) {
     try {
-        const res = await fetch(API_URL);
+        let url = `${API_URL}?limit=${PAGE_SIZE}&includeTotal=false`;
+        if (more && nextCursor) url += `&cursor=${encodeURIComponent(nextCursor)}`;
+        const res = await fetch(url);
         const data = await res.json();
-        products = data.data;
+        products = more ? products.concat(data.data) : data.data;
+        nextCursor = data.hasNext ? data.nextCursor : null;
         renderProductsTable(products);
+        document.getElementById('loadMoreProducts').style.display = nextCursor ? 'inline-flex' : 'none';
     } catch (e) {
         console.error(e);
     }
@@ -145,10 +151,17 @@ function closeModal() {
     document.getElementById('productModal').classList.remove('active');
 }
 
-// Edit Product
-function editProduct(id) {
-    const product = products.find(p => p.id === id);
-    if (!product) return;
+// Edit Product; loaded by id, as the dashboard and the products page only hold the rows they show
+async function editProduct(id) {
+    let product;
+    try {
+        const res = await fetch(`${API_URL}/${id}`);
+        if (!res.ok) return;
+        product = (await res.json()).data;
+    } catch (e) {
+        console.error('Error loading product:', e);
+        return;
+    }
 
     document.getElementById('productId').value = product.id;
     document.getElementById('productName').value = product.name;
@@ -288,6 +301,7 @@ let viewsChart = null;
 let ratingsChart = null;
 
 async function initCharts() {
+    if (!catalogStats) await fetchStats();
     // 1. Fetch Real MongoDB Data
     try {
         const [trendingRes, ratedRes] = await Promise.all([
@@ -311,10 +325,10 @@ async function initCharts() {
 function renderCategoryChart() {
     if (categoryChart) categoryChart.destroy();
 
+    // Per-category counts from the dashboard aggregates rather than the whole catalog
     const categoryCounts = {};
-    products.forEach(p => {
-        const cat = p.category || 'Uncategorized';
-        categoryCounts[cat] = (categoryCounts[cat] || 0) + 1;
+    Object.entries(catalogStats ? catalogStats.byCategory : {}).forEach(([cat, totals]) => {
+        categoryCounts[cat || 'Uncategorized'] = totals.products;
     });
 
     const ctx = document.getElementById('categoryChart').getContext('2d');
@@ -348,7 +362,7 @@ function renderTrendChart() {
             labels: ['Mon', 'Tue', 'Wed', 'Thu', 'Fri', 'Sat', 'Sun'],
             datasets: [{
                 label: 'Stock Level',
-                data: [65, 59, 80, 81, 56, 55, products.length],
+                data: [65, 59, 80, 81, 56, 55, catalogStats ? catalogStats.totalProducts : 0],
                 borderColor: '#14b8a6',
                 tension: 0.4,
                 fill: true,
@@ -17,6 +17,7 @@ document.addEventListener('DOMContentLoaded', async () => {
 
     // Attach listeners
     document.getElementById('storeSearch').addEventListener('input', applyFilters);
+    document.getElementById('storeSearch').addEventListener('input', loadSuggestions);
     document.getElementById('minPrice').addEventListener('input', applyFilters);
     document.getElementById('maxPrice').addEventListener('input', applyFilters);
     document.getElementById('stockFilter').addEventListener('change', applyFilters);
@@ -24,7 +25,7 @@ document.addEventListener('DOMContentLoaded', async () => {
 
 async function loadProducts() {
     try {
-        const response = await fetch('/api/v1/storefront/products?page=0&size=100');
+        const response = await fetch('/api/v1/storefront/products?limit=100&includeTotal=false');
         const data = await response.json();
         allProducts = data.content;
 
@@ -84,6 +85,29 @@ function toggleCategory(cat) {
     applyFilters();
 }
 
+async function loadSuggestions() {
+    const term = document.getElementById('storeSearch').value.trim();
+    const list = document.getElementById('storeSuggestions');
+    if (!term) {
+        list.innerHTML = '';
+        return;
+    }
+    try {
+        const res = await fetch(`/api/v1/storefront/suggest?q=${encodeURIComponent(term)}`);
+        const suggestions = await res.json();
+        // A slower answer for an older prefix must not replace the current one
+        if (document.getElementById('storeSearch').value.trim() !== term) return;
+        list.innerHTML = '';
+        suggestions.forEach(s => {
+            const option = document.createElement('option');
+            option.value = s.name;
+            list.appendChild(option);
+        });
+    } catch (error) {
+        console.error('Error loading suggestions:', error);
+    }
+}
+
 function applyFilters() {
     const term = document.getElementById('storeSearch').value.toLowerCase().trim();
     const minPrice = parseFloat(document.getElementById('minPrice').value) || 0;
@@ -431,8 +455,30 @@ async function finalizeOrder() {
             body: JSON.stringify(body)
         });
 
-        if (res.ok) {
-            alert('Order placed successfully! Order ID: ' + (await res.json()).id);
+        let order = res.ok ? await res.json() : null;
+        let undecided = false;
+        // Async checkout answers 202 with a PENDING order; long-poll until it is decided
+        while (order && order.status === 'PENDING' && res.status === 202) {
+            const poll = await fetch(`/api/v1/orders/${order.id}?waitMs=10000`);
+            if (!poll.ok) {
+                // The order was accepted; a failed poll says nothing about how it ends
+                undecided = true;
+                break;
+            }
+            order = await poll.json();
+        }
+
+        if (undecided) {
+            alert('Your order is still being processed. Order ID: ' + order.id
+                + '. Please check its status again later.');
+            cart = [];
+            updateCartUI();
+            setStep(0);
+            toggleCart(false);
+        } else if (order && (order.status === 'CANCELLED' || order.status === 'FAILED')) {
+            alert('Order failed: ' + (order.statusReason || 'Unknown error'));
+        } else if (res.ok) {
+            alert('Order placed successfully! Order ID: ' + order.id);
             cart = [];
             updateCartUI();
             setStep(0);
@@ -0,0 +1,30 @@
+package com.inventory;
+
+import com.inventory.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Product fixtures shared by the repository-backed tests.
+ */
+public final class TestProducts {
+
+    private TestProducts() {
+    }
+
+    /**
+     * An unsaved product with the given SKU and stock; its status follows the
+     * quantity, as an import or stock update would set it.
+     */
+    public static Product product(String sku, int quantity) {
+        Product product = new Product();
+        product.setName("Product " + sku);
+        product.setDescription("Test Description");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(quantity);
+        product.setSku(sku);
+        product.setCategory("Electronics");
+        product.setStatus(quantity > 0 ? "IN_STOCK" : "OUT_OF_STOCK");
+        return product;
+    }
+}
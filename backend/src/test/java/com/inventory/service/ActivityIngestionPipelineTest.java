@@ -0,0 +1,244 @@
+package com.inventory.service;
+
+import com.inventory.entity.UserActivityLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Activity Ingestion Pipeline Tests")
+class ActivityIngestionPipelineTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ActivityJournal journal = mock(ActivityJournal.class);
+    private final ProductTrends trends = mock(ProductTrends.class);
+    private final UniqueViewers viewers = mock(UniqueViewers.class);
+    // Sizes of the batches handed to insertMany, in order
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private ActivityIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write full batches by size and a partial one after max-wait")
+    void testBatching() throws Exception {
+        recordBatches(null);
+        pipeline = start(1024, 100, 20, "block");
+        for (int i = 0; i < 250; i++) {
+            pipeline.submit(event(i));
+        }
+        awaitWritten(250);
+
+        assertEquals(250, batches.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batches.size() >= 3, "the last 50 only go out once max-wait has passed");
+        assertTrue(batches.stream().allMatch(size -> size <= 100));
+        Map<String, Object> stats = pipeline.getStats();
+        assertEquals(250L, stats.get("accepted"));
+        assertEquals(0, stats.get("queueDepth"));
+        assertEquals(0L, stats.get("dropped"));
+    }
+
+    @Test
+    @DisplayName("Should journal batches Mongo refuses, and every batch behind them until the journal is replayed")
+    void testJournalFallback() throws Exception {
+        when(mongoTemplate.insert(anyCollection(), eq(UserActivityLog.class)))
+                .thenThrow(new IllegalStateException("Mongo is down"));
+        when(journal.append(anyList())).thenReturn(true);
+        pipeline = start(16, 2, 0, "block");
+        pipeline.submitAll(events(2));
+        awaitJournaled(2);
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq(UserActivityLog.class));
+
+        when(journal.hasBacklog()).thenReturn(true);
+        pipeline.submitAll(events(2));
+        awaitJournaled(4);
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq(UserActivityLog.class));
+
+        // Nowhere to put them: counted and dropped
+        when(journal.append(anyList())).thenReturn(false);
+        pipeline.submitAll(events(2));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) pipeline.getStats().get("failed") < 2) {
+            assertTrue(System.nanoTime() < deadline, "events not dropped in time");
+            Thread.sleep(5);
+        }
+        assertEquals(0L, pipeline.getStats().get("written"));
+    }
+
+    @Test
+    @DisplayName("Should refuse events with 429 when full under reject, and whole batches up front")
+    void testReject() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        recordBatches(release);
+        pipeline = start(4, 1, 0, "reject");
+        // The writer takes the first event and stays inside insertMany; the next four fill the ring
+        pipeline.submit(event(0));
+        awaitQueueDepth(0);
+        for (int i = 1; i <= 4; i++) {
+            pipeline.submit(event(i));
+        }
+        ResponseStatusException full = assertThrows(ResponseStatusException.class, () -> pipeline.submit(event(5)));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, full.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> pipeline.submitAll(List.of(event(6), event(7))));
+        ResponseStatusException tooLarge = assertThrows(ResponseStatusException.class,
+                () -> pipeline.submitAll(events(5)));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge.getStatusCode());
+        assertEquals(3L, pipeline.getStats().get("rejected"));
+
+        release.countDown();
+        awaitWritten(5);
+    }
+
+    @Test
+    @DisplayName("Should make room by dropping the oldest events under drop-oldest")
+    void testDropOldest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> written = recordBatches(release);
+        pipeline = start(4, 1, 0, "drop-oldest");
+        pipeline.submit(event(0));
+        awaitQueueDepth(0);
+        for (int i = 1; i <= 6; i++) {
+            pipeline.submit(event(i));
+        }
+        assertEquals(2L, pipeline.getStats().get("dropped"));
+
+        release.countDown();
+        awaitWritten(5);
+        assertEquals(List.of("user-0", "user-3", "user-4", "user-5", "user-6"), written);
+    }
+
+    @Test
+    @DisplayName("Should answer 503 once block has waited max-block-ms, and write inline when disabled")
+    void testBlockAndDisabled() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        recordBatches(release);
+        pipeline = start(2, 1, 0, "block");
+        pipeline.submit(event(0));
+        awaitQueueDepth(0);
+        pipeline.submit(event(1));
+        pipeline.submit(event(2));
+        ResponseStatusException busy = assertThrows(ResponseStatusException.class, () -> pipeline.submit(event(3)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatusCode());
+        assertTrue((Long) pipeline.getStats().get("blockedMs") >= 20);
+        release.countDown();
+        awaitWritten(3);
+
+        ActivityIngestionPipeline inline = new ActivityIngestionPipeline(mongoTemplate, journal, trends, viewers,
+                false, 4, 1, 0, "block", 20);
+        inline.start();
+        inline.submit(event(4));
+        verify(mongoTemplate).insert(any(UserActivityLog.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ActivityIngestionPipeline(mongoTemplate, journal, trends, viewers, true, 4, 1, 0, "wait",
+                        20));
+    }
+
+    @Test
+    @DisplayName("Should queue a batch whole or not at all")
+    void testBatchIsAllOrNothing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> written = recordBatches(release);
+        pipeline = start(4, 1, 0, "block");
+        pipeline.submit(event(0));
+        awaitQueueDepth(0);
+        for (int i = 1; i <= 3; i++) {
+            pipeline.submit(event(i));
+        }
+        // One slot is free, but the batch needs two
+        ResponseStatusException busy = assertThrows(ResponseStatusException.class,
+                () -> pipeline.submitAll(List.of(event(4), event(5))));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatusCode());
+        assertEquals(4L, pipeline.getStats().get("accepted"));
+        assertEquals(2L, pipeline.getStats().get("rejected"));
+
+        release.countDown();
+        awaitWritten(4);
+        pipeline.submitAll(List.of(event(4), event(5)));
+        awaitWritten(6);
+        assertEquals(List.of("user-0", "user-1", "user-2", "user-3", "user-4", "user-5"), written);
+    }
+
+    private ActivityIngestionPipeline start(int capacity, int batchSize, long maxWaitMs, String overflow) {
+        ActivityIngestionPipeline started = new ActivityIngestionPipeline(mongoTemplate, journal, trends, viewers, true,
+                capacity, batchSize, maxWaitMs, overflow, 20);
+        started.start();
+        return started;
+    }
+
+    // Records each insertMany; with a latch the first insert waits on it, holding the writer up
+    private List<Object> recordBatches(CountDownLatch release) {
+        List<Object> users = new CopyOnWriteArrayList<>();
+        when(mongoTemplate.insert(anyCollection(), eq(UserActivityLog.class))).thenAnswer(invocation -> {
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            Collection<UserActivityLog> batch = invocation.getArgument(0);
+            batch.forEach(event -> users.add(event.getUserId()));
+            batches.add(batch.size());
+            return List.copyOf(batch);
+        });
+        return users;
+    }
+
+    private void awaitWritten(long events) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) pipeline.getStats().get("written") < events) {
+            assertTrue(System.nanoTime() < deadline, "events not written in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitJournaled(long events) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) pipeline.getStats().get("journaled") < events) {
+            assertTrue(System.nanoTime() < deadline, "events not journaled in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Integer) pipeline.getStats().get("queueDepth") != depth) {
+            assertTrue(System.nanoTime() < deadline, "queue not drained in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<UserActivityLog> events(int count) {
+        List<UserActivityLog> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(event(i));
+        }
+        return events;
+    }
+
+    private static UserActivityLog event(int i) {
+        UserActivityLog event = new UserActivityLog();
+        event.setUserId("user-" + i);
+        event.setAction("PRODUCT_VIEW");
+        event.setProductId((long) i);
+        return event;
+    }
+}
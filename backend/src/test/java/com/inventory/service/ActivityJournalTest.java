@@ -0,0 +1,170 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.entity.UserActivityLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Activity Journal Tests")
+class ActivityJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private MongoTemplate mongoTemplate;
+    // Users of the events replayed into Mongo, in order
+    private final List<String> replayed = new ArrayList<>();
+    private UserActivityLog lastReplayed;
+    private boolean mongoDown;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(anyCollection(), eq(UserActivityLog.class))).thenAnswer(invocation -> {
+            if (mongoDown) {
+                throw new IllegalStateException("Mongo is down");
+            }
+            Collection<UserActivityLog> batch = invocation.getArgument(0);
+            batch.forEach(event -> {
+                replayed.add(event.getUserId());
+                lastReplayed = event;
+            });
+            return List.copyOf(batch);
+        });
+    }
+
+    @Test
+    @DisplayName("Should replay segments in order once Mongo answers, deleting them as they are done")
+    void testAppendAndReplay() throws IOException {
+        ActivityJournal journal = open(400, 1_000_000);
+        for (int i = 0; i < 10; i += 2) {
+            assertTrue(journal.append(List.of(event(i), event(i + 1))));
+        }
+        assertTrue(journal.hasBacklog());
+        assertTrue(segments().size() > 1, "segments rotate at segment-bytes");
+        assertEquals(10L, journal.getStats().get("backlogEvents"));
+
+        mongoDown = true;
+        journal.replay();
+        assertEquals(10L, journal.getStats().get("backlogEvents"));
+        assertEquals("Mongo is down", journal.getStats().get("lastReplayError"));
+
+        mongoDown = false;
+        journal.replay();
+        assertEquals(users(0, 10), replayed);
+        assertFalse(journal.hasBacklog());
+        assertEquals(0L, journal.getStats().get("backlogBytes"));
+        assertEquals(List.of(), segments());
+        assertNull(journal.getStats().get("lastReplayError"));
+
+        // Appending goes on in a fresh segment
+        assertTrue(journal.append(List.of(event(10))));
+        journal.replay();
+        assertEquals(users(0, 11), replayed);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), lastReplayed.getTimestamp());
+        assertEquals(Map.of("source", "storefront"), lastReplayed.getMetadata());
+    }
+
+    @Test
+    @DisplayName("Should cut a torn record off on reopen and skip the rest of a segment after a bad CRC")
+    void testRecovery() throws IOException {
+        ActivityJournal journal = open(1_000_000, 1_000_000);
+        journal.append(List.of(event(0), event(1)));
+        journal.append(List.of(event(2)));
+        journal.close();
+        Path segment = segments().get(0);
+        long intact = Files.size(segment);
+        // A crash in the middle of the next append
+        Files.write(segment, new byte[] { 0, 0, 1, 0, 42, 42 }, StandardOpenOption.APPEND);
+
+        ActivityJournal reopened = open(1_000_000, 1_000_000);
+        assertEquals(intact, Files.size(segment));
+        assertEquals(3L, reopened.getStats().get("backlogEvents"));
+
+        // Flip a byte inside the second record's payload
+        byte[] bytes = Files.readAllBytes(segment);
+        int secondRecord = 8 + (((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8)
+                | (bytes[3] & 0xff));
+        bytes[secondRecord + 12] ^= 1;
+        Files.write(segment, bytes);
+        reopened.replay();
+        assertEquals(List.of("user-0"), replayed);
+        assertEquals(1L, reopened.getStats().get("corruptRecords"));
+        assertFalse(reopened.hasBacklog());
+    }
+
+    @Test
+    @DisplayName("Should refuse batches beyond max-bytes and take nothing when disabled")
+    void testSizeCap() throws IOException {
+        ActivityJournal journal = open(1_000_000, 500);
+        int accepted = 0;
+        while (journal.append(List.of(event(accepted)))) {
+            accepted++;
+        }
+        Map<String, Object> stats = journal.getStats();
+        assertTrue(accepted > 0);
+        assertTrue((Long) stats.get("backlogBytes") <= 500);
+        assertEquals(1L, stats.get("refused"));
+
+        journal.replay();
+        assertEquals(accepted, replayed.size());
+        assertTrue(journal.append(List.of(event(0))));
+
+        ActivityJournal disabled = new ActivityJournal(mongoTemplate, objectMapper, false,
+                directory.resolve("off").toString(), 1_000_000, 1_000_000, 100);
+        disabled.open();
+        assertFalse(disabled.append(List.of(event(0))));
+        assertFalse(Files.exists(directory.resolve("off")));
+    }
+
+    private ActivityJournal open(long segmentBytes, long maxBytes) throws IOException {
+        ActivityJournal journal = new ActivityJournal(mongoTemplate, objectMapper, true, directory.toString(),
+                segmentBytes, maxBytes, 3);
+        journal.open();
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<String> users(int from, int to) {
+        List<String> users = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            users.add("user-" + i);
+        }
+        return users;
+    }
+
+    private static UserActivityLog event(int i) {
+        UserActivityLog event = new UserActivityLog();
+        event.setUserId("user-" + i);
+        event.setAction("PRODUCT_VIEW");
+        event.setProductId((long) i);
+        event.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        event.setMetadata(Map.of("source", "storefront"));
+        return event;
+    }
+}
@@ -0,0 +1,146 @@
+package com.inventory.service;
+
+import com.inventory.dto.InventoryDelta;
+import com.inventory.dto.InventoryDeltaResult;
+import com.inventory.dto.InventoryDeltaResult.Outcome;
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(showSql = false, properties = "inventory.batch.chunk-size=3")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ BulkInventoryService.class, StripedStockService.class, ProductCache.class, ProductFacetIndex.class,
+        ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Bulk Inventory Service Tests")
+class BulkInventoryServiceTest {
+
+    @Autowired
+    private BulkInventoryService bulkInventoryService;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    private BulkOperations bulkOperations;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(InventoryAnalytics.class)))
+                .thenReturn(bulkOperations);
+    }
+
+    @Test
+    @DisplayName("Should apply each line on its own and report a result per line")
+    void testPerLineResults() {
+        Product first = productRepository.save(product("BATCH-001", 5));
+        Product second = productRepository.save(product("BATCH-002", 0));
+        Product third = productRepository.save(product("BATCH-003", 4));
+
+        List<InventoryDeltaResult> results = bulkInventoryService.applyDeltas(List.of(
+                new InventoryDelta(first.getId(), null, -5),
+                new InventoryDelta(null, "BATCH-002", 7),
+                new InventoryDelta(null, "NO-SUCH-SKU", 1),
+                new InventoryDelta(third.getId(), null, -10),
+                new InventoryDelta(third.getId(), null, null),
+                new InventoryDelta(third.getId(), "BATCH-001", 1),
+                new InventoryDelta(null, "BATCH-002", 3)).iterator());
+
+        assertEquals(List.of(Outcome.UPDATED, Outcome.UPDATED, Outcome.NOT_FOUND, Outcome.INSUFFICIENT_STOCK,
+                Outcome.INVALID, Outcome.INVALID, Outcome.UPDATED),
+                results.stream().map(InventoryDeltaResult::getOutcome).toList());
+        assertEquals(second.getId(), results.get(1).getId());
+        assertEquals(0, results.get(0).getQuantity());
+        assertEquals(4, results.get(3).getQuantity());
+        assertEquals(10, results.get(6).getQuantity());
+
+        Product firstAfter = productRepository.findById(first.getId()).orElseThrow();
+        assertEquals(0, firstAfter.getQuantity());
+        assertEquals("OUT_OF_STOCK", firstAfter.getStatus());
+        assertEquals(first.getVersion() + 1, firstAfter.getVersion());
+        Product secondAfter = productRepository.findById(second.getId()).orElseThrow();
+        assertEquals(10, secondAfter.getQuantity());
+        assertEquals("IN_STOCK", secondAfter.getStatus());
+        assertEquals(4, productRepository.findById(third.getId()).orElseThrow().getQuantity());
+
+        // Three chunks; the middle one applied nothing, the others get one bulk write apiece
+        verify(bulkOperations, times(2)).execute();
+        verify(bulkOperations, times(3)).upsert(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    @DisplayName("Should apply deltas to the whole stock of a striped product, in product id order")
+    void testStripedProduct() {
+        Product before = productRepository.save(product("BATCH-006", 3));
+        Product product = productRepository.save(product("BATCH-004", 40));
+        Product after = productRepository.save(product("BATCH-007", 3));
+        stripedStockService.stripe(product.getId(), 4);
+
+        List<InventoryDeltaResult> results = bulkInventoryService.applyDeltas(List.of(
+                new InventoryDelta(product.getId(), null, -35),
+                new InventoryDelta(after.getId(), null, 1),
+                new InventoryDelta(before.getId(), null, -1)).iterator());
+
+        assertEquals(List.of(Outcome.UPDATED, Outcome.UPDATED, Outcome.UPDATED),
+                results.stream().map(InventoryDeltaResult::getOutcome).toList());
+        assertEquals(5, results.get(0).getQuantity());
+        assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+        assertEquals(4, productRepository.findById(after.getId()).orElseThrow().getQuantity());
+        assertEquals(2, productRepository.findById(before.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should report a malformed streamed line as invalid and apply the lines after it")
+    void testMalformedLineDoesNotStopTheBatch() {
+        Product product = productRepository.save(product("BATCH-005", 10));
+
+        List<InventoryDeltaResult> results = bulkInventoryService.applyDeltas(List.of(
+                new InventoryDelta(product.getId(), null, -1),
+                new InventoryDelta(product.getId(), null, -1),
+                new InventoryDelta(product.getId(), null, -1),
+                InventoryDelta.malformed("Malformed JSON at line 4: Unexpected end-of-input"),
+                new InventoryDelta(product.getId(), null, -1)).iterator());
+
+        assertEquals(List.of(Outcome.UPDATED, Outcome.UPDATED, Outcome.UPDATED, Outcome.INVALID, Outcome.UPDATED),
+                results.stream().map(InventoryDeltaResult::getOutcome).toList());
+        assertEquals("Malformed JSON at line 4: Unexpected end-of-input", results.get(3).getMessage());
+        assertNull(results.get(3).getQuantity());
+        assertEquals(6, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+}
@@ -0,0 +1,102 @@
+package com.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HyperLogLog Tests")
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("Should estimate distinct counts within three standard errors")
+    void testAccuracy() {
+        double bound = 3 * HyperLogLog.standardError(12);
+        for (int distinct : new int[] { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 }) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                // Every user twice: repeats must not count
+                sketch.add("user-" + i);
+                sketch.add("user-" + i);
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error <= bound, distinct + " distinct estimated as " + sketch.estimate());
+        }
+        assertEquals(0, new HyperLogLog(12).estimate());
+        assertEquals(0.01625, HyperLogLog.standardError(12), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should merge into the sketch of the union, in any order and more than once")
+    void testMerge() {
+        HyperLogLog monday = new HyperLogLog(12);
+        HyperLogLog tuesday = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            monday.add("user-" + i);
+            union.add("user-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            tuesday.add("user-" + i);
+            union.add("user-" + i);
+        }
+        HyperLogLog merged = HyperLogLog.fromBytes(monday.toBytes());
+        merged.merge(tuesday);
+        merged.merge(tuesday);
+        HyperLogLog reversed = HyperLogLog.fromBytes(tuesday.toBytes());
+        reversed.merge(monday);
+        assertArrayEquals(union.toBytes(), merged.toBytes());
+        assertArrayEquals(union.toBytes(), reversed.toBytes());
+        assertEquals(50_000, merged.estimate(), 50_000 * 3 * HyperLogLog.standardError(12));
+
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new HyperLogLog(10)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+
+    @Test
+    @DisplayName("Should stay sparse and small for few viewers, and round-trip both forms")
+    void testSparseAndDense() {
+        HyperLogLog few = new HyperLogLog(12);
+        HyperLogLog many = new HyperLogLog(12);
+        for (int i = 0; i < 50; i++) {
+            few.add("user-" + i);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            many.add("user-" + i);
+        }
+        byte[] sparse = few.toBytes();
+        assertTrue(sparse.length <= 2 + 4 * 50);
+        assertEquals(2 + 4096, many.toBytes().length);
+
+        for (HyperLogLog sketch : new HyperLogLog[] { few, many }) {
+            HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+            assertEquals(sketch.estimate(), copy.estimate());
+            assertArrayEquals(sketch.toBytes(), copy.toBytes());
+        }
+        // A sparse sketch merged into a dense one, and the other way round, agree
+        HyperLogLog sparseFirst = HyperLogLog.fromBytes(few.toBytes());
+        sparseFirst.merge(many);
+        HyperLogLog denseFirst = HyperLogLog.fromBytes(many.toBytes());
+        denseFirst.merge(few);
+        assertArrayEquals(denseFirst.toBytes(), sparseFirst.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 7, 12 }));
+    }
+
+    @Test
+    @DisplayName("Should fold to a lower precision exactly as if built at it")
+    void testFold() {
+        for (int distinct : new int[] { 50, 50_000 }) {
+            HyperLogLog fine = new HyperLogLog(14);
+            HyperLogLog coarse = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                fine.add("user-" + i);
+                coarse.add("user-" + i);
+            }
+            HyperLogLog folded = fine.fold(12);
+            assertEquals(12, folded.precision());
+            assertArrayEquals(coarse.toBytes(), folded.toBytes());
+            assertSame(coarse, coarse.fold(12));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).fold(14));
+    }
+}
@@ -0,0 +1,166 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Product Cache Tests")
+class ProductCacheTest {
+
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(product(invocation.getArgument(0))));
+        when(productRepository.findBySku(anyString()))
+                .thenAnswer(invocation -> Optional.of(product(Long.valueOf(
+                        invocation.<String>getArgument(0).substring("SKU-".length())))));
+    }
+
+    @Test
+    @DisplayName("Should load a product once and serve it by id and SKU")
+    void testReadThrough() {
+        ProductCache cache = new ProductCache(productRepository, true, 100, 60_000);
+
+        Product first = cache.findById(1L).orElseThrow();
+        assertSame(first, cache.findById(1L).orElseThrow());
+        assertSame(first, cache.findBySku("SKU-1").orElseThrow());
+        verify(productRepository, times(1)).findById(1L);
+        verify(productRepository, never()).findBySku(anyString());
+
+        // Loaded by SKU, then found by id
+        Product second = cache.findBySku("SKU-2").orElseThrow();
+        assertSame(second, cache.findById(2L).orElseThrow());
+        verify(productRepository, never()).findById(2L);
+
+        assertEquals(3L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("misses"));
+        assertEquals(2, cache.getStats().get("size"));
+    }
+
+    @Test
+    @DisplayName("Should reload an invalidated product and skip missing ones")
+    void testInvalidate() {
+        ProductCache cache = new ProductCache(productRepository, true, 100, 60_000);
+        when(productRepository.findById(9L)).thenReturn(Optional.empty());
+
+        Product stale = cache.findById(1L).orElseThrow();
+        cache.invalidate(1L);
+        assertNotSame(stale, cache.findById(1L).orElseThrow());
+        assertTrue(cache.findBySku("SKU-1").isPresent());
+        verify(productRepository, times(2)).findById(1L);
+        verify(productRepository, never()).findBySku(anyString());
+
+        assertTrue(cache.findById(9L).isEmpty());
+        assertTrue(cache.findById(9L).isEmpty());
+        verify(productRepository, times(2)).findById(9L);
+    }
+
+    @Test
+    @DisplayName("Should send one query for concurrent misses on the same product")
+    void testConcurrentMissesShareOneQuery() throws Exception {
+        ProductCache cache = new ProductCache(productRepository, true, 100, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        when(productRepository.findById(7L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(product(7L));
+        });
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> cache.findById(7L)));
+        }
+        // The first miss holds its query open until every other request is waiting on it
+        SingleFlightTest.waitFor(() -> (Long) cache.getStats().get("coalescedLoads") == threads - 1);
+        release.countDown();
+
+        Product loaded = results.get(0).get(30, TimeUnit.SECONDS).orElseThrow();
+        for (Future<Optional<Product>> result : results) {
+            assertSame(loaded, result.get(30, TimeUnit.SECONDS).orElseThrow());
+        }
+        executor.shutdown();
+
+        verify(productRepository, times(1)).findById(7L);
+        assertSame(loaded, cache.findById(7L).orElseThrow());
+        assertEquals(1L, cache.getStats().get("loads"));
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void testExpiry() throws InterruptedException {
+        ProductCache cache = new ProductCache(productRepository, true, 100, 1);
+
+        cache.findById(1L);
+        Thread.sleep(5);
+        cache.findById(1L);
+
+        verify(productRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should go straight to the repository when disabled")
+    void testDisabled() {
+        ProductCache cache = new ProductCache(productRepository, false, 100, 60_000);
+
+        cache.findById(1L);
+        cache.findById(1L);
+        cache.findBySku("SKU-1");
+
+        verify(productRepository, times(2)).findById(1L);
+        verify(productRepository, times(1)).findBySku("SKU-1");
+        assertEquals(0, cache.getStats().get("size"));
+        assertEquals(0L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    @DisplayName("Should keep frequently read products through a one-off scan")
+    void testScanResistance() {
+        ProductCache cache = new ProductCache(productRepository, true, 100, 60_000);
+        for (int round = 0; round < 10; round++) {
+            for (long id = 1; id <= 50; id++) {
+                cache.findById(id);
+            }
+        }
+
+        // A crawler walking the catalog once
+        for (long id = 1_000; id < 2_000; id++) {
+            cache.findById(id);
+        }
+
+        clearInvocations(productRepository);
+        for (long id = 1; id <= 50; id++) {
+            cache.findById(id);
+        }
+        verify(productRepository, never()).findById(anyLong());
+        assertTrue((Integer) cache.getStats().get("size") <= 100);
+        assertTrue((Long) cache.getStats().get("evictions") >= 950);
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSku("SKU-" + id);
+        product.setName("Product " + id);
+        return product;
+    }
+}
@@ -0,0 +1,161 @@
+package com.inventory.service;
+
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Faceted filtering from the bitmap index against the SQL it replaces, on a
+ * catalog of {@value #ROWS} products in {@value #CATEGORIES} categories. The
+ * SQL side runs the filtered page query plus one {@code GROUP BY} per facet
+ * for the counts; it has no ratings (they live in Mongo), so the index does
+ * strictly more work per request.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductFacetBenchmark
+ * mvn test -Dtest=ProductFacetBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db?rewriteBatchedStatements=true \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductFacetIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductFacetBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int CATEGORIES = 40;
+    private static final int PAGE_SIZE = 20;
+    private static final int SAMPLES = 200;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Ratings are not part of the comparison; every product starts unrated
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    // Makes every SQL run a new statement, so H2 cannot hand back the previous run's result
+    private int salt;
+
+    @Test
+    @DisplayName("Facet filter and counts: bitmaps against SQL")
+    void benchmarkFilter() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            int quantity = random.nextInt(5) == 0 ? 0 : random.nextInt(100);
+            BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(50_000), 2);
+            rows.add(new Object[] { "Facet product " + i, "Benchmark", price, quantity, "FACET-" + i,
+                    "Category " + random.nextInt(CATEGORIES), quantity > 0 ? "IN_STOCK" : "OUT_OF_STOCK", now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, quantity, sku, category, status, "
+                + "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+
+        long start = System.nanoTime();
+        facetIndex.rebuild();
+        System.out.printf("index build: %d products in %d ms, %s%n", ROWS, (System.nanoTime() - start) / 1_000_000,
+                facetIndex.getStats());
+
+        System.out.printf("%-36s %10s %10s %10s %10s%n", "filter", "index p50", "index p99", "sql p50", "sql p99");
+        List<Object[]> cases = List.of(
+                new Object[] { "none", Set.<String>of(), false, Set.<String>of() },
+                new Object[] { "1 category", Set.of("Category 7"), false, Set.<String>of() },
+                new Object[] { "1 category, in stock, 1 band", Set.of("Category 7"), true, Set.of("25-50") },
+                new Object[] { "3 categories, in stock, 2 bands", Set.of("Category 1", "Category 2", "Category 3"),
+                        true, Set.of("10-25", "25-50") });
+        for (boolean warmUp : new boolean[] { true, false }) {
+            for (Object[] filterCase : cases) {
+                @SuppressWarnings("unchecked")
+                Set<String> categories = (Set<String>) filterCase[1];
+                boolean inStock = (Boolean) filterCase[2];
+                @SuppressWarnings("unchecked")
+                Set<String> bands = (Set<String>) filterCase[3];
+                double[] index = sample(() -> facetIndex.filter(
+                        new ProductFacetIndex.FacetFilter(categories, inStock, bands, 0), 0, PAGE_SIZE).orElseThrow());
+                double[] sql = sample(() -> sqlFilter(categories, inStock, bands));
+                if (!warmUp) {
+                    System.out.printf("%-36s %10.3f %10.3f %10.3f %10.3f%n", filterCase[0], index[0], index[1],
+                            sql[0], sql[1]);
+                }
+            }
+        }
+    }
+
+    // The page plus a count per facet value, each under the other facets' filters, as the index computes them
+    private List<?> sqlFilter(Set<String> categories, boolean inStock, Set<String> bands) {
+        String category = categories.isEmpty() ? "1 = 1"
+                : "category IN ('" + String.join("', '", categories) + "')";
+        String stock = inStock ? "quantity - reserved_quantity > 0" : "1 = 1";
+        String price = bands.isEmpty() ? "1 = 1" : String.join(" OR ", bands.stream().map(band -> {
+            String[] bounds = band.split("[-+]");
+            return bounds.length == 1 ? "price >= " + bounds[0]
+                    : "(price >= " + bounds[0] + " AND price < " + bounds[1] + ")";
+        }).toList());
+        String band = "CASE WHEN price < 10 THEN 0 WHEN price < 25 THEN 1 WHEN price < 50 THEN 2 "
+                + "WHEN price < 100 THEN 3 WHEN price < 250 THEN 4 ELSE 5 END";
+        String where = "WHERE id > -" + ++salt + " AND ";
+        List<Object> results = new ArrayList<>();
+        results.add(jdbcTemplate.queryForList("SELECT id FROM products " + where + category + " AND " + stock
+                + " AND (" + price + ") ORDER BY id LIMIT " + PAGE_SIZE, Long.class));
+        results.add(jdbcTemplate.queryForList("SELECT COUNT(*) FROM products " + where + category + " AND " + stock
+                + " AND (" + price + ")", Long.class));
+        results.add(jdbcTemplate.queryForList("SELECT category, COUNT(*) FROM products " + where + stock + " AND ("
+                + price + ") GROUP BY category"));
+        results.add(jdbcTemplate.queryForList("SELECT quantity - reserved_quantity > 0, COUNT(*) FROM products " + where
+                + category + " AND (" + price + ") GROUP BY quantity - reserved_quantity > 0"));
+        results.add(jdbcTemplate.queryForList("SELECT " + band + ", COUNT(*) FROM products " + where + category
+                + " AND " + stock + " GROUP BY " + band));
+        return results;
+    }
+
+    // p50 and p99 in milliseconds
+    private static double[] sample(Supplier<?> filter) {
+        double[] millis = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            filter.get();
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return new double[] { millis[SAMPLES / 2], millis[(int) Math.ceil(SAMPLES * 0.99) - 1] };
+    }
+}
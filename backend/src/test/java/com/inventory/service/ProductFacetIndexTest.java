@@ -0,0 +1,166 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductFacetIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Facet Index Tests")
+class ProductFacetIndexTest {
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    private Product mouse;
+    private Product keyboard;
+    private Product monitor;
+    private Product cable;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        mouse = productRepository.save(product("MOU-001", "Accessories", "19.99", 10));
+        keyboard = productRepository.save(product("KEY-001", "Accessories", "49.00", 0));
+        monitor = productRepository.save(product("MON-001", "Displays", "299.00", 3));
+        cable = productRepository.save(product("CAB-001", "Accessories", "5.00", 100));
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class)))
+                .thenReturn(List.of(rating(mouse.getId(), 4.6), rating(keyboard.getId(), 3.9),
+                        rating(monitor.getId(), 4.0)));
+        facetIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should intersect facets and count each facet under the others' filters")
+    void testFiltersAndCounts() {
+        ProductFacetIndex.FacetHits all = filter(Set.of(), false, Set.of(), 0);
+        assertEquals(List.of(mouse.getId(), keyboard.getId(), monitor.getId(), cable.getId()), all.ids());
+        assertEquals(Map.of("Accessories", 3, "Displays", 1), all.facets().get("category"));
+        assertEquals(List.of("0-10", "10-25", "25-50", "50-100", "100-250", "250+"),
+                List.copyOf(all.facets().get("priceBand").keySet()));
+
+        ProductFacetIndex.FacetHits hits = filter(Set.of("Accessories"), true, Set.of("10-25", "25-50"), 4);
+        assertEquals(List.of(mouse.getId()), hits.ids());
+        assertEquals(1, hits.total());
+        // Displays would match the other filters except for the price band, so it counts 0 here
+        assertEquals(Map.of("Accessories", 1, "Displays", 0), hits.facets().get("category"));
+        assertEquals(Map.of("inStock", 1, "outOfStock", 0), hits.facets().get("stock"));
+        assertEquals(1, hits.facets().get("priceBand").get("10-25"));
+        assertEquals(0, hits.facets().get("priceBand").get("0-10"));
+        // Keyboard is out of stock, cable unrated: only the mouse clears the other facets
+        assertEquals(Map.of("1", 1, "2", 1, "3", 1, "4", 1, "5", 0), hits.facets().get("minRating"));
+
+        assertEquals(List.of(mouse.getId(), keyboard.getId(), monitor.getId()),
+                filter(Set.of(), false, Set.of(), 3).ids());
+        assertEquals(List.of(), filter(Set.of("Garden"), false, Set.of(), 0).ids());
+        ProductFacetIndex.FacetHits page = facetIndex.filter(
+                new ProductFacetIndex.FacetFilter(Set.of(), false, Set.of(), 0), 2, 1).orElseThrow();
+        assertEquals(List.of(monitor.getId()), page.ids());
+        assertEquals(4, page.total());
+    }
+
+    @Test
+    @DisplayName("Should pick up stock, holds, edits and deletes on refresh")
+    void testRefresh() {
+        keyboard.setQuantity(5);
+        keyboard.setCategory("Input");
+        productRepository.save(keyboard);
+        jdbcTemplate.update("UPDATE products SET reserved_quantity = quantity WHERE id = ?", monitor.getId());
+        productRepository.deleteById(cable.getId());
+        Product lamp = productRepository.save(product("LAM-001", "Lighting", "30.00", 1));
+
+        facetIndex.changed(List.of(keyboard.getId(), monitor.getId(), cable.getId(), lamp.getId()));
+        // Nothing moves until the refresh re-reads the rows
+        assertEquals(List.of(mouse.getId(), cable.getId()), filter(Set.of("Accessories"), true, Set.of(), 0).ids());
+        assertEquals(4, facetIndex.getStats().get("dirty"));
+        facetIndex.refresh();
+
+        assertEquals(List.of(mouse.getId(), keyboard.getId(), lamp.getId()), filter(Set.of(), true, Set.of(), 0).ids());
+        ProductFacetIndex.FacetHits all = filter(Set.of(), false, Set.of(), 0);
+        assertEquals(Map.of("Accessories", 1, "Displays", 1, "Input", 1, "Lighting", 1), all.facets().get("category"));
+        assertEquals(Map.of("inStock", 3, "outOfStock", 1), all.facets().get("stock"));
+        assertEquals(0, facetIndex.getStats().get("dirty"));
+    }
+
+    @Test
+    @DisplayName("Should move products between rating facets and reject bad filters")
+    void testRatingsAndValidation() {
+        facetIndex.ratingChanged(cable.getId(), 5.0);
+        facetIndex.ratingChanged(mouse.getId(), 2.5);
+        assertEquals(List.of(cable.getId()), filter(Set.of(), false, Set.of(), 5).ids());
+        assertEquals(List.of(keyboard.getId(), monitor.getId(), cable.getId()),
+                filter(Set.of(), false, Set.of(), 3).ids());
+
+        ResponseStatusException band = assertThrows(ResponseStatusException.class,
+                () -> filter(Set.of(), false, Set.of("cheap"), 0));
+        assertEquals(HttpStatus.BAD_REQUEST, band.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> filter(Set.of(), false, Set.of(), 6));
+    }
+
+    private ProductFacetIndex.FacetHits filter(Set<String> categories, boolean inStock, Set<String> bands,
+            int minRating) {
+        return facetIndex.filter(new ProductFacetIndex.FacetFilter(categories, inStock, bands, minRating), 0, 50)
+                .orElseThrow();
+    }
+
+    private static InventoryAnalytics rating(Long productId, double averageRating) {
+        InventoryAnalytics analytics = new InventoryAnalytics();
+        analytics.setProductId(productId);
+        analytics.setAverageRating(averageRating);
+        return analytics;
+    }
+
+    private static Product product(String sku, String category, String price, int quantity) {
+        Product product = new Product();
+        product.setName("Product " + sku);
+        product.setDescription("Test Description");
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        product.setSku(sku);
+        product.setCategory(category);
+        return product;
+    }
+}
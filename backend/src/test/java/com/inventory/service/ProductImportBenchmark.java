@@ -0,0 +1,88 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Product import throughput: a fresh catalog of {@value #ROWS} CSV rows, then
+ * the same file again as an all-update run. Mongo is mocked out.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductImportBenchmark
+ * mvn test -Dtest=ProductImportBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db?rewriteBatchedStatements=true \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+@Import({ ProductImportService.class, StripedStockService.class, ProductCache.class,
+        ProductSearchIndex.class, ProductSuggester.class, ProductFacetIndex.class, ProductStats.class,
+        CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    @DisplayName("Rows per minute for a fresh import and a re-import")
+    void benchmarkImport() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(InventoryAnalytics.class)))
+                .thenReturn(mock(BulkOperations.class, RETURNS_SELF));
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+
+        StringBuilder csv = new StringBuilder("sku,name,description,price,quantity,category\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("BENCH-").append(i).append(",Bench Product ").append(i)
+                    .append(",\"Benchmark product, imported\",9.99,").append(i % 100).append(",Benchmark\n");
+        }
+
+        System.out.printf("%-10s %10s %10s %14s%n", "run", "created", "updated", "rows/min");
+        for (String run : new String[] { "insert", "update" }) {
+            Map<String, Object> report = importService.importCsv(new StringReader(csv.toString()), null);
+            System.out.printf("%-10s %10d %10d %14d%n", run, report.get("created"), report.get("updated"),
+                    report.get("rowsPerMinute"));
+        }
+    }
+}
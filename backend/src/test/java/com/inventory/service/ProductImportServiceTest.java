@@ -0,0 +1,180 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import com.inventory.model.StockBucket;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(showSql = false, properties = "inventory.import.chunk-size=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+@Import({ ProductImportService.class, StripedStockService.class, ProductCache.class,
+        ProductSearchIndex.class, ProductSuggester.class, ProductFacetIndex.class, ProductStats.class,
+        CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Import Service Tests")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    private BulkOperations bulkOperations;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(InventoryAnalytics.class)))
+                .thenReturn(bulkOperations);
+    }
+
+    @Test
+    @DisplayName("Should upsert CSV rows by SKU and report bad rows by number")
+    void testCsvImport() {
+        Product existing = productRepository.save(product("IMP-001", 5));
+        String csv = """
+                sku,name,description,price,quantity,category,image_url,ignored
+                IMP-001,Renamed,"Updated, with a comma",19.99,0,Tools,,x
+                IMP-002,"Quoted \"\"name\"\"","Two
+                lines",5.00,12,Tools,http://img/2.png,x
+                IMP-003,Bad price,Desc,abc,1,Tools,,x
+                IMP-004,,Missing name,1.00,1,Tools,,x
+
+                IMP-005,First,Desc,1.00,1,Tools,,x
+                IMP-005,Second,Desc,2.00,2,Tools,,x
+                """;
+
+        Map<String, Object> report = importService.importCsv(new StringReader(csv), "csv-1");
+
+        assertEquals("COMPLETED", report.get("status"));
+        assertEquals(6L, report.get("rows"));
+        assertEquals(2L, report.get("created"));
+        assertEquals(1L, report.get("updated"));
+        assertEquals(3L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(List.of(3L, 4L, 5L), errors.stream().map(error -> error.get("row")).toList());
+        assertEquals("name: Product name is required", errors.get(1).get("message"));
+
+        Product updated = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("Renamed", updated.getName());
+        assertEquals("Updated, with a comma", updated.getDescription());
+        assertEquals(0, updated.getQuantity());
+        assertEquals("OUT_OF_STOCK", updated.getStatus());
+        assertEquals(existing.getVersion() + 1, updated.getVersion());
+
+        Product quoted = productRepository.findBySku("IMP-002").orElseThrow();
+        assertEquals("Quoted \"name\"", quoted.getName());
+        assertEquals("Two\nlines", quoted.getDescription());
+        assertEquals("IN_STOCK", quoted.getStatus());
+        assertEquals("Second", productRepository.findBySku("IMP-005").orElseThrow().getName());
+
+        // One analytics upsert per written product, one bulk write per chunk that wrote anything
+        verify(bulkOperations, times(3)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(2)).execute();
+        assertEquals("COMPLETED", importService.getImport("csv-1").get("status"));
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON and keep going past malformed lines")
+    void testNdjsonImport() {
+        String ndjson = """
+                {"sku":"IMP-101","name":"One","description":"Desc","price":1.50,"quantity":3,"category":"Toys"}
+
+                {"sku":"IMP-102","name":"Two",
+                {"sku":"IMP-103","name":"Three","description":"Desc","price":2.50,"quantity":0,"category":"Toys"}
+                """;
+
+        Map<String, Object> report = importService.importNdjson(new StringReader(ndjson), null);
+
+        assertEquals("COMPLETED", report.get("status"));
+        assertEquals(3L, report.get("rows"));
+        assertEquals(2L, report.get("created"));
+        assertEquals(1L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(3L, errors.get(0).get("row"));
+        assertEquals(3, productRepository.findBySku("IMP-101").orElseThrow().getQuantity());
+        assertEquals("OUT_OF_STOCK", productRepository.findBySku("IMP-103").orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should overwrite the whole stock of a striped product among plain ones")
+    void testStripedProduct() {
+        Product before = productRepository.save(product("IMP-201", 5));
+        Product striped = productRepository.save(product("IMP-202", 40));
+        stripedStockService.stripe(striped.getId(), 4);
+        String csv = """
+                sku,name,description,price,quantity,category
+                IMP-202,Striped,Desc,1.00,7,Tools
+                IMP-201,Before,Desc,1.00,2,Tools
+                """;
+
+        Map<String, Object> report = importService.importCsv(new StringReader(csv), null);
+
+        assertEquals("COMPLETED", report.get("status"));
+        assertEquals(2L, report.get("updated"));
+        assertEquals(7, productRepository.findById(striped.getId()).orElseThrow().getQuantity());
+        assertEquals(0, bucketRepository.findByProductIdOrderByBucket(striped.getId()).stream()
+                .mapToInt(StockBucket::getQuantity).sum());
+        assertEquals(2, productRepository.findById(before.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should report a malformed header or first record as a failed import")
+    void testMalformedStart() {
+        Map<String, Object> unterminated = importService.importCsv(
+                new StringReader("sku,name\n\"IMP-301,Open quote\n"), "malformed-1");
+        assertEquals("FAILED", unterminated.get("status"));
+        assertEquals(0L, unterminated.get("rows"));
+        assertEquals("FAILED", importService.getImport("malformed-1").get("status"));
+
+        Map<String, Object> noSku = importService.importCsv(new StringReader("name,price\nWidget,1.00\n"), null);
+        assertEquals("FAILED", noSku.get("status"));
+        assertEquals("CSV header has no sku column", noSku.get("failure"));
+        assertEquals("FAILED", importService.importCsv(new StringReader(""), null).get("status"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProductView;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Page latency by depth for the catalog sorted by price: offset paging
+ * ({@code page}/{@code size}, which also counts the table) against keyset
+ * paging with and without the count, on a catalog of {@value #ROWS} products
+ * so that page 10,000 exists.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductPagerBenchmark
+ * mvn test -Dtest=ProductPagerBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db?rewriteBatchedStatements=true \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductPager.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductPagerBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ROWS = 10_000 * PAGE_SIZE;
+    private static final int REPETITIONS = 50;
+
+    @Autowired
+    private ProductPager productPager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Page latency from page 1 to page 10,000")
+    void benchmarkPageDepth() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[] { "Bench Product " + i, "Benchmark product", new BigDecimal(i % 5_000 + ".99"),
+                    10, "PAGE-BENCH-" + i, "Benchmark", "IN_STOCK", now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, quantity, sku, category, status, "
+                + "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+
+        Sort byPrice = Sort.by("price", "id");
+        int[] depths = { 1, 10, 100, 1_000, 10_000 };
+        String[] cursors = new String[depths.length];
+        for (int i = 0; i < depths.length; i++) {
+            int skipped = (depths[i] - 1) * PAGE_SIZE;
+            // The cursor a client would hold after reading the previous page
+            if (skipped > 0) {
+                Product last = productRepository.findAll(PageRequest.of(skipped - 1, 1, byPrice)).getContent().get(0);
+                cursors[i] = ProductPager.encode(ProductPager.SortKey.PRICE, Sort.Direction.ASC, last.getPrice(),
+                        last.getId());
+            }
+        }
+
+        System.out.printf("%-8s %16s %16s %16s%n", "page", "offset+count ms", "keyset+count ms", "keyset ms");
+        for (boolean warmUp : new boolean[] { true, false }) {
+            for (int i = 0; i < depths.length; i++) {
+                int page = depths[i] - 1;
+                String cursor = cursors[i];
+                double offset = time(() -> productRepository.findAll(PageRequest.of(page, PAGE_SIZE, byPrice)));
+                double keysetCounted = time(
+                        () -> productPager.page(cursor, PAGE_SIZE, "price", true, ProductView.FULL));
+                double keyset = time(() -> productPager.page(cursor, PAGE_SIZE, "price", false, ProductView.FULL));
+                if (!warmUp) {
+                    System.out.printf("%-8d %16.2f %16.2f %16.2f%n", depths[i], offset, keysetCounted, keyset);
+                }
+            }
+        }
+    }
+
+    private static double time(Supplier<?> query) {
+        query.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / REPETITIONS;
+    }
+}
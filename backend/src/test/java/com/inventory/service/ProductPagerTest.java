@@ -0,0 +1,209 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProductPage;
+import com.inventory.dto.ProductSummary;
+import com.inventory.dto.ProductView;
+import com.inventory.model.Product;
+import com.inventory.model.StockBucket;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = "inventory.paging.max-limit=10")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductPager.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Pager Tests")
+class ProductPagerTest {
+
+    @Autowired
+    private ProductPager productPager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            // Only four distinct prices, so most page boundaries fall between equal sort keys
+            products.add(product("PAGE-" + i, "Product " + (char) ('A' + i), new BigDecimal(10 + i % 4 + ".50")));
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    @DisplayName("Should return every product exactly once, in order, across pages")
+    void testWalkAllPages() {
+        List<Product> expected = new ArrayList<>(productRepository.findAll());
+        expected.sort(Comparator.comparing(Product::getPrice).reversed().thenComparing(Product::getId,
+                Comparator.reverseOrder()));
+
+        List<Long> seen = new ArrayList<>();
+        ProductPage<?> page = productPager.page(null, 5, "price,desc", true, ProductView.FULL);
+        assertEquals(23L, page.getTotalElements());
+        seen.addAll(ids(page));
+        int pages = 1;
+        while (page.isHasNext()) {
+            page = productPager.page(page.getNextCursor(), 5, null, false, ProductView.FULL);
+            assertNull(page.getTotalElements());
+            seen.addAll(ids(page));
+            pages++;
+        }
+
+        assertEquals(5, pages);
+        assertEquals(3, page.getSize());
+        assertNull(page.getNextCursor());
+        assertEquals(expected.stream().map(Product::getId).toList(), seen);
+    }
+
+    @Test
+    @DisplayName("Should continue after the cursor even when rows are added before it")
+    void testStableUnderInserts() {
+        ProductPage<?> first = productPager.page(null, 10, "name", false, ProductView.FULL);
+        assertEquals("Product A", name(first.getContent().get(0)));
+
+        // An offset page 2 would now repeat the last row of page 1
+        productRepository.save(product("PAGE-NEW", "Product 0", new BigDecimal("1.00")));
+        ProductPage<?> second = productPager.page(first.getNextCursor(), 10, "price,desc", false, ProductView.FULL);
+
+        assertEquals("Product K", name(second.getContent().get(0)));
+        assertEquals("Product T", name(second.getContent().get(9)));
+    }
+
+    @Test
+    @DisplayName("Should page summaries in the same order as entities, and accept each other's cursors")
+    void testSummaryView() {
+        List<Long> entities = new ArrayList<>();
+        List<Long> summaries = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductPage<?> full = productPager.page(cursor, 4, "createdAt,desc", false, ProductView.FULL);
+            ProductPage<?> summary = productPager.page(cursor, 4, "createdAt,desc", false, ProductView.SUMMARY);
+            assertEquals(full.getNextCursor(), summary.getNextCursor());
+            entities.addAll(ids(full));
+            summaries.addAll(ids(summary));
+            cursor = summary.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(23, summaries.size());
+        assertEquals(entities, summaries);
+        ProductSummary first = (ProductSummary) productPager.page(null, 1, "name", false, ProductView.SUMMARY)
+                .getContent().get(0);
+        assertEquals("Product A", first.getName());
+        assertEquals("PAGE-0", first.getSku());
+        assertEquals(new BigDecimal("10.50"), first.getPrice());
+        assertEquals("Electronics", first.getCategory());
+    }
+
+    @Test
+    @DisplayName("Should filter summary listings exactly like the entity listings")
+    void testSummaryQueriesMatchEntityQueries() {
+        productRepository.save(product("PAGE-PCT", "100% Cotton", new BigDecimal("5.00")));
+
+        assertEquals(ids(productRepository.findByNameContainingIgnoreCase("product c")),
+                summaryIds(productRepository.findSummariesByNameContaining("product c")));
+        // Wildcards in the keyword are literal, as in the derived query
+        assertEquals(1, productRepository.findSummariesByNameContaining("0%").size());
+        assertEquals(0, productRepository.findSummariesByNameContaining("Product _").size());
+        assertEquals(24, productRepository.findSummariesByCategory("Electronics").size());
+        assertEquals(24, productRepository.findAllSummaries(PageRequest.of(0, 5)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should list a striped product's bucketed stock in its summary quantity")
+    void testSummaryQuantityIncludesBuckets() {
+        Product product = productRepository.findAll(PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0);
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> productRepository.updateStockStripes(product.getId(), 2));
+        bucketRepository.saveAll(List.of(new StockBucket(product.getId(), 0, 4),
+                new StockBucket(product.getId(), 1, 3)));
+        assertEquals(17, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+
+        ProductSummary listed = productRepository.findSummariesByIdIn(List.of(product.getId())).get(0);
+        assertEquals(17, listed.getQuantity());
+        ProductSummary paged = (ProductSummary) productPager.page(null, 1, "id", false, ProductView.SUMMARY)
+                .getContent().get(0);
+        assertEquals(product.getId(), paged.getId());
+        assertEquals(17, paged.getQuantity());
+        assertEquals(17, productRepository.findSummariesByCategory("Electronics").stream()
+                .filter(summary -> summary.getId().equals(product.getId()))
+                .findFirst().orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject bad cursors, sorts and limits")
+    void testRejectsBadInput() {
+        assertBadRequest(() -> productPager.page("not-a-cursor", 5, null, false, ProductView.FULL));
+        assertBadRequest(() -> productPager.page(null, 5, "description", false, ProductView.FULL));
+        assertBadRequest(() -> productPager.page(null, 5, "price,sideways", false, ProductView.FULL));
+        assertBadRequest(() -> productPager.page(null, 11, null, false, ProductView.FULL));
+        assertBadRequest(() -> productPager.page(null, 0, null, false, ProductView.FULL));
+        assertBadRequest(() -> ProductView.of("compact"));
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static List<Long> ids(ProductPage<?> page) {
+        return page.getContent().stream()
+                .map(row -> row instanceof ProductSummary summary ? summary.getId() : ((Product) row).getId())
+                .toList();
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).sorted().toList();
+    }
+
+    private static List<Long> summaryIds(List<ProductSummary> summaries) {
+        return summaries.stream().map(ProductSummary::getId).sorted().toList();
+    }
+
+    private static String name(Object row) {
+        return ((Product) row).getName();
+    }
+
+    private static Product product(String sku, String name, BigDecimal price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test Description");
+        product.setPrice(price);
+        product.setQuantity(10);
+        product.setSku(sku);
+        product.setCategory("Electronics");
+        return product;
+    }
+}
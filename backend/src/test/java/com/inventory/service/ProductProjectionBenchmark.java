@@ -0,0 +1,118 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.dto.ProductView;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Full entities against {@code ProductSummary} rows for the two listing
+ * shapes: a keyset page of {@value #PAGE_SIZE} and the unpaged category
+ * listing of {@value #ROWS} products. Rows carry a description and image URL
+ * of realistic length; reports serialized JSON size and p50/p99 latency of
+ * query plus serialization.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductProjectionBenchmark
+ * mvn test -Dtest=ProductProjectionBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db?rewriteBatchedStatements=true \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductPager.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductProjectionBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int SAMPLES = 200;
+
+    @Autowired
+    private ProductPager productPager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    @DisplayName("Payload size and latency of full and summary listings")
+    void benchmarkListingShapes() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String description = "Long-form product copy with materials, care instructions and sizing notes. ".repeat(20);
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[] { "Projection Product " + i, description, new BigDecimal(i % 500 + ".99"), 10,
+                    "PROJ-BENCH-" + i, "Benchmark", "IN_STOCK",
+                    "https://cdn.example.com/images/catalog/benchmark/" + i + "/main.jpg?w=1200&h=1200&fit=crop",
+                    now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, quantity, sku, category, status, "
+                + "image_url, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+
+        System.out.printf("%-14s %-8s %12s %10s %10s%n", "listing", "view", "bytes", "p50 ms", "p99 ms");
+        for (boolean warmUp : new boolean[] { true, false }) {
+            report(warmUp, "page of " + PAGE_SIZE, "full",
+                    () -> productPager.page(null, PAGE_SIZE, "name", false, ProductView.FULL));
+            report(warmUp, "page of " + PAGE_SIZE, "summary",
+                    () -> productPager.page(null, PAGE_SIZE, "name", false, ProductView.SUMMARY));
+            report(warmUp, "category", "full", () -> productRepository.findByCategory("Benchmark"));
+            report(warmUp, "category", "summary", () -> productRepository.findSummariesByCategory("Benchmark"));
+        }
+    }
+
+    private void report(boolean warmUp, String listing, String view, Supplier<?> query) {
+        int bytes = 0;
+        double[] millis = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            bytes = serialize(query.get());
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        if (!warmUp) {
+            Arrays.sort(millis);
+            System.out.printf("%-14s %-8s %12d %10.2f %10.2f%n", listing, view, bytes, millis[SAMPLES / 2],
+                    millis[(int) Math.ceil(SAMPLES * 0.99) - 1]);
+        }
+    }
+
+    private int serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body).length;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
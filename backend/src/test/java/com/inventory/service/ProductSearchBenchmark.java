@@ -0,0 +1,122 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Search latency of the in-memory index against the {@code LIKE '%keyword%'}
+ * query it replaces, on a catalog of {@value #ROWS} products with generated
+ * names and descriptions. The index searches four fields and ranks, the SQL
+ * path only matches names; both return the ids of the first page.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductSearchBenchmark
+ * mvn test -Dtest=ProductSearchBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db?rewriteBatchedStatements=true \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductSearchIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductSearchBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int SAMPLES = 50;
+    private static final String[] WORDS = { "wireless", "mouse", "keyboard", "laptop", "monitor", "cable", "charger",
+            "headphones", "speaker", "camera", "ergonomic", "portable", "gaming", "office", "compact", "premium",
+            "steel", "leather", "cotton", "bamboo", "travel", "kitchen", "garden", "outdoor", "smart", "classic" };
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Search latency: BM25 index against SQL LIKE")
+    void benchmarkSearch() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[] { words(random, 3) + " " + i, words(random, 40), new BigDecimal("9.99"), 10,
+                    "SRCH-" + i, WORDS[random.nextInt(WORDS.length)], "IN_STOCK", now, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, quantity, sku, category, status, "
+                + "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+
+        long start = System.nanoTime();
+        searchIndex.rebuild();
+        System.out.printf("index build: %d products in %d ms, %s%n", ROWS, (System.nanoTime() - start) / 1_000_000,
+                searchIndex.getStats());
+
+        String[] queries = { "wireless", "gaming laptop", "ergonomic office chair", "port", "SRCH-4242" };
+        System.out.printf("%-24s %10s %10s %10s %10s%n", "query", "index p50", "index p99", "like p50", "like p99");
+        for (boolean warmUp : new boolean[] { true, false }) {
+            for (String query : queries) {
+                double[] index = sample(() -> searchIndex.search(query, 0, PAGE_SIZE).orElseThrow().ids());
+                double[] like = sample(() -> productRepository.findByNameContainingIgnoreCase(query).stream()
+                        .limit(PAGE_SIZE).map(Product::getId).toList());
+                if (!warmUp) {
+                    System.out.printf("%-24s %10.2f %10.2f %10.2f %10.2f%n", query, index[0], index[1], like[0],
+                            like[1]);
+                }
+            }
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    // p50 and p99 in milliseconds
+    private static double[] sample(Supplier<?> search) {
+        double[] millis = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            search.get();
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return new double[] { millis[SAMPLES / 2], millis[(int) Math.ceil(SAMPLES * 0.99) - 1] };
+    }
+}
@@ -0,0 +1,151 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductSearchIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Search Index Tests")
+class ProductSearchIndexTest {
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Product mouse;
+    private Product cable;
+    private Product laptop;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        mouse = productRepository.save(product("MOU-001", "Wireless Mouse", "Ergonomic mouse", "Accessories"));
+        cable = productRepository.save(product("CAB-001", "USB Cable", "Charges wireless headsets", "Accessories"));
+        laptop = productRepository.save(product("LAP-001", "Laptop Pro", "Fast laptop for work", "Electronics"));
+        searchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should rank a name match above a description match")
+    void testRanksByField() {
+        ProductSearchIndex.SearchHits hits = search("wireless");
+
+        assertEquals(2, hits.total());
+        assertEquals(List.of(mouse.getId(), cable.getId()), hits.ids());
+    }
+
+    @Test
+    @DisplayName("Should require every term, expand prefixes and match whole SKUs")
+    void testMatching() {
+        assertEquals(List.of(mouse.getId()), search("wire mous").ids());
+        assertEquals(List.of(), search("wireless laptop").ids());
+        assertEquals(List.of(laptop.getId()), search("lap-001").ids());
+        assertEquals(List.of(laptop.getId()), search("ELECTRONICS").ids());
+        // Too short to expand
+        assertEquals(List.of(), search("la").ids());
+        assertTrue(searchIndex.search("  --  ", 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should follow updates and deletes without a rebuild")
+    void testIncrementalUpdates() {
+        laptop.setName("Gaming Notebook");
+        laptop.setDescription("Portable gaming rig");
+        searchIndex.index(laptop);
+        searchIndex.remove(mouse.getId());
+        Product keyboard = productRepository.save(product("KEY-001", "Wireless Keyboard", "Quiet keys", "Accessories"));
+        searchIndex.index(keyboard);
+
+        assertEquals(List.of(), search("laptop").ids());
+        assertEquals(List.of(laptop.getId()), search("notebook").ids());
+        assertEquals(List.of(keyboard.getId(), cable.getId()), search("wireless").ids());
+        assertEquals(3, searchIndex.getStats().get("products"));
+    }
+
+    @Test
+    @DisplayName("Should apply changes made in a transaction only once it commits")
+    void testAppliesAfterCommit() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            laptop.setName("Laptop Ultra");
+            searchIndex.index(laptop);
+            assertEquals(List.of(), search("ultra").ids());
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(), search("ultra").ids());
+
+        transactionTemplate.executeWithoutResult(status -> searchIndex.index(laptop));
+        assertEquals(List.of(laptop.getId()), search("ultra").ids());
+    }
+
+    @Test
+    @DisplayName("Should page through every match once and survive compaction")
+    void testPagingAndCompaction() {
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            batch.add(product("BULK-" + i, "Bulk item " + i, "Bulk stock", "Bulk"));
+        }
+        productRepository.saveAll(batch).forEach(searchIndex::index);
+        // Enough rewrites of one product to trigger a compaction of the tombstones
+        for (int i = 0; i < 2_000; i++) {
+            searchIndex.index(batch.get(0));
+        }
+        assertTrue((Long) searchIndex.getStats().get("compactions") > 0);
+
+        List<Long> seen = new ArrayList<>();
+        for (int offset = 0; offset < 30; offset += 10) {
+            ProductSearchIndex.SearchHits page = searchIndex.search("bulk", offset, 10).orElseThrow();
+            assertEquals(23, page.total());
+            seen.addAll(page.ids());
+        }
+        assertEquals(23, seen.size());
+        assertEquals(23, new HashSet<>(seen).size());
+    }
+
+    private ProductSearchIndex.SearchHits search(String query) {
+        return searchIndex.search(query, 0, 10).orElseThrow();
+    }
+
+    private static Product product(String sku, String name, String description, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(10);
+        product.setSku(sku);
+        product.setCategory(category);
+        return product;
+    }
+}
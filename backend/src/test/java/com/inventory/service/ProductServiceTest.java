@@ -9,8 +9,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +32,15 @@ class ProductServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(productService, "productCache",
+                new ProductCache(productRepository, true, 100, 60_000));
+        // Never built, so searches take the SQL path
+        ReflectionTestUtils.setField(productService, "searchIndex", new ProductSearchIndex(null, true));
+        ReflectionTestUtils.setField(productService, "productSuggester", new ProductSuggester(null, null, true));
+        ReflectionTestUtils.setField(productService, "facetIndex",
+                new ProductFacetIndex(null, null, true, List.of(BigDecimal.TEN)));
+        ReflectionTestUtils.setField(productService, "productStats", new ProductStats(null, true, 5));
+        ReflectionTestUtils.setField(productService, "catalogVersion", new CatalogVersion());
 
         testProduct = new Product();
         testProduct.setId(1L);
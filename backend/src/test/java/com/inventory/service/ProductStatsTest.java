@@ -0,0 +1,151 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductStats.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Stats Tests")
+class ProductStatsTest {
+
+    @Autowired
+    private ProductStats productStats;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product mouse;
+    private Product keyboard;
+    private Product monitor;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        mouse = productRepository.save(product("MOU-001", "Accessories", "20.00", 10));
+        keyboard = productRepository.save(product("KEY-001", "Accessories", "50.00", 2));
+        monitor = productRepository.save(product("MON-001", "Displays", "300.00", 0));
+        monitor.setStatus("OUT_OF_STOCK");
+        monitor = productRepository.save(monitor);
+    }
+
+    @Test
+    @DisplayName("Should aggregate by status and category and fall back to SQL until built")
+    void testAggregates() {
+        // A fresh instance: the shared one may have been built by an earlier test
+        ProductStats.Snapshot fromSql = new ProductStats(jdbcTemplate, true, 5).snapshot();
+        assertNull(fromSql.etag());
+
+        productStats.rebuild();
+        ProductStats.Snapshot snapshot = productStats.snapshot();
+        assertNotNull(snapshot.etag());
+        Map<String, Object> data = snapshot.data();
+        assertEquals(3L, data.get("totalProducts"));
+        assertEquals(12L, data.get("totalUnits"));
+        assertEquals(0, new BigDecimal("300.00").compareTo((BigDecimal) data.get("inventoryValue")));
+        // The keyboard (2 units) and the monitor (none) are under the threshold of 5
+        assertEquals(2L, data.get("lowStock"));
+        assertEquals(Map.of("IN_STOCK", 2L, "OUT_OF_STOCK", 1L), data.get("byStatus"));
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> byCategory = (Map<String, Map<String, Object>>) data.get("byCategory");
+        assertEquals(List.of("Accessories", "Displays"), List.copyOf(byCategory.keySet()));
+        assertEquals(2L, byCategory.get("Accessories").get("products"));
+        assertEquals(12L, byCategory.get("Accessories").get("units"));
+        assertSameTotals(fromSql.data(), data);
+    }
+
+    @Test
+    @DisplayName("Should apply changed products on refresh and move the ETag only when totals move")
+    void testRefreshAndETag() {
+        productStats.rebuild();
+        String etag = productStats.snapshot().etag();
+
+        keyboard.setQuantity(40);
+        keyboard.setCategory("Input");
+        productRepository.save(keyboard);
+        productRepository.deleteById(monitor.getId());
+        Product lamp = productRepository.save(product("LAM-001", "Lighting", "15.50", 4));
+        productStats.changed(List.of(keyboard.getId(), monitor.getId(), lamp.getId()));
+        // Nothing moves until the refresh re-reads the rows
+        assertEquals(etag, productStats.snapshot().etag());
+        productStats.refresh();
+
+        ProductStats.Snapshot snapshot = productStats.snapshot();
+        assertNotEquals(etag, snapshot.etag());
+        assertEquals(3L, snapshot.data().get("totalProducts"));
+        assertEquals(54L, snapshot.data().get("totalUnits"));
+        assertEquals(0, new BigDecimal("2262.00").compareTo((BigDecimal) snapshot.data().get("inventoryValue")));
+        assertEquals(1L, snapshot.data().get("lowStock"));
+        assertEquals(Map.of("IN_STOCK", 3L), snapshot.data().get("byStatus"));
+
+        // Re-reading an unchanged product keeps the ETag, so pollers keep getting 304s
+        productStats.changed(mouse.getId());
+        productStats.refresh();
+        assertEquals(snapshot.etag(), productStats.snapshot().etag());
+        assertEquals(0, productStats.getStats().get("dirty"));
+    }
+
+    @Test
+    @DisplayName("Should rebuild when reconciliation finds drift")
+    void testReconcile() {
+        productStats.rebuild();
+        productStats.reconcile();
+        assertEquals(0L, productStats.getStats().get("drifts"));
+
+        // A write no hook saw
+        jdbcTemplate.update("UPDATE products SET quantity = 100 WHERE id = ?", monitor.getId());
+        assertEquals(12L, productStats.snapshot().data().get("totalUnits"));
+        productStats.reconcile();
+
+        assertEquals(1L, productStats.getStats().get("drifts"));
+        assertEquals(112L, productStats.snapshot().data().get("totalUnits"));
+        assertEquals(1L, productStats.snapshot().data().get("lowStock"));
+        assertNotNull(productStats.getStats().get("lastReconciledAt"));
+    }
+
+    private static void assertSameTotals(Map<String, Object> expected, Map<String, Object> actual) {
+        for (String key : List.of("totalProducts", "totalUnits", "lowStock", "byStatus")) {
+            assertEquals(expected.get(key), actual.get(key), key);
+        }
+        assertEquals(0, ((BigDecimal) expected.get("inventoryValue"))
+                .compareTo((BigDecimal) actual.get("inventoryValue")));
+    }
+
+    private static Product product(String sku, String category, String price, int quantity) {
+        Product product = new Product();
+        product.setName("Product " + sku);
+        product.setDescription("Test Description");
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        product.setSku(sku);
+        product.setCategory(category);
+        return product;
+    }
+}
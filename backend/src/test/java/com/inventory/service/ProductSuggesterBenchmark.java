@@ -0,0 +1,64 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Suggestion latency and trie footprint for a catalog of {@value #PRODUCTS}
+ * generated product names, built in memory without a database.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly:
+ *
+ * <pre>
+ * mvn test -Dtest=ProductSuggesterBenchmark
+ * </pre>
+ */
+class ProductSuggesterBenchmark {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int SAMPLES = 100_000;
+    private static final String[] WORDS = { "wireless", "mouse", "keyboard", "laptop", "monitor", "cable", "charger",
+            "headphones", "speaker", "camera", "ergonomic", "portable", "gaming", "office", "compact", "premium",
+            "steel", "leather", "cotton", "bamboo", "travel", "kitchen", "garden", "outdoor", "smart", "classic" };
+
+    @Test
+    @DisplayName("Suggestion latency and memory for 100k products")
+    void benchmarkSuggest() {
+        ProductSuggester suggester = new ProductSuggester(null, null, true);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            product.setSku("SUG-" + i);
+            suggester.index(product);
+            suggester.recordView((long) i, random.nextInt(10_000));
+        }
+        System.out.printf("built in %d ms: %s%n", (System.nanoTime() - start) / 1_000_000, suggester.getStats());
+
+        String[] prefixes = { "w", "wi", "wire", "wireless m", "sug-4", "sug-42424", "gaming lap", "zzz" };
+        System.out.printf("%-12s %10s %10s%n", "prefix", "p50 us", "p99 us");
+        for (boolean warmUp : new boolean[] { true, false }) {
+            for (String prefix : prefixes) {
+                double[] micros = new double[SAMPLES];
+                for (int i = 0; i < SAMPLES; i++) {
+                    long t = System.nanoTime();
+                    suggester.suggest(prefix, 8);
+                    micros[i] = (System.nanoTime() - t) / 1_000.0;
+                }
+                Arrays.sort(micros);
+                if (!warmUp) {
+                    System.out.printf("%-12s %10.2f %10.2f%n", prefix, micros[SAMPLES / 2],
+                            micros[(int) Math.ceil(SAMPLES * 0.99) - 1]);
+                }
+            }
+        }
+    }
+}
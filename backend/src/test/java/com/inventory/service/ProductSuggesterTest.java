@@ -0,0 +1,190 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProductSuggestion;
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductSuggester.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product Suggester Tests")
+class ProductSuggesterTest {
+
+    @Autowired
+    private ProductSuggester suggester;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    private Product mouse;
+    private Product pad;
+    private Product monitor;
+
+    @BeforeEach
+    void setUp() {
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        mouse = productRepository.save(product("MOU-001", "Wireless Mouse"));
+        pad = productRepository.save(product("MOU-002", "Mouse Pad XL"));
+        monitor = productRepository.save(product("MON-001", "4K Monitor"));
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class)))
+                .thenReturn(List.of(analytics(mouse.getId(), 50), analytics(pad.getId(), 5),
+                        analytics(monitor.getId(), 20)));
+        suggester.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should match name starts, word starts and SKUs, most viewed first")
+    void testSuggestsByViews() {
+        assertEquals(List.of(mouse.getId(), pad.getId()), ids(suggester.suggest("mou", 8)));
+        assertEquals(List.of(mouse.getId(), monitor.getId(), pad.getId()), ids(suggester.suggest("M", 8)));
+        assertEquals(List.of(mouse.getId()), ids(suggester.suggest("wireless  MOUSE", 8)));
+        assertEquals(List.of(monitor.getId()), ids(suggester.suggest("mon-0", 8)));
+        assertEquals(List.of(mouse.getId()), ids(suggester.suggest("m", 1)));
+        assertEquals(List.of(), ids(suggester.suggest("keyboard", 8)));
+        assertEquals(List.of(), ids(suggester.suggest(" - ", 8)));
+        assertEquals(50L, suggester.suggest("wire", 8).get(0).getViews());
+    }
+
+    @Test
+    @DisplayName("Should re-rank on views and follow renames and deletes")
+    void testIncrementalChanges() {
+        suggester.recordView(pad.getId(), 100);
+        assertEquals(List.of(pad.getId(), mouse.getId()), ids(suggester.suggest("mouse", 8)));
+
+        pad.setName("Desk Mat");
+        suggester.index(pad);
+        suggester.remove(monitor.getId());
+        Product keyboard = productRepository.save(product("KEY-001", "Mechanical Keyboard"));
+        suggester.index(keyboard);
+
+        assertEquals(List.of(mouse.getId()), ids(suggester.suggest("mouse", 8)));
+        assertEquals(List.of(pad.getId()), ids(suggester.suggest("mat", 8)));
+        assertEquals(List.of(), ids(suggester.suggest("4k", 8)));
+        assertEquals(List.of(pad.getId(), mouse.getId(), keyboard.getId()), ids(suggester.suggest("m", 8)));
+        assertEquals(3, suggester.getStats().get("products"));
+        assertTrue((Long) suggester.getStats().get("estimatedBytes") > 0);
+    }
+
+    @Test
+    @DisplayName("Should agree with a brute-force ranking through random changes")
+    void testMatchesBruteForce() {
+        ProductSuggester random = new ProductSuggester(null, null, true);
+        Random rnd = new Random(7);
+        String[] words = { "red", "reading", "ready", "lamp", "lamb", "laptop", "lap", "desk", "design", "d" };
+        Map<Long, Product> live = new HashMap<>();
+        Map<Long, Long> views = new HashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            long id = 1 + rnd.nextInt(200);
+            int operation = rnd.nextInt(10);
+            if (operation < 4) {
+                Product product = product("SKU-" + id, words[rnd.nextInt(words.length)] + " "
+                        + words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)]);
+                product.setId(id);
+                random.index(product);
+                live.put(id, product);
+                views.putIfAbsent(id, 0L);
+            } else if (operation < 5) {
+                random.remove(id);
+                live.remove(id);
+                views.remove(id);
+            } else if (live.containsKey(id)) {
+                int delta = 1 + rnd.nextInt(5);
+                random.recordView(id, delta);
+                views.merge(id, (long) delta, Long::sum);
+            }
+            if (step % 100 == 99) {
+                for (String prefix : List.of("r", "re", "rea", "read", "l", "la", "lam", "lap", "d", "de", "des",
+                        "red l", "lamp d", "sku 1", "sku 19")) {
+                    assertEquals(bruteForce(live, views, prefix), ids(random.suggest(prefix, 10)),
+                            "prefix '" + prefix + "' at step " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject limits outside 1-10")
+    void testRejectsBadLimit() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> suggester.suggest("m", 11));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static List<Long> bruteForce(Map<Long, Product> live, Map<Long, Long> views, String prefix) {
+        List<Product> matches = new ArrayList<>();
+        for (Product product : live.values()) {
+            List<String> words = ProductSearchIndex.tokenize(product.getName());
+            boolean match = ProductSuggester.normalize(product.getSku()).startsWith(prefix);
+            for (int i = 0; i < words.size() && !match; i++) {
+                match = String.join(" ", words.subList(i, words.size())).startsWith(prefix);
+            }
+            if (match) {
+                matches.add(product);
+            }
+        }
+        matches.sort(Comparator.comparing((Product product) -> -views.get(product.getId()))
+                .thenComparing(product -> product.getName().length())
+                .thenComparing(Product::getId));
+        return matches.stream().limit(10).map(Product::getId).toList();
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getId).toList();
+    }
+
+    private static InventoryAnalytics analytics(Long productId, int views) {
+        InventoryAnalytics analytics = new InventoryAnalytics();
+        analytics.setProductId(productId);
+        analytics.setTotalViewCount(views);
+        return analytics;
+    }
+
+    private static Product product(String sku, String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test Description");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(10);
+        product.setSku(sku);
+        product.setCategory("Electronics");
+        return product;
+    }
+}
@@ -0,0 +1,167 @@
+package com.inventory.service;
+
+import com.inventory.entity.UserActivityLog;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Product Trends Tests")
+class ProductTrendsTest {
+
+    private MongoTemplate mongoTemplate;
+    private ProductTrends trends;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        trends = new ProductTrends(mongoTemplate, mock(ProductCache.class), true, 256, 50);
+    }
+
+    @Test
+    @DisplayName("Should rank all-time views like the exact aggregation, within the reported error")
+    void testAllTimeAccuracy() {
+        // Zipf-like popularity over 5 000 products, far more than the 256 counters
+        Random random = new Random(42);
+        double[] cumulative = new double[5_000];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1 / Math.pow(i + 1, 1.1);
+            cumulative[i] = sum;
+        }
+        Map<Long, Long> exact = new HashMap<>();
+        List<UserActivityLog> batch = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            long productId = (rank < 0 ? -rank - 1 : rank) + 1;
+            exact.merge(productId, 1L, Long::sum);
+            batch.add(view(productId, null));
+            if (batch.size() == 500) {
+                trends.record(batch);
+                batch.clear();
+            }
+        }
+        trends.refresh();
+
+        // What $group / $sort / $limit over the activity log returns
+        List<Long> exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(10).map(Map.Entry::getKey).toList();
+        List<ProductTrends.Ranked> top = trends.top(ProductTrends.Window.ALL, 10);
+        assertEquals(exactTop, top.stream().map(ProductTrends.Ranked::productId).toList());
+        for (ProductTrends.Ranked ranked : top) {
+            long actual = exact.get(ranked.productId());
+            assertTrue(ranked.views() >= actual && ranked.views() - ranked.error() <= actual);
+            assertTrue(ranked.views() <= actual * 1.05, "top products are counted within 5%");
+        }
+        assertEquals(200_000L, trends.getStats().get("recorded"));
+    }
+
+    @Test
+    @DisplayName("Should rank recent views above older ones per window, matching exact decayed counts")
+    void testWindows() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserActivityLog> events = new ArrayList<>();
+        // Products 1-3 were popular two days ago, 4-6 in the last hour; 7 has a steady trickle all week
+        for (long productId = 1; productId <= 3; productId++) {
+            for (int i = 0; i < 300 + productId; i++) {
+                events.add(view(productId, now.minusHours(48).plusSeconds(i)));
+            }
+        }
+        for (long productId = 4; productId <= 6; productId++) {
+            for (int i = 0; i < 30 + productId; i++) {
+                events.add(view(productId, now.minusMinutes(30).plusSeconds(i)));
+            }
+        }
+        for (int hour = 0; hour < 168; hour++) {
+            events.add(view(7L, now.minusHours(hour)));
+        }
+        trends.record(events);
+        trends.refresh();
+
+        assertEquals(List.of(6L, 5L, 4L), ids(ProductTrends.Window.HOUR, 3));
+        assertEquals(List.of(3L, 2L, 1L, 7L, 6L, 5L, 4L), ids(ProductTrends.Window.ALL, 10));
+        assertEquals(List.of(3L, 2L, 1L), ids(ProductTrends.Window.WEEK, 3));
+        for (ProductTrends.Window window : List.of(ProductTrends.Window.HOUR, ProductTrends.Window.DAY,
+                ProductTrends.Window.WEEK)) {
+            long tau = window.decay().toMillis();
+            for (ProductTrends.Ranked ranked : trends.top(window, 7)) {
+                double expected = events.stream()
+                        .filter(event -> event.getProductId() == ranked.productId())
+                        .mapToDouble(event -> Math.exp(-millisAgo(event.getTimestamp()) / (double) tau))
+                        .sum();
+                assertEquals(expected, ranked.views(), expected * 0.01, window + " product " + ranked.productId());
+            }
+        }
+        // A quiet window is topped up with the all-time most viewed
+        assertEquals(List.of(6L, 5L, 4L, 7L, 3L, 2L, 1L), trends.trending(ProductTrends.Window.HOUR, 10));
+        assertEquals(ProductTrends.Window.DAY, ProductTrends.Window.of(null, ProductTrends.Window.DAY));
+        assertThrows(ResponseStatusException.class, () -> ProductTrends.Window.of("2h", ProductTrends.Window.DAY));
+    }
+
+    @Test
+    @DisplayName("Should seed the windows from the activity log aggregations")
+    void testSeed() {
+        String lastHour = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS).minusHours(1).toString()
+                .substring(0, 13);
+        String lastWeek = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS).minusDays(6).toString()
+                .substring(0, 13);
+        AggregationResults<Document> allTime = new AggregationResults<>(List.of(
+                new Document("_id", 1L).append("views", 500), new Document("_id", 2L).append("views", 40)),
+                new Document());
+        AggregationResults<Document> hourly = new AggregationResults<>(List.of(
+                new Document("_id", new Document("productId", 1L).append("hour", lastWeek)).append("views", 60),
+                new Document("_id", new Document("productId", 2L).append("hour", lastHour)).append("views", 20)),
+                new Document());
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("user_activity_log"), eq(Document.class)))
+                .thenReturn(allTime).thenReturn(hourly);
+        assertFalse(trends.isReady());
+
+        trends.seed();
+        assertTrue(trends.isReady());
+        assertEquals(List.of(1L, 2L), ids(ProductTrends.Window.ALL, 10));
+        assertEquals(500, trends.top(ProductTrends.Window.ALL, 1).get(0).views(), 1e-9);
+        assertEquals(List.of(2L, 1L), ids(ProductTrends.Window.DAY, 10));
+        assertEquals(List.of(1L, 2L), ids(ProductTrends.Window.WEEK, 10));
+        // An hour's views count as logged half past it
+        long age = System.currentTimeMillis()
+                - LocalDateTime.parse(lastHour + ":30").toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertEquals(20 * Math.exp(-age / 3_600_000.0), trends.top(ProductTrends.Window.HOUR, 1).get(0).views(), 0.1);
+    }
+
+    private List<Long> ids(ProductTrends.Window window, int limit) {
+        return trends.top(window, limit).stream().map(ProductTrends.Ranked::productId).toList();
+    }
+
+    private static long millisAgo(LocalDateTime timestamp) {
+        return System.currentTimeMillis() - timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static UserActivityLog view(long productId, LocalDateTime timestamp) {
+        UserActivityLog event = new UserActivityLog();
+        event.setAction("PRODUCT_VIEW");
+        event.setProductId(productId);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Ring Buffer Tests")
+class RingBufferTest {
+
+    @Test
+    @DisplayName("Should keep FIFO order and refuse offers when full")
+    void testBounded() {
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+        assertEquals(2, new RingBuffer<>(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    }
+
+    @Test
+    @DisplayName("Should hand every item to exactly one consumer under concurrent producers and consumers")
+    void testConcurrentProducersAndConsumers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        int total = producers * perProducer;
+        RingBuffer<Integer> ring = new RingBuffer<>(64);
+        BitSet seen = new BitSet(total);
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 3);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            futures.add(executor.submit(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!ring.offer(i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < 3; c++) {
+            futures.add(executor.submit(() -> {
+                while (consumed.get() < total) {
+                    Integer item = ring.poll();
+                    if (item == null) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    synchronized (seen) {
+                        if (seen.get(item)) {
+                            duplicates.incrementAndGet();
+                        }
+                        seen.set(item);
+                    }
+                    consumed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, duplicates.get());
+        assertEquals(total, seen.cardinality());
+        assertTrue(ring.isEmpty());
+    }
+}
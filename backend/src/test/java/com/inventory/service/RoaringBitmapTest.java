@@ -0,0 +1,89 @@
+package com.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Roaring Bitmap Tests")
+class RoaringBitmapTest {
+
+    @Test
+    @DisplayName("Should agree with a BitSet through adds, removes and set operations")
+    void testMatchesBitSet() {
+        Random random = new Random(11);
+        // Dense, sparse and empty stretches across several chunks, so both chunk kinds and their conversions run
+        int[] densities = { 2, 40, 5_000 };
+        for (int round = 0; round < 20; round++) {
+            BitSet expectedX = new BitSet();
+            BitSet expectedY = new BitSet();
+            RoaringBitmap x = new RoaringBitmap();
+            RoaringBitmap y = new RoaringBitmap();
+            for (int step = 0; step < 40_000; step++) {
+                int chunk = random.nextInt(4);
+                int value = chunk * 65_536 + random.nextInt(65_536 / densities[(chunk + round) % densities.length]);
+                boolean toX = random.nextBoolean();
+                if (random.nextInt(4) == 0) {
+                    (toX ? x : y).remove(value);
+                    (toX ? expectedX : expectedY).clear(value);
+                } else {
+                    (toX ? x : y).add(value);
+                    (toX ? expectedX : expectedY).set(value);
+                }
+            }
+
+            assertSame(expectedX, x);
+            assertSame(expectedY, y);
+            BitSet and = (BitSet) expectedX.clone();
+            and.and(expectedY);
+            BitSet or = (BitSet) expectedX.clone();
+            or.or(expectedY);
+            assertSame(and, RoaringBitmap.and(x, y));
+            assertSame(or, RoaringBitmap.or(x, y));
+            assertEquals(and.cardinality(), RoaringBitmap.andCardinality(x, y));
+
+            int offset = random.nextInt(Math.max(1, or.cardinality()));
+            int[] expectedPage = Arrays.copyOfRange(or.stream().toArray(), offset,
+                    Math.min(or.cardinality(), offset + 50));
+            assertArrayEquals(expectedPage, RoaringBitmap.or(x, y).page(offset, 50));
+        }
+    }
+
+    @Test
+    @DisplayName("Should stay small for sparse sets and drop emptied chunks")
+    void testCompression() {
+        RoaringBitmap sparse = new RoaringBitmap();
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 0; i < 1_000; i++) {
+            sparse.add(i * 1_000);
+            dense.add(i);
+        }
+        // Spread over a million values, where a plain bitmap takes 125 KB
+        assertTrue(sparse.estimateBytes() < 8_000, "sparse: " + sparse.estimateBytes());
+        for (int i = 1_000; i < 60_000; i++) {
+            dense.add(i);
+        }
+        // A full chunk is one 8 KB bitmap
+        assertTrue(dense.estimateBytes() < 9_000, "dense: " + dense.estimateBytes());
+
+        for (int i = 0; i < 60_000; i++) {
+            dense.remove(i);
+        }
+        assertTrue(dense.isEmpty());
+        assertEquals(0, dense.cardinality());
+        assertArrayEquals(new int[0], dense.page(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> dense.add(-1));
+    }
+
+    private static void assertSame(BitSet expected, RoaringBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.page(0, Integer.MAX_VALUE));
+        for (int probe = 0; probe < 4 * 65_536; probe += 97) {
+            assertEquals(expected.get(probe), actual.contains(probe));
+        }
+    }
+}
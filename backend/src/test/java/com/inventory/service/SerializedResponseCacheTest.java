@@ -0,0 +1,122 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Serialized Response Cache Tests")
+class SerializedResponseCacheTest {
+
+    private final CatalogVersion catalogVersion = new CatalogVersion();
+    private final SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), true, 2);
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should serve the rendered bytes until the version moves, and 304 on a matching ETag")
+    void testVersionAndConditionalGet() {
+        List<String> names = new ArrayList<>(List.of("Mouse", "Keyboard"));
+        ResponseEntity<byte[]> first = respond("products", names, null, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("[\"Mouse\",\"Keyboard\"]", new String(first.getBody()));
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(first.getHeaders().getCacheControl().contains("no-cache"));
+
+        // Rendered once: the change to the list is not seen until the version moves
+        names.add("Monitor");
+        assertArrayEquals(first.getBody(), respond("products", names, null, null).getBody());
+        assertEquals(1, renders.get());
+        ResponseEntity<byte[]> notModified = respond("products", names, null, "\"other\", W/" + etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(etag, notModified.getHeaders().getETag());
+
+        catalogVersion.productsChanged();
+        ResponseEntity<byte[]> changed = respond("products", names, null, etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("[\"Mouse\",\"Keyboard\",\"Monitor\"]", new String(changed.getBody()));
+        assertNotEquals(etag, changed.getHeaders().getETag());
+
+        // A write that leaves this response as it was keeps its ETag, so clients keep their copy
+        catalogVersion.productsChanged();
+        assertEquals(HttpStatus.NOT_MODIFIED,
+                respond("products", names, null, changed.getHeaders().getETag()).getStatusCode());
+        assertEquals(3, renders.get());
+        assertEquals(2L, cache.getStats().get("notModified"));
+    }
+
+    @Test
+    @DisplayName("Should send the pre-gzipped bytes to clients that accept gzip")
+    void testGzip() throws IOException {
+        List<String> names = Collections.nCopies(200, "Wireless Mouse");
+        ResponseEntity<byte[]> plain = respond("large", names, null, null);
+        ResponseEntity<byte[]> gzipped = respond("large", names, "gzip, deflate, br", null);
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getBody().length < plain.getBody().length / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(plain.getBody(), in.readAllBytes());
+        }
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzipped.getHeaders().getVary());
+        String plainTag = plain.getHeaders().getETag();
+        String gzipTag = gzipped.getHeaders().getETag();
+        assertNotEquals(plainTag, gzipTag);
+        // Either representation's tag revalidates the other
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("large", names, null, gzipTag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("large", names, "gzip", plainTag).getStatusCode());
+        assertEquals(1, renders.get());
+
+        assertFalse(SerializedResponseCache.acceptsGzip("gzip;q=0, identity"));
+        assertTrue(SerializedResponseCache.acceptsGzip("*"));
+        // Small bodies are never compressed
+        assertNull(respond("small", List.of("Mouse"), "gzip", null).getHeaders()
+                .getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("Should keep the most recently used entries")
+    void testEviction() {
+        respond("a", List.of("a"), null, null);
+        respond("b", List.of("b"), null, null);
+        respond("a", List.of("a"), null, null);
+        respond("c", List.of("c"), null, null);
+        assertEquals(3, renders.get());
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2, stats.get("entries"));
+        assertEquals(1L, stats.get("hits"));
+
+        respond("a", List.of("a"), null, null);
+        assertEquals(3, renders.get());
+        respond("b", List.of("b"), null, null);
+        assertEquals(4, renders.get());
+    }
+
+    private ResponseEntity<byte[]> respond(String key, List<String> body, String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + key);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return cache.respond(key, catalogVersion::products, request, () -> {
+            renders.incrementAndGet();
+            return List.copyOf(body);
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Single Flight Tests")
+class SingleFlightTest {
+
+    private static final int THREADS = 32;
+
+    @Test
+    @DisplayName("Should run one load for concurrent callers of the same key")
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> flight.load("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "value";
+        }));
+        // Hold the load open until every other caller is waiting on it
+        waitFor(() -> flight.getCoalesced() == THREADS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getLoads());
+
+        // Nothing is kept once the load completed
+        assertEquals("again", flight.load("key", () -> "again"));
+        assertEquals(2, flight.getLoads());
+    }
+
+    @Test
+    @DisplayName("Should fail every waiting caller with the loader's exception, then load afresh")
+    void testFailureReachesAllCallers() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> flight.load("key", () -> {
+            await(release);
+            throw new IllegalStateException("backend down");
+        }));
+        waitFor(() -> flight.getCoalesced() == THREADS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals("recovered", flight.load("key", () -> "recovered"));
+    }
+
+    @Test
+    @DisplayName("Should load different keys independently")
+    void testKeysAreIndependent() {
+        SingleFlight<Integer, Integer> flight = new SingleFlight<>();
+
+        // A load for another key started from inside a load is not mistaken for the same flight
+        int value = flight.load(1, () -> flight.load(2, () -> 20) + 1);
+
+        assertEquals(21, value);
+        assertEquals(2, flight.getLoads());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    private static List<Future<String>> callConcurrently(Callable<String> call) {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(call));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for concurrent callers");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Space-Saving Tests")
+class SpaceSavingTest {
+
+    @Test
+    @DisplayName("Should count exactly while items fit, and bound every estimate once they do not")
+    void testBounds() {
+        SpaceSaving exact = new SpaceSaving(8);
+        for (long item = 1; item <= 5; item++) {
+            for (int i = 0; i < item; i++) {
+                exact.add(item, 1);
+            }
+        }
+        List<SpaceSaving.Counter> top = exact.top(3);
+        assertEquals(List.of(new SpaceSaving.Counter(5, 5, 0), new SpaceSaving.Counter(4, 4, 0),
+                new SpaceSaving.Counter(3, 3, 0)), top);
+        assertEquals(5, exact.top(10).size());
+
+        SpaceSaving summary = new SpaceSaving(64);
+        Map<Long, Integer> counts = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            // Half the stream is 20 heavy items, the rest spread over 10 000
+            long item = random.nextBoolean() ? random.nextInt(20) : 1_000 + random.nextInt(10_000);
+            summary.add(item, 1);
+            counts.merge(item, 1, Integer::sum);
+        }
+        assertEquals(50_000, summary.total(), 1e-6);
+        for (SpaceSaving.Counter counter : summary.top(64)) {
+            int actual = counts.get(counter.item());
+            assertTrue(counter.count() >= actual, "never underestimates");
+            assertTrue(counter.count() - counter.error() <= actual, "overestimates by at most the error");
+            assertTrue(counter.error() <= summary.total() / summary.capacity());
+        }
+        // Every item above total / capacity has a counter
+        List<Long> heavy = summary.top(20).stream().map(SpaceSaving.Counter::item).sorted().toList();
+        assertEquals(LongStream.range(0, 20).boxed().toList(), heavy);
+    }
+
+    @Test
+    @DisplayName("Should keep the order when scaled")
+    void testScale() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add(1, 3);
+        summary.add(2, 1.5);
+        summary.scale(0.5);
+        assertEquals(List.of(new SpaceSaving.Counter(1, 1.5, 0), new SpaceSaving.Counter(2, 0.75, 0)),
+                summary.top(2));
+        assertEquals(2.25, summary.total(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+    }
+}
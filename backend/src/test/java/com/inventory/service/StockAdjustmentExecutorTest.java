@@ -0,0 +1,155 @@
+package com.inventory.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.service.AvailableStockCache;
+import com.inventory.storefront.service.CartReservationService;
+import com.inventory.storefront.service.CartResolver;
+import com.inventory.storefront.service.StockReservationEngine;
+import com.inventory.storefront.service.StorefrontService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = "inventory.stock-adjustment.max-attempts=100")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ StockAdjustmentExecutor.class, ProductService.class, StripedStockService.class, StorefrontService.class,
+        StockReservationEngine.class, CartResolver.class, CartReservationService.class, AvailableStockCache.class,
+        ProductCache.class, ProductSearchIndex.class, ProductSuggester.class, ProductFacetIndex.class,
+        ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Stock Adjustment Executor Tests")
+class StockAdjustmentExecutorTest {
+
+    // Read by the suggester's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StockAdjustmentExecutor stockAdjustmentExecutor;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should not lose concurrent admin adjustments of one SKU")
+    void testConcurrentAdjustmentsAreNotLost() throws Exception {
+        Product product = productRepository.save(product("ADJ-001", 10));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 160; i++) {
+            futures.add(executor.submit(() -> productService.updateInventory(product.getId(), 1)));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(170, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+
+        Map<String, Object> contention = contentionOf("ADJ-001");
+        long attempts = (Long) contention.get("attempts");
+        long conflicts = (Long) contention.get("conflicts");
+        assertEquals(160 + conflicts, attempts);
+        assertEquals(conflicts, contention.get("retries"));
+        assertEquals(0L, contention.get("exhausted"));
+    }
+
+    @Test
+    @DisplayName("Should not lose checkouts that land between an adjustment's read and its save")
+    void testAdjustmentsDoNotOverwriteCheckouts() throws Exception {
+        Product product = productRepository.save(product("ADJ-002", 100));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(executor.submit(() -> storefrontService.createOrder(order(product.getId(), 1))));
+            if (i % 2 == 0) {
+                futures.add(executor.submit(() -> productService.updateInventory(product.getId(), 5)));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(100, orderRepository.count());
+        assertEquals(100 + 50 * 5 - 100, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should bump the version on every save and stock change")
+    void testVersionAdvances() {
+        Product product = productRepository.save(product("ADJ-003", 10));
+        long initial = product.getVersion();
+
+        productService.updateInventory(product.getId(), 5);
+        storefrontService.createOrder(order(product.getId(), 1));
+
+        Product after = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(initial + 2, after.getVersion());
+        assertEquals(14, after.getQuantity());
+    }
+
+    private Map<String, Object> contentionOf(String sku) {
+        return stockAdjustmentExecutor.getContention().stream()
+                .filter(row -> sku.equals(row.get("sku")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static OrderRequest order(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item));
+        request.setCustomerEmail("test@example.com");
+        return request;
+    }
+}
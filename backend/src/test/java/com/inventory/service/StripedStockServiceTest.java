@@ -0,0 +1,219 @@
+package com.inventory.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.model.Product;
+import com.inventory.model.StockBucket;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockBucketRepository;
+import com.inventory.repository.jpa.StockReservationRepository;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.ReservationResponse;
+import com.inventory.storefront.service.AvailableStockCache;
+import com.inventory.storefront.service.CartReservationService;
+import com.inventory.storefront.service.CartResolver;
+import com.inventory.storefront.service.StockReservationEngine;
+import com.inventory.storefront.service.StorefrontService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ StripedStockService.class, ProductService.class, StockAdjustmentExecutor.class, StorefrontService.class,
+        StockReservationEngine.class, CartResolver.class, CartReservationService.class, AvailableStockCache.class,
+        ProductCache.class, ProductSearchIndex.class, ProductSuggester.class, ProductFacetIndex.class,
+        ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Striped Stock Service Tests")
+class StripedStockServiceTest {
+
+    // Read by the suggester's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockBucketRepository bucketRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private CartReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        bucketRepository.deleteAll();
+        productRepository.deleteAll();
+        stripedStockService.refresh();
+    }
+
+    @Test
+    @DisplayName("Should spread stock over the buckets while reads still see the total")
+    void testStripingKeepsTotals() {
+        Product product = productRepository.save(product("HOT-001", 100));
+
+        Product striped = stripedStockService.stripe(product.getId(), 4);
+
+        assertEquals(100, striped.getQuantity());
+        assertEquals(100, striped.getStripedQuantity());
+        assertEquals(List.of(25, 25, 25, 25), bucketQuantities(product));
+        assertTrue(productService.isInStock(product.getId()));
+        assertEquals(100, storefrontService.getProducts(PageRequest.of(0, 10)).getContent().get(0).getQuantity());
+
+        Product unstriped = stripedStockService.unstripe(product.getId());
+        assertEquals(100, unstriped.getQuantity());
+        assertEquals(0, unstriped.getStripedQuantity());
+        assertTrue(bucketRepository.findByProductIdOrderByBucket(product.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should never oversell a striped SKU under parallel checkouts")
+    void testParallelCheckoutsNeverOversell() throws Exception {
+        Product product = productRepository.save(product("HOT-002", 200));
+        stripedStockService.stripe(product.getId(), 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(executor.submit(() -> storefrontService.createOrder(order(product.getId(), 1))));
+        }
+        int placed = 0;
+        int rejected = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                placed++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientStockException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(200, placed);
+        assertEquals(100, rejected);
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+
+        stripedStockService.rebalanceAll();
+        assertFalse(productService.isInStock(product.getId()));
+        assertEquals("OUT_OF_STOCK", productRepository.findById(product.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should gather a line no single bucket can cover")
+    void testLargeLineIsGatheredAcrossBuckets() {
+        Product product = productRepository.save(product("HOT-004", 40));
+        stripedStockService.stripe(product.getId(), 4);
+
+        storefrontService.createOrder(order(product.getId(), 25));
+        assertEquals(15, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+
+        assertThrows(InsufficientStockException.class, () -> storefrontService.createOrder(order(product.getId(), 16)));
+        assertEquals(15, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should apply admin stock adjustments to the total of a striped product")
+    void testUpdateInventoryOnStripedProduct() {
+        Product product = productRepository.save(product("HOT-003", 40));
+        stripedStockService.stripe(product.getId(), 4);
+        for (int i = 0; i < 5; i++) {
+            storefrontService.createOrder(order(product.getId(), 2));
+        }
+
+        Product updated = productService.updateInventory(product.getId(), 10);
+        assertEquals(40, updated.getQuantity());
+        assertEquals(40, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+
+        // Restocked units sit in the product row until the rebalancer spreads them out
+        stripedStockService.rebalanceAll();
+        assertEquals(List.of(10, 10, 10, 10), bucketQuantities(product));
+        assertEquals(40, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should hold a striped SKU by moving only the missing units out of the buckets")
+    void testReservationTopsUpTheBank() {
+        Product product = productRepository.save(product("HOT-005", 40));
+        stripedStockService.stripe(product.getId(), 4);
+
+        ReservationResponse reservation = reservationService.reserve(List.of(item(product.getId(), 12)));
+        assertEquals(List.of(0, 8, 10, 10), bucketQuantities(product));
+        Product held = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(40, held.getQuantity());
+        assertEquals(12, held.getReservedQuantity());
+
+        OrderRequest request = order(product.getId(), 12);
+        request.setReservationId(reservation.getReservationId());
+        storefrontService.createOrder(request);
+        Product sold = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(28, sold.getQuantity());
+        assertEquals(0, sold.getReservedQuantity());
+        assertEquals(List.of(0, 8, 10, 10), bucketQuantities(product));
+
+        assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserve(List.of(item(product.getId(), 29))));
+        assertEquals(List.of(0, 8, 10, 10), bucketQuantities(product));
+    }
+
+    private List<Integer> bucketQuantities(Product product) {
+        return bucketRepository.findByProductIdOrderByBucket(product.getId()).stream()
+                .map(StockBucket::getQuantity)
+                .toList();
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderRequest order(Long productId, int quantity) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item(productId, quantity)));
+        request.setCustomerEmail("test@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.entity.UserActivityLog;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Unique Viewers Tests")
+class UniqueViewersTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private UniqueViewers uniqueViewers;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class)).thenReturn(bulk);
+        uniqueViewers = new UniqueViewers(mongoTemplate, mock(ProductCache.class), true, 12);
+    }
+
+    @Test
+    @DisplayName("Should merge new viewers into the stored sketch only if it is unchanged, retrying a lost race")
+    void testFlush() {
+        HyperLogLog stored = new HyperLogLog(12);
+        for (int i = 0; i < 1_000; i++) {
+            stored.add("user-" + i);
+        }
+        InventoryAnalytics analytics = new InventoryAnalytics();
+        analytics.setProductId(1L);
+        analytics.setViewerSketch(stored.toBytes());
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class))).thenReturn(List.of(analytics));
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+
+        // 500 new viewers, 500 already counted, one view without a user
+        List<UserActivityLog> views = new ArrayList<>();
+        for (int i = 500; i < 1_500; i++) {
+            views.add(view(1L, "user-" + i));
+        }
+        views.add(view(1L, null));
+        uniqueViewers.record(views);
+        assertEquals(1_000L, uniqueViewers.getStats().get("recorded"));
+
+        uniqueViewers.flush();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).updateOne(query.capture(), update.capture());
+        assertArrayEquals(stored.toBytes(), (byte[]) query.getValue().getQueryObject().get("viewerSketch"));
+        byte[] written = (byte[]) ((Document) update.getValue().getUpdateObject().get("$set"))
+                .get("viewerSketch");
+        long estimate = UniqueViewers.estimate(written);
+        assertEquals(1_500, estimate, 1_500 * 3 * HyperLogLog.standardError(12));
+        // Nothing matched: another node wrote first, so the viewers are merged again next time
+        assertEquals(1L, uniqueViewers.getStats().get("conflicts"));
+        assertEquals(1, uniqueViewers.getStats().get("pendingProducts"));
+
+        reset(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        uniqueViewers.flush();
+        verify(bulk).updateOne(any(Query.class), any(Update.class));
+        assertEquals(0, uniqueViewers.getStats().get("pendingProducts"));
+    }
+
+    @Test
+    @DisplayName("Should merge with a sketch stored under another precision at the lower one")
+    void testPrecisionChange() {
+        HyperLogLog stored = new HyperLogLog(14);
+        for (int i = 0; i < 1_000; i++) {
+            stored.add("user-" + i);
+        }
+        InventoryAnalytics analytics = new InventoryAnalytics();
+        analytics.setProductId(1L);
+        analytics.setViewerSketch(stored.toBytes());
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class))).thenReturn(List.of(analytics));
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        List<UserActivityLog> views = new ArrayList<>();
+        for (int i = 1_000; i < 2_000; i++) {
+            views.add(view(1L, "user-" + i));
+        }
+        uniqueViewers.record(views);
+        uniqueViewers.flush();
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).updateOne(any(Query.class), update.capture());
+        byte[] written = (byte[]) ((Document) update.getValue().getUpdateObject().get("$set"))
+                .get("viewerSketch");
+        assertEquals(12, HyperLogLog.fromBytes(written).precision());
+        assertEquals(2_000, UniqueViewers.estimate(written), 2_000 * 3 * HyperLogLog.standardError(12));
+        assertEquals(0L, uniqueViewers.getStats().get("failedFlushes"));
+        assertEquals(0, uniqueViewers.getStats().get("pendingProducts"));
+
+        // A category of sketches at 14 and 10, with 12 configured, is estimated at 10
+        HyperLogLog coarse = new HyperLogLog(10);
+        for (int i = 1_000; i < 3_000; i++) {
+            coarse.add("user-" + i);
+        }
+        InventoryAnalytics other = new InventoryAnalytics();
+        other.setViewerSketch(coarse.toBytes());
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class))).thenReturn(List.of(analytics, other));
+        Map<String, Object> category = uniqueViewers.category("Electronics");
+        assertEquals(HyperLogLog.standardError(10), category.get("standardError"));
+        assertEquals(3_000, (Long) category.get("uniqueViewers"), 3_000 * 3 * HyperLogLog.standardError(10));
+    }
+
+    @Test
+    @DisplayName("Should estimate a category from the union of its products' sketches")
+    void testCategory() {
+        List<InventoryAnalytics> products = new ArrayList<>();
+        for (int product = 0; product < 3; product++) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            // Overlapping audiences: 2 000 viewers each, 4 000 in all
+            for (int i = product * 1_000; i < product * 1_000 + 2_000; i++) {
+                sketch.add("user-" + i);
+            }
+            InventoryAnalytics analytics = new InventoryAnalytics();
+            analytics.setViewerSketch(sketch.toBytes());
+            products.add(analytics);
+        }
+        products.add(new InventoryAnalytics());
+        when(mongoTemplate.find(any(Query.class), eq(InventoryAnalytics.class))).thenReturn(products);
+
+        Map<String, Object> category = uniqueViewers.category("Electronics");
+        assertEquals(4, category.get("products"));
+        assertEquals(4_000, (Long) category.get("uniqueViewers"), 4_000 * 3 * HyperLogLog.standardError(12));
+        assertNull(UniqueViewers.estimate(null));
+    }
+
+    private static UserActivityLog view(long productId, String userId) {
+        UserActivityLog event = new UserActivityLog();
+        event.setAction("PRODUCT_VIEW");
+        event.setProductId(productId);
+        event.setUserId(userId);
+        return event;
+    }
+}
@@ -0,0 +1,133 @@
+package com.inventory.service;
+
+import com.inventory.entity.InventoryAnalytics;
+import com.inventory.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("View Counter Tests")
+class ViewCounterTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private ProductSuggester productSuggester;
+    private ViewCounter viewCounter;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryAnalytics.class)).thenReturn(bulk);
+        ProductCache productCache = mock(ProductCache.class);
+        when(productCache.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(product(invocation.getArgument(0))));
+        when(productCache.findById(99L)).thenReturn(Optional.empty());
+        productSuggester = mock(ProductSuggester.class);
+        viewCounter = new ViewCounter(mongoTemplate, productCache, productSuggester, new CatalogVersion(), true);
+    }
+
+    @Test
+    @DisplayName("Should add concurrent views up and write them as one bulk of $inc per product")
+    void testFlushAggregates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    viewCounter.record(1L + i % 3);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(8_000L, viewCounter.getStats().get("pendingViews"));
+        assertEquals(3L, viewCounter.getStats().get("pendingProducts"));
+        verifyNoInteractions(mongoTemplate);
+
+        viewCounter.flush();
+
+        Map<Long, Long> increments = increments(3);
+        assertEquals(Map.of(1L, 2_672L, 2L, 2_664L, 3L, 2_664L), increments);
+        verify(bulk).execute();
+        verify(productSuggester).recordView(1L, 2_672L);
+        assertEquals(0L, viewCounter.getStats().get("pendingViews"));
+        assertEquals(0L, viewCounter.getStats().get("lagMs"));
+        assertEquals(8_000L, viewCounter.getStats().get("flushed"));
+
+        // Nothing counted since: no write at all
+        viewCounter.flush();
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(InventoryAnalytics.class));
+    }
+
+    @Test
+    @DisplayName("Should keep counts pending when the write fails and drain them on shutdown")
+    void testFailureAndDrain() {
+        viewCounter.record(1L);
+        viewCounter.record(1L);
+        viewCounter.record(99L);
+        when(bulk.execute()).thenThrow(new IllegalStateException("Mongo is down"));
+        viewCounter.flush();
+        assertEquals(3L, viewCounter.getStats().get("pendingViews"));
+        assertEquals(1L, viewCounter.getStats().get("failedFlushes"));
+        verifyNoInteractions(productSuggester);
+
+        reset(bulk);
+        viewCounter.record(1L);
+        viewCounter.drain();
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).upsert(any(Query.class), updates.capture());
+        assertEquals(3L, ((Document) updates.getValue().getUpdateObject().get("$inc")).get("totalViewCount"));
+        assertEquals("SKU-1", ((Document) updates.getValue().getUpdateObject().get("$setOnInsert")).get("sku"));
+        // The deleted product is only counted if its analytics are still there
+        verify(bulk).updateOne(any(Query.class), any(Update.class));
+        assertEquals(0L, viewCounter.getStats().get("pendingViews"));
+    }
+
+    private Map<Long, Long> increments(int products) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(products)).upsert(queries.capture(), updates.capture());
+        Map<Long, Long> increments = new HashMap<>();
+        for (int i = 0; i < products; i++) {
+            Long productId = (Long) queries.getAllValues().get(i).getQueryObject().get("productId");
+            Document inc = (Document) updates.getAllValues().get(i).getUpdateObject().get("$inc");
+            increments.put(productId, (Long) inc.get("totalViewCount"));
+        }
+        return increments;
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setSku("SKU-" + id);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(5);
+        return product;
+    }
+}
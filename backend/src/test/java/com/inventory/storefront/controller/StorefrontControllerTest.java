@@ -0,0 +1,69 @@
+package com.inventory.storefront.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.dto.ProductPage;
+import com.inventory.dto.ProductView;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductPager;
+import com.inventory.service.SerializedResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Storefront Controller Tests")
+class StorefrontControllerTest {
+
+    private ProductPager productPager;
+    private CatalogVersion catalogVersion;
+    private StorefrontController controller;
+
+    @BeforeEach
+    void setUp() {
+        productPager = mock(ProductPager.class);
+        catalogVersion = new CatalogVersion();
+        controller = new StorefrontController(null, null, null, null, null, null, productPager, null,
+                new SerializedResponseCache(new ObjectMapper(), true, 16), catalogVersion);
+        doReturn(new ProductPage<>(List.of("Mouse", "Keyboard"), true, "cursor-2", null))
+                .when(productPager).page(isNull(), eq(100), isNull(), eq(false), any(ProductView.class));
+    }
+
+    @Test
+    @DisplayName("Should serve keyset pages pre-serialized, with a 304 on a matching ETag")
+    void testKeysetPageIsCached() {
+        ResponseEntity<?> first = keysetPage(null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(new String((byte[]) first.getBody()).contains("\"nextCursor\":\"cursor-2\""));
+
+        ResponseEntity<?> repeated = keysetPage(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, repeated.getStatusCode());
+        assertNull(repeated.getBody());
+        verify(productPager, times(1)).page(any(), any(), any(), anyBoolean(), any());
+
+        // Rendered again once a product changes
+        catalogVersion.productsChanged();
+        assertEquals(HttpStatus.NOT_MODIFIED, keysetPage(etag).getStatusCode());
+        verify(productPager, times(2)).page(any(), any(), any(), anyBoolean(), any());
+    }
+
+    private ResponseEntity<?> keysetPage(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/storefront/products");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return controller.getProducts(PageRequest.of(0, 20), null, 100, null, false, "summary", request);
+    }
+}
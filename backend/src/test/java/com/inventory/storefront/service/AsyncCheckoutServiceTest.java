@@ -0,0 +1,162 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Order;
+import com.inventory.model.OrderStatus;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import com.inventory.storefront.dto.ReservationResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(showSql = false, properties = {
+        "storefront.async-checkout.enabled=true",
+        "storefront.async-checkout.max-attempts=2" })
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ AsyncCheckoutService.class, StorefrontService.class, StockReservationEngine.class, CartResolver.class,
+        CartReservationService.class, AvailableStockCache.class, StripedStockService.class, ProductCache.class,
+        JacksonAutoConfiguration.class, ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Async Checkout Service Tests")
+class AsyncCheckoutServiceTest {
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @SpyBean
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private AsyncCheckoutService asyncCheckoutService;
+
+    @Autowired
+    private CartReservationService cartReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Should accept orders as PENDING and move them to CONFIRMED or CANCELLED")
+    void testAcceptedOrdersAreDecided() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product product = productRepository.save(product("ASYNC-001", 3));
+
+        OrderResponse first = asyncCheckoutService.accept(order(item(product.getId(), 2)));
+        OrderResponse second = asyncCheckoutService.accept(order(item(product.getId(), 2)));
+        assertEquals(OrderStatus.PENDING, first.getStatus());
+        assertNotNull(first.getId());
+
+        OrderResponse firstDecided = asyncCheckoutService.awaitDecision(first.getId(), 10_000)
+                .get(15, TimeUnit.SECONDS);
+        OrderResponse secondDecided = asyncCheckoutService.awaitDecision(second.getId(), 10_000)
+                .get(15, TimeUnit.SECONDS);
+
+        // Workers run in parallel, so either order may be the one that gets the stock
+        OrderResponse confirmed = firstDecided.getStatus() == OrderStatus.CONFIRMED ? firstDecided : secondDecided;
+        OrderResponse cancelled = confirmed == firstDecided ? secondDecided : firstDecided;
+        assertEquals(OrderStatus.CONFIRMED, confirmed.getStatus(), confirmed.getStatusReason());
+        assertEquals(new BigDecimal("19.98"), confirmed.getTotalAmount());
+        assertEquals(1, confirmed.getItems().size());
+        assertEquals(OrderStatus.CANCELLED, cancelled.getStatus());
+        assertTrue(cancelled.getStatusReason().startsWith("Insufficient stock"));
+        assertEquals(1, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+        assertNull(orderRepository.findById(confirmed.getId()).orElseThrow().getCheckoutRequest());
+    }
+
+    @Test
+    @DisplayName("Should not keep a waiter for an order that does not exist")
+    void testAwaitingUnknownOrderLeavesNoWaiter() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> asyncCheckoutService.awaitDecision(Long.MAX_VALUE, 10_000));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+
+        Map<?, ?> waiters = (Map<?, ?>) ReflectionTestUtils.getField(asyncCheckoutService, "waiters");
+        assertFalse(waiters.containsKey(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Should mark an order FAILED after max-attempts failures and release its reservation")
+    void testRepeatedFailureFailsTheOrder() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product product = productRepository.save(product("ASYNC-002", 5));
+        ReservationResponse reservation = cartReservationService.reserve(List.of(item(product.getId(), 2)));
+        doThrow(new CannotAcquireLockException("Lock wait timeout exceeded"))
+                .when(storefrontService).fulfil(any(), any());
+        OrderRequest request = order(item(product.getId(), 2));
+        request.setReservationId(reservation.getReservationId());
+
+        OrderResponse accepted = asyncCheckoutService.accept(request);
+        // The first attempt leaves it PENDING; the recovery scan makes the second one, which gives up
+        OrderResponse decided = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (decided == null || decided.getStatus() == OrderStatus.PENDING) {
+            assertTrue(System.nanoTime() < deadline, "order was never given up on");
+            asyncCheckoutService.recoverPendingOrders();
+            decided = asyncCheckoutService.awaitDecision(accepted.getId(), 200).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(OrderStatus.FAILED, decided.getStatus());
+        assertNotNull(decided.getStatusReason());
+        Order stored = orderRepository.findById(accepted.getId()).orElseThrow();
+        assertEquals(2, stored.getCheckoutAttempts());
+        assertNull(stored.getCheckoutRequest());
+        Product after = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(0, after.getReservedQuantity());
+        assertEquals(5, after.getQuantity());
+        verify(storefrontService, times(2)).fulfil(any(), any());
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderRequest order(OrderItemRequest... items) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(items));
+        request.setCustomerEmail("test@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,220 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.model.Product;
+import com.inventory.model.ReservationStatus;
+import com.inventory.model.StockReservation;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.repository.jpa.StockReservationRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import com.inventory.storefront.dto.ReservationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = "storefront.reservations.sweep-batch-size=50")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ CartReservationService.class, StorefrontService.class, StockReservationEngine.class,
+        CartResolver.class, AvailableStockCache.class, StripedStockService.class, ProductCache.class,
+        ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Cart Reservation Service Tests")
+class CartReservationServiceTest {
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CartReservationService reservationService;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should keep held stock away from other shoppers and sell it to the reserving order")
+    void testReservedStockIsSoldOnlyToItsOrder() {
+        Product product = productRepository.save(product("HOLD-001", 5));
+
+        ReservationResponse reservation = reservationService.reserve(List.of(item(product.getId(), 5)));
+        assertEquals(ReservationStatus.ACTIVE, reservation.getStatus());
+        assertEquals(0, reload(product).getAvailableQuantity());
+
+        assertThrows(InsufficientStockException.class,
+                () -> storefrontService.createOrder(order(null, item(product.getId(), 1))));
+
+        OrderResponse placed = storefrontService.createOrder(order(reservation.getReservationId(),
+                item(product.getId(), 5)));
+        assertNotNull(placed.getId());
+
+        Product after = reload(product);
+        assertEquals(0, after.getQuantity());
+        assertEquals(0, after.getReservedQuantity());
+        assertEquals("OUT_OF_STOCK", after.getStatus());
+        assertEquals(ReservationStatus.CONFIRMED,
+                reservationService.getReservation(reservation.getReservationId()).getStatus());
+
+        // A confirmed reservation cannot be spent twice
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> storefrontService.createOrder(order(reservation.getReservationId(),
+                        item(product.getId(), 5))));
+        assertEquals(409, ex.getStatusCode().value());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject an order whose items differ from its reservation")
+    void testMismatchedOrderIsRejected() {
+        Product product = productRepository.save(product("HOLD-002", 10));
+        ReservationResponse reservation = reservationService.reserve(List.of(item(product.getId(), 3)));
+
+        assertThrows(ResponseStatusException.class,
+                () -> storefrontService.createOrder(order(reservation.getReservationId(),
+                        item(product.getId(), 4))));
+
+        Product after = reload(product);
+        assertEquals(10, after.getQuantity());
+        assertEquals(3, after.getReservedQuantity());
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should give stock back on release, once")
+    void testReleaseIsIdempotent() {
+        Product product = productRepository.save(product("HOLD-003", 10));
+        ReservationResponse reservation = reservationService.reserve(List.of(item(product.getId(), 4)));
+
+        assertEquals(ReservationStatus.RELEASED,
+                reservationService.release(reservation.getReservationId()).getStatus());
+        assertEquals(ReservationStatus.RELEASED,
+                reservationService.release(reservation.getReservationId()).getStatus());
+        assertEquals(0, reload(product).getReservedQuantity());
+        assertEquals(10, reload(product).getAvailableQuantity());
+    }
+
+    @Test
+    @DisplayName("Should release expired holds in batches and refuse to confirm them")
+    void testSweeperExpiresOverdueHolds() {
+        Product first = productRepository.save(product("HOLD-004", 100));
+        Product second = productRepository.save(product("HOLD-005", 100));
+        List<String> reservationIds = new ArrayList<>();
+        for (int i = 0; i < 99; i++) {
+            reservationIds.add(reservationService.reserve(List.of(item(first.getId(), 1), item(second.getId(), 1)))
+                    .getReservationId());
+        }
+        ReservationResponse live = reservationService.reserve(List.of(item(first.getId(), 1)));
+        List<StockReservation> overdue = new ArrayList<>();
+        for (String reservationId : reservationIds) {
+            for (StockReservation line : reservationRepository.findByReservationIdOrderByProductId(reservationId)) {
+                line.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+                overdue.add(line);
+            }
+        }
+        reservationRepository.saveAll(overdue);
+
+        assertEquals(overdue.size(), reservationService.releaseExpired());
+        assertEquals(0, reservationService.releaseExpired());
+
+        assertEquals(1, reload(first).getReservedQuantity());
+        assertEquals(0, reload(second).getReservedQuantity());
+        assertEquals(ReservationStatus.ACTIVE, reservationService.getReservation(live.getReservationId()).getStatus());
+        assertThrows(ResponseStatusException.class,
+                () -> storefrontService.createOrder(order(reservationIds.get(0),
+                        item(first.getId(), 1), item(second.getId(), 1))));
+    }
+
+    @Test
+    @DisplayName("Should never hold more than is on hand under concurrent reservations")
+    void testConcurrentReservationsNeverOverHold() throws Exception {
+        Product product = productRepository.save(product("HOLD-006", 20));
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<ReservationResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            futures.add(executor.submit(() -> reservationService.reserve(List.of(item(product.getId(), 1)))));
+        }
+        int held = 0;
+        int rejected = 0;
+        for (Future<ReservationResponse> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                held++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientStockException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(20, held);
+        assertEquals(40, rejected);
+        assertEquals(20, reload(product).getReservedQuantity());
+        assertEquals(20, reload(product).getQuantity());
+    }
+
+    private Product reload(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow();
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderRequest order(String reservationId, OrderItemRequest... items) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(items));
+        request.setCustomerEmail("test@example.com");
+        request.setReservationId(reservationId);
+        return request;
+    }
+}
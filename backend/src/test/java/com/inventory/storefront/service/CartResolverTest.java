@@ -0,0 +1,86 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.storefront.dto.OrderItemRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Cart Resolver Tests")
+class CartResolverTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private CartResolver cartResolver;
+
+    private Product laptop;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        laptop = product(1L, "Laptop Pro", "1299.99", 5);
+        mouse = product(2L, "Wireless Mouse", "29.99", 200);
+    }
+
+    @Test
+    @DisplayName("Should load the whole cart with one query and merge duplicate lines")
+    void testResolveMergesDuplicatesWithOneQuery() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop, mouse));
+
+        ResolvedCart cart = cartResolver.resolve(List.of(item(2L, 1), item(1L, 2), item(2L, 3)));
+
+        assertTrue(cart.isValid());
+        assertEquals(2, cart.getLines().size());
+        assertEquals(1L, cart.getLines().get(0).getProductId());
+        assertEquals(4, cart.getQuantities().get(2L));
+        assertEquals(new BigDecimal("2719.94"), cart.getTotalAmount());
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should flag missing products, short stock and stale prices")
+    void testResolveFlagsIssues() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(laptop, mouse));
+        OrderItemRequest stalePrice = item(2L, 1);
+        stalePrice.setPrice(new BigDecimal("19.99"));
+
+        ResolvedCart cart = cartResolver.resolve(List.of(item(1L, 6), stalePrice, item(99L, 1)));
+
+        assertFalse(cart.isValid());
+        assertEquals(ResolvedCart.Issue.INSUFFICIENT_STOCK, cart.getLines().get(0).getIssue());
+        assertEquals(ResolvedCart.Issue.PRICE_CHANGED, cart.getLines().get(1).getIssue());
+        assertEquals(ResolvedCart.Issue.PRODUCT_NOT_FOUND, cart.getLines().get(2).getIssue());
+    }
+
+    private static Product product(Long id, String name, String price, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
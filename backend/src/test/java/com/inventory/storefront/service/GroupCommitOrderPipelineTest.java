@@ -0,0 +1,174 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(showSql = false, properties = {
+        "storefront.group-commit.enabled=true",
+        "storefront.group-commit.batch-size=16",
+        "storefront.group-commit.max-wait-ms=20" })
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ GroupCommitOrderPipeline.class, StorefrontService.class, StockReservationEngine.class,
+        CartResolver.class, CartReservationService.class, AvailableStockCache.class, StripedStockService.class,
+        ProductCache.class, ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Group Commit Order Pipeline Tests")
+class GroupCommitOrderPipelineTest {
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private GroupCommitOrderPipeline pipeline;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Should commit good orders and fail bad ones independently within a batch")
+    void testFailuresDoNotFailTheBatch() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product scarce = productRepository.save(product("SCARCE-001", 100));
+        Product plenty = productRepository.save(product("PLENTY-001", 10_000));
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            OrderRequest request = switch (i % 3) {
+                case 0 -> order(item(plenty.getId(), 1), item(scarce.getId(), 1));
+                case 1 -> order(item(plenty.getId(), 2));
+                default -> order(item(plenty.getId(), 1), item(-1L, 1));
+            };
+            futures.add(pipeline.submit(request));
+        }
+
+        int placed = 0;
+        int shortStock = 0;
+        int notFound = 0;
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                placed++;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InsufficientStockException) {
+                    shortStock++;
+                } else if (e.getCause() instanceof ResponseStatusException) {
+                    notFound++;
+                } else {
+                    fail(e.getCause());
+                }
+            }
+        }
+
+        assertEquals(100 + 100, placed);
+        assertEquals(0, shortStock);
+        assertEquals(100, notFound);
+        assertEquals(200, orderRepository.count());
+        assertEquals(0, productRepository.findById(scarce.getId()).orElseThrow().getQuantity());
+        // 100 mixed orders take 1 each, 100 single-line orders take 2 each
+        assertEquals(10_000 - 100 - 200, productRepository.findById(plenty.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should put back stock of a partially reserved order when a later line is short")
+    void testShortLineReleasesEarlierLines() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product first = productRepository.save(product("FIRST-001", 10));
+        Product second = productRepository.save(product("SECOND-001", 0));
+
+        CompletableFuture<?> rejected = pipeline.submit(order(item(first.getId(), 1), item(second.getId(), 1)));
+        CompletableFuture<?> accepted = pipeline.submit(order(item(first.getId(), 1)));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rejected.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientStockException.class, ex.getCause());
+        assertNotNull(accepted.get(30, TimeUnit.SECONDS));
+        assertEquals(9, productRepository.findById(first.getId()).orElseThrow().getQuantity());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should answer 503 when a batch takes too long, skip it, and fail what is queued at shutdown")
+    void testTimeoutAndShutdown() throws Exception {
+        StorefrontService storefront = mock(StorefrontService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(storefront.placeOrder(any())).thenAnswer(invocation -> {
+            release.await(30, TimeUnit.SECONDS);
+            return new OrderResponse();
+        });
+        GroupCommitOrderPipeline slow = new GroupCommitOrderPipeline(storefront, mock(ProductRepository.class),
+                mock(StripedStockService.class), mock(PlatformTransactionManager.class), true, 1, 1, 16, 100);
+        slow.start();
+
+        // The writer is stuck on the first order, so the next ones wait in the queue
+        CompletableFuture<OrderResponse> stuck = slow.submit(order(item(1L, 1)));
+        ResponseStatusException timedOut = assertThrows(ResponseStatusException.class,
+                () -> slow.createOrder(order(item(2L, 1))));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+        CompletableFuture<OrderResponse> queued = slow.submit(order(item(3L, 1)));
+
+        slow.stop();
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) failed.getCause()).getStatusCode());
+
+        release.countDown();
+        assertNotNull(stuck.get(30, TimeUnit.SECONDS));
+        // Neither the timed-out order nor the failed one was placed
+        verify(storefront, times(1)).placeOrder(any());
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderRequest order(OrderItemRequest... items) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(items));
+        request.setCustomerEmail("test@example.com");
+        return request;
+    }
+}
@@ -0,0 +1,166 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import com.inventory.storefront.dto.OrderResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ OrderIdempotencyService.class, StorefrontService.class, StockReservationEngine.class,
+        CartResolver.class, CartReservationService.class, AvailableStockCache.class, StripedStockService.class,
+        ProductCache.class, ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Order Idempotency Service Tests")
+class OrderIdempotencyServiceTest {
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderIdempotencyService idempotencyService;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Should place exactly one order for concurrent requests with the same key")
+    void testConcurrentDuplicatesExecuteOnce() throws Exception {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product product = productRepository.save(product("IDEM-001", 100));
+
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<OrderResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                OrderRequest request = order(product.getId(), 2, "retry-key-1");
+                return idempotencyService.execute(request, () -> storefrontService.createOrder(request));
+            }));
+        }
+        start.countDown();
+
+        Long orderId = null;
+        for (Future<OrderResponse> future : futures) {
+            OrderResponse response = future.get(30, TimeUnit.SECONDS);
+            if (orderId == null) {
+                orderId = response.getId();
+            }
+            assertEquals(orderId, response.getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(98, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should answer a retry from the stored key when the response is not cached")
+    void testRetryResolvedFromDatabase() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product product = productRepository.save(product("IDEM-002", 10));
+
+        OrderRequest request = order(product.getId(), 1, "retry-key-2");
+        OrderResponse first = idempotencyService.execute(request, () -> storefrontService.createOrder(request));
+
+        // A second node has never seen the key in memory
+        OrderIdempotencyService otherNode = new OrderIdempotencyService(storefrontService, 10);
+        OrderRequest retry = order(product.getId(), 1, "retry-key-2");
+        OrderResponse retried = otherNode.execute(retry, () -> storefrontService.createOrder(retry));
+
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(1, orderRepository.count());
+        assertEquals(9, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should refuse a key reused for a different request, from memory and from the database")
+    void testRejectsKeyReusedForDifferentRequest() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        Product product = productRepository.save(product("IDEM-003", 10));
+        OrderRequest request = order(product.getId(), 2, "retry-key-3");
+        OrderResponse first = idempotencyService.execute(request, () -> storefrontService.createOrder(request));
+
+        // The same cart split into two lines is still the same request
+        OrderRequest split = order(product.getId(), 1, "retry-key-3");
+        split.setItems(List.of(split.getItems().get(0), order(product.getId(), 1, null).getItems().get(0)));
+        assertEquals(first.getId(), idempotencyService.execute(split, () -> fail("checkout must not run")).getId());
+
+        OrderRequest moreUnits = order(product.getId(), 3, "retry-key-3");
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(moreUnits, () -> fail("checkout must not run")));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+
+        OrderRequest otherCustomer = order(product.getId(), 2, "retry-key-3");
+        otherCustomer.setCustomerEmail("someone-else@example.com");
+        OrderIdempotencyService otherNode = new OrderIdempotencyService(storefrontService, 10);
+        e = assertThrows(ResponseStatusException.class,
+                () -> otherNode.execute(otherCustomer, () -> fail("checkout must not run")));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+
+        assertEquals(1, orderRepository.count());
+        assertEquals(8, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject keys longer than the stored column")
+    void testRejectsOversizedKey() {
+        assertThrows(ResponseStatusException.class, () -> idempotencyService.execute(
+                order(1L, 1, "k".repeat(101)), () -> fail("checkout must not run")));
+    }
+
+    private static OrderRequest order(Long productId, int quantity, String idempotencyKey) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item));
+        request.setCustomerEmail("test@example.com");
+        request.setIdempotencyKey(idempotencyKey);
+        return request;
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventory.storefront.service;
+
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout insert throughput at 1, 10 and 50 items per order.
+ * <p>
+ * Not part of the regular test run (the class name does not match the surefire
+ * includes). Run explicitly, optionally against a real MySQL instance:
+ *
+ * <pre>
+ * mvn test -Dtest=OrderInsertBenchmark
+ * mvn test -Dtest=OrderInsertBenchmark -Dspring.datasource.url=jdbc:mysql://localhost:3307/inventory_db \
+ *     -Dspring.datasource.username=root -Dspring.datasource.password=root123 \
+ *     -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * </pre>
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN" })
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ StorefrontService.class, StockReservationEngine.class, CartResolver.class,
+        CartReservationService.class, AvailableStockCache.class, StripedStockService.class, ProductCache.class,
+        ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderInsertBenchmark {
+
+    private static final int WARMUP_ORDERS = 200;
+    private static final int MEASURED_ORDERS = 1000;
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Orders per second at 1, 10 and 50 items per order")
+    void benchmarkOrderInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        System.out.printf("%-8s %12s %14s %12s%n", "items", "orders/sec", "stmts/order", "ms/order");
+        for (int itemsPerOrder : new int[] { 1, 10, 50 }) {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+            List<Long> productIds = seedProducts(itemsPerOrder);
+
+            run(productIds, WARMUP_ORDERS);
+            statistics.clear();
+            long start = System.nanoTime();
+            run(productIds, MEASURED_ORDERS);
+            long elapsed = System.nanoTime() - start;
+
+            double seconds = elapsed / 1_000_000_000.0;
+            System.out.printf("%-8d %12.0f %14.1f %12.3f%n", itemsPerOrder, MEASURED_ORDERS / seconds,
+                    (double) statistics.getPrepareStatementCount() / MEASURED_ORDERS,
+                    seconds * 1000 / MEASURED_ORDERS);
+        }
+    }
+
+    private List<Long> seedProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName("Bench Product " + i);
+            product.setDescription("Benchmark product");
+            product.setPrice(new BigDecimal("9.99"));
+            product.setQuantity(Integer.MAX_VALUE);
+            product.setSku("BENCH-" + i);
+            product.setCategory("Benchmark");
+            products.add(product);
+        }
+        return productRepository.saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    private void run(List<Long> productIds, int orders) {
+        for (int i = 0; i < orders; i++) {
+            List<OrderItemRequest> items = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                OrderItemRequest item = new OrderItemRequest();
+                item.setProductId(productId);
+                item.setQuantity(1);
+                items.add(item);
+            }
+            OrderRequest request = new OrderRequest();
+            request.setItems(items);
+            request.setCustomerEmail("bench@example.com");
+            storefrontService.createOrder(request);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.inventory.storefront.service;
+
+import com.inventory.exception.InsufficientStockException;
+import com.inventory.model.Product;
+import com.inventory.repository.jpa.OrderRepository;
+import com.inventory.repository.jpa.ProductRepository;
+import com.inventory.service.CatalogVersion;
+import com.inventory.service.ProductCache;
+import com.inventory.service.ProductFacetIndex;
+import com.inventory.service.ProductStats;
+import com.inventory.service.StripedStockService;
+import com.inventory.storefront.dto.OrderItemRequest;
+import com.inventory.storefront.dto.OrderRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventory.TestProducts.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ StorefrontService.class, StockReservationEngine.class, CartResolver.class,
+        CartReservationService.class, AvailableStockCache.class, StripedStockService.class, ProductCache.class,
+        ProductFacetIndex.class, ProductStats.class, CatalogVersion.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Stock Reservation Engine Tests")
+class StockReservationEngineTest {
+
+    private static final int THREADS = 32;
+
+    // Read by the facet index's rebuild
+    @MockBean
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should never oversell a single SKU under thousands of parallel orders")
+    void testParallelOrdersNeverOversell() throws Exception {
+        int stock = 500;
+        int orders = 3000;
+        Product product = productRepository.save(product("HOT-001", stock));
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    storefrontService.createOrder(order(item(product.getId(), 1)));
+                    confirmed.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Product after = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(stock, confirmed.get());
+        assertEquals(orders - stock, rejected.get());
+        assertEquals(0, after.getQuantity());
+        assertEquals("OUT_OF_STOCK", after.getStatus());
+        assertEquals(stock, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should not deadlock when multi-item orders list products in opposite order")
+    void testOppositeItemOrderDoesNotDeadlock() throws Exception {
+        Product a = productRepository.save(product("A-001", 1000));
+        Product b = productRepository.save(product("B-001", 1000));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(pool.submit(() -> storefrontService.createOrder(forward
+                    ? order(item(a.getId(), 1), item(b.getId(), 1))
+                    : order(item(b.getId(), 1), item(a.getId(), 1)))));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(0, productRepository.findById(a.getId()).orElseThrow().getQuantity());
+        assertEquals(0, productRepository.findById(b.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should report the short item and roll back earlier decrements")
+    void testShortItemRollsBackOrder() {
+        Product plenty = productRepository.save(product("PLENTY-001", 10));
+        Product scarce = productRepository.save(product("SCARCE-001", 1));
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> storefrontService.createOrder(order(item(plenty.getId(), 3), item(scarce.getId(), 2))));
+
+        assertEquals(scarce.getId(), ex.getProductId());
+        assertEquals(2, ex.getRequested());
+        assertEquals(1, ex.getAvailable());
+        assertEquals(10, productRepository.findById(plenty.getId()).orElseThrow().getQuantity());
+        assertEquals(0, orderRepository.count());
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderRequest order(OrderItemRequest... items) {
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(items));
+        request.setCustomerEmail("test@example.com");
+        return request;
+    }
+}